@@ -0,0 +1,186 @@
+package com.agentictravel.api;
+
+import com.agentictravel.llm.LLMLoadTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Sheds load before it reaches the agents. From the LLM calls in flight and their recent
+ * latency it predicts when a new request would finish, and refuses it up front when that is
+ * past the request's deadline instead of letting it queue until it times out anyway.
+ * Question requests are cheap (one call) and may use the whole LLM capacity; itineraries
+ * leave {@code reservedForQuestions} calls free so questions keep flowing under load.
+ */
+@Component
+public class AdmissionController {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AdmissionController.class);
+
+    private static final long MAX_RETRY_AFTER_SECONDS = 60;
+    private static final Duration DEFAULT_QUESTIONS_DEADLINE = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_ITINERARY_DEADLINE = Duration.ofSeconds(120);
+
+    /**
+     * Kinds of work and their LLM cost: calls made and rounds of calls that run one after another.
+     */
+    public enum Work {
+        // One clarifying-questions call
+        QUESTIONS(1, 1),
+        // Five searches side by side, then the planner
+        ITINERARY(6, 2);
+
+        final int calls;
+        final int rounds;
+
+        Work(int calls, int rounds) {
+            this.calls = calls;
+            this.rounds = rounds;
+        }
+    }
+
+    private final LLMLoadTracker tracker;
+    private final boolean enabled;
+    private final int capacity;
+    private final int reservedForQuestions;
+    private final Duration questionsDeadline;
+    private final Duration itineraryDeadline;
+    private final long defaultLatencyMillis;
+    private final MeterRegistry meterRegistry;
+    // LLM calls admitted requests are still expected to make; counts work not yet sent
+    private int reservedCalls;
+
+    @Autowired
+    public AdmissionController(LLMLoadTracker tracker,
+                               @Value("${itinerary.admission.enabled:true}") boolean enabled,
+                               @Value("${itinerary.admission.llm-capacity:32}") int capacity,
+                               @Value("${itinerary.admission.reserved-for-questions:4}") int reservedForQuestions,
+                               @Value("${itinerary.admission.questions-deadline-seconds:30}") long questionsDeadlineSeconds,
+                               @Value("${itinerary.admission.itinerary-deadline-seconds:120}") long itineraryDeadlineSeconds,
+                               @Value("${itinerary.admission.default-latency-ms:8000}") long defaultLatencyMillis,
+                               ObjectProvider<MeterRegistry> meterRegistry) {
+        this(tracker, enabled, capacity, reservedForQuestions, Duration.ofSeconds(questionsDeadlineSeconds),
+                Duration.ofSeconds(itineraryDeadlineSeconds), defaultLatencyMillis, meterRegistry.getIfAvailable());
+    }
+
+    public AdmissionController(LLMLoadTracker tracker, boolean enabled, int capacity, int reservedForQuestions,
+                               Duration questionsDeadline, Duration itineraryDeadline, long defaultLatencyMillis,
+                               MeterRegistry meterRegistry) {
+        this.tracker = tracker;
+        this.enabled = enabled;
+        this.capacity = Math.max(capacity, 1);
+        this.reservedForQuestions = Math.min(Math.max(reservedForQuestions, 0), this.capacity - 1);
+        this.questionsDeadline = questionsDeadline;
+        this.itineraryDeadline = itineraryDeadline;
+        this.defaultLatencyMillis = defaultLatencyMillis;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Admits every request; for controllers built without admission control.
+     */
+    public static AdmissionController disabled() {
+        return new AdmissionController(new LLMLoadTracker(), false, 1, 0, DEFAULT_QUESTIONS_DEADLINE,
+                DEFAULT_ITINERARY_DEADLINE, 0, null);
+    }
+
+    /**
+     * How long a request for {@code work} may take; also the limit its async request is given.
+     */
+    public Duration getDeadline(Work work) {
+        return work == Work.QUESTIONS ? questionsDeadline : itineraryDeadline;
+    }
+
+    /**
+     * Decides whether {@code work} may start. An admitted request must call
+     * {@link Admission#release()} when it finishes.
+     */
+    public Admission admit(Work work) {
+        if (!enabled) {
+            return new Admission(work, true, 0);
+        }
+        long latency = tracker.latencyPercentile(50);
+        if (latency < 0) {
+            latency = defaultLatencyMillis;
+        }
+        Duration deadline = getDeadline(work);
+        int usable = work == Work.QUESTIONS ? capacity : capacity - reservedForQuestions;
+        synchronized (this) {
+            // Calls already sent, or calls admitted work will still send, whichever is more
+            int busy = Math.max(tracker.getInFlight(), reservedCalls);
+            long predicted = predictMillis(busy, work, usable, latency);
+            if (predicted > deadline.toMillis()) {
+                long retryAfter = Math.min(MAX_RETRY_AFTER_SECONDS,
+                        Math.max(1, (predicted - deadline.toMillis() + 999) / 1000));
+                LOG.warn("Shedding {} request: predicted {} ms with {} LLM calls busy exceeds {} s deadline",
+                        work, predicted, busy, deadline.toSeconds());
+                if (meterRegistry != null) {
+                    Counter.builder("admission.rejected").tag("work", work.name().toLowerCase())
+                            .register(meterRegistry).increment();
+                }
+                return new Admission(work, false, retryAfter);
+            }
+            reservedCalls += work.calls;
+        }
+        return new Admission(work, true, 0);
+    }
+
+    synchronized int getReservedCalls() {
+        return reservedCalls;
+    }
+
+    /**
+     * Completion time for {@code work} arriving behind {@code busy} calls: the excess over the
+     * usable capacity drains {@code usable} calls per latency period, then the work's own rounds run.
+     */
+    private static long predictMillis(int busy, Work work, int usable, long latency) {
+        int backlog = Math.max(0, busy + work.calls - usable);
+        long queueing = (long) Math.ceil((double) backlog / usable) * latency;
+        return queueing + work.rounds * latency;
+    }
+
+    private synchronized void release(Work work) {
+        reservedCalls = Math.max(0, reservedCalls - work.calls);
+    }
+
+    /**
+     * Outcome of {@link #admit(Work)}; releasing is idempotent and a no-op when refused.
+     */
+    public final class Admission {
+        private final Work work;
+        private final boolean admitted;
+        private final long retryAfterSeconds;
+        private boolean released;
+
+        private Admission(Work work, boolean admitted, long retryAfterSeconds) {
+            this.work = work;
+            this.admitted = admitted;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public boolean isAdmitted() {
+            return admitted;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public void release() {
+            synchronized (this) {
+                if (!admitted || released || !enabled) {
+                    return;
+                }
+                released = true;
+            }
+            AdmissionController.this.release(work);
+        }
+    }
+}
@@ -1,17 +1,44 @@
 package com.agentictravel.api;
 
+import com.agentictravel.config.StreamConfig;
+import com.agentictravel.model.DayPlan;
 import com.agentictravel.model.Itinerary;
+import com.agentictravel.model.ItineraryJob;
 import com.agentictravel.model.TripRequest;
 import com.agentictravel.model.QuestionResponse;
 import com.agentictravel.services.AgentCoordinator;
+import com.agentictravel.services.ItineraryJobService;
+import com.agentictravel.services.ItineraryListener;
+import com.agentictravel.services.JobQueueFullException;
 import com.agentictravel.validation.TripRequestValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/itineraries")
@@ -20,32 +47,95 @@ public class ItineraryController {
 
     private static final Logger LOG = LoggerFactory.getLogger(ItineraryController.class);
     
+    private static final long DEFAULT_KEEPALIVE_SECONDS = 15;
+    private static final long DEFAULT_STREAM_TIMEOUT_SECONDS = 180;
+
+    // Suggested back-off for a client whose job was refused because the queue is full
+    private static final long JOB_RETRY_AFTER_SECONDS = 10;
+    // Head room between the longest long-poll and its async timeout
+    private static final Duration JOB_POLL_TIMEOUT_MARGIN = Duration.ofSeconds(10);
+
     private final AgentCoordinator coordinator;
     private final TripRequestValidator validator;
+    private final ItineraryJobService jobService;
+    private final AdmissionController admission;
+    private final MeterRegistry meterRegistry;
+    private final TaskScheduler keepAlives;
+    private final long keepAliveSeconds;
+    private final long streamTimeoutSeconds;
 
     public ItineraryController(AgentCoordinator coordinator, TripRequestValidator validator) {
+        this(coordinator, validator, new ItineraryJobService(coordinator),
+                DEFAULT_KEEPALIVE_SECONDS, DEFAULT_STREAM_TIMEOUT_SECONDS);
+    }
+
+    public ItineraryController(AgentCoordinator coordinator, TripRequestValidator validator,
+                               ItineraryJobService jobService, long keepAliveSeconds, long streamTimeoutSeconds) {
+        this(coordinator, validator, jobService, AdmissionController.disabled(), (MeterRegistry) null,
+                keepAliveSeconds, streamTimeoutSeconds);
+    }
+
+    @Autowired
+    public ItineraryController(AgentCoordinator coordinator, TripRequestValidator validator,
+                               ItineraryJobService jobService, AdmissionController admission,
+                               ObjectProvider<MeterRegistry> meterRegistry, TaskScheduler sseKeepAliveScheduler,
+                               @Value("${itinerary.stream.keepalive-seconds:15}") long keepAliveSeconds,
+                               @Value("${itinerary.stream.timeout-seconds:180}") long streamTimeoutSeconds) {
+        this(coordinator, validator, jobService, admission, meterRegistry.getIfAvailable(), sseKeepAliveScheduler,
+                keepAliveSeconds, streamTimeoutSeconds);
+    }
+
+    /**
+     * For use outside a Spring context: the controller gets a keepalive scheduler of its own.
+     */
+    public ItineraryController(AgentCoordinator coordinator, TripRequestValidator validator,
+                               ItineraryJobService jobService, AdmissionController admission,
+                               MeterRegistry meterRegistry, long keepAliveSeconds, long streamTimeoutSeconds) {
+        this(coordinator, validator, jobService, admission, meterRegistry, standaloneKeepAlives(),
+                keepAliveSeconds, streamTimeoutSeconds);
+    }
+
+    public ItineraryController(AgentCoordinator coordinator, TripRequestValidator validator,
+                               ItineraryJobService jobService, AdmissionController admission,
+                               MeterRegistry meterRegistry, TaskScheduler keepAlives,
+                               long keepAliveSeconds, long streamTimeoutSeconds) {
         this.coordinator = coordinator;
         this.validator = validator;
+        this.jobService = jobService;
+        this.admission = admission;
+        this.meterRegistry = meterRegistry;
+        this.keepAlives = keepAlives;
+        this.keepAliveSeconds = keepAliveSeconds;
+        this.streamTimeoutSeconds = streamTimeoutSeconds;
     }
 
+    /**
+     * Generates the clarifying questions. If the request times out or the client disconnects
+     * first, the LLM call is cancelled.
+     */
     @PostMapping("/questions")
-    public CompletableFuture<ResponseEntity<QuestionResponse>> generateQuestions(@Valid @RequestBody TripRequest request) {
+    public DeferredResult<ResponseEntity<QuestionResponse>> generateQuestions(@Valid @RequestBody TripRequest request) {
         LOG.info("Generating questions for trip: {}", request.tripTitle);
         
         // Validate and sanitize the request
         var validationResult = validator.validate(request);
         if (!validationResult.isValid()) {
             LOG.warn("Invalid trip request: {}", validationResult.getFirstError());
-            return CompletableFuture.completedFuture(
-                ResponseEntity.<QuestionResponse>badRequest().body(null)
-            );
+            return completed(ResponseEntity.<QuestionResponse>badRequest().body(null));
         }
         
         if (validationResult.hasWarnings()) {
             LOG.info("Validation warnings found.");
         }
-        
-        return coordinator.generateQuestions(request)
+
+        AdmissionController.Admission admitted = admission.admit(AdmissionController.Work.QUESTIONS);
+        if (!admitted.isAdmitted()) {
+            return completed(overloaded(admitted));
+        }
+
+        CompletableFuture<QuestionResponse> generation = coordinator.generateQuestions(request);
+        return cancelWhenAbandoned("questions", AdmissionController.Work.QUESTIONS, generation, generation
+                .whenComplete((questions, throwable) -> admitted.release())
                 .thenApply(questions -> {
                     LOG.info("Generated questions for trip: {}", request.tripTitle);
                     return ResponseEntity.ok(questions);
@@ -54,27 +144,36 @@ public class ItineraryController {
                     LOG.error("Failed to generate questions for trip: {}", request.tripTitle, throwable);
                     return ResponseEntity.<QuestionResponse>internalServerError()
                         .body(null);
-                });
+                }));
     }
 
+    /**
+     * Generates the complete itinerary, or refines the previous one when amendments are given.
+     * If the request times out or the client disconnects first, the agents still running are cancelled.
+     */
     @PostMapping
-    public CompletableFuture<ResponseEntity<Itinerary>> createItinerary(@Valid @RequestBody TripRequest request) {
+    public DeferredResult<ResponseEntity<Itinerary>> createItinerary(@Valid @RequestBody TripRequest request) {
         LOG.info("Creating itinerary for trip: {}", request.tripTitle);
         
         // Validate and sanitize the request
         var validationResult = validator.validate(request);
         if (!validationResult.isValid()) {
             LOG.warn("Invalid trip request: {}", validationResult.getFirstError());
-            return CompletableFuture.completedFuture(
-                ResponseEntity.<Itinerary>badRequest().body(null)
-            );
+            return completed(ResponseEntity.<Itinerary>badRequest().body(null));
         }
         
         if (validationResult.hasWarnings()) {
             LOG.info("Validation warnings found.");
         }
-        
-        return coordinator.generateItinerary(request)
+
+        AdmissionController.Admission admitted = admission.admit(AdmissionController.Work.ITINERARY);
+        if (!admitted.isAdmitted()) {
+            return completed(overloaded(admitted));
+        }
+
+        CompletableFuture<Itinerary> generation = coordinator.generateItinerary(request);
+        return cancelWhenAbandoned("itinerary", AdmissionController.Work.ITINERARY, generation, generation
+                .whenComplete((itinerary, throwable) -> admitted.release())
                 .thenApply(itinerary -> {
                     LOG.info("Successfully created itinerary for trip: {}", 
                         request.tripTitle);
@@ -84,6 +183,209 @@ public class ItineraryController {
                     LOG.error("Failed to create itinerary for trip: {}", request.tripTitle, throwable);
                     return ResponseEntity.<Itinerary>internalServerError()
                         .body(null);
+                }));
+    }
+
+    /**
+     * Streams the itinerary as Server-Sent Events: one event per agent section (flights,
+     * transport, hotels, events, weather) as soon as it completes, "degraded" for sections
+     * that missed their deadline, "dayPlan" for each day as the planner writes it, then
+     * "dayPlans" and finally "itinerary" with the full result.
+     * Comment lines are sent every few seconds so proxies keep the connection open; when one
+     * cannot be delivered, or the stream times out, generation is cancelled.
+     * Invalid requests are answered 400 before the stream opens, and 503 with Retry-After when
+     * the server is too loaded to finish in time.
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamItinerary(@Valid @RequestBody TripRequest request) {
+        LOG.info("Streaming itinerary for trip: {}", request.tripTitle);
+
+        var validationResult = validator.validate(request);
+        if (!validationResult.isValid()) {
+            LOG.warn("Invalid trip request: {}", validationResult.getFirstError());
+            return ResponseEntity.badRequest().build();
+        }
+
+        AdmissionController.Admission admitted = admission.admit(AdmissionController.Work.ITINERARY);
+        if (!admitted.isAdmitted()) {
+            return overloaded(admitted);
+        }
+
+        SseEmitter emitter = new SseEmitter(TimeUnit.SECONDS.toMillis(streamTimeoutSeconds));
+
+        ItineraryListener listener = new ItineraryListener() {
+            @Override
+            public void onSection(String section, Object data) {
+                send(emitter, section, data);
+            }
+
+            @Override
+            public void onDegraded(String section, String note) {
+                send(emitter, "degraded", Map.of("section", section, "note", note));
+            }
+
+            @Override
+            public void onDayPlan(DayPlan dayPlan) {
+                send(emitter, "dayPlan", dayPlan);
+            }
+        };
+
+        CompletableFuture<Itinerary> generation = coordinator.generateItinerary(request, listener);
+        Duration keepAliveInterval = Duration.ofSeconds(keepAliveSeconds);
+        ScheduledFuture<?> keepAlive = keepAlives.scheduleAtFixedRate(() -> {
+            try {
+                emitter.send(SseEmitter.event().comment("keepalive"));
+            } catch (IOException e) {
+                abandon("stream", "disconnect", generation);
+            } catch (IllegalStateException e) {
+                // Stream finished; the completion callbacks cancel this task
+            }
+        }, Instant.now().plus(keepAliveInterval), keepAliveInterval);
+        emitter.onCompletion(() -> keepAlive.cancel(false));
+        emitter.onTimeout(() -> {
+            keepAlive.cancel(false);
+            abandon("stream", "timeout", generation);
+        });
+        emitter.onError(e -> {
+            keepAlive.cancel(false);
+            abandon("stream", "disconnect", generation);
+        });
+
+        generation.whenComplete((itinerary, throwable) -> {
+            admitted.release();
+            keepAlive.cancel(false);
+            if (generation.isCancelled()) {
+                // The client went away or the stream timed out: nobody is left to tell
+                LOG.info("Stopped streaming itinerary for trip: {}", request.tripTitle);
+                return;
+            }
+            if (throwable != null) {
+                LOG.error("Failed to stream itinerary for trip: {}", request.tripTitle, throwable);
+                send(emitter, "error", Map.of("error", "Failed to generate itinerary"));
+            } else {
+                LOG.info("Finished streaming itinerary for trip: {}", request.tripTitle);
+                send(emitter, "itinerary", itinerary);
+            }
+            emitter.complete();
+        });
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Starts generating the itinerary in the background and returns at once with 202 and the
+     * job id; the Location header points at the job. Responds 429 with Retry-After when the
+     * job queue is full.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<ItineraryJob> submitJob(@Valid @RequestBody TripRequest request) {
+        LOG.info("Submitting itinerary job for trip: {}", request.tripTitle);
+
+        var validationResult = validator.validate(request);
+        if (!validationResult.isValid()) {
+            LOG.warn("Invalid trip request: {}", validationResult.getFirstError());
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            ItineraryJob job = jobService.submit(request);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/itineraries/jobs/" + job.id))
+                    .body(job);
+        } catch (JobQueueFullException e) {
+            LOG.warn("Rejected itinerary job for trip {}: {}", request.tripTitle, e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(JOB_RETRY_AFTER_SECONDS))
+                    .build();
+        }
+    }
+
+    /**
+     * Returns the job's current state. With {@code waitSeconds} the request is held until the
+     * job finishes or the wait (capped by itinerary.jobs.max-wait-seconds) runs out. The async
+     * timeout sits above that cap, so a full-length poll ends with the job rather than a
+     * container timeout. Unknown and expired jobs are 404.
+     */
+    @GetMapping("/jobs/{id}")
+    public DeferredResult<ResponseEntity<ItineraryJob>> getJob(@PathVariable String id,
+                                                               @RequestParam(defaultValue = "0") long waitSeconds) {
+        DeferredResult<ResponseEntity<ItineraryJob>> result =
+                new DeferredResult<>(jobService.getMaxWait().plus(JOB_POLL_TIMEOUT_MARGIN).toMillis());
+        result.onTimeout(() -> result.setResult(jobStatus(jobService.get(id))));
+        jobService.await(id, Duration.ofSeconds(Math.max(waitSeconds, 0)))
+                .whenComplete((job, throwable) -> {
+                    if (throwable != null) {
+                        result.setErrorResult(throwable);
+                    } else {
+                        result.setResult(jobStatus(job));
+                    }
                 });
+        return result;
+    }
+
+    private static ResponseEntity<ItineraryJob> jobStatus(Optional<ItineraryJob> job) {
+        return job.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Hands {@code response} to Spring as an async result that times out at the deadline for
+     * {@code kind} rather than the container's default async timeout (30 s on most servers,
+     * shorter than an itinerary takes). If the request times out or fails (typically because
+     * the client disconnected) before it is ready, {@code work} is cancelled, which cancels the
+     * agent and LLM calls behind it down to the HTTP exchange.
+     */
+    private <T> DeferredResult<ResponseEntity<T>> cancelWhenAbandoned(String endpoint, AdmissionController.Work kind,
+                                                                    Future<?> work,
+                                                                    CompletableFuture<ResponseEntity<T>> response) {
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>(admission.getDeadline(kind).toMillis());
+        result.onTimeout(() -> abandon(endpoint, "timeout", work));
+        result.onError(e -> abandon(endpoint, "disconnect", work));
+        response.whenComplete((value, throwable) -> {
+            if (throwable != null) {
+                result.setErrorResult(throwable);
+            } else {
+                result.setResult(value);
+            }
+        });
+        return result;
+    }
+
+    private void abandon(String endpoint, String reason, Future<?> work) {
+        if (!work.cancel(true)) {
+            return;
+        }
+        LOG.info("Cancelled {} request after {}: nobody is waiting for the result", endpoint, reason);
+        if (meterRegistry != null) {
+            Counter.builder("itinerary.requests.abandoned")
+                    .tag("endpoint", endpoint)
+                    .tag("reason", reason)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    private static TaskScheduler standaloneKeepAlives() {
+        ThreadPoolTaskScheduler scheduler = StreamConfig.keepAliveScheduler();
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    private static <T> DeferredResult<ResponseEntity<T>> completed(ResponseEntity<T> response) {
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>();
+        result.setResult(response);
+        return result;
+    }
+
+    private static <T> ResponseEntity<T> overloaded(AdmissionController.Admission refused) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(refused.getRetryAfterSeconds()))
+                .build();
+    }
+
+    private static void send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data == null ? Map.of() : data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            LOG.debug("Dropping SSE event {}: {}", name, e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
@@ -18,6 +18,10 @@ public class AgentConfig {
     private WeatherAgentConfig weather = new WeatherAgentConfig();
     private QuestionAgentConfig question = new QuestionAgentConfig();
     private PlannerAgentConfig planner = new PlannerAgentConfig();
+    private FusedSearchConfig fusedSearch = new FusedSearchConfig();
+    private SpeculativeSearchConfig speculativeSearch = new SpeculativeSearchConfig();
+    private boolean bulkheadsEnabled = true;
+    private int itineraryDeadline = 120;
     
     public FlightAgentConfig getFlight() {
         return flight;
@@ -75,9 +79,88 @@ public class AgentConfig {
         this.planner = planner;
     }
     
+    public FusedSearchConfig getFusedSearch() {
+        return fusedSearch;
+    }
+    
+    public void setFusedSearch(FusedSearchConfig fusedSearch) {
+        this.fusedSearch = fusedSearch;
+    }
+    
+    public SpeculativeSearchConfig getSpeculativeSearch() {
+        return speculativeSearch;
+    }
+    
+    public void setSpeculativeSearch(SpeculativeSearchConfig speculativeSearch) {
+        this.speculativeSearch = speculativeSearch;
+    }
+    
+    public boolean isBulkheadsEnabled() {
+        return bulkheadsEnabled;
+    }
+    
+    public void setBulkheadsEnabled(boolean bulkheadsEnabled) {
+        this.bulkheadsEnabled = bulkheadsEnabled;
+    }
+    
+    /**
+     * Seconds all of one itinerary's agents may take together; the agent timeouts are cut to
+     * fit, so the planner keeps its time however late the searches run. Zero or less means none.
+     */
+    public int getItineraryDeadline() {
+        return itineraryDeadline;
+    }
+    
+    public void setItineraryDeadline(int itineraryDeadline) {
+        this.itineraryDeadline = itineraryDeadline;
+    }
+    
+    /**
+     * Per-agent bulkhead: calls in flight, calls allowed to wait before new ones are rejected,
+     * and the threads of the agent's own executor.
+     */
+    public static class BulkheadConfig {
+        private int maxConcurrent = 16;
+        private int maxQueue = 64;
+        private int threads = 2;
+        
+        public BulkheadConfig() {
+        }
+        
+        public BulkheadConfig(int maxConcurrent, int maxQueue) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueue = maxQueue;
+        }
+        
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+        
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+        
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+        
+        public void setMaxQueue(int maxQueue) {
+            this.maxQueue = maxQueue;
+        }
+        
+        public int getThreads() {
+            return threads;
+        }
+        
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+    }
+    
     public static class FlightAgentConfig {
         private int maxOptions = 5;
         private int timeout = 30;
+        private BulkheadConfig bulkhead = new BulkheadConfig();
         
         public int getMaxOptions() {
             return maxOptions;
@@ -94,11 +177,20 @@ public class AgentConfig {
         public void setTimeout(int timeout) {
             this.timeout = timeout;
         }
+        
+        public BulkheadConfig getBulkhead() {
+            return bulkhead;
+        }
+        
+        public void setBulkhead(BulkheadConfig bulkhead) {
+            this.bulkhead = bulkhead;
+        }
     }
     
     public static class HotelAgentConfig {
         private int maxOptions = 5;
         private int timeout = 30;
+        private BulkheadConfig bulkhead = new BulkheadConfig();
         
         public int getMaxOptions() {
             return maxOptions;
@@ -115,11 +207,20 @@ public class AgentConfig {
         public void setTimeout(int timeout) {
             this.timeout = timeout;
         }
+        
+        public BulkheadConfig getBulkhead() {
+            return bulkhead;
+        }
+        
+        public void setBulkhead(BulkheadConfig bulkhead) {
+            this.bulkhead = bulkhead;
+        }
     }
     
     public static class TransportAgentConfig {
         private int maxOptions = 5;
         private int timeout = 30;
+        private BulkheadConfig bulkhead = new BulkheadConfig();
         
         public int getMaxOptions() {
             return maxOptions;
@@ -136,11 +237,20 @@ public class AgentConfig {
         public void setTimeout(int timeout) {
             this.timeout = timeout;
         }
+        
+        public BulkheadConfig getBulkhead() {
+            return bulkhead;
+        }
+        
+        public void setBulkhead(BulkheadConfig bulkhead) {
+            this.bulkhead = bulkhead;
+        }
     }
     
     public static class EventAgentConfig {
         private int maxOptions = 10;
         private int timeout = 30;
+        private BulkheadConfig bulkhead = new BulkheadConfig();
         
         public int getMaxOptions() {
             return maxOptions;
@@ -157,10 +267,19 @@ public class AgentConfig {
         public void setTimeout(int timeout) {
             this.timeout = timeout;
         }
+        
+        public BulkheadConfig getBulkhead() {
+            return bulkhead;
+        }
+        
+        public void setBulkhead(BulkheadConfig bulkhead) {
+            this.bulkhead = bulkhead;
+        }
     }
     
     public static class WeatherAgentConfig {
         private int timeout = 30;
+        private BulkheadConfig bulkhead = new BulkheadConfig();
         
         public int getTimeout() {
             return timeout;
@@ -169,11 +288,20 @@ public class AgentConfig {
         public void setTimeout(int timeout) {
             this.timeout = timeout;
         }
+        
+        public BulkheadConfig getBulkhead() {
+            return bulkhead;
+        }
+        
+        public void setBulkhead(BulkheadConfig bulkhead) {
+            this.bulkhead = bulkhead;
+        }
     }
     
     public static class QuestionAgentConfig {
         private int maxQuestions = 4;
         private int timeout = 30;
+        private BulkheadConfig bulkhead = new BulkheadConfig();
         
         public int getMaxQuestions() {
             return maxQuestions;
@@ -190,10 +318,21 @@ public class AgentConfig {
         public void setTimeout(int timeout) {
             this.timeout = timeout;
         }
+        
+        public BulkheadConfig getBulkhead() {
+            return bulkhead;
+        }
+        
+        public void setBulkhead(BulkheadConfig bulkhead) {
+            this.bulkhead = bulkhead;
+        }
     }
     
     public static class PlannerAgentConfig {
         private int timeout = 60;
+        private int contextOptions = 3;
+        private int contextEvents = 8;
+        private BulkheadConfig bulkhead = new BulkheadConfig(8, 64);
         
         public int getTimeout() {
             return timeout;
@@ -202,5 +341,97 @@ public class AgentConfig {
         public void setTimeout(int timeout) {
             this.timeout = timeout;
         }
+        
+        public int getContextOptions() {
+            return contextOptions;
+        }
+        
+        public void setContextOptions(int contextOptions) {
+            this.contextOptions = contextOptions;
+        }
+        
+        public int getContextEvents() {
+            return contextEvents;
+        }
+        
+        public void setContextEvents(int contextEvents) {
+            this.contextEvents = contextEvents;
+        }
+        
+        public BulkheadConfig getBulkhead() {
+            return bulkhead;
+        }
+        
+        public void setBulkhead(BulkheadConfig bulkhead) {
+            this.bulkhead = bulkhead;
+        }
+    }
+    
+    /**
+     * Fused search: flights, hotels and transport in one combined LLM call, falling back to
+     * the individual agents when the combined answer does not parse.
+     */
+    public static class FusedSearchConfig {
+        private boolean enabled = false;
+        private int timeout = 45;
+        private BulkheadConfig bulkhead = new BulkheadConfig();
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getTimeout() {
+            return timeout;
+        }
+        
+        public void setTimeout(int timeout) {
+            this.timeout = timeout;
+        }
+        
+        public BulkheadConfig getBulkhead() {
+            return bulkhead;
+        }
+        
+        public void setBulkhead(BulkheadConfig bulkhead) {
+            this.bulkhead = bulkhead;
+        }
+    }
+    
+    /**
+     * Speculative searches: weather, events, flights and hotels start while the user answers
+     * the clarifying questions; unused results are dropped after ttlSeconds.
+     */
+    public static class SpeculativeSearchConfig {
+        private boolean enabled = false;
+        private int ttlSeconds = 300;
+        private int maxEntries = 500;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getTtlSeconds() {
+            return ttlSeconds;
+        }
+        
+        public void setTtlSeconds(int ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+        
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+        
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
     }
 }
@@ -0,0 +1,107 @@
+package com.agentictravel.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the prompt-level LLM response cache.
+ * Maps to cache.* properties in application.yml. Each namespace corresponds
+ * to the agent that issues the prompt; ttl is in seconds.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cache")
+public class CacheConfig {
+
+    private boolean enabled = true;
+    private CacheSpec questions = new CacheSpec(3600, 100);
+    private CacheSpec weather = new CacheSpec(21600, 1000);
+    private CacheSpec events = new CacheSpec(86400, 500);
+    private CacheSpec flights = new CacheSpec(1800, 500);
+    private CacheSpec hotels = new CacheSpec(3600, 500);
+    private CacheSpec transport = new CacheSpec(3600, 500);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public CacheSpec getQuestions() {
+        return questions;
+    }
+
+    public void setQuestions(CacheSpec questions) {
+        this.questions = questions;
+    }
+
+    public CacheSpec getWeather() {
+        return weather;
+    }
+
+    public void setWeather(CacheSpec weather) {
+        this.weather = weather;
+    }
+
+    public CacheSpec getEvents() {
+        return events;
+    }
+
+    public void setEvents(CacheSpec events) {
+        this.events = events;
+    }
+
+    public CacheSpec getFlights() {
+        return flights;
+    }
+
+    public void setFlights(CacheSpec flights) {
+        this.flights = flights;
+    }
+
+    public CacheSpec getHotels() {
+        return hotels;
+    }
+
+    public void setHotels(CacheSpec hotels) {
+        this.hotels = hotels;
+    }
+
+    public CacheSpec getTransport() {
+        return transport;
+    }
+
+    public void setTransport(CacheSpec transport) {
+        this.transport = transport;
+    }
+
+    public static class CacheSpec {
+        private int ttl;
+        private int maxSize;
+
+        public CacheSpec() {
+        }
+
+        public CacheSpec(int ttl, int maxSize) {
+            this.ttl = ttl;
+            this.maxSize = maxSize;
+        }
+
+        public int getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(int ttl) {
+            this.ttl = ttl;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+}
@@ -1,26 +1,171 @@
 package com.agentictravel.config;
 
+import com.agentictravel.llm.AdaptiveConcurrencyLimiter;
+import com.agentictravel.llm.CachingLLMClient;
+import com.agentictravel.llm.CircuitBreaker;
+import com.agentictravel.llm.CircuitBreakerLLMClient;
+import com.agentictravel.llm.ConcurrencyLimitedLLMClient;
+import com.agentictravel.llm.HedgingLLMClient;
+import com.agentictravel.llm.LLMExecutors;
+import com.agentictravel.llm.LLMLoadTracker;
+import com.agentictravel.llm.LoadTrackingLLMClient;
 import com.agentictravel.llm.OpenAILLMClient;
 import com.agentictravel.llm.LLMClient;
+import com.agentictravel.llm.RetryPolicy;
+import com.agentictravel.llm.RetryingLLMClient;
+import com.agentictravel.llm.RoutingLLMClient;
+import com.agentictravel.llm.SingleFlightLLMClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
 @Configuration
 @EnableConfigurationProperties(OpenAIConfig.class)
 public class LLMConfig {
 
     private final OpenAIConfig openAIConfig;
+    private final CacheConfig cacheConfig;
 
-    public LLMConfig(OpenAIConfig openAIConfig) {
+    public LLMConfig(OpenAIConfig openAIConfig, CacheConfig cacheConfig) {
         this.openAIConfig = openAIConfig;
+        this.cacheConfig = cacheConfig;
+    }
+
+    /**
+     * Dedicated executor for LLM HTTP I/O, kept off the common ForkJoinPool.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService llmExecutor() {
+        return LLMExecutors.create(openAIConfig.getIoThreads(), openAIConfig.isVirtualThreads());
+    }
+
+    /**
+     * In-flight LLM calls and their recent latency, shared by all endpoints; drives admission control.
+     */
+    @Bean
+    public LLMLoadTracker llmLoadTracker(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new LLMLoadTracker(200, meterRegistry.getIfAvailable());
     }
 
     @Bean
-    public LLMClient llmClient(){
-        if (openAIConfig.getApiKey() == null || openAIConfig.getApiKey().trim().isEmpty()) {
+    public LLMClient llmClient(ExecutorService llmExecutor, LLMLoadTracker llmLoadTracker,
+                               ObjectProvider<MeterRegistry> meterRegistry){
+        LLMClient client = endpointPool(llmExecutor, llmLoadTracker, meterRegistry.getIfAvailable());
+
+        OpenAIConfig.HedgeConfig hedge = openAIConfig.getHedge();
+        if (hedge.isEnabled()) {
+            client = new HedgingLLMClient(client, new HedgingLLMClient.Policy(hedge.getPercentile(),
+                    Duration.ofMillis(hedge.getMinDelayMs()), Duration.ofMillis(hedge.getMaxDelayMs()),
+                    hedge.getMaxRatio()), meterRegistry.getIfAvailable());
+        }
+
+        // Inside the retry loop so every attempt is recorded and an open breaker stops retries
+        OpenAIConfig.CircuitBreakerConfig breaker = openAIConfig.getCircuitBreaker();
+        if (breaker.isEnabled()) {
+            client = new CircuitBreakerLLMClient(client, new CircuitBreaker.Config(breaker.getFailureRateThreshold(),
+                    breaker.getWindowSize(), breaker.getMinimumCalls(),
+                    Duration.ofMillis(breaker.getOpenDurationMs()), breaker.getHalfOpenCalls()),
+                    meterRegistry.getIfAvailable());
+        }
+
+        if (openAIConfig.getMaxRetries() > 0) {
+            RetryPolicy retryPolicy = new RetryPolicy(openAIConfig.getMaxRetries(),
+                    Duration.ofMillis(openAIConfig.getRetryInitialBackoffMs()),
+                    Duration.ofMillis(openAIConfig.getRetryMaxBackoffMs()),
+                    Duration.ofMillis(openAIConfig.getRetryBudgetMs()));
+            client = new RetryingLLMClient(client, retryPolicy, meterRegistry.getIfAvailable());
+        }
+
+        // Above retries so coalesced callers share one retry loop rather than one attempt
+        if (openAIConfig.isSingleFlight()) {
+            client = new SingleFlightLLMClient(client, meterRegistry.getIfAvailable());
+        }
+
+        // The cache is the outermost decorator so agent namespaces (withNamespace) reach it.
+        if (cacheConfig.isEnabled()) {
+            client = new CachingLLMClient(client, cachePolicies(), meterRegistry.getIfAvailable());
+        }
+        return client;
+    }
+
+    /**
+     * One client per configured endpoint (or just openai.api-key / openai.base-url when none
+     * are listed), each with its own concurrency limit, behind a latency-aware router.
+     */
+    private LLMClient endpointPool(ExecutorService llmExecutor, LLMLoadTracker loadTracker,
+                                   MeterRegistry meterRegistry) {
+        List<OpenAIConfig.EndpointConfig> configured = openAIConfig.getEndpoints();
+        List<RoutingLLMClient.Target> targets = new ArrayList<>();
+        if (configured == null || configured.isEmpty()) {
+            targets.add(new RoutingLLMClient.Target("default",
+                    endpointClient(openAIConfig.getApiKey(), openAIConfig.getBaseUrl(), llmExecutor, loadTracker,
+                            meterRegistry)));
+        } else {
+            for (int i = 0; i < configured.size(); i++) {
+                OpenAIConfig.EndpointConfig endpoint = configured.get(i);
+                String name = isBlank(endpoint.getName()) ? "endpoint-" + i : endpoint.getName();
+                String apiKey = isBlank(endpoint.getApiKey()) ? openAIConfig.getApiKey() : endpoint.getApiKey();
+                String baseUrl = isBlank(endpoint.getBaseUrl()) ? openAIConfig.getBaseUrl() : endpoint.getBaseUrl();
+                targets.add(new RoutingLLMClient.Target(name, endpointClient(apiKey, baseUrl, llmExecutor,
+                        loadTracker, meterRegistry)));
+            }
+        }
+        if (targets.size() == 1) {
+            return targets.get(0).client();
+        }
+        OpenAIConfig.RoutingConfig routing = openAIConfig.getRouting();
+        return new RoutingLLMClient(targets, new RoutingLLMClient.Policy(routing.getEwmaAlpha(),
+                routing.getEjectionErrorRate(), routing.getMinimumSamples(), routing.getConsecutiveFailures(),
+                Duration.ofMillis(routing.getEjectionDurationMs())), meterRegistry);
+    }
+
+    private LLMClient endpointClient(String apiKey, String baseUrl, ExecutorService llmExecutor,
+                                     LLMLoadTracker loadTracker, MeterRegistry meterRegistry) {
+        if (isBlank(apiKey)) {
             throw new IllegalStateException("OpenAI API key is required. Set OPENAI_API_KEY environment variable.");
         }
-        return new OpenAILLMClient(openAIConfig.getApiKey(), openAIConfig.getModel());
+        LLMClient client = new OpenAILLMClient(apiKey, openAIConfig.getModel(), baseUrl, llmExecutor,
+                openAIConfig.getMaxTokens());
+        // Below the concurrency limit so only calls actually sent to the provider count as in flight
+        client = new LoadTrackingLLMClient(client, loadTracker);
+
+        // Innermost, so hedges and retries each hold a permit for the physical request they make
+        OpenAIConfig.ConcurrencyLimitConfig limit = openAIConfig.getConcurrencyLimit();
+        if (limit.isEnabled()) {
+            client = new ConcurrencyLimitedLLMClient(client, ConcurrencyLimitedLLMClient.keyId(apiKey),
+                    new AdaptiveConcurrencyLimiter.Config(limit.getInitialLimit(), limit.getMinLimit(),
+                            limit.getMaxLimit(), limit.getBackoffRatio(), limit.getLatencyTolerance(),
+                            limit.getMaxQueue(), Duration.ofMillis(limit.getMaxWaitMs())),
+                    meterRegistry);
+        }
+        return client;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private Map<String, CachingLLMClient.Policy> cachePolicies() {
+        Map<String, CachingLLMClient.Policy> policies = new LinkedHashMap<>();
+        policies.put("questions", toPolicy(cacheConfig.getQuestions()));
+        policies.put("weather", toPolicy(cacheConfig.getWeather()));
+        policies.put("events", toPolicy(cacheConfig.getEvents()));
+        policies.put("flights", toPolicy(cacheConfig.getFlights()));
+        policies.put("hotels", toPolicy(cacheConfig.getHotels()));
+        policies.put("transport", toPolicy(cacheConfig.getTransport()));
+        return policies;
+    }
+
+    private static CachingLLMClient.Policy toPolicy(CacheConfig.CacheSpec spec) {
+        return new CachingLLMClient.Policy(Duration.ofSeconds(spec.getTtl()), spec.getMaxSize());
     }
 }
@@ -3,6 +3,9 @@ package com.agentictravel.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Configuration properties for OpenAI integration.
  * Maps to openai.* properties in application.yml
@@ -13,10 +16,22 @@ public class OpenAIConfig {
     
     private String apiKey;
     private String model = "gpt-3.5-turbo";
+    private String baseUrl = "https://api.openai.com/v1";
+    private List<EndpointConfig> endpoints = new ArrayList<>();
+    private RoutingConfig routing = new RoutingConfig();
     private int timeout = 60;
     private int maxRetries = 3;
+    private long retryInitialBackoffMs = 500;
+    private long retryMaxBackoffMs = 8000;
+    private long retryBudgetMs = 45000;
     private int maxTokens = 2000;
     private double temperature = 0.7;
+    private int ioThreads = 4;
+    private boolean virtualThreads = false;
+    private boolean singleFlight = true;
+    private HedgeConfig hedge = new HedgeConfig();
+    private CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+    private ConcurrencyLimitConfig concurrencyLimit = new ConcurrencyLimitConfig();
     
     public String getApiKey() {
         return apiKey;
@@ -34,6 +49,30 @@ public class OpenAIConfig {
         this.model = model;
     }
     
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+    
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+    
+    public List<EndpointConfig> getEndpoints() {
+        return endpoints;
+    }
+    
+    public void setEndpoints(List<EndpointConfig> endpoints) {
+        this.endpoints = endpoints;
+    }
+    
+    public RoutingConfig getRouting() {
+        return routing;
+    }
+    
+    public void setRouting(RoutingConfig routing) {
+        this.routing = routing;
+    }
+    
     public int getTimeout() {
         return timeout;
     }
@@ -50,6 +89,30 @@ public class OpenAIConfig {
         this.maxRetries = maxRetries;
     }
     
+    public long getRetryInitialBackoffMs() {
+        return retryInitialBackoffMs;
+    }
+    
+    public void setRetryInitialBackoffMs(long retryInitialBackoffMs) {
+        this.retryInitialBackoffMs = retryInitialBackoffMs;
+    }
+    
+    public long getRetryMaxBackoffMs() {
+        return retryMaxBackoffMs;
+    }
+    
+    public void setRetryMaxBackoffMs(long retryMaxBackoffMs) {
+        this.retryMaxBackoffMs = retryMaxBackoffMs;
+    }
+    
+    public long getRetryBudgetMs() {
+        return retryBudgetMs;
+    }
+    
+    public void setRetryBudgetMs(long retryBudgetMs) {
+        this.retryBudgetMs = retryBudgetMs;
+    }
+    
     public int getMaxTokens() {
         return maxTokens;
     }
@@ -65,4 +128,314 @@ public class OpenAIConfig {
     public void setTemperature(double temperature) {
         this.temperature = temperature;
     }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+    
+    public void setIoThreads(int ioThreads) {
+        this.ioThreads = ioThreads;
+    }
+    
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+    
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public boolean isSingleFlight() {
+        return singleFlight;
+    }
+    
+    public void setSingleFlight(boolean singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    public HedgeConfig getHedge() {
+        return hedge;
+    }
+    
+    public void setHedge(HedgeConfig hedge) {
+        this.hedge = hedge;
+    }
+    
+    public CircuitBreakerConfig getCircuitBreaker() {
+        return circuitBreaker;
+    }
+    
+    public void setCircuitBreaker(CircuitBreakerConfig circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+    
+    public ConcurrencyLimitConfig getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+    
+    public void setConcurrencyLimit(ConcurrencyLimitConfig concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+    
+    public static class HedgeConfig {
+        private boolean enabled = true;
+        private double percentile = 95.0;
+        private long minDelayMs = 2000;
+        private long maxDelayMs = 20000;
+        private double maxRatio = 0.1;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public double getPercentile() {
+            return percentile;
+        }
+        
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+        
+        public long getMinDelayMs() {
+            return minDelayMs;
+        }
+        
+        public void setMinDelayMs(long minDelayMs) {
+            this.minDelayMs = minDelayMs;
+        }
+        
+        public long getMaxDelayMs() {
+            return maxDelayMs;
+        }
+        
+        public void setMaxDelayMs(long maxDelayMs) {
+            this.maxDelayMs = maxDelayMs;
+        }
+        
+        public double getMaxRatio() {
+            return maxRatio;
+        }
+        
+        public void setMaxRatio(double maxRatio) {
+            this.maxRatio = maxRatio;
+        }
+    }
+    
+    public static class CircuitBreakerConfig {
+        private boolean enabled = true;
+        private double failureRateThreshold = 50.0;
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private long openDurationMs = 30000;
+        private int halfOpenCalls = 2;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public double getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+        
+        public void setFailureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+        
+        public int getWindowSize() {
+            return windowSize;
+        }
+        
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+        
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+        
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+        
+        public long getOpenDurationMs() {
+            return openDurationMs;
+        }
+        
+        public void setOpenDurationMs(long openDurationMs) {
+            this.openDurationMs = openDurationMs;
+        }
+        
+        public int getHalfOpenCalls() {
+            return halfOpenCalls;
+        }
+        
+        public void setHalfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+        }
+    }
+    
+    public static class ConcurrencyLimitConfig {
+        private boolean enabled = true;
+        private int initialLimit = 10;
+        private int minLimit = 1;
+        private int maxLimit = 64;
+        private double backoffRatio = 0.5;
+        private double latencyTolerance = 2.5;
+        private int maxQueue = 200;
+        private long maxWaitMs = 30000;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+        
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+        
+        public int getMinLimit() {
+            return minLimit;
+        }
+        
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+        
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+        
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+        
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+        
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+        
+        public double getLatencyTolerance() {
+            return latencyTolerance;
+        }
+        
+        public void setLatencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+        }
+        
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+        
+        public void setMaxQueue(int maxQueue) {
+            this.maxQueue = maxQueue;
+        }
+        
+        public long getMaxWaitMs() {
+            return maxWaitMs;
+        }
+        
+        public void setMaxWaitMs(long maxWaitMs) {
+            this.maxWaitMs = maxWaitMs;
+        }
+    }
+    
+    /**
+     * One OpenAI-compatible endpoint in the routing pool; blank fields fall back to
+     * openai.base-url and openai.api-key.
+     */
+    public static class EndpointConfig {
+        private String name;
+        private String baseUrl;
+        private String apiKey;
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+        
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+        
+        public void setBaseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+        
+        public String getApiKey() {
+            return apiKey;
+        }
+        
+        public void setApiKey(String apiKey) {
+            this.apiKey = apiKey;
+        }
+    }
+    
+    public static class RoutingConfig {
+        private double ewmaAlpha = 0.3;
+        private double ejectionErrorRate = 0.5;
+        private int minimumSamples = 5;
+        private int consecutiveFailures = 5;
+        private long ejectionDurationMs = 30000;
+        
+        public double getEwmaAlpha() {
+            return ewmaAlpha;
+        }
+        
+        public void setEwmaAlpha(double ewmaAlpha) {
+            this.ewmaAlpha = ewmaAlpha;
+        }
+        
+        public double getEjectionErrorRate() {
+            return ejectionErrorRate;
+        }
+        
+        public void setEjectionErrorRate(double ejectionErrorRate) {
+            this.ejectionErrorRate = ejectionErrorRate;
+        }
+        
+        public int getMinimumSamples() {
+            return minimumSamples;
+        }
+        
+        public void setMinimumSamples(int minimumSamples) {
+            this.minimumSamples = minimumSamples;
+        }
+        
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+        
+        public void setConsecutiveFailures(int consecutiveFailures) {
+            this.consecutiveFailures = consecutiveFailures;
+        }
+        
+        public long getEjectionDurationMs() {
+            return ejectionDurationMs;
+        }
+        
+        public void setEjectionDurationMs(long ejectionDurationMs) {
+            this.ejectionDurationMs = ejectionDurationMs;
+        }
+    }
 }
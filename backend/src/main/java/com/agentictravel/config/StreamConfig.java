@@ -0,0 +1,32 @@
+package com.agentictravel.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Infrastructure for the streaming itinerary endpoint.
+ */
+@Configuration
+public class StreamConfig {
+
+    /**
+     * Sends the SSE keepalive comments. The context initializes it and shuts it down.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler sseKeepAliveScheduler() {
+        return keepAliveScheduler();
+    }
+
+    /**
+     * An uninitialized keepalive scheduler: comments only, so one daemon thread is plenty.
+     * Outside a Spring context the caller initializes it and shuts it down.
+     */
+    public static ThreadPoolTaskScheduler keepAliveScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("sse-keepalive-");
+        scheduler.setDaemon(true);
+        return scheduler;
+    }
+}
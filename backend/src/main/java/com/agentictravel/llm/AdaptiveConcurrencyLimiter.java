@@ -0,0 +1,195 @@
+package com.agentictravel.llm;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * AIMD concurrency limit for one upstream bucket (a model behind one API key).
+ * The window grows by roughly one permit per window of successful calls and is cut
+ * multiplicatively when the provider throttles (429) or when latency inflates well
+ * beyond the observed baseline, which is the first sign of provider-side queueing.
+ * Calls over the limit wait in a bounded FIFO queue with a maximum wait time.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final Config config;
+    private final LongSupplier ticker;
+    private final Deque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private double baselineRttNanos = -1;
+    private long lastDecreaseAt;
+
+    public AdaptiveConcurrencyLimiter(Config config) {
+        this(config, System::nanoTime);
+    }
+
+    /**
+     * Test-friendly constructor that accepts a custom nano-time source.
+     */
+    AdaptiveConcurrencyLimiter(Config config, LongSupplier ticker) {
+        this.config = config;
+        this.ticker = ticker;
+        this.limit = Math.max(config.minLimit(), config.initialLimit());
+        this.lastDecreaseAt = ticker.getAsLong() - config.maxWait().toNanos();
+    }
+
+    /**
+     * Returns a permit immediately when under the limit, otherwise a future that completes
+     * when a permit frees up. Fails with {@link ConcurrencyLimitExceededException} when the
+     * queue is full or the wait exceeds maxWait.
+     */
+    public CompletableFuture<Permit> acquire() {
+        CompletableFuture<Permit> waiter;
+        synchronized (this) {
+            if (inFlight < currentLimit()) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit(ticker.getAsLong()));
+            }
+            if (waiters.size() >= config.maxQueue()) {
+                return CompletableFuture.failedFuture(
+                        new ConcurrencyLimitExceededException("LLM concurrency queue full (" + waiters.size() + " waiting)"));
+            }
+            waiter = new CompletableFuture<>();
+            waiters.addLast(waiter);
+        }
+        CompletableFuture.delayedExecutor(config.maxWait().toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            synchronized (this) {
+                waiters.remove(waiter);
+            }
+            waiter.completeExceptionally(new ConcurrencyLimitExceededException(
+                    "Timed out after " + config.maxWait().toMillis() + " ms waiting for an LLM concurrency permit"));
+        });
+        // Covers cancellation by the caller
+        waiter.whenComplete((p, e) -> {
+            if (e != null) {
+                synchronized (this) {
+                    waiters.remove(waiter);
+                }
+            }
+        });
+        return waiter;
+    }
+
+    public synchronized int getLimit() {
+        return currentLimit();
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueueDepth() {
+        return waiters.size();
+    }
+
+    private int currentLimit() {
+        return (int) Math.floor(limit);
+    }
+
+    private void release(Permit permit, Outcome outcome) {
+        long now = ticker.getAsLong();
+        long rtt = now - permit.startedAt;
+        synchronized (this) {
+            inFlight--;
+            switch (outcome) {
+                case SUCCESS -> onSample(rtt, now);
+                case DROPPED -> decrease(now);
+                default -> {
+                    // Cancelled or failed for reasons unrelated to provider load: no signal
+                }
+            }
+        }
+        drain();
+    }
+
+    private void onSample(long rtt, long now) {
+        if (baselineRttNanos < 0 || rtt < baselineRttNanos) {
+            baselineRttNanos = rtt;
+        } else {
+            // Let the baseline drift up slowly so a lasting shift in prompt size is absorbed
+            baselineRttNanos += (rtt - baselineRttNanos) * BASELINE_DRIFT;
+        }
+        if (rtt > baselineRttNanos * config.latencyTolerance()) {
+            decrease(now);
+        } else {
+            limit = Math.min(config.maxLimit(), limit + 1.0 / limit);
+        }
+    }
+
+    private void decrease(long now) {
+        // Drops arriving together stem from one congestion event: back off once per baseline RTT
+        long guard = baselineRttNanos > 0 ? (long) baselineRttNanos : 0;
+        if (now - lastDecreaseAt < guard) {
+            return;
+        }
+        lastDecreaseAt = now;
+        limit = Math.max(config.minLimit(), limit * config.backoffRatio());
+    }
+
+    private void drain() {
+        while (true) {
+            CompletableFuture<Permit> next;
+            Permit permit;
+            synchronized (this) {
+                if (waiters.isEmpty() || inFlight >= currentLimit()) {
+                    return;
+                }
+                next = waiters.pollFirst();
+                inFlight++;
+                permit = new Permit(ticker.getAsLong());
+            }
+            if (!next.complete(permit)) {
+                // The waiter timed out or was cancelled in the meantime: hand the permit back
+                synchronized (this) {
+                    inFlight--;
+                }
+            }
+        }
+    }
+
+    /**
+     * How a permitted call ended, as far as the limit is concerned.
+     */
+    public enum Outcome {
+        SUCCESS,
+        DROPPED,
+        IGNORED
+    }
+
+    /**
+     * One unit of concurrency; must be released exactly once.
+     */
+    public final class Permit {
+        private final long startedAt;
+        private boolean released;
+
+        private Permit(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        public void release(Outcome outcome) {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            AdaptiveConcurrencyLimiter.this.release(this, outcome);
+        }
+    }
+
+    /**
+     * Limiter tuning; backoffRatio is the multiplicative decrease factor and
+     * latencyTolerance the RTT inflation over baseline treated as congestion.
+     */
+    public record Config(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                         double latencyTolerance, int maxQueue, Duration maxWait) {
+    }
+}
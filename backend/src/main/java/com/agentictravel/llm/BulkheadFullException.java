@@ -0,0 +1,14 @@
+package com.agentictravel.llm;
+
+/**
+ * Raised locally when an agent's bulkhead has no free call slot and its queue is full.
+ * Not retryable: the agent is saturated and retrying would only add to the backlog.
+ */
+public class BulkheadFullException extends LLMClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BulkheadFullException(String message) {
+        super(message, 0, null, false, null);
+    }
+}
@@ -0,0 +1,187 @@
+package com.agentictravel.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LLMClient decorator that gives one agent its own compartment: at most {@code maxConcurrent}
+ * calls in flight, at most {@code maxQueue} waiting, and a dedicated executor on which calls
+ * are started and their results handed back. A surge of slow planner calls then fills the
+ * planner's compartment only, and quick agents such as questions or weather keep their slots
+ * and threads. Calls beyond the queue fail fast with {@link BulkheadFullException}.
+ */
+public class BulkheadLLMClient implements LLMClient {
+
+    public record Config(int maxConcurrent, int maxQueue) {
+    }
+
+    private final LLMClient delegate;
+    private final String name;
+    private final Config config;
+    private final Executor executor;
+    private final Scheduler scheduler;
+    private final Counter rejected;
+    private final Deque<Pending> queue = new ArrayDeque<>();
+    private int inFlight;
+
+    /**
+     * A call waiting for a slot: {@code task} runs on the executor once it has one, unless
+     * {@code result} was completed (cancelled) in the meantime.
+     */
+    private record Pending(CompletableFuture<?> result, Runnable task) {
+    }
+
+    public BulkheadLLMClient(LLMClient delegate, String name, Config config, Executor executor) {
+        this(delegate, name, config, executor, null);
+    }
+
+    public BulkheadLLMClient(LLMClient delegate, String name, Config config, Executor executor,
+                             MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.name = name;
+        this.config = config;
+        this.executor = executor;
+        this.scheduler = Schedulers.fromExecutor(executor);
+        if (meterRegistry != null) {
+            List<Tag> tags = List.of(Tag.of("agent", name));
+            meterRegistry.gauge("llm.bulkhead.inflight", tags, this, BulkheadLLMClient::getInFlight);
+            meterRegistry.gauge("llm.bulkhead.queue", tags, this, BulkheadLLMClient::getQueueDepth);
+            this.rejected = Counter.builder("llm.bulkhead.rejected").tags(tags).register(meterRegistry);
+        } else {
+            this.rejected = null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public CompletableFuture<String> prompt(String prompt, String modelName) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        submit(new Pending(result, () -> {
+            CompletableFuture<String> upstream;
+            try {
+                upstream = delegate.prompt(prompt, modelName);
+            } catch (RuntimeException e) {
+                upstream = CompletableFuture.failedFuture(e);
+            }
+            Futures.propagateCancellation(result, upstream);
+            upstream.whenCompleteAsync((response, failure) -> {
+                release();
+                if (failure != null) {
+                    result.completeExceptionally(LLMClientException.unwrap(failure));
+                } else {
+                    result.complete(response);
+                }
+            }, executor);
+        }));
+        return result;
+    }
+
+    /**
+     * A stream holds its slot from the moment it starts until its last delta, error or
+     * cancellation, and delivers its deltas on the agent's executor.
+     */
+    @Override
+    public Flux<String> stream(String prompt, String modelName) {
+        return Flux.defer(() -> {
+            CompletableFuture<Void> started = new CompletableFuture<>();
+            AtomicBoolean holding = new AtomicBoolean();
+            submit(new Pending(started, () -> {
+                holding.set(true);
+                // Cancelled between the check in start() and here: give the slot straight back
+                if (!started.complete(null) && holding.compareAndSet(true, false)) {
+                    release();
+                }
+            }));
+            return Mono.fromFuture(started)
+                    .thenMany(Flux.defer(() -> delegate.stream(prompt, modelName)))
+                    .publishOn(scheduler)
+                    .doOnCancel(() -> started.cancel(true))
+                    .doFinally(signal -> {
+                        if (holding.compareAndSet(true, false)) {
+                            release();
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Starts the call if a slot is free, queues it if the queue has room, and fails it fast otherwise.
+     */
+    private void submit(Pending call) {
+        synchronized (this) {
+            if (inFlight < config.maxConcurrent()) {
+                inFlight++;
+            } else if (queue.size() < config.maxQueue()) {
+                queue.addLast(call);
+                // A caller giving up while queued frees its queue slot
+                call.result().whenComplete((r, e) -> {
+                    synchronized (this) {
+                        queue.remove(call);
+                    }
+                });
+                return;
+            } else {
+                if (rejected != null) {
+                    rejected.increment();
+                }
+                call.result().completeExceptionally(new BulkheadFullException(
+                        "Agent " + name + " is saturated: " + inFlight + " calls in flight, " + queue.size() + " queued"));
+                return;
+            }
+        }
+        start(call);
+    }
+
+    private void start(Pending call) {
+        try {
+            executor.execute(() -> {
+                if (call.result().isDone()) {
+                    release();
+                    return;
+                }
+                call.task().run();
+            });
+        } catch (RuntimeException e) {
+            // Executor shut down or rejecting work
+            release();
+            call.result().completeExceptionally(e);
+        }
+    }
+
+    private void release() {
+        Pending next;
+        synchronized (this) {
+            next = queue.pollFirst();
+            if (next == null) {
+                inFlight--;
+                return;
+            }
+        }
+        // The permit passes straight to the next queued call
+        start(next);
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,203 @@
+package com.agentictravel.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+/**
+ * LLMClient decorator that caches successful responses per namespace.
+ * Entries are keyed on the model plus the whitespace-normalized prompt text and are
+ * evicted when they exceed their namespace TTL or when the namespace reaches its
+ * maximum size (least recently used first). Namespaces without a policy pass through.
+ */
+public class CachingLLMClient implements LLMClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachingLLMClient.class);
+
+    private final LLMClient delegate;
+    private final Map<String, PromptCache> caches;
+    private final String namespace;
+    private final MeterRegistry meterRegistry;
+
+    public CachingLLMClient(LLMClient delegate, Map<String, Policy> policies) {
+        this(delegate, policies, null, System::nanoTime);
+    }
+
+    public CachingLLMClient(LLMClient delegate, Map<String, Policy> policies, MeterRegistry meterRegistry) {
+        this(delegate, policies, meterRegistry, System::nanoTime);
+    }
+
+    /**
+     * Test-friendly constructor that accepts a custom nano-time source.
+     */
+    CachingLLMClient(LLMClient delegate, Map<String, Policy> policies, MeterRegistry meterRegistry, LongSupplier ticker) {
+        this.delegate = delegate;
+        this.caches = new LinkedHashMap<>();
+        policies.forEach((ns, policy) -> caches.put(ns, new PromptCache(policy, ticker)));
+        this.namespace = null;
+        this.meterRegistry = meterRegistry;
+    }
+
+    private CachingLLMClient(CachingLLMClient parent, String namespace) {
+        this.delegate = parent.delegate;
+        this.caches = parent.caches;
+        this.namespace = namespace;
+        this.meterRegistry = parent.meterRegistry;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public LLMClient withNamespace(String ns) {
+        return new CachingLLMClient(this, ns);
+    }
+
+    @Override
+    public CompletableFuture<String> prompt(String prompt, String modelName) {
+        PromptCache cache = namespace == null ? null : caches.get(namespace);
+        if (cache == null) {
+            return delegate.prompt(prompt, modelName);
+        }
+
+        String key = cacheKey(prompt, modelName);
+        String cached = cache.get(key);
+        if (cached != null) {
+            LOG.debug("Prompt cache hit in namespace {}", namespace);
+            record("hit");
+            return CompletableFuture.completedFuture(cached);
+        }
+        record("miss");
+
+        CompletableFuture<String> call = delegate.prompt(prompt, modelName);
+        return Futures.propagateCancellation(call.whenComplete((response, error) -> {
+            if (error == null && response != null) {
+                cache.put(key, response);
+            }
+        }), call);
+    }
+
+    /**
+     * Streams from the cache when possible; otherwise streams from the delegate and
+     * caches the concatenated deltas once the stream completes successfully.
+     */
+    @Override
+    public Flux<String> stream(String prompt, String modelName) {
+        PromptCache cache = namespace == null ? null : caches.get(namespace);
+        if (cache == null) {
+            return delegate.stream(prompt, modelName);
+        }
+
+        String key = cacheKey(prompt, modelName);
+        return Flux.defer(() -> {
+            String cached = cache.get(key);
+            if (cached != null) {
+                record("hit");
+                return Flux.just(cached);
+            }
+            record("miss");
+            StringBuilder full = new StringBuilder();
+            return delegate.stream(prompt, modelName)
+                    .doOnNext(full::append)
+                    .doOnComplete(() -> cache.put(key, full.toString()));
+        });
+    }
+
+    /**
+     * Number of live entries in the given namespace, or 0 if it is not cached.
+     */
+    public int size(String ns) {
+        PromptCache cache = caches.get(ns);
+        return cache == null ? 0 : cache.size();
+    }
+
+    static String cacheKey(String prompt, String modelName) {
+        String model = modelName == null ? "" : modelName;
+        return model + '\n' + normalize(prompt);
+    }
+
+    static String normalize(String prompt) {
+        if (prompt == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(prompt.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < prompt.length(); i++) {
+            char c = prompt.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    sb.append(' ');
+                    pendingSpace = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private void record(String result) {
+        if (meterRegistry != null) {
+            meterRegistry.counter("llm.cache.requests", "namespace", namespace, "result", result).increment();
+        }
+    }
+
+    /**
+     * TTL and capacity of one cache namespace.
+     */
+    public record Policy(Duration ttl, int maxSize) {
+    }
+
+    private static final class PromptCache {
+        private final long ttlNanos;
+        private final LongSupplier ticker;
+        private final LinkedHashMap<String, Entry> entries;
+
+        PromptCache(Policy policy, LongSupplier ticker) {
+            this.ttlNanos = policy.ttl().toNanos();
+            this.ticker = ticker;
+            int maxSize = Math.max(policy.maxSize(), 1);
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        synchronized String get(String key) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (ticker.getAsLong() - entry.storedAt >= ttlNanos) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+
+        synchronized void put(String key, String value) {
+            entries.put(key, new Entry(value, ticker.getAsLong()));
+        }
+
+        synchronized int size() {
+            long now = ticker.getAsLong();
+            entries.values().removeIf(e -> now - e.storedAt >= ttlNanos);
+            return entries.size();
+        }
+    }
+
+    private record Entry(String value, long storedAt) {
+    }
+}
@@ -0,0 +1,150 @@
+package com.agentictravel.llm;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker. While CLOSED it tracks the outcome of the last
+ * {@code windowSize} calls and opens when the failure rate reaches the threshold
+ * (once at least {@code minimumCalls} were seen). OPEN rejects every call until
+ * {@code openDuration} has passed, then HALF_OPEN lets a few probe calls through:
+ * if they all succeed the breaker closes, any failure re-opens it.
+ */
+public class CircuitBreaker {
+
+    /**
+     * Breaker states; the ordinal is exported as a gauge value.
+     */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final Config config;
+    private final LongSupplier ticker;
+    private final boolean[] window;
+    private int next;
+    private int recorded;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    public CircuitBreaker(Config config) {
+        this(config, System::nanoTime);
+    }
+
+    /**
+     * Test-friendly constructor that accepts a custom nano-time source.
+     */
+    CircuitBreaker(Config config, LongSupplier ticker) {
+        this.config = config;
+        this.ticker = ticker;
+        this.window = new boolean[Math.max(config.windowSize(), 1)];
+    }
+
+    /**
+     * Returns true if a call may proceed. Every permitted call must be followed by
+     * {@link #onSuccess()}, {@link #onFailure()} or {@link #onIgnored()}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (ticker.getAsLong() - openedAt < config.openDuration().toNanos()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= config.halfOpenCalls()) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            probeSuccesses++;
+            if (probeSuccesses >= config.halfOpenCalls()) {
+                reset();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            trip();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= config.minimumCalls() && failures * 100.0 / recorded >= config.failureRateThreshold()) {
+                trip();
+            }
+        }
+    }
+
+    /**
+     * Ends a permitted call that says nothing about the provider, such as one the caller
+     * cancelled: a half-open probe slot is handed back and the state is left unchanged.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && ticker.getAsLong() - openedAt >= config.openDuration().toNanos()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Time left before an open breaker admits probe calls; zero if not open.
+     */
+    public synchronized Duration remainingOpen() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        long left = config.openDuration().toNanos() - (ticker.getAsLong() - openedAt);
+        return left > 0 ? Duration.ofNanos(left) : Duration.ZERO;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == window.length && window[next]) {
+            failures--;
+        }
+        window[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+        if (recorded < window.length) {
+            recorded++;
+        }
+    }
+
+    private void trip() {
+        state = State.OPEN;
+        openedAt = ticker.getAsLong();
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+
+    /**
+     * Breaker tuning; failureRateThreshold is a percentage.
+     */
+    public record Config(double failureRateThreshold, int windowSize, int minimumCalls,
+                         Duration openDuration, int halfOpenCalls) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.agentictravel.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LLMClient decorator holding one {@link CircuitBreaker} per model. While a model's breaker
+ * is open, calls fail immediately with a non-retryable {@link CircuitOpenException} instead
+ * of queueing behind a degraded provider. Only transient failures (throttling, 5xx,
+ * transport errors) count against the breaker; request errors such as 400 do not, and a
+ * call the caller cancelled leaves the breaker as it was.
+ */
+public class CircuitBreakerLLMClient implements LLMClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CircuitBreakerLLMClient.class);
+
+    private final LLMClient delegate;
+    private final CircuitBreaker.Config config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public CircuitBreakerLLMClient(LLMClient delegate, CircuitBreaker.Config config) {
+        this(delegate, config, null);
+    }
+
+    public CircuitBreakerLLMClient(LLMClient delegate, CircuitBreaker.Config config, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public CompletableFuture<String> prompt(String prompt, String modelName) {
+        String model = modelName == null ? "" : modelName;
+        CircuitBreaker breaker = breaker(model);
+        if (!breaker.tryAcquire()) {
+            LOG.debug("Circuit open for model {}, failing fast", model);
+            return CompletableFuture.failedFuture(new CircuitOpenException(model, breaker.remainingOpen()));
+        }
+
+        CompletableFuture<String> call = delegate.prompt(prompt, modelName);
+        call.whenComplete((response, error) -> record(breaker, error));
+        return call;
+    }
+
+    /**
+     * Streams count against the breaker once they finish: a stream that fails part-way
+     * through is as much a sign of an outage as a failed call.
+     */
+    @Override
+    public Flux<String> stream(String prompt, String modelName) {
+        return Flux.defer(() -> {
+            String model = modelName == null ? "" : modelName;
+            CircuitBreaker breaker = breaker(model);
+            if (!breaker.tryAcquire()) {
+                LOG.debug("Circuit open for model {}, failing fast", model);
+                return Flux.error(new CircuitOpenException(model, breaker.remainingOpen()));
+            }
+            return delegate.stream(prompt, modelName)
+                    .doOnComplete(() -> record(breaker, null))
+                    .doOnError(error -> record(breaker, error))
+                    .doOnCancel(() -> record(breaker, new CancellationException()));
+        });
+    }
+
+    public CircuitBreaker.State getState(String modelName) {
+        CircuitBreaker breaker = breakers.get(modelName == null ? "" : modelName);
+        return breaker == null ? CircuitBreaker.State.CLOSED : breaker.getState();
+    }
+
+    private static void record(CircuitBreaker breaker, Throwable error) {
+        if (error == null) {
+            breaker.onSuccess();
+            return;
+        }
+        Throwable failure = LLMClientException.unwrap(error);
+        if (failure instanceof CancellationException) {
+            // The caller gave up: neither a sign of health nor of an outage
+            breaker.onIgnored();
+        } else if (RetryPolicy.isRetryable(failure)) {
+            breaker.onFailure();
+        } else {
+            // The provider answered, so a request error is not evidence of an outage
+            breaker.onSuccess();
+        }
+    }
+
+    private CircuitBreaker breaker(String model) {
+        return breakers.computeIfAbsent(model, m -> {
+            CircuitBreaker breaker = new CircuitBreaker(config);
+            if (meterRegistry != null) {
+                meterRegistry.gauge("llm.circuit.state", List.of(Tag.of("model", m.isEmpty() ? "default" : m)),
+                        breaker, b -> b.getState().ordinal());
+            }
+            return breaker;
+        });
+    }
+}
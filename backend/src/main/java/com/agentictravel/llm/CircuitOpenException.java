@@ -0,0 +1,18 @@
+package com.agentictravel.llm;
+
+import java.time.Duration;
+
+/**
+ * Raised without calling the provider because the model's circuit breaker is open.
+ * It is not retryable: retrying would only spin until the breaker half-opens.
+ */
+public class CircuitOpenException extends LLMClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    public CircuitOpenException(String model, Duration retryAfter) {
+        super("Circuit breaker open for model '" + model + "'", SERVICE_UNAVAILABLE, retryAfter, false, null);
+    }
+}
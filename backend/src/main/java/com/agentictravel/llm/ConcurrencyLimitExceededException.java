@@ -0,0 +1,14 @@
+package com.agentictravel.llm;
+
+/**
+ * Raised locally when a call cannot get a concurrency permit: the wait queue is full
+ * or the call waited longer than allowed. Not retryable, since the queue was the retry.
+ */
+public class ConcurrencyLimitExceededException extends LLMClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message, 0, null, false, null);
+    }
+}
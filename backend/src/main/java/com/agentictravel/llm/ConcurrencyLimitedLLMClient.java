@@ -0,0 +1,134 @@
+package com.agentictravel.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LLMClient decorator that caps in-flight calls with one {@link AdaptiveConcurrencyLimiter}
+ * per API key and model. It sits closest to the HTTP client so every physical request,
+ * including hedges and retries, holds a permit. A stream holds its permit until its last
+ * delta, error or cancellation. 429 responses shrink the window; other failures and
+ * cancellations say nothing about provider load and are ignored.
+ */
+public class ConcurrencyLimitedLLMClient implements LLMClient {
+
+    private final LLMClient delegate;
+    private final String keyId;
+    private final AdaptiveConcurrencyLimiter.Config config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitedLLMClient(LLMClient delegate, String keyId, AdaptiveConcurrencyLimiter.Config config) {
+        this(delegate, keyId, config, null);
+    }
+
+    public ConcurrencyLimitedLLMClient(LLMClient delegate, String keyId, AdaptiveConcurrencyLimiter.Config config,
+                                       MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.keyId = keyId;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Short, log-safe identifier for an API key: never exposes more than its last four characters.
+     */
+    public static String keyId(String apiKey) {
+        if (apiKey == null || apiKey.length() < 8) {
+            return "default";
+        }
+        return "..." + apiKey.substring(apiKey.length() - 4);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public CompletableFuture<String> prompt(String prompt, String modelName) {
+        AdaptiveConcurrencyLimiter limiter = limiter(modelName == null ? "" : modelName);
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> acquired = limiter.acquire();
+        CompletableFuture<String> result = new CompletableFuture<>();
+
+        acquired.whenComplete((permit, error) -> {
+            if (error != null) {
+                result.completeExceptionally(LLMClientException.unwrap(error));
+                return;
+            }
+            if (result.isDone()) {
+                // Cancelled while queued
+                permit.release(AdaptiveConcurrencyLimiter.Outcome.IGNORED);
+                return;
+            }
+            CompletableFuture<String> call = delegate.prompt(prompt, modelName);
+            Futures.propagateCancellation(result, call);
+            call.whenComplete((response, failure) -> {
+                permit.release(outcome(failure));
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                } else {
+                    result.complete(response);
+                }
+            });
+        });
+        // A caller giving up while queued frees its queue slot
+        Futures.propagateCancellation(result, acquired);
+        return result;
+    }
+
+    @Override
+    public Flux<String> stream(String prompt, String modelName) {
+        return Flux.defer(() -> {
+            AdaptiveConcurrencyLimiter limiter = limiter(modelName == null ? "" : modelName);
+            CompletableFuture<AdaptiveConcurrencyLimiter.Permit> acquired = limiter.acquire();
+            return Mono.fromFuture(acquired)
+                    .onErrorMap(LLMClientException::unwrap)
+                    .flatMapMany(permit -> delegate.stream(prompt, modelName)
+                            .doOnComplete(() -> permit.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS))
+                            .doOnError(failure -> permit.release(outcome(failure)))
+                            .doOnCancel(() -> permit.release(AdaptiveConcurrencyLimiter.Outcome.IGNORED)))
+                    .doOnCancel(() -> {
+                        // Cancelled while queued, or after the permit was granted but before the stream began
+                        if (!acquired.cancel(true)) {
+                            acquired.thenAccept(permit -> permit.release(AdaptiveConcurrencyLimiter.Outcome.IGNORED));
+                        }
+                    });
+        });
+    }
+
+    AdaptiveConcurrencyLimiter getLimiter(String modelName) {
+        return limiters.get(modelName == null ? "" : modelName);
+    }
+
+    private static AdaptiveConcurrencyLimiter.Outcome outcome(Throwable failure) {
+        if (failure == null) {
+            return AdaptiveConcurrencyLimiter.Outcome.SUCCESS;
+        }
+        Throwable cause = LLMClientException.unwrap(failure);
+        if (cause instanceof LLMClientException e && e.isThrottled()) {
+            return AdaptiveConcurrencyLimiter.Outcome.DROPPED;
+        }
+        return AdaptiveConcurrencyLimiter.Outcome.IGNORED;
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(String model) {
+        return limiters.computeIfAbsent(model, m -> {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config);
+            if (meterRegistry != null) {
+                List<Tag> tags = List.of(Tag.of("key", keyId), Tag.of("model", m.isEmpty() ? "default" : m));
+                meterRegistry.gauge("llm.concurrency.inflight", tags, limiter, AdaptiveConcurrencyLimiter::getInFlight);
+                meterRegistry.gauge("llm.concurrency.queue", tags, limiter, AdaptiveConcurrencyLimiter::getQueueDepth);
+                meterRegistry.gauge("llm.concurrency.limit", tags, limiter, AdaptiveConcurrencyLimiter::getLimit);
+            }
+            return limiter;
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package com.agentictravel.llm;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Helpers for CompletableFuture plumbing shared by the LLM client decorators.
+ */
+public final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Cancels {@code upstream} when {@code downstream} is cancelled. CompletableFuture does
+     * not propagate cancellation backwards through dependent stages, so decorators that
+     * hand out their own future must wire this explicitly to abort the real work.
+     */
+    public static <T> CompletableFuture<T> propagateCancellation(CompletableFuture<T> downstream, Future<?> upstream) {
+        downstream.whenComplete((r, e) -> {
+            if (downstream.isCancelled()) {
+                upstream.cancel(true);
+            }
+        });
+        return downstream;
+    }
+
+    /**
+     * {@code source.thenApply(fn)}, except that cancelling the result also cancels {@code source},
+     * so a caller that gives up on the mapped value aborts the call behind it.
+     */
+    public static <T, R> CompletableFuture<R> map(CompletableFuture<T> source, Function<? super T, ? extends R> fn) {
+        return propagateCancellation(source.thenApply(fn), source);
+    }
+
+    /**
+     * {@code source.orTimeout(timeout, unit)}, except that {@code source} is cancelled when the
+     * timeout fires, before the returned future fails with a {@link TimeoutException}.
+     * {@code orTimeout} alone completes the future it is given exceptionally, which cancels
+     * nothing: the call behind it keeps running.
+     */
+    public static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> source, long timeout, TimeUnit unit) {
+        CompletableFuture<T> bounded = new CompletableFuture<>();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        source.whenComplete((r, e) -> {
+            if (timedOut.get()) {
+                return;
+            }
+            if (e != null) {
+                bounded.completeExceptionally(e);
+            } else {
+                bounded.complete(r);
+            }
+        });
+        CompletableFuture.delayedExecutor(timeout, unit).execute(() -> {
+            if (!source.isDone() && timedOut.compareAndSet(false, true)) {
+                source.cancel(true);
+                bounded.completeExceptionally(new TimeoutException());
+            }
+        });
+        return propagateCancellation(bounded, source);
+    }
+}
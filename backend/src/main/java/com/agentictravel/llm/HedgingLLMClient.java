@@ -0,0 +1,330 @@
+package com.agentictravel.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LLMClient decorator that sends a second, identical request when the first one has not
+ * answered within the observed latency percentile for its model, and returns whichever
+ * succeeds first; the loser is cancelled. Hedges are rationed by a token bucket so at most
+ * {@code maxHedgeRatio} of requests are duplicated, which bounds the extra cost.
+ * Streams race on their first delta instead, against the observed time to first delta:
+ * the first attempt to produce one is followed to the end and the other is cancelled.
+ */
+public class HedgingLLMClient implements LLMClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HedgingLLMClient.class);
+    private static final int WINDOW_SIZE = 256;
+    private static final int MIN_SAMPLES = 20;
+    private static final double MAX_TOKENS = 10.0;
+
+    private final LLMClient delegate;
+    private final Policy policy;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LatencyTracker> firstDeltaLatencies = new ConcurrentHashMap<>();
+    private double hedgeTokens = MAX_TOKENS;
+
+    public HedgingLLMClient(LLMClient delegate, Policy policy) {
+        this(delegate, policy, null);
+    }
+
+    public HedgingLLMClient(LLMClient delegate, Policy policy, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.policy = policy;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public CompletableFuture<String> prompt(String prompt, String modelName) {
+        String model = modelName == null ? "" : modelName;
+        LatencyTracker tracker = latencies.computeIfAbsent(model, m -> new LatencyTracker(WINDOW_SIZE));
+        depositHedgeToken();
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        CompletableFuture<String> primary = timed(prompt, modelName, tracker);
+        Futures.propagateCancellation(result, primary);
+        primary.whenComplete((response, error) -> settle(result, pending, response, error));
+
+        Duration delay = hedgeDelay(tracker);
+        CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone() || !takeHedgeToken()) {
+                return;
+            }
+            pending.incrementAndGet();
+            count("llm.hedge.requests", model);
+            LOG.debug("Hedging LLM call for model {} after {} ms", model, delay.toMillis());
+            CompletableFuture<String> hedge = timed(prompt, modelName, tracker);
+            Futures.propagateCancellation(result, hedge);
+            hedge.whenComplete((response, error) -> {
+                if (error == null && !result.isDone()) {
+                    count("llm.hedge.wins", model);
+                    // Cancel the slow primary before publishing the result, not after
+                    primary.cancel(true);
+                }
+                settle(result, pending, response, error);
+            });
+            // Whichever attempt loses is cancelled once the result is settled
+            result.whenComplete((r, e) -> {
+                primary.cancel(true);
+                hedge.cancel(true);
+            });
+        });
+        return result;
+    }
+
+    @Override
+    public Flux<String> stream(String prompt, String modelName) {
+        return Flux.create(sink -> {
+            String model = modelName == null ? "" : modelName;
+            LatencyTracker tracker = firstDeltaLatencies.computeIfAbsent(model, m -> new LatencyTracker(WINDOW_SIZE));
+            depositHedgeToken();
+            StreamRace race = new StreamRace(sink, model, tracker);
+            sink.onDispose(race::cancelAll);
+            race.start(prompt, modelName, false);
+
+            Duration delay = hedgeDelay(tracker);
+            CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+                if (!race.undecided() || !takeHedgeToken()) {
+                    return;
+                }
+                count("llm.hedge.requests", model);
+                LOG.debug("Hedging LLM stream for model {} after {} ms", model, delay.toMillis());
+                race.start(prompt, modelName, true);
+            });
+        });
+    }
+
+    /**
+     * Completes the result with the first success, or with the last failure once every
+     * attempt has failed.
+     */
+    private static void settle(CompletableFuture<String> result, AtomicInteger pending,
+                               String response, Throwable error) {
+        int remaining = pending.decrementAndGet();
+        if (error == null) {
+            result.complete(response);
+        } else if (remaining == 0) {
+            result.completeExceptionally(LLMClientException.unwrap(error));
+        }
+    }
+
+    /**
+     * Starts an attempt and records how long it ran if it succeeded or was cancelled. A cancelled
+     * loser is recorded at the time it had been running, a lower bound on its real latency, so
+     * slow calls still count. Failures are left out: a 429 or a refused connection comes back
+     * fast, and counting it would pull the hedge delay down just when the provider is throttling.
+     */
+    private CompletableFuture<String> timed(String prompt, String modelName, LatencyTracker tracker) {
+        long start = System.nanoTime();
+        CompletableFuture<String> call = delegate.prompt(prompt, modelName);
+        call.whenComplete((r, e) -> {
+            if (e == null || LLMClientException.unwrap(e) instanceof CancellationException) {
+                tracker.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        });
+        return call;
+    }
+
+    LatencyTracker getLatencies(String modelName) {
+        return latencies.get(modelName == null ? "" : modelName);
+    }
+
+    LatencyTracker getFirstDeltaLatencies(String modelName) {
+        return firstDeltaLatencies.get(modelName == null ? "" : modelName);
+    }
+
+    Duration hedgeDelay(LatencyTracker tracker) {
+        if (tracker.size() < MIN_SAMPLES) {
+            return policy.maxDelay();
+        }
+        long p = tracker.percentile(policy.percentile());
+        long clamped = Math.min(Math.max(p, policy.minDelay().toMillis()), policy.maxDelay().toMillis());
+        return Duration.ofMillis(clamped);
+    }
+
+    private synchronized void depositHedgeToken() {
+        hedgeTokens = Math.min(MAX_TOKENS, hedgeTokens + policy.maxHedgeRatio());
+    }
+
+    private synchronized boolean takeHedgeToken() {
+        if (hedgeTokens >= 1.0) {
+            hedgeTokens -= 1.0;
+            return true;
+        }
+        return false;
+    }
+
+    private void count(String name, String model) {
+        if (meterRegistry != null) {
+            meterRegistry.counter(name, "model", model.isEmpty() ? "default" : model).increment();
+        }
+    }
+
+    /**
+     * The attempts of one streamed call. The first attempt to produce a delta (or to complete
+     * empty) wins: it is relayed to the caller and every other attempt is cancelled. Until
+     * then a failed attempt only fails the stream if no other attempt is still running.
+     */
+    private final class StreamRace {
+        private final FluxSink<String> sink;
+        private final String model;
+        private final LatencyTracker tracker;
+        private final List<Attempt> running = new ArrayList<>();
+        private Attempt winner;
+        private boolean finished;
+
+        StreamRace(FluxSink<String> sink, String model, LatencyTracker tracker) {
+            this.sink = sink;
+            this.model = model;
+            this.tracker = tracker;
+        }
+
+        synchronized boolean undecided() {
+            return winner == null && !finished;
+        }
+
+        void start(String prompt, String modelName, boolean hedge) {
+            Attempt attempt = new Attempt(hedge);
+            synchronized (this) {
+                if (!undecided()) {
+                    return;
+                }
+                running.add(attempt);
+            }
+            try {
+                delegate.stream(prompt, modelName).subscribe(attempt);
+            } catch (RuntimeException e) {
+                failed(attempt, e);
+            }
+        }
+
+        void delta(Attempt attempt, String delta) {
+            if (win(attempt)) {
+                sink.next(delta);
+            }
+        }
+
+        void completed(Attempt attempt) {
+            if (win(attempt)) {
+                synchronized (this) {
+                    finished = true;
+                }
+                sink.complete();
+            }
+        }
+
+        void failed(Attempt attempt, Throwable error) {
+            synchronized (this) {
+                if (finished || (winner != null && winner != attempt)) {
+                    return;
+                }
+                running.remove(attempt);
+                if (winner == null && !running.isEmpty()) {
+                    return;
+                }
+                finished = true;
+            }
+            sink.error(LLMClientException.unwrap(error));
+        }
+
+        void cancelAll() {
+            List<Attempt> attempts;
+            synchronized (this) {
+                finished = true;
+                attempts = new ArrayList<>(running);
+            }
+            attempts.forEach(Attempt::cancel);
+        }
+
+        /**
+         * Returns true if the attempt is (now) the winner; the first call for a winner cancels the rest.
+         */
+        private boolean win(Attempt attempt) {
+            List<Attempt> losers;
+            synchronized (this) {
+                if (winner != null || finished) {
+                    return winner == attempt && !finished;
+                }
+                winner = attempt;
+                running.remove(attempt);
+                losers = new ArrayList<>(running);
+                running.clear();
+                running.add(attempt);
+            }
+            if (attempt.hedge) {
+                count("llm.hedge.wins", model);
+            }
+            losers.forEach(Attempt::cancel);
+            return true;
+        }
+
+        private final class Attempt extends BaseSubscriber<String> {
+            private final boolean hedge;
+            private final long start = System.nanoTime();
+            private boolean timed;
+
+            Attempt(boolean hedge) {
+                this.hedge = hedge;
+            }
+
+            @Override
+            protected void hookOnNext(String delta) {
+                recordFirstDelta();
+                delta(this, delta);
+            }
+
+            @Override
+            protected void hookOnComplete() {
+                recordFirstDelta();
+                completed(this);
+            }
+
+            @Override
+            protected void hookOnError(Throwable error) {
+                // Not timed, for the same reason as failed calls
+                failed(this, error);
+            }
+
+            @Override
+            protected void hookOnCancel() {
+                // A cancelled loser had not produced a delta yet: its wait so far is a lower bound
+                recordFirstDelta();
+            }
+
+            private synchronized void recordFirstDelta() {
+                if (!timed) {
+                    timed = true;
+                    tracker.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+            }
+        }
+    }
+
+    /**
+     * When to hedge: at the given latency percentile, clamped to [minDelay, maxDelay];
+     * maxDelay is also used until enough samples have been observed.
+     */
+    public record Policy(double percentile, Duration minDelay, Duration maxDelay, double maxHedgeRatio) {
+    }
+}
@@ -1,5 +1,8 @@
 package com.agentictravel.llm;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 import java.util.concurrent.CompletableFuture;
 
 public interface LLMClient {
@@ -7,4 +10,17 @@ public interface LLMClient {
     String getName();
     // Sends a prompt and returns a text response (async)
     CompletableFuture<String> prompt(String prompt, String modelName);
+
+    // Sends a prompt and streams the response as text deltas in arrival order.
+    // Concatenating all deltas yields the same text prompt() would return. Clients
+    // without native streaming emit the whole response as a single delta.
+    default Flux<String> stream(String prompt, String modelName) {
+        return Mono.fromFuture(() -> prompt(prompt, modelName)).flux();
+    }
+
+    // Returns a view of this client scoped to a namespace (e.g. the calling agent).
+    // Clients that keep per-namespace state such as caches override this; others ignore it.
+    default LLMClient withNamespace(String namespace) {
+        return this;
+    }
 }
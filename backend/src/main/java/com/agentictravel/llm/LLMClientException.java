@@ -0,0 +1,75 @@
+package com.agentictravel.llm;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Failure of an LLM call, carrying the HTTP status (0 when no response was received)
+ * and the provider's Retry-After hint when one was sent.
+ */
+public class LLMClientException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int REQUEST_TIMEOUT = 408;
+    private static final int SERVER_ERROR = 500;
+
+    private final int statusCode;
+    private final Duration retryAfter;
+    private final boolean transientFailure;
+
+    public LLMClientException(String message, int statusCode, Duration retryAfter) {
+        this(message, statusCode, retryAfter, isTransientStatus(statusCode), null);
+    }
+
+    public LLMClientException(String message, Throwable cause) {
+        this(message, 0, null, cause instanceof IOException, cause);
+    }
+
+    protected LLMClientException(String message, int statusCode, Duration retryAfter, boolean transientFailure, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+        this.transientFailure = transientFailure;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Delay requested by the provider before the next attempt, or null if none was given.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * True for throttling, server-side and transport failures that may succeed on retry.
+     */
+    public boolean isRetryable() {
+        return transientFailure;
+    }
+
+    public boolean isThrottled() {
+        return statusCode == TOO_MANY_REQUESTS;
+    }
+
+    static boolean isTransientStatus(int statusCode) {
+        return statusCode == TOO_MANY_REQUESTS || statusCode == REQUEST_TIMEOUT || statusCode >= SERVER_ERROR;
+    }
+
+    /**
+     * Strips CompletionException/ExecutionException wrappers added by CompletableFuture.
+     */
+    public static Throwable unwrap(Throwable t) {
+        Throwable current = t;
+        while ((current instanceof CompletionException || current instanceof ExecutionException) && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+}
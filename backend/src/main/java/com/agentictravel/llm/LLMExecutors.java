@@ -0,0 +1,78 @@
+package com.agentictravel.llm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory for the executors that drive asynchronous LLM HTTP calls.
+ * The HttpClient only needs a thread while it is parsing or dispatching a response,
+ * so a handful of threads is enough for thousands of in-flight prompts.
+ */
+public final class LLMExecutors {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LLMExecutors.class);
+
+    private LLMExecutors() {
+    }
+
+    /**
+     * Creates the executor for LLM I/O: virtual threads when requested and supported by
+     * the running JVM (Java 21+), otherwise a fixed pool of daemon threads.
+     */
+    public static ExecutorService create(int threads, boolean virtualThreads) {
+        if (virtualThreads) {
+            ExecutorService virtual = newVirtualThreadExecutor();
+            if (virtual != null) {
+                LOG.info("LLM client using virtual threads");
+                return virtual;
+            }
+            LOG.warn("Virtual threads requested but not supported by this JVM, using {} platform threads", threads);
+        }
+        return newBoundedExecutor(threads);
+    }
+
+    public static ExecutorService newBoundedExecutor(int threads) {
+        return Executors.newFixedThreadPool(Math.max(threads, 1), daemonThreadFactory("llm-io-"));
+    }
+
+    /**
+     * Executor for one agent's bulkhead. Idle threads time out, so quiet agents hold no threads.
+     */
+    public static ExecutorService newAgentExecutor(String agent, int threads) {
+        int size = Math.max(threads, 1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreadFactory("agent-" + agent + "-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Returns Executors.newVirtualThreadPerTaskExecutor() when available, or null on older JVMs.
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread t = new Thread(runnable, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
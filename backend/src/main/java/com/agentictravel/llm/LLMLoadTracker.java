@@ -0,0 +1,69 @@
+package com.agentictravel.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide view of LLM load: how many physical calls are in flight and how long recent
+ * calls took. Fed by {@link LoadTrackingLLMClient}; read by admission control to predict how
+ * long new work would wait. Calls cancelled before they finished are wasted work and are
+ * counted as such ({@code llm.calls.cancelled}, {@code llm.calls.cancelled.time}).
+ */
+public class LLMLoadTracker {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LatencyTracker latencies;
+    private final Counter cancelled;
+    private final Timer cancelledTime;
+
+    public LLMLoadTracker() {
+        this(200, null);
+    }
+
+    public LLMLoadTracker(int windowSize, MeterRegistry meterRegistry) {
+        this.latencies = new LatencyTracker(windowSize);
+        if (meterRegistry != null) {
+            meterRegistry.gauge("llm.calls.inflight", inFlight);
+            this.cancelled = Counter.builder("llm.calls.cancelled")
+                    .description("LLM calls aborted because nobody was waiting for them any more")
+                    .register(meterRegistry);
+            this.cancelledTime = Timer.builder("llm.calls.cancelled.time")
+                    .description("Time LLM calls had been running when they were aborted")
+                    .register(meterRegistry);
+        } else {
+            this.cancelled = null;
+            this.cancelledTime = null;
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Returns the given latency percentile of recent calls in milliseconds, or -1 before any call finished.
+     */
+    public long latencyPercentile(double percentile) {
+        return latencies.percentile(percentile);
+    }
+
+    void started() {
+        inFlight.incrementAndGet();
+    }
+
+    void finished(long latencyMillis, Throwable error) {
+        inFlight.decrementAndGet();
+        // Only successes describe latency: failures and cancellations end early and would flatter the provider
+        if (error == null) {
+            latencies.record(latencyMillis);
+        } else if (LLMClientException.unwrap(error) instanceof CancellationException && cancelled != null) {
+            cancelled.increment();
+            cancelledTime.record(latencyMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
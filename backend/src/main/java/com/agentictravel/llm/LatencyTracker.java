@@ -0,0 +1,47 @@
+package com.agentictravel.llm;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size sliding window of recent call latencies used to derive percentiles.
+ * The window is small (hundreds of samples) so computing a percentile by sorting a
+ * copy is cheaper than maintaining a streaming histogram.
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    public LatencyTracker(int windowSize) {
+        this.samples = new long[Math.max(windowSize, 1)];
+    }
+
+    public synchronized void record(long latencyMillis) {
+        samples[next] = latencyMillis;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Returns the given percentile (0-100] of the window in milliseconds, or -1 when empty.
+     */
+    public long percentile(double percentile) {
+        long[] copy;
+        synchronized (this) {
+            if (count == 0) {
+                return -1;
+            }
+            copy = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(copy);
+        int index = (int) Math.ceil(percentile / 100.0 * copy.length) - 1;
+        return copy[Math.min(Math.max(index, 0), copy.length - 1)];
+    }
+}
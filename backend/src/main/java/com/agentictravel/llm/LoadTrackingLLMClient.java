@@ -0,0 +1,65 @@
+package com.agentictravel.llm;
+
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LLMClient decorator that reports every call, and how it ended, to a shared {@link LLMLoadTracker}.
+ * A streamed call is in flight from subscription until its last delta, error or cancellation.
+ */
+public class LoadTrackingLLMClient implements LLMClient {
+
+    private final LLMClient delegate;
+    private final LLMLoadTracker tracker;
+
+    public LoadTrackingLLMClient(LLMClient delegate, LLMLoadTracker tracker) {
+        this.delegate = delegate;
+        this.tracker = tracker;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public CompletableFuture<String> prompt(String prompt, String modelName) {
+        long start = System.nanoTime();
+        tracker.started();
+        CompletableFuture<String> call;
+        try {
+            call = delegate.prompt(prompt, modelName);
+        } catch (RuntimeException e) {
+            tracker.finished(0, e);
+            throw e;
+        }
+        call.whenComplete((response, error) -> tracker.finished(elapsedMillis(start), error));
+        return call;
+    }
+
+    @Override
+    public Flux<String> stream(String prompt, String modelName) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            tracker.started();
+            Flux<String> deltas;
+            try {
+                deltas = delegate.stream(prompt, modelName);
+            } catch (RuntimeException e) {
+                tracker.finished(0, e);
+                throw e;
+            }
+            return deltas
+                    .doOnComplete(() -> tracker.finished(elapsedMillis(start), null))
+                    .doOnError(error -> tracker.finished(elapsedMillis(start), error))
+                    .doOnCancel(() -> tracker.finished(elapsedMillis(start), new CancellationException()));
+        });
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -2,31 +2,77 @@ package com.agentictravel.llm;
 
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.Map;
 import java.util.HashMap;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 
 public class OpenAILLMClient implements LLMClient {
-    
+
     private final String apiKey;
     private final String model;
     private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
-    private final String apiUrl = "https://api.openai.com/v1/chat/completions";
-    
+    private final String apiUrl;
+    private final int maxTokens;
+
+    public static final String DEFAULT_BASE_URL = "https://api.openai.com/v1";
+    public static final int DEFAULT_MAX_TOKENS = 2000;
+    private static final int MIN_OUTPUT_TOKENS = 256;
+
     public OpenAILLMClient(String apiKey, String model) {
         this(apiKey, model, HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build());
     }
 
+    /**
+     * Creates a client whose HTTP exchanges and response handling run on the given executor.
+     * Calls are fully asynchronous, so a small executor serves many concurrent prompts.
+     */
+    public OpenAILLMClient(String apiKey, String model, Executor executor) {
+        this(apiKey, model, DEFAULT_BASE_URL, executor);
+    }
+
+    /**
+     * Creates a client for any OpenAI-compatible endpoint, e.g. a proxy or a local stand-in;
+     * {@code baseUrl} is the API root that {@code /chat/completions} is appended to.
+     */
+    public OpenAILLMClient(String apiKey, String model, String baseUrl, Executor executor) {
+        this(apiKey, model, baseUrl, executor, DEFAULT_MAX_TOKENS);
+    }
+
+    /**
+     * As above, with {@code maxTokens} (openai.max-tokens) as the cap on each completion.
+     */
+    public OpenAILLMClient(String apiKey, String model, String baseUrl, Executor executor, int maxTokens) {
+        this(apiKey, model, baseUrl, HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(executor)
+                .build(), maxTokens);
+    }
+
     /**
      * Test-friendly constructor that accepts a pre-built HttpClient (e.g., a mock).
      */
     public OpenAILLMClient(String apiKey, String model, HttpClient httpClient) {
+        this(apiKey, model, DEFAULT_BASE_URL, httpClient);
+    }
+
+    public OpenAILLMClient(String apiKey, String model, String baseUrl, HttpClient httpClient) {
+        this(apiKey, model, baseUrl, httpClient, DEFAULT_MAX_TOKENS);
+    }
+
+    public OpenAILLMClient(String apiKey, String model, String baseUrl, HttpClient httpClient, int maxTokens) {
         if (apiKey == null || apiKey.isEmpty()) {
             throw new NullPointerException("apiKey");
         }
@@ -36,63 +82,224 @@ public class OpenAILLMClient implements LLMClient {
         this.apiKey = apiKey;
         this.model = model;
         this.httpClient = httpClient;
+        this.maxTokens = maxTokens;
         this.objectMapper = new ObjectMapper();
+        String base = baseUrl == null || baseUrl.isBlank() ? DEFAULT_BASE_URL : baseUrl.trim();
+        this.apiUrl = (base.endsWith("/") ? base.substring(0, base.length() - 1) : base) + "/chat/completions";
     }
-    
+
     @Override
     public String getName() {
         return "openai";
     }
-    
+
     @Override
     public CompletableFuture<String> prompt(String prompt, String modelName) {
-        return CompletableFuture.supplyAsync(() -> {
+        HttpRequest request;
+        try {
+            request = buildRequest(prompt, modelName, false);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(new LLMClientException("Failed to call OpenAI API: " + e.getMessage(), e));
+        }
+
+        // Non-blocking exchange: no thread is held while waiting for the completion
+        CompletableFuture<HttpResponse<String>> call = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<String> result = call.handle((response, error) -> {
+            if (error != null) {
+                Throwable cause = LLMClientException.unwrap(error);
+                throw new LLMClientException("Failed to call OpenAI API: " + cause.getMessage(), cause);
+            }
+            return extractContent(response);
+        });
+        // Cancelling the returned future aborts the underlying HTTP exchange
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private String extractContent(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            throw new LLMClientException("OpenAI API error: " + response.statusCode() + " - " + response.body(),
+                    response.statusCode(), retryAfter(response.headers()));
+        }
+        try {
+            JsonNode responseJson = objectMapper.readTree(response.body());
+            JsonNode content = responseJson.path("choices").path(0).path("message").path("content");
+
+            if (content.isMissingNode()) {
+                throw new LLMClientException("No content in OpenAI response", response.statusCode(), null);
+            }
+
+            return content.asText();
+        } catch (JsonProcessingException e) {
+            throw new LLMClientException("Failed to call OpenAI API: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the provider's retry hint, preferring the millisecond-precision header.
+     */
+    private static Duration retryAfter(HttpHeaders headers) {
+        Duration ms = headers.firstValue("retry-after-ms")
+                .map(v -> RetryPolicy.parseRetryAfter(v + "ms"))
+                .orElse(null);
+        return ms != null ? ms : headers.firstValue("retry-after").map(RetryPolicy::parseRetryAfter).orElse(null);
+    }
+
+    /**
+     * Streams the completion using the chat completions SSE mode (stream=true).
+     * Each emitted element is a content delta; cancelling the subscription aborts the HTTP exchange.
+     */
+    @Override
+    public Flux<String> stream(String prompt, String modelName) {
+        return Flux.create(sink -> {
+            HttpRequest request;
             try {
-                // Use the modelName parameter if provided, otherwise use the configured model
-                String modelToUse = (modelName != null && !modelName.isEmpty()) ? modelName : this.model;
-                
-                Map<String, Object> requestBody = new HashMap<>();
-                requestBody.put("model", modelToUse);
-                requestBody.put("messages", new Object[]{
-                    Map.of("role", "system", "content", "You are a helpful travel planning assistant. Always respond with valid JSON when requested."),
-                    Map.of("role", "user", "content", prompt)
+                request = buildRequest(prompt, modelName, true);
+            } catch (Exception e) {
+                sink.error(new LLMClientException("Failed to call OpenAI API: " + e.getMessage(), e));
+                return;
+            }
+
+            SseLineSubscriber lines = new SseLineSubscriber(sink, objectMapper);
+            CompletableFuture<HttpResponse<Void>> call = httpClient.sendAsync(request, info -> {
+                if (info.statusCode() == 200) {
+                    return HttpResponse.BodySubscribers.fromLineSubscriber(lines);
+                }
+                return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8), body -> {
+                    throw new LLMClientException("OpenAI API error: " + info.statusCode() + " - " + body,
+                            info.statusCode(), retryAfter(info.headers()));
                 });
-                requestBody.put("temperature", 0.7);
-                requestBody.put("max_tokens", 2000);
-                
-                // Enable JSON mode for structured responses
-                Map<String, Object> responseFormat = new HashMap<>();
-                responseFormat.put("type", "json_object");
-                requestBody.put("response_format", responseFormat);
-                
-                String requestBodyJson = objectMapper.writeValueAsString(requestBody);
-                
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(apiUrl))
-                        .header("Content-Type", "application/json")
-                        .header("Authorization", "Bearer " + apiKey)
-                        .POST(HttpRequest.BodyPublishers.ofString(requestBodyJson))
-                        .timeout(Duration.ofSeconds(60))
-                        .build();
-                
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-                
-                if (response.statusCode() != 200) {
-                    throw new RuntimeException("OpenAI API error: " + response.statusCode() + " - " + response.body());
+            });
+            call.whenComplete((response, error) -> {
+                if (error != null) {
+                    Throwable cause = LLMClientException.unwrap(error);
+                    sink.error(cause instanceof LLMClientException ? cause
+                            : new LLMClientException("Failed to call OpenAI API: " + cause.getMessage(), cause));
+                } else {
+                    sink.complete();
+                }
+            });
+            sink.onDispose(() -> {
+                lines.cancel();
+                call.cancel(true);
+            });
+        });
+    }
+
+    private HttpRequest buildRequest(String prompt, String modelName, boolean stream) throws JsonProcessingException {
+        // Use the modelName parameter if provided, otherwise use the configured model
+        String modelToUse = (modelName != null && !modelName.isEmpty()) ? modelName : this.model;
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", modelToUse);
+        requestBody.put("messages", new Object[]{
+            Map.of("role", "system", "content", "You are a helpful travel planning assistant. Always respond with valid JSON when requested."),
+            Map.of("role", "user", "content", prompt)
+        });
+        requestBody.put("temperature", 0.7);
+        // The configured cap, lowered when a long prompt leaves less room than that in the context window
+        requestBody.put("max_tokens", TokenCounter.maxOutputTokens(modelToUse,
+                TokenCounter.countPrompt(prompt), maxTokens, MIN_OUTPUT_TOKENS));
+        if (stream) {
+            requestBody.put("stream", true);
+        }
+
+        // Enable JSON mode for structured responses
+        Map<String, Object> responseFormat = new HashMap<>();
+        responseFormat.put("type", "json_object");
+        requestBody.put("response_format", responseFormat);
+
+        String requestBodyJson = objectMapper.writeValueAsString(requestBody);
+
+        return HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl))
+                .header("Content-Type", "application/json")
+                .header("Accept", stream ? "text/event-stream" : "application/json")
+                .header("Authorization", "Bearer " + apiKey)
+                .POST(HttpRequest.BodyPublishers.ofString(requestBodyJson))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+    }
+
+    /**
+     * Consumes the SSE body line by line and pushes content deltas into the sink.
+     * Lines look like {@code data: {"choices":[{"delta":{"content":"..."}}]}} and the
+     * stream is terminated by {@code data: [DONE]}; comments and blank lines are ignored.
+     */
+    static final class SseLineSubscriber implements Flow.Subscriber<String> {
+        private final FluxSink<String> sink;
+        private final ObjectMapper objectMapper;
+        private volatile Flow.Subscription subscription;
+        private volatile boolean done;
+
+        SseLineSubscriber(FluxSink<String> sink, ObjectMapper objectMapper) {
+            this.sink = sink;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            this.subscription = s;
+            s.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (done || line == null || !line.startsWith("data:")) {
+                return;
+            }
+            String payload = line.substring("data:".length()).trim();
+            if (payload.isEmpty()) {
+                return;
+            }
+            if ("[DONE]".equals(payload)) {
+                done = true;
+                sink.complete();
+                return;
+            }
+            try {
+                JsonNode chunk = objectMapper.readTree(payload);
+                JsonNode error = chunk.path("error");
+                if (!error.isMissingNode()) {
+                    done = true;
+                    sink.error(new LLMClientException("OpenAI API error: " + error.path("message").asText(error.toString()), 0, null));
+                    return;
                 }
-                
-                JsonNode responseJson = objectMapper.readTree(response.body());
-                JsonNode content = responseJson.path("choices").get(0).path("message").path("content");
-                
-                if (content.isMissingNode()) {
-                    throw new RuntimeException("No content in OpenAI response");
+                JsonNode content = chunk.path("choices").path(0).path("delta").path("content");
+                if (content.isTextual() && !content.asText().isEmpty()) {
+                    sink.next(content.asText());
                 }
-                
-                return content.asText();
-                
             } catch (Exception e) {
-                throw new RuntimeException("Failed to call OpenAI API: " + e.getMessage(), e);
+                done = true;
+                sink.error(new RuntimeException("Malformed OpenAI stream chunk: " + e.getMessage(), e));
             }
-        });
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!done) {
+                done = true;
+                sink.error(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!done) {
+                done = true;
+                sink.complete();
+            }
+        }
+
+        void cancel() {
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+        }
     }
 }
@@ -0,0 +1,87 @@
+package com.agentictravel.llm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fits the variable sections of a prompt into a token budget. Every section is measured with
+ * {@link TokenCounter}; while the total is over budget the lowest-priority section is cut
+ * first, down to a marker when too little room is left for it to be useful.
+ */
+public class PromptBudget {
+
+    /**
+     * Sections that would be cut below this many tokens are dropped instead.
+     */
+    static final int MIN_SECTION_TOKENS = 32;
+    static final String OMITTED = "(omitted to fit the model context)";
+
+    private final int tokenLimit;
+    private final Map<String, Section> sections = new LinkedHashMap<>();
+
+    public PromptBudget(int tokenLimit) {
+        this.tokenLimit = Math.max(0, tokenLimit);
+    }
+
+    /**
+     * Adds a section; higher priority sections are kept longer.
+     */
+    public PromptBudget section(String name, String text, int priority) {
+        String value = text == null ? "" : text;
+        sections.put(name, new Section(value, priority, TokenCounter.count(value)));
+        return this;
+    }
+
+    public Result fit() {
+        Map<String, String> fitted = new LinkedHashMap<>();
+        Map<String, Integer> tokens = new LinkedHashMap<>();
+        int total = 0;
+        for (Map.Entry<String, Section> e : sections.entrySet()) {
+            fitted.put(e.getKey(), e.getValue().text());
+            tokens.put(e.getKey(), e.getValue().tokens());
+            total += e.getValue().tokens();
+        }
+
+        List<String> trimmed = new ArrayList<>();
+        List<String> byPriority = sections.entrySet().stream()
+                .sorted(Comparator.comparingInt(e -> e.getValue().priority()))
+                .map(Map.Entry::getKey)
+                .toList();
+        for (String name : byPriority) {
+            if (total <= tokenLimit) {
+                break;
+            }
+            int current = tokens.get(name);
+            int target = current - (total - tokenLimit);
+            String text = target >= MIN_SECTION_TOKENS
+                    ? TokenCounter.truncate(fitted.get(name), target)
+                    : OMITTED;
+            int after = TokenCounter.count(text);
+            if (after >= current) {
+                continue;
+            }
+            fitted.put(name, text);
+            tokens.put(name, after);
+            total += after - current;
+            trimmed.add(name);
+        }
+        return new Result(fitted, tokens, total, trimmed);
+    }
+
+    private record Section(String text, int priority, int tokens) {
+    }
+
+    /**
+     * Section texts after fitting, their token counts, the total and which sections were cut.
+     */
+    public record Result(Map<String, String> sections, Map<String, Integer> tokens, int totalTokens,
+                         List<String> trimmed) {
+
+        public String get(String name) {
+            return sections.get(name);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.agentictravel.llm;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Decides whether and when a failed LLM call is retried.
+ * Backoff is exponential with full jitter, so concurrent callers that failed together
+ * spread their retries out instead of retrying in lockstep. A provider Retry-After hint
+ * takes precedence over the computed backoff. Each request has a time budget: a retry
+ * whose delay would end past the budget is not attempted.
+ */
+public class RetryPolicy {
+
+    private final int maxRetries;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration budget;
+    private final DoubleSupplier random;
+
+    public RetryPolicy(int maxRetries, Duration initialBackoff, Duration maxBackoff, Duration budget) {
+        this(maxRetries, initialBackoff, maxBackoff, budget, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * Test-friendly constructor that accepts a random source in [0, 1).
+     */
+    RetryPolicy(int maxRetries, Duration initialBackoff, Duration maxBackoff, Duration budget, DoubleSupplier random) {
+        this.maxRetries = Math.max(maxRetries, 0);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.budget = budget;
+        this.random = random;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public Duration getBudget() {
+        return budget;
+    }
+
+    /**
+     * Returns the delay before retry number {@code retry} (1-based), or null if the failure
+     * must not be retried: non-retryable error, retries exhausted or budget exceeded.
+     *
+     * @param retry the retry about to be made, starting at 1
+     * @param failure the unwrapped failure of the previous attempt
+     * @param elapsed time spent on this request so far
+     */
+    public Duration nextDelay(int retry, Throwable failure, Duration elapsed) {
+        if (retry > maxRetries || !isRetryable(failure)) {
+            return null;
+        }
+        Duration delay = backoff(retry);
+        if (failure instanceof LLMClientException llmFailure && llmFailure.getRetryAfter() != null) {
+            delay = llmFailure.getRetryAfter();
+        }
+        if (budget != null && elapsed.plus(delay).compareTo(budget) > 0) {
+            return null;
+        }
+        return delay;
+    }
+
+    /**
+     * Full-jitter exponential backoff: uniform in [0, min(maxBackoff, initialBackoff * 2^(retry-1))].
+     */
+    Duration backoff(int retry) {
+        long base = initialBackoff.toMillis();
+        long cap = maxBackoff.toMillis();
+        int shift = Math.min(Math.max(retry - 1, 0), 30);
+        long ceiling = Math.min(cap, base << shift);
+        return Duration.ofMillis((long) (random.getAsDouble() * ceiling));
+    }
+
+    public static boolean isRetryable(Throwable failure) {
+        return failure instanceof LLMClientException llmFailure && llmFailure.isRetryable();
+    }
+
+    /**
+     * Parses a Retry-After value: delta-seconds, an HTTP-date, or a millisecond value
+     * suffixed with "ms" (as sent in retry-after-ms headers). Returns null if unparseable.
+     */
+    public static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String v = value.trim();
+        try {
+            if (v.endsWith("ms")) {
+                return Duration.ofMillis(Math.max(0, Math.round(Double.parseDouble(v.substring(0, v.length() - 2)))));
+            }
+            return Duration.ofMillis(Math.max(0, Math.round(Double.parseDouble(v) * 1000)));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration until = Duration.between(ZonedDateTime.now(at.getZone()), at);
+                return until.isNegative() ? Duration.ZERO : until;
+            } catch (DateTimeParseException ex) {
+                return null;
+            }
+        }
+    }
+}
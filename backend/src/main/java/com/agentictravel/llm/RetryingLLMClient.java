@@ -0,0 +1,130 @@
+package com.agentictravel.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * LLMClient decorator that retries transient failures (429, 5xx, transport errors)
+ * according to a {@link RetryPolicy}. Waiting between attempts is scheduled, not slept,
+ * so no thread is held during backoff.
+ * Streams are retried only until their first delta: deltas already handed to the caller
+ * cannot be taken back, so a stream that fails part-way through fails as a whole.
+ */
+public class RetryingLLMClient implements LLMClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RetryingLLMClient.class);
+
+    private final LLMClient delegate;
+    private final RetryPolicy policy;
+    private final MeterRegistry meterRegistry;
+
+    public RetryingLLMClient(LLMClient delegate, RetryPolicy policy) {
+        this(delegate, policy, null);
+    }
+
+    public RetryingLLMClient(LLMClient delegate, RetryPolicy policy, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.policy = policy;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public CompletableFuture<String> prompt(String prompt, String modelName) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<String>> current = new AtomicReference<>();
+        // Cancelling the caller's future cancels the attempt in flight and stops further retries
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                CompletableFuture<String> attempt = current.get();
+                if (attempt != null) {
+                    attempt.cancel(true);
+                }
+            }
+        });
+        attempt(prompt, modelName, 0, System.nanoTime(), result, current);
+        return result;
+    }
+
+    @Override
+    public Flux<String> stream(String prompt, String modelName) {
+        return Flux.defer(() -> {
+            long startNanos = System.nanoTime();
+            AtomicBoolean emitted = new AtomicBoolean();
+            return Flux.defer(() -> delegate.stream(prompt, modelName))
+                    .doOnNext(delta -> emitted.set(true))
+                    .retryWhen(Retry.from(signals -> signals.concatMap(signal -> {
+                        Throwable failure = LLMClientException.unwrap(signal.failure());
+                        if (emitted.get()) {
+                            return Mono.error(failure);
+                        }
+                        int retry = (int) signal.totalRetries();
+                        Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+                        Duration delay = policy.nextDelay(retry + 1, failure, elapsed);
+                        if (delay == null) {
+                            if (retry > 0 || RetryPolicy.isRetryable(failure)) {
+                                count("llm.retries.exhausted", modelName, failure);
+                            }
+                            return Mono.error(failure);
+                        }
+                        count("llm.retries", modelName, failure);
+                        LOG.debug("Retrying LLM stream (retry {} of {}) in {} ms after: {}",
+                                retry + 1, policy.getMaxRetries(), delay.toMillis(), failure.getMessage());
+                        return Mono.delay(delay);
+                    })));
+        });
+    }
+
+    private void attempt(String prompt, String modelName, int retry, long startNanos,
+                         CompletableFuture<String> result, AtomicReference<CompletableFuture<String>> current) {
+        if (result.isDone()) {
+            return;
+        }
+        CompletableFuture<String> call = delegate.prompt(prompt, modelName);
+        current.set(call);
+        call.whenComplete((response, error) -> {
+            if (error == null) {
+                result.complete(response);
+                return;
+            }
+            Throwable failure = LLMClientException.unwrap(error);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+            Duration delay = result.isDone() ? null : policy.nextDelay(retry + 1, failure, elapsed);
+            if (delay == null) {
+                if (retry > 0 || RetryPolicy.isRetryable(failure)) {
+                    count("llm.retries.exhausted", modelName, failure);
+                }
+                result.completeExceptionally(failure);
+                return;
+            }
+            count("llm.retries", modelName, failure);
+            LOG.debug("Retrying LLM call (retry {} of {}) in {} ms after: {}",
+                    retry + 1, policy.getMaxRetries(), delay.toMillis(), failure.getMessage());
+            CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS)
+                    .execute(() -> attempt(prompt, modelName, retry + 1, startNanos, result, current));
+        });
+    }
+
+    private void count(String name, String modelName, Throwable failure) {
+        if (meterRegistry == null) {
+            return;
+        }
+        String reason = failure instanceof LLMClientException llmFailure && llmFailure.getStatusCode() > 0
+                ? String.valueOf(llmFailure.getStatusCode()) : "io";
+        meterRegistry.counter(name, "model", modelName == null ? "default" : modelName, "reason", reason).increment();
+    }
+}
@@ -0,0 +1,258 @@
+package com.agentictravel.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+/**
+ * LLMClient that spreads calls over a pool of equivalent endpoints (several API keys, or
+ * OpenAI-compatible stand-ins). Each call goes to the endpoint with the lowest expected cost:
+ * its EWMA latency, inflated by its EWMA error rate and by the calls it already has in
+ * flight. Endpoints that keep failing are ejected for a while and then re-admitted on probation.
+ */
+public class RoutingLLMClient implements LLMClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RoutingLLMClient.class);
+    private static final int UNAUTHORIZED = 401;
+    private static final int FORBIDDEN = 403;
+
+    private final List<Endpoint> endpoints;
+    private final Policy policy;
+    private final LongSupplier ticker;
+
+    public RoutingLLMClient(List<Target> targets, Policy policy) {
+        this(targets, policy, null);
+    }
+
+    public RoutingLLMClient(List<Target> targets, Policy policy, MeterRegistry meterRegistry) {
+        this(targets, policy, meterRegistry, System::nanoTime);
+    }
+
+    /**
+     * Test-friendly constructor that accepts a custom nano-time source.
+     */
+    RoutingLLMClient(List<Target> targets, Policy policy, MeterRegistry meterRegistry, LongSupplier ticker) {
+        if (targets == null || targets.isEmpty()) {
+            throw new IllegalArgumentException("At least one LLM endpoint is required");
+        }
+        this.policy = policy;
+        this.ticker = ticker;
+        this.endpoints = new ArrayList<>();
+        for (Target target : targets) {
+            Endpoint endpoint = new Endpoint(target.name(), target.client());
+            endpoints.add(endpoint);
+            if (meterRegistry != null) {
+                List<Tag> tags = List.of(Tag.of("endpoint", target.name()));
+                meterRegistry.gauge("llm.endpoint.latency", tags, endpoint, e -> e.latencyMs());
+                meterRegistry.gauge("llm.endpoint.error.rate", tags, endpoint, e -> e.errorRate());
+                meterRegistry.gauge("llm.endpoint.ejected", tags, endpoint, e -> e.ejectedNow() ? 1 : 0);
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return endpoints.get(0).client.getName();
+    }
+
+    @Override
+    public CompletableFuture<String> prompt(String prompt, String modelName) {
+        Endpoint endpoint = select();
+        long start = ticker.getAsLong();
+        CompletableFuture<String> call = endpoint.client.prompt(prompt, modelName);
+        call.whenComplete((response, error) -> endpoint.complete(start, error));
+        return call;
+    }
+
+    @Override
+    public Flux<String> stream(String prompt, String modelName) {
+        return Flux.defer(() -> {
+            Endpoint endpoint = select();
+            long start = ticker.getAsLong();
+            return endpoint.client.stream(prompt, modelName)
+                    .doOnComplete(() -> endpoint.complete(start, null))
+                    .doOnError(error -> endpoint.complete(start, error))
+                    .doOnCancel(() -> endpoint.complete(start, new CancellationException()));
+        });
+    }
+
+    /**
+     * Name of the endpoint the next call would be routed to; visible for tests.
+     */
+    String peek() {
+        synchronized (this) {
+            return pick(ticker.getAsLong()).name;
+        }
+    }
+
+    private Endpoint select() {
+        synchronized (this) {
+            Endpoint endpoint = pick(ticker.getAsLong());
+            endpoint.inFlight++;
+            return endpoint;
+        }
+    }
+
+    private Endpoint pick(long now) {
+        Endpoint best = null;
+        double bestCost = Double.MAX_VALUE;
+        for (Endpoint e : endpoints) {
+            if (e.isEjected(now)) {
+                continue;
+            }
+            double cost = e.cost();
+            if (best == null || cost < bestCost) {
+                best = e;
+                bestCost = cost;
+            }
+        }
+        if (best != null) {
+            return best;
+        }
+        // Everything is ejected: use the endpoint that is due back soonest rather than fail outright
+        Endpoint soonest = endpoints.get(0);
+        for (Endpoint e : endpoints) {
+            if (e.ejectedUntil - soonest.ejectedUntil < 0) {
+                soonest = e;
+            }
+        }
+        return soonest;
+    }
+
+    // Called with the lock held; 1 ms when no endpoint has succeeded yet, which leaves the error penalty to decide
+    private double slowestLatencyMs() {
+        double slowest = 1.0;
+        for (Endpoint e : endpoints) {
+            if (e.latencySamples > 0) {
+                slowest = Math.max(slowest, e.ewmaLatencyMs);
+            }
+        }
+        return slowest;
+    }
+
+    /**
+     * Whether a failure says something about the endpoint (outage, throttling, a bad key)
+     * rather than about the request or the caller.
+     */
+    private static boolean isEndpointFailure(Throwable error) {
+        Throwable cause = LLMClientException.unwrap(error);
+        if (cause instanceof CancellationException) {
+            return false;
+        }
+        if (cause instanceof LLMClientException e
+                && (e.getStatusCode() == UNAUTHORIZED || e.getStatusCode() == FORBIDDEN)) {
+            return true;
+        }
+        return RetryPolicy.isRetryable(cause);
+    }
+
+    private final class Endpoint {
+        final String name;
+        final LLMClient client;
+        int inFlight;
+        long samples;
+        long latencySamples;
+        double ewmaLatencyMs;
+        double ewmaErrorRate;
+        int consecutiveFailures;
+        long ejectedUntil = Long.MIN_VALUE;
+
+        Endpoint(String name, LLMClient client) {
+            this.name = name;
+            this.client = client;
+        }
+
+        boolean isEjected(long now) {
+            return ejectedUntil != Long.MIN_VALUE && now - ejectedUntil < 0;
+        }
+
+        /**
+         * Unsampled endpoints cost nothing so each one gets probed before the pool settles.
+         * One that has only ever failed has no latency of its own and is priced at the
+         * slowest latency in the pool, so its error penalty keeps it behind working endpoints.
+         */
+        double cost() {
+            if (samples == 0) {
+                return inFlight;
+            }
+            double latency = latencySamples > 0 ? ewmaLatencyMs : slowestLatencyMs();
+            double errorPenalty = 1.0 / Math.max(0.05, 1.0 - ewmaErrorRate);
+            return latency * errorPenalty * (inFlight + 1);
+        }
+
+        double latencyMs() {
+            synchronized (RoutingLLMClient.this) {
+                return ewmaLatencyMs;
+            }
+        }
+
+        double errorRate() {
+            synchronized (RoutingLLMClient.this) {
+                return ewmaErrorRate;
+            }
+        }
+
+        boolean ejectedNow() {
+            synchronized (RoutingLLMClient.this) {
+                return isEjected(ticker.getAsLong());
+            }
+        }
+
+        void complete(long start, Throwable error) {
+            long now = ticker.getAsLong();
+            double latencyMs = (now - start) / 1_000_000.0;
+            boolean failed = error != null && isEndpointFailure(error);
+            boolean cancelled = error != null && LLMClientException.unwrap(error) instanceof CancellationException;
+            synchronized (RoutingLLMClient.this) {
+                inFlight--;
+                if (cancelled) {
+                    return;
+                }
+                double alpha = policy.ewmaAlpha();
+                // Failures often return fast; only successes describe how quickly the endpoint serves
+                if (error == null) {
+                    ewmaLatencyMs = latencySamples == 0 ? latencyMs : ewmaLatencyMs + alpha * (latencyMs - ewmaLatencyMs);
+                    latencySamples++;
+                }
+                ewmaErrorRate = samples == 0 ? (failed ? 1.0 : 0.0)
+                        : ewmaErrorRate + alpha * ((failed ? 1.0 : 0.0) - ewmaErrorRate);
+                samples++;
+                consecutiveFailures = failed ? consecutiveFailures + 1 : 0;
+
+                boolean unhealthy = consecutiveFailures >= policy.consecutiveFailures()
+                        || (samples >= policy.minimumSamples() && ewmaErrorRate >= policy.ejectionErrorRate());
+                if (failed && unhealthy && !isEjected(now)) {
+                    ejectedUntil = now + policy.ejectionDuration().toNanos();
+                    LOG.warn("Ejecting LLM endpoint {} for {} ms (error rate {}, {} consecutive failures)",
+                            name, policy.ejectionDuration().toMillis(), String.format("%.2f", ewmaErrorRate),
+                            consecutiveFailures);
+                    // Re-admitted on probation: one more failure ejects it again straight away
+                    consecutiveFailures = policy.consecutiveFailures() - 1;
+                    ewmaErrorRate = Math.min(ewmaErrorRate, policy.ejectionErrorRate());
+                }
+            }
+        }
+    }
+
+    /**
+     * A named endpoint in the pool.
+     */
+    public record Target(String name, LLMClient client) {
+    }
+
+    /**
+     * Routing tuning: EWMA smoothing factor, and when to eject an endpoint and for how long.
+     */
+    public record Policy(double ewmaAlpha, double ejectionErrorRate, int minimumSamples,
+                         int consecutiveFailures, Duration ejectionDuration) {
+    }
+}
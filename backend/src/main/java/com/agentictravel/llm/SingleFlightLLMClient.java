@@ -0,0 +1,177 @@
+package com.agentictravel.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * LLMClient decorator that coalesces concurrent identical calls: while a (model, prompt)
+ * call is in flight, further callers with the same pair share its result instead of
+ * issuing their own upstream request. Each caller gets its own future; cancelling it only
+ * drops that caller, and the shared call is cancelled once every caller has given up.
+ * Streams are coalesced the same way: a caller joining a stream in flight is first replayed
+ * the deltas it missed.
+ */
+public class SingleFlightLLMClient implements LLMClient {
+
+    private final LLMClient delegate;
+    private final MeterRegistry meterRegistry;
+    private final Map<Key, Flight> flights = new HashMap<>();
+    private final Map<Key, Flux<String>> streams = new HashMap<>();
+
+    public SingleFlightLLMClient(LLMClient delegate) {
+        this(delegate, null);
+    }
+
+    public SingleFlightLLMClient(LLMClient delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public CompletableFuture<String> prompt(String prompt, String modelName) {
+        Key key = new Key(modelName, prompt);
+        Flight flight;
+        boolean leader = false;
+        synchronized (flights) {
+            flight = flights.get(key);
+            if (flight == null) {
+                flight = new Flight();
+                flights.put(key, flight);
+                leader = true;
+            }
+            flight.callers++;
+        }
+        record(modelName, leader ? "leader" : "shared");
+
+        if (leader) {
+            Flight started = flight;
+            CompletableFuture<String> call = delegate.prompt(prompt, modelName);
+            started.attach(call);
+            call.whenComplete((response, error) -> {
+                synchronized (flights) {
+                    flights.remove(key, started);
+                }
+                if (error != null) {
+                    started.shared.completeExceptionally(LLMClientException.unwrap(error));
+                } else {
+                    started.shared.complete(response);
+                }
+            });
+        }
+
+        Flight joined = flight;
+        CompletableFuture<String> mine = flight.shared.thenApply(response -> response);
+        mine.whenComplete((response, error) -> {
+            if (mine.isCancelled()) {
+                leave(key, joined);
+            }
+        });
+        return mine;
+    }
+
+    @Override
+    public Flux<String> stream(String prompt, String modelName) {
+        return Flux.defer(() -> {
+            Key key = new Key(modelName, prompt);
+            Flux<String> shared;
+            boolean leader = false;
+            synchronized (streams) {
+                shared = streams.get(key);
+                if (shared == null) {
+                    shared = share(key, prompt, modelName);
+                    streams.put(key, shared);
+                    leader = true;
+                }
+            }
+            record(modelName, leader ? "leader" : "shared");
+            return shared;
+        });
+    }
+
+    /**
+     * One upstream stream for every caller of a key; it is cancelled when the last caller
+     * cancels, and forgotten once it ends so later callers start afresh.
+     */
+    private Flux<String> share(Key key, String prompt, String modelName) {
+        Flux<?>[] self = new Flux<?>[1];
+        Flux<String> shared = Flux.defer(() -> delegate.stream(prompt, modelName))
+                .doFinally(signal -> {
+                    synchronized (streams) {
+                        streams.remove(key, self[0]);
+                    }
+                })
+                .replay()
+                .refCount();
+        self[0] = shared;
+        return shared;
+    }
+
+    /**
+     * Number of distinct calls currently in flight; visible for tests.
+     */
+    int inFlight() {
+        synchronized (flights) {
+            return flights.size();
+        }
+    }
+
+    private void leave(Key key, Flight flight) {
+        synchronized (flights) {
+            if (--flight.callers > 0 || flight.shared.isDone()) {
+                return;
+            }
+            // Last interested caller is gone: stop sharing it and abort the upstream work
+            flights.remove(key, flight);
+        }
+        flight.cancel();
+    }
+
+    private void record(String model, String result) {
+        if (meterRegistry != null) {
+            meterRegistry.counter("llm.singleflight.requests", "model", model == null ? "default" : model,
+                    "result", result).increment();
+        }
+    }
+
+    private record Key(String model, String prompt) {
+        Key {
+            model = Objects.requireNonNullElse(model, "");
+        }
+    }
+
+    private static final class Flight {
+        final CompletableFuture<String> shared = new CompletableFuture<>();
+        int callers;
+        private CompletableFuture<String> call;
+        private boolean cancelled;
+
+        synchronized void attach(CompletableFuture<String> upstream) {
+            call = upstream;
+            if (cancelled) {
+                upstream.cancel(true);
+            }
+        }
+
+        void cancel() {
+            CompletableFuture<String> upstream;
+            synchronized (this) {
+                cancelled = true;
+                upstream = call;
+            }
+            shared.cancel(true);
+            if (upstream != null) {
+                upstream.cancel(true);
+            }
+        }
+    }
+}
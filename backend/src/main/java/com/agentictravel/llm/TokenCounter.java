@@ -0,0 +1,171 @@
+package com.agentictravel.llm;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Offline token counter for OpenAI chat models. Text is split with the cl100k pre-tokenizer
+ * pattern, exactly as the real BPE does before merging, and each piece is then costed with
+ * rules fitted to cl100k merges: short words and digit groups are one token, longer words,
+ * punctuation runs and non-ASCII text cost proportionally more. The merge table itself is
+ * not bundled, so counts are an estimate that can be off in either direction: use them to
+ * budget prompts, and leave {@link #SAFETY_MARGIN} of headroom against any hard limit.
+ */
+public final class TokenCounter {
+
+    /**
+     * Tokens added by the chat framing and the client's fixed system message.
+     */
+    public static final int CHAT_OVERHEAD_TOKENS = 40;
+
+    /**
+     * Fraction by which an estimate may undercount the real encoding.
+     */
+    public static final double SAFETY_MARGIN = 0.15;
+
+    private static final Pattern PRE_TOKENIZER = Pattern.compile(
+            "(?i:'s|'t|'re|'ve|'m|'ll|'d)"
+            + "|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+"
+            + "|\\p{N}{1,3}"
+            + "| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*"
+            + "|\\s*[\\r\\n]+"
+            + "|\\s+(?!\\S)"
+            + "|\\s+");
+
+    private static final int SINGLE_TOKEN_WORD = 6;
+    private static final int CHARS_PER_WORD_TOKEN = 4;
+    private static final int CHARS_PER_PUNCT_TOKEN = 2;
+    private static final int CHARS_PER_SPACE_TOKEN = 16;
+
+    private TokenCounter() {
+    }
+
+    public static int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int tokens = 0;
+        Matcher m = PRE_TOKENIZER.matcher(text);
+        while (m.find()) {
+            tokens += piece(m.group());
+        }
+        return tokens;
+    }
+
+    /**
+     * Tokens a single-user-message chat request with this prompt will consume.
+     */
+    public static int countPrompt(String prompt) {
+        return count(prompt) + CHAT_OVERHEAD_TOKENS;
+    }
+
+    /**
+     * The max_tokens to request after the given prompt: {@code cap}, or less if the context
+     * window would not fit that much once the prompt estimate is padded by the safety margin.
+     * Never below {@code floor} (nor above {@code cap}) so a nearly full window still gets an answer.
+     */
+    public static int maxOutputTokens(String model, int promptTokens, int cap, int floor) {
+        ModelLimits limits = limitsFor(model);
+        int remaining = limits.contextWindow() - withMargin(promptTokens);
+        return Math.min(cap, Math.max(floor, Math.min(limits.maxOutputTokens(), remaining)));
+    }
+
+    /**
+     * How many estimated tokens can go into a space of {@code limit} real tokens.
+     */
+    public static int safeBudget(int limit) {
+        return (int) (limit / (1 + SAFETY_MARGIN));
+    }
+
+    static int withMargin(int estimatedTokens) {
+        return estimatedTokens + (int) Math.ceil(estimatedTokens * SAFETY_MARGIN);
+    }
+
+    public static ModelLimits limitsFor(String model) {
+        String m = model == null ? "" : model.toLowerCase();
+        if (m.startsWith("gpt-4o") || m.startsWith("gpt-4.1")) {
+            return new ModelLimits(128_000, 16_384);
+        }
+        if (m.startsWith("gpt-4-turbo") || m.startsWith("gpt-4-1106") || m.startsWith("gpt-4-0125")) {
+            return new ModelLimits(128_000, 4_096);
+        }
+        if (m.startsWith("gpt-4-32k")) {
+            return new ModelLimits(32_768, 8_192);
+        }
+        if (m.startsWith("gpt-4")) {
+            return new ModelLimits(8_192, 8_192);
+        }
+        if (m.startsWith("gpt-3.5-turbo")) {
+            return new ModelLimits(16_385, 4_096);
+        }
+        return new ModelLimits(8_192, 4_096);
+    }
+
+    /**
+     * Cuts {@code text} so it counts at most {@code maxTokens}, appending a marker when cut.
+     */
+    public static String truncate(String text, int maxTokens) {
+        int tokens = count(text);
+        if (tokens <= maxTokens) {
+            return text;
+        }
+        String marker = " ...[truncated]";
+        int budget = maxTokens - count(marker);
+        if (budget <= 0) {
+            return "";
+        }
+        int chars = (int) ((long) text.length() * budget / tokens);
+        String cut = text.substring(0, chars);
+        while (chars > 0 && count(cut) > budget) {
+            chars = chars * 9 / 10;
+            cut = text.substring(0, chars);
+        }
+        return cut + marker;
+    }
+
+    private static int piece(String piece) {
+        char first = piece.charAt(0);
+        if (Character.isWhitespace(first) && piece.isBlank()) {
+            return ceilDiv(piece.length(), CHARS_PER_SPACE_TOKEN);
+        }
+        if (Character.isDigit(first)) {
+            return 1;
+        }
+        int letters = 0;
+        int other = 0;
+        boolean ascii = true;
+        for (int i = 0; i < piece.length(); i++) {
+            char c = piece.charAt(i);
+            if (c > 0x7f) {
+                ascii = false;
+            }
+            if (Character.isLetter(c)) {
+                letters++;
+            } else if (!Character.isWhitespace(c)) {
+                other++;
+            }
+        }
+        if (!ascii) {
+            // Non-Latin scripts fall back to byte-level merges: roughly two UTF-8 bytes per token
+            return ceilDiv(piece.getBytes(StandardCharsets.UTF_8).length, 2);
+        }
+        if (letters == 0) {
+            return ceilDiv(other, CHARS_PER_PUNCT_TOKEN);
+        }
+        int wordTokens = letters <= SINGLE_TOKEN_WORD ? 1
+                : 1 + ceilDiv(letters - SINGLE_TOKEN_WORD, CHARS_PER_WORD_TOKEN);
+        // A leading quote or bracket attached to a word merges with it only sometimes
+        return wordTokens + (other > 0 && letters > 3 ? 1 : 0);
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+
+    /**
+     * Context window and maximum completion length of a model, in tokens.
+     */
+    public record ModelLimits(int contextWindow, int maxOutputTokens) {
+    }
+}
@@ -1,9 +1,11 @@
 package com.agentictravel.model;
 
+import java.util.List;
 import java.util.Map;
 import com.agentictravel.model.FlightBooking;
 import com.agentictravel.model.HotelBooking;
 import com.agentictravel.model.TransportBooking;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 public class Booking {
     public Map<String,Object> flights;
@@ -13,4 +15,12 @@ public class Booking {
     public FlightBooking flightsTyped;
     public TransportBooking transportTyped;
     public HotelBooking hotelsTyped;
+    // Every option, bound once when the agent answered; server-side only, the maps are the wire format
+    @JsonIgnore
+    public List<FlightOption> flightOptions;
+    // By mode: carRental, trainOptions, busOptions, recommended
+    @JsonIgnore
+    public Map<String, List<TransportOption>> transportOptions;
+    @JsonIgnore
+    public List<HotelOption> hotelOptions;
 }
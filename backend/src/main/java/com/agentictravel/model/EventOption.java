@@ -0,0 +1,8 @@
+package com.agentictravel.model;
+
+/**
+ * One event or activity from the event agent.
+ */
+public record EventOption(String name, String date, String time, String location, String description,
+                          String category, String price, String duration, String bookingUrl) {
+}
@@ -0,0 +1,12 @@
+package com.agentictravel.model;
+
+import java.util.List;
+
+/**
+ * One flight from the flight agent's {@code options}.
+ * {@code notes} is as the agent wrote it: usually a string, sometimes JSON inline.
+ */
+public record FlightOption(String carrier, String price, String departureTime, String arrivalTime,
+                           String duration, String stops, List<String> pros, List<String> cons,
+                           String bookingUrl, Object notes) {
+}
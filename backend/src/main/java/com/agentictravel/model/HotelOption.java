@@ -0,0 +1,12 @@
+package com.agentictravel.model;
+
+import java.util.List;
+
+/**
+ * One hotel from the hotel agent's {@code options}.
+ * {@code notes} is as the agent wrote it: usually a string, sometimes JSON inline.
+ */
+public record HotelOption(String name, String pricePerNight, String totalPrice, String location, String rating,
+                          List<String> amenities, List<String> pros, List<String> cons, String bookingUrl,
+                          Object notes) {
+}
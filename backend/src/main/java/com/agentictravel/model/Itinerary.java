@@ -1,5 +1,7 @@
 package com.agentictravel.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.List;
 
 public class Itinerary {
@@ -8,6 +10,11 @@ public class Itinerary {
     public Booking bookings;
     public java.util.Map<String,Object> weather;
     public List<java.util.Map<String,Object>> events;
+    // Typed views of weather and events, bound once when the agents answered; server-side only
+    @JsonIgnore
+    public WeatherForecast weatherTyped;
+    @JsonIgnore
+    public List<EventOption> eventsTyped;
     // Collect non-fatal parsing errors encountered while mapping LLM responses
     public List<String> notesParsingErrors;
 }
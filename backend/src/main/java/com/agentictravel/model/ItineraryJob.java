@@ -0,0 +1,23 @@
+package com.agentictravel.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Snapshot of an asynchronous itinerary job as returned by /api/itineraries/jobs.
+ */
+public class ItineraryJob {
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    public String id;
+    public Status status;
+    public List<String> completedSections; // agent sections finished so far, in arrival order
+    public Itinerary itinerary; // set once the job has SUCCEEDED
+    public String error; // set when the job has FAILED
+    public Instant createdAt;
+    public Instant completedAt;
+
+    public boolean isDone() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+}
@@ -0,0 +1,13 @@
+package com.agentictravel.model;
+
+import java.util.List;
+
+/**
+ * One car rental, train or bus from the transport agent. Car rentals carry carType and the
+ * per-day/total prices; trains and buses a single price, duration and route.
+ * {@code notes} is as the agent wrote it: usually a string, sometimes JSON inline.
+ */
+public record TransportOption(String provider, String carType, String pricePerDay, String totalPrice, String price,
+                              String duration, String route, List<String> pros, List<String> cons,
+                              String bookingUrl, Object notes) {
+}
@@ -0,0 +1,14 @@
+package com.agentictravel.model;
+
+import java.util.List;
+
+/**
+ * The weather agent's forecast for the trip.
+ */
+public record WeatherForecast(String forecastSummary, List<Day> dailyForecast, List<String> packingSuggestions,
+                              List<String> activityRecommendations) {
+
+    public record Day(String date, String high, String low, String condition, String precipitation, String wind,
+                      List<String> recommendations) {
+    }
+}
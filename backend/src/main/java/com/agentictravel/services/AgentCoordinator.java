@@ -4,18 +4,47 @@ import com.agentictravel.model.*;
 import com.agentictravel.security.InputSanitizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import com.agentictravel.config.AgentConfig;
+import com.agentictravel.llm.BulkheadLLMClient;
+import com.agentictravel.llm.Futures;
 import com.agentictravel.llm.LLMClient;
+import com.agentictravel.llm.LLMExecutors;
+import io.micrometer.core.instrument.MeterRegistry;
 
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Service
 public class AgentCoordinator {
 
     private static final Logger LOG = LoggerFactory.getLogger(AgentCoordinator.class);
 
+    /**
+     * Prefix of the notesParsingErrors entry recorded for a section that missed its deadline or failed.
+     */
+    public static final String DEGRADED_SECTION = "Degraded section: ";
+
+    /**
+     * Prefix of the notesParsingErrors entry recorded for a section whose LLM answer was malformed and repaired.
+     */
+    public static final String REPAIRED_SECTION = "Repaired section: ";
+
+    private static final String[] SEARCH_SECTIONS = {"flights", "transport", "hotels", "events", "weather"};
+    private static final String FUSED_SEARCH = "fusedSearch";
+
     private final FlightAgent flightAgent;
     private final TransportAgent transportAgent;
     private final HotelAgent hotelAgent;
@@ -23,109 +52,286 @@ public class AgentCoordinator {
     private final WeatherAgent weatherAgent;
     private final QuestionAgent questionAgent;
     private final ItineraryPlannerAgent plannerAgent;
+    private final FusedSearchAgent fusedSearchAgent;
+    private final SpeculativeSearches speculativeSearches;
+    private final AgentConfig agentConfig;
+    private final AmendmentClassifier amendmentClassifier = new AmendmentClassifier();
 
     public AgentCoordinator(LLMClient llm) {
-        this.flightAgent = new FlightAgent(llm);
-        this.transportAgent = new TransportAgent(llm);
-        this.hotelAgent = new HotelAgent(llm);
-        this.eventAgent = new EventAgent(llm);
-        this.weatherAgent = new WeatherAgent(llm);
-        this.questionAgent = new QuestionAgent(llm);
-        this.plannerAgent = new ItineraryPlannerAgent(llm);
+        this(llm, new AgentConfig());
+    }
+
+    public AgentCoordinator(LLMClient llm, AgentConfig agentConfig) {
+        this(llm, agentConfig, (MeterRegistry) null);
+    }
+
+    @Autowired
+    public AgentCoordinator(LLMClient llm, AgentConfig agentConfig, ObjectProvider<MeterRegistry> meterRegistry) {
+        this(llm, agentConfig, meterRegistry.getIfAvailable());
+    }
+
+    public AgentCoordinator(LLMClient llm, AgentConfig agentConfig, MeterRegistry meterRegistry) {
+        // Each agent gets its own namespace so per-agent caches (cache.*) apply, and its own
+        // bulkhead so one saturated agent cannot take the others' call slots or threads
+        this.flightAgent = new FlightAgent(
+                agentClient(llm, "flights", agentConfig.getFlight().getBulkhead(), agentConfig, meterRegistry));
+        this.transportAgent = new TransportAgent(
+                agentClient(llm, "transport", agentConfig.getTransport().getBulkhead(), agentConfig, meterRegistry));
+        this.hotelAgent = new HotelAgent(
+                agentClient(llm, "hotels", agentConfig.getHotel().getBulkhead(), agentConfig, meterRegistry));
+        this.eventAgent = new EventAgent(
+                agentClient(llm, "events", agentConfig.getEvent().getBulkhead(), agentConfig, meterRegistry));
+        this.weatherAgent = new WeatherAgent(
+                agentClient(llm, "weather", agentConfig.getWeather().getBulkhead(), agentConfig, meterRegistry));
+        this.questionAgent = new QuestionAgent(
+                agentClient(llm, "questions", agentConfig.getQuestion().getBulkhead(), agentConfig, meterRegistry));
+        this.plannerAgent = new ItineraryPlannerAgent(
+                agentClient(llm, "planner", agentConfig.getPlanner().getBulkhead(), agentConfig, meterRegistry),
+                agentConfig.getPlanner().getContextOptions(), agentConfig.getPlanner().getContextEvents());
+        this.fusedSearchAgent = new FusedSearchAgent(
+                agentClient(llm, "bookings", agentConfig.getFusedSearch().getBulkhead(), agentConfig, meterRegistry));
+        AgentConfig.SpeculativeSearchConfig speculation = agentConfig.getSpeculativeSearch();
+        this.speculativeSearches = speculation.isEnabled()
+                ? new SpeculativeSearches(Duration.ofSeconds(speculation.getTtlSeconds()), speculation.getMaxEntries(),
+                        meterRegistry)
+                : null;
+        this.agentConfig = agentConfig;
+    }
+
+    private static LLMClient agentClient(LLMClient llm, String agent, AgentConfig.BulkheadConfig bulkhead,
+                                         AgentConfig agentConfig, MeterRegistry meterRegistry) {
+        LLMClient client = llm.withNamespace(agent);
+        if (!agentConfig.isBulkheadsEnabled()) {
+            return client;
+        }
+        return new BulkheadLLMClient(client, agent,
+                new BulkheadLLMClient.Config(bulkhead.getMaxConcurrent(), bulkhead.getMaxQueue()),
+                LLMExecutors.newAgentExecutor(agent, bulkhead.getThreads()), meterRegistry);
     }
 
     public CompletableFuture<QuestionResponse> generateQuestions(TripRequest request) {
-        return questionAgent.generateQuestions(request);
+        if (speculativeSearches != null) {
+            // Use the user's think time: the itinerary request attaches to these if its answers leave them valid
+            speculativeSearches.start("weather", weatherAgent.prompt(request), () -> weatherAgent.search(request));
+            speculativeSearches.start("events", eventAgent.prompt(request), () -> eventAgent.search(request));
+            if (!agentConfig.getFusedSearch().isEnabled()) {
+                speculativeSearches.start("flights", flightAgent.prompt(request), () -> flightAgent.search(request));
+                speculativeSearches.start("hotels", hotelAgent.prompt(request), () -> hotelAgent.search(request));
+            }
+        }
+        return bounded(questionAgent.generateQuestions(request), agentConfig.getQuestion().getTimeout());
     }
 
     public CompletableFuture<Itinerary> generateItinerary(TripRequest request) {
+        return generateItinerary(request, ItineraryListener.NONE);
+    }
+
+    /**
+     * Like {@link #generateItinerary(TripRequest)}, additionally reporting each section to
+     * {@code listener} the moment it is ready.
+     */
+    public CompletableFuture<Itinerary> generateItinerary(TripRequest request, ItineraryListener listener) {
         if (request.getAmendments() != null && !request.getAmendments().trim().isEmpty() &&
                 request.getPreviousItinerary() != null) {
-            return refineItinerary(request);
+            return refineItinerary(request, listener);
         }
 
-        CompletableFuture<Map<String, Object>> flightsFuture = flightAgent.search(request);
-        CompletableFuture<Map<String, Object>> transportFuture = transportAgent.search(request);
-        CompletableFuture<Map<String, Object>> hotelsFuture = hotelAgent.search(request);
-        CompletableFuture<List<Map<String, Object>>> eventsFuture = eventAgent.search(request);
-        CompletableFuture<Map<String, Object>> weatherFuture = weatherAgent.search(request);
-
-        return CompletableFuture.allOf(flightsFuture, transportFuture, hotelsFuture, eventsFuture, weatherFuture)
-                .thenCompose(v -> {
-                    try {
-                        Map<String, Object> flights = flightsFuture.join();
-                        Map<String, Object> transport = transportFuture.join();
-                        Map<String, Object> hotels = hotelsFuture.join();
-                        List<Map<String, Object>> events = eventsFuture.join();
-                        Map<String, Object> weather = weatherFuture.join();
-
-                        return plannerAgent.createDayPlans(request, flights, hotels, transport, events, weather)
-                                .thenApply(dayPlans -> {
-                                    Itinerary itinerary = new Itinerary();
-                                    itinerary.summary = "Complete itinerary for " + request.tripTitle;
-                                    itinerary.dayPlans = dayPlans;
-                                    itinerary.notesParsingErrors = new java.util.ArrayList<>();
-
-                                    try {
-                                        itinerary.bookings = LLMToModelMapper.mapToBooking(flights, transport, hotels);
-                                        itinerary.events = LLMToModelMapper.mapToEvents(events);
-                                        itinerary.weather = LLMToModelMapper.mapToWeather(weather);
-
-                                    } catch (Exception e) {
-                                        LOG.warn("Failed to map itinerary components: {}", e.getMessage());
-                                        itinerary.notesParsingErrors.add("Component mapping: " + e.getMessage());
-                                    }
-
-                                    return itinerary;
-                                });
-                    } catch (Exception e) {
-                        LOG.error("Error in itinerary generation: {}", e.getMessage(), e);
-                        throw new RuntimeException("Failed to generate itinerary", e);
-                    }
-                });
+        AgentGraph graph = newGraph();
+        if (agentConfig.getFusedSearch().isEnabled()) {
+            graph.add(new AgentGraph.Node(FUSED_SEARCH, in -> fusedSearchAgent.search(request))
+                    .timeout(agentConfig.getFusedSearch().getTimeout()));
+        }
+        graph.add(bookingSearch("flights", in -> attachOrSearch("flights", flightAgent.prompt(request),
+                        () -> flightAgent.search(request)), agentConfig.getFlight().getTimeout()))
+                .add(bookingSearch("transport", in -> transportAgent.search(request), agentConfig.getTransport().getTimeout()))
+                .add(bookingSearch("hotels", in -> attachOrSearch("hotels", hotelAgent.prompt(request),
+                        () -> hotelAgent.search(request)), agentConfig.getHotel().getTimeout()))
+                .add(search("events", in -> attachOrSearch("events", eventAgent.prompt(request),
+                        () -> eventAgent.search(request)), agentConfig.getEvent().getTimeout()))
+                .add(search("weather", in -> attachOrSearch("weather", weatherAgent.prompt(request),
+                        () -> weatherAgent.search(request)), agentConfig.getWeather().getTimeout()))
+                .add(new AgentGraph.Node("dayPlans", in -> plannerAgent.createDayPlans(request,
+                        SectionResult.records(in.get("flights")), SectionResult.records(in.get("hotels")),
+                        SectionResult.records(in.get("transport")), SectionResult.records(in.get("events")),
+                        SectionResult.records(in.get("weather")), listener::onDayPlan))
+                        .inputs(SEARCH_SECTIONS)
+                        .timeout(agentConfig.getPlanner().getTimeout())
+                        .fallback(e -> new java.util.ArrayList<DayPlan>()));
+        return assemble(graph, "Complete itinerary for " + request.tripTitle, listener);
     }
 
-    private CompletableFuture<Itinerary> refineItinerary(TripRequest request) {
+    private CompletableFuture<Itinerary> refineItinerary(TripRequest request, ItineraryListener listener) {
         LOG.info("Refining itinerary based on amendments: {}", request.getAmendments());
 
-        CompletableFuture<Map<String, Object>> flightsFuture = flightAgent.search(request);
-        CompletableFuture<Map<String, Object>> transportFuture = transportAgent.search(request);
-        CompletableFuture<Map<String, Object>> hotelsFuture = hotelAgent.search(request);
-        CompletableFuture<List<Map<String, Object>>> eventsFuture = eventAgent.search(request);
-        CompletableFuture<Map<String, Object>> weatherFuture = weatherAgent.search(request);
-
-        return CompletableFuture.allOf(flightsFuture, transportFuture, hotelsFuture, eventsFuture, weatherFuture)
-                .thenCompose(v -> {
-                    try {
-                        Map<String, Object> flights = flightsFuture.join();
-                        Map<String, Object> transport = transportFuture.join();
-                        Map<String, Object> hotels = hotelsFuture.join();
-                        List<Map<String, Object>> events = eventsFuture.join();
-                        Map<String, Object> weather = weatherFuture.join();
-
-                        return plannerAgent.refineDayPlans(request, request.getPreviousItinerary().dayPlans, request.getAmendments())
-                                .thenApply(dayPlans -> {
-                                    Itinerary itinerary = new Itinerary();
-                                    itinerary.summary = "Refined itinerary for " + request.tripTitle;
-                                    itinerary.dayPlans = dayPlans;
-                                    itinerary.notesParsingErrors = new java.util.ArrayList<>();
-
-                                    try {
-                                        itinerary.bookings = LLMToModelMapper.mapToBooking(flights, transport, hotels);
-                                        itinerary.events = LLMToModelMapper.mapToEvents(events);
-                                        itinerary.weather = LLMToModelMapper.mapToWeather(weather);
-
-                                    } catch (Exception e) {
-                                        LOG.warn("Failed to map refined itinerary components: {}", e.getMessage());
-                                        itinerary.notesParsingErrors.add("Component mapping: " + e.getMessage());
-                                    }
-
-                                    return itinerary;
-                                });
-                    } catch (Exception e) {
-                        LOG.error("Error in itinerary refinement: {}", e.getMessage(), e);
-                        throw new RuntimeException("Failed to refine itinerary", e);
+        // Only search again for what the amendments change; everything else comes from the previous itinerary
+        Itinerary previous = request.getPreviousItinerary();
+        Booking previousBookings = previous.bookings != null ? previous.bookings : new Booking();
+        Set<AmendmentClassifier.Section> affected = amendmentClassifier.affectedSections(request.getAmendments());
+        LOG.debug("Amendments affect sections {}", affected);
+
+        Set<String> searched = new HashSet<>();
+        AgentGraph graph = newGraph()
+                .add(reuseOrSearch(AmendmentClassifier.Section.FLIGHTS, affected, previousBookings.flights,
+                        in -> flightAgent.search(request), agentConfig.getFlight().getTimeout(), searched))
+                .add(reuseOrSearch(AmendmentClassifier.Section.TRANSPORT, affected, previousBookings.transport,
+                        in -> transportAgent.search(request), agentConfig.getTransport().getTimeout(), searched))
+                .add(reuseOrSearch(AmendmentClassifier.Section.HOTELS, affected, previousBookings.hotels,
+                        in -> hotelAgent.search(request), agentConfig.getHotel().getTimeout(), searched))
+                .add(reuseOrSearch(AmendmentClassifier.Section.EVENTS, affected, previous.events,
+                        in -> eventAgent.search(request), agentConfig.getEvent().getTimeout(), searched))
+                .add(reuseOrSearch(AmendmentClassifier.Section.WEATHER, affected, previous.weather,
+                        in -> weatherAgent.search(request), agentConfig.getWeather().getTimeout(), searched));
+
+        List<DayPlan> previousDayPlans = previous.dayPlans != null ? previous.dayPlans : List.of();
+        graph.add(new AgentGraph.Node("dayPlans", in -> {
+                    Map<String, Object> updated = new LinkedHashMap<>();
+                    for (String section : SEARCH_SECTIONS) {
+                        SectionResult<?> result = in.get(section);
+                        if (searched.contains(section) && result != null) {
+                            updated.put(section, result.records());
+                        }
                     }
-                });
+                    return plannerAgent.refineDayPlans(request, previousDayPlans, request.getAmendments(), updated,
+                            listener::onDayPlan);
+                })
+                .inputs(SEARCH_SECTIONS)
+                .timeout(agentConfig.getPlanner().getTimeout())
+                // Keep the previous plan rather than return an empty one
+                .fallback(e -> previousDayPlans));
+        return assemble(graph, "Refined itinerary for " + request.tripTitle, listener);
+    }
+
+    /**
+     * A graph bounded by the itinerary deadline: a fused search that times out, then the booking
+     * searches it falls back to, then the planner, all fit in it.
+     */
+    private AgentGraph newGraph() {
+        int deadline = agentConfig.getItineraryDeadline();
+        return new AgentGraph().budget(deadline > 0 ? Duration.ofSeconds(deadline) : null);
+    }
+
+    private <T> CompletableFuture<T> attachOrSearch(String agent, String fingerprint,
+                                                    Supplier<CompletableFuture<T>> search) {
+        return speculativeSearches != null ? speculativeSearches.attach(agent, fingerprint, search) : search.get();
+    }
+
+    /**
+     * A search node whose result is the agent's answer bound to records, once, as it arrives:
+     * a {@link SectionResult} that everything downstream reads.
+     */
+    private static AgentGraph.Node search(String section, Function<AgentGraph.Results, CompletableFuture<?>> agent,
+                                          int timeoutSeconds) {
+        return new AgentGraph.Node(section, in -> Futures.map(agent.apply(in), raw -> SectionResult.bind(section, raw)))
+                .timeout(timeoutSeconds);
+    }
+
+    /**
+     * A flights, hotels or transport search. In fused mode the section is taken from the
+     * combined answer and the agent only runs when that answer did not parse or left the section out.
+     */
+    private AgentGraph.Node bookingSearch(String section, Function<AgentGraph.Results, CompletableFuture<?>> agent,
+                                          int timeoutSeconds) {
+        if (!agentConfig.getFusedSearch().isEnabled()) {
+            return search(section, agent, timeoutSeconds);
+        }
+        return search(section, in -> {
+            Map<String, Map<String, Object>> fused = in.get(FUSED_SEARCH);
+            Map<String, Object> answer = fused != null ? fused.get(section) : null;
+            return answer != null ? CompletableFuture.completedFuture(answer) : agent.apply(in);
+        }, timeoutSeconds).inputs(FUSED_SEARCH);
+    }
+
+    /**
+     * Reuses the previous result for a section the amendments leave alone; a section they
+     * affect, or one that came back empty last time, is searched again and recorded in
+     * {@code searched} so the planner is told about it.
+     */
+    private static AgentGraph.Node reuseOrSearch(AmendmentClassifier.Section section,
+                                                 Set<AmendmentClassifier.Section> affected, Object previous,
+                                                 Function<AgentGraph.Results, CompletableFuture<?>> agent,
+                                                 int timeoutSeconds, Set<String> searched) {
+        if (!affected.contains(section) && !isEmpty(previous)) {
+            return new AgentGraph.Node(section.key(),
+                    in -> CompletableFuture.completedFuture(SectionResult.bind(section.key(), previous)));
+        }
+        searched.add(section.key());
+        return search(section.key(), agent, timeoutSeconds);
+    }
+
+    private static boolean isEmpty(Object data) {
+        return data == null
+                || (data instanceof Map<?, ?> map && map.isEmpty())
+                || (data instanceof java.util.Collection<?> list && list.isEmpty());
+    }
+
+    /**
+     * Runs the agent graph and builds the itinerary from its results. A section that times out
+     * or fails is left empty and recorded as a degraded-section note, so the itinerary is built
+     * from whatever arrived. A section recovered from a malformed answer gets a repaired-section note.
+     */
+    private CompletableFuture<Itinerary> assemble(AgentGraph graph, String summary, ItineraryListener listener) {
+        List<String> notes = new CopyOnWriteArrayList<>();
+        AgentGraph.Listener sections = new AgentGraph.Listener() {
+            @Override
+            public void onCompleted(String section, Object result, Duration elapsed) {
+                if (FUSED_SEARCH.equals(section)) {
+                    return;
+                }
+                // Clients are sent the answer as the agent wrote it, not the records bound from it
+                Object answer = result instanceof SectionResult<?> bound ? bound.raw() : result;
+                if (answer instanceof JsonRepair.Repaired repaired) {
+                    notes.add(REPAIRED_SECTION + section + " (" + String.join("; ", repaired.repairs()) + ")");
+                }
+                listener.onSection(section, answer);
+            }
+
+            @Override
+            public void onFailed(String section, Throwable cause, Duration elapsed) {
+                if (FUSED_SEARCH.equals(section)) {
+                    // Not a section of its own: the booking searches fall back to their agents
+                    LOG.info("Fused search failed ({}); falling back to individual searches", cause.getMessage());
+                    return;
+                }
+                String reason = cause instanceof TimeoutException ? cause.getMessage() : "failed: " + cause.getMessage();
+                LOG.warn("Agent section {} {}; continuing without it", section, reason);
+                String note = DEGRADED_SECTION + section + " (" + reason + ")";
+                notes.add(note);
+                listener.onDegraded(section, note);
+            }
+        };
+
+        // Cancelling the itinerary (the client went away) cancels the agents still running
+        return Futures.map(graph.run(sections), results -> {
+            LOG.debug("Agent timings {}; critical path {}", results.timings(), results.criticalPath());
+
+            Itinerary itinerary = new Itinerary();
+            itinerary.summary = summary;
+            itinerary.dayPlans = results.get("dayPlans");
+            itinerary.notesParsingErrors = new java.util.ArrayList<>(notes);
+
+            try {
+                itinerary.bookings = LLMToModelMapper.mapToBooking(
+                        results.get("flights"), results.get("transport"), results.get("hotels"));
+                SectionResult<List<EventOption>> events = results.get("events");
+                SectionResult<WeatherForecast> weather = results.get("weather");
+                itinerary.events = LLMToModelMapper.mapToEvents(SectionResult.raw(events));
+                itinerary.eventsTyped = events != null ? events.records() : List.of();
+                itinerary.weather = LLMToModelMapper.mapToWeather(SectionResult.raw(weather));
+                itinerary.weatherTyped = SectionResult.records(weather);
+
+            } catch (Exception e) {
+                LOG.warn("Failed to map itinerary components: {}", e.getMessage());
+                itinerary.notesParsingErrors.add("Component mapping: " + e.getMessage());
+            }
+
+            return itinerary;
+        });
+    }
+
+    /**
+     * Fails with a TimeoutException after {@code timeoutSeconds}, cancelling the call so its LLM request stops too.
+     */
+    private static <T> CompletableFuture<T> bounded(CompletableFuture<T> call, int timeoutSeconds) {
+        return timeoutSeconds > 0 ? Futures.withTimeout(call, timeoutSeconds, TimeUnit.SECONDS) : call;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,406 @@
+package com.agentictravel.services;
+
+import com.agentictravel.llm.Futures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs agents as a dependency graph: each node declares the nodes whose results it consumes
+ * and starts the moment they have all completed. Nodes that become ready together are started
+ * highest priority first. A node that fails or misses its timeout completes with its fallback
+ * value, so its dependents still run; a node that misses its timeout is also cancelled, so
+ * its LLM calls stop too. Start and finish times are kept per node, which makes
+ * the critical path of a run visible. A run can be given a {@link #budget}, which the node
+ * timeouts are cut to fit.
+ */
+public class AgentGraph {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AgentGraph.class);
+
+    /**
+     * Observes node outcomes. Callbacks run on the thread that completed the node and must not block.
+     */
+    public interface Listener {
+
+        Listener NONE = new Listener() {
+        };
+
+        default void onCompleted(String node, Object result, Duration elapsed) {
+        }
+
+        /**
+         * {@code cause} is the failure, or a {@link TimeoutException} when the node ran out of
+         * time; the node continues with its fallback value.
+         */
+        default void onFailed(String node, Throwable cause, Duration elapsed) {
+        }
+    }
+
+    public static final class Node {
+        private final String name;
+        private final Function<Results, CompletableFuture<?>> task;
+        private List<String> inputs = List.of();
+        private int priority;
+        private int timeoutSeconds;
+        private Function<Throwable, ?> fallback = e -> null;
+
+        /**
+         * {@code task} receives the results of the declared inputs.
+         */
+        public Node(String name, Function<Results, CompletableFuture<?>> task) {
+            this.name = name;
+            this.task = task;
+        }
+
+        public Node inputs(String... inputs) {
+            this.inputs = List.of(inputs);
+            return this;
+        }
+
+        public Node priority(int priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        /**
+         * Zero or less means no timeout.
+         */
+        public Node timeout(int timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+            return this;
+        }
+
+        /**
+         * Value to continue with when the node fails or times out; null by default.
+         */
+        public Node fallback(Function<Throwable, ?> fallback) {
+            this.fallback = fallback;
+            return this;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Node results by name, with per-node timings. Failed nodes hold their fallback value.
+     */
+    public static final class Results {
+        private final Map<String, Object> values;
+        private final Map<String, Duration> timings;
+        private final List<String> criticalPath;
+
+        Results(Map<String, Object> values, Map<String, Duration> timings, List<String> criticalPath) {
+            this.values = Collections.unmodifiableMap(values);
+            this.timings = Collections.unmodifiableMap(timings);
+            this.criticalPath = List.copyOf(criticalPath);
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T get(String node) {
+            return (T) values.get(node);
+        }
+
+        public Map<String, Duration> timings() {
+            return timings;
+        }
+
+        /**
+         * The chain of nodes that determined when the run finished, first to last.
+         */
+        public List<String> criticalPath() {
+            return criticalPath;
+        }
+    }
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private final LongSupplier ticker;
+    private Duration budget;
+
+    public AgentGraph() {
+        this(System::nanoTime);
+    }
+
+    AgentGraph(LongSupplier ticker) {
+        this.ticker = ticker;
+    }
+
+    public AgentGraph add(Node node) {
+        if (nodes.putIfAbsent(node.name, node) != null) {
+            throw new IllegalArgumentException("Duplicate node: " + node.name);
+        }
+        return this;
+    }
+
+    /**
+     * Bounds the whole run. When a node starts, its timeout is cut to what is left of
+     * {@code budget} less the time the nodes waiting on it may still take: their timeouts, along
+     * the longest chain of dependents. So a late stage still gets its full time and the run as a
+     * whole ends within the budget. Null, the default, means no budget.
+     */
+    public AgentGraph budget(Duration budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * Starts every node whose inputs are ready and completes once all nodes have. Cancelling
+     * the returned future cancels the nodes still running.
+     */
+    public CompletableFuture<Results> run(Listener listener) {
+        validate();
+        return new Run(listener).start();
+    }
+
+    private static String describe(long millis) {
+        return millis % 1000 == 0 ? millis / 1000 + " s" : millis + " ms";
+    }
+
+    private void validate() {
+        for (Node node : nodes.values()) {
+            for (String input : node.inputs) {
+                if (!nodes.containsKey(input)) {
+                    throw new IllegalArgumentException("Node " + node.name + " depends on unknown node " + input);
+                }
+            }
+        }
+        Set<String> done = new HashSet<>();
+        boolean progressed = true;
+        while (progressed) {
+            progressed = false;
+            for (Node node : nodes.values()) {
+                if (!done.contains(node.name) && done.containsAll(node.inputs)) {
+                    done.add(node.name);
+                    progressed = true;
+                }
+            }
+        }
+        if (done.size() < nodes.size()) {
+            Set<String> cyclic = new HashSet<>(nodes.keySet());
+            cyclic.removeAll(done);
+            throw new IllegalArgumentException("Dependency cycle among nodes " + cyclic);
+        }
+    }
+
+    private final class Run {
+        private final Listener listener;
+        private final CompletableFuture<Results> result = new CompletableFuture<>();
+        private final Map<String, Integer> pending = new HashMap<>();
+        private final Map<String, Object> values = new HashMap<>();
+        private final Map<String, Long> started = new HashMap<>();
+        private final Map<String, Long> finished = new HashMap<>();
+        private final Map<String, CompletableFuture<?>> running = new HashMap<>();
+        private final Map<String, Long> timeouts = new HashMap<>();
+        private final Map<String, Long> reserved = new HashMap<>();
+        private long runStarted;
+
+        Run(Listener listener) {
+            this.listener = listener;
+            result.whenComplete((r, e) -> {
+                if (result.isCancelled()) {
+                    List<CompletableFuture<?>> calls;
+                    synchronized (this) {
+                        calls = new ArrayList<>(running.values());
+                    }
+                    calls.forEach(call -> call.cancel(true));
+                }
+            });
+        }
+
+        CompletableFuture<Results> start() {
+            List<Node> ready = new ArrayList<>();
+            synchronized (this) {
+                runStarted = ticker.getAsLong();
+                for (Node node : nodes.values()) {
+                    pending.put(node.name, node.inputs.size());
+                    if (node.inputs.isEmpty()) {
+                        ready.add(node);
+                    }
+                }
+            }
+            if (nodes.isEmpty()) {
+                result.complete(new Results(Map.of(), Map.of(), List.of()));
+            }
+            launch(ready);
+            return result;
+        }
+
+        private void launch(List<Node> ready) {
+            ready.sort(Comparator.comparingInt((Node n) -> n.priority).reversed());
+            for (Node node : ready) {
+                if (result.isDone()) {
+                    return;
+                }
+                execute(node);
+            }
+        }
+
+        private void execute(Node node) {
+            Results inputs;
+            long timeoutMillis;
+            synchronized (this) {
+                Map<String, Object> in = new HashMap<>();
+                node.inputs.forEach(input -> in.put(input, values.get(input)));
+                inputs = new Results(in, Map.of(), List.of());
+                long now = ticker.getAsLong();
+                started.put(node.name, now);
+                timeoutMillis = timeoutMillis(node, now);
+                timeouts.put(node.name, timeoutMillis);
+            }
+
+            CompletableFuture<?> call;
+            try {
+                call = node.task.apply(inputs);
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            if (call == null) {
+                call = CompletableFuture.completedFuture(null);
+            }
+            synchronized (this) {
+                running.put(node.name, call);
+            }
+            CompletableFuture<?> bounded = timeoutMillis > 0
+                    ? Futures.withTimeout(call, timeoutMillis, TimeUnit.MILLISECONDS)
+                    : call;
+            bounded.whenComplete((value, e) -> complete(node, value, e));
+        }
+
+        private void complete(Node node, Object value, Throwable e) {
+            long now = ticker.getAsLong();
+            Duration elapsed;
+            synchronized (this) {
+                running.remove(node.name);
+                elapsed = Duration.ofNanos(now - started.get(node.name));
+            }
+            if (result.isCancelled()) {
+                // Nobody is waiting: no listener callbacks, fallbacks or dependents
+                return;
+            }
+
+            Object outcome = value;
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof TimeoutException) {
+                    cause = new TimeoutException("timed out after " + describe(timeoutOf(node)));
+                }
+                Throwable failure = cause;
+                notify(node, () -> listener.onFailed(node.name, failure, elapsed));
+                try {
+                    outcome = node.fallback.apply(cause);
+                } catch (RuntimeException fallbackFailure) {
+                    outcome = null;
+                }
+            } else {
+                notify(node, () -> listener.onCompleted(node.name, value, elapsed));
+            }
+
+            List<Node> ready = new ArrayList<>();
+            boolean last;
+            synchronized (this) {
+                values.put(node.name, outcome);
+                finished.put(node.name, now);
+                for (Node dependent : nodes.values()) {
+                    if (dependent.inputs.contains(node.name)
+                            && pending.merge(dependent.name, -1, Integer::sum) == 0) {
+                        ready.add(dependent);
+                    }
+                }
+                last = finished.size() == nodes.size();
+            }
+            if (last) {
+                result.complete(results());
+            } else {
+                launch(ready);
+            }
+        }
+
+        /**
+         * The node's own timeout in milliseconds, cut to the budget left at {@code now} less what
+         * its dependents need; zero for none. A node with no time left gets a millisecond.
+         */
+        private long timeoutMillis(Node node, long now) {
+            long own = node.timeoutSeconds > 0 ? TimeUnit.SECONDS.toMillis(node.timeoutSeconds) : 0;
+            if (budget == null) {
+                return own;
+            }
+            long left = budget.toMillis() - TimeUnit.NANOSECONDS.toMillis(now - runStarted) - reserved(node);
+            return Math.max(1, own > 0 ? Math.min(own, left) : left);
+        }
+
+        /**
+         * The longest chain of dependent timeouts after {@code node}. Dependents without a timeout count as none.
+         */
+        private long reserved(Node node) {
+            Long known = reserved.get(node.name);
+            if (known != null) {
+                return known;
+            }
+            long longest = 0;
+            for (Node dependent : nodes.values()) {
+                if (dependent.inputs.contains(node.name)) {
+                    longest = Math.max(longest,
+                            TimeUnit.SECONDS.toMillis(Math.max(dependent.timeoutSeconds, 0)) + reserved(dependent));
+                }
+            }
+            reserved.put(node.name, longest);
+            return longest;
+        }
+
+        private synchronized long timeoutOf(Node node) {
+            return timeouts.get(node.name);
+        }
+
+        /**
+         * A failing listener (e.g. a client that disconnected) must not stall the rest of the graph.
+         */
+        private void notify(Node node, Runnable callback) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                LOG.debug("Agent graph listener failed for node {}: {}", node.name, e.getMessage());
+            }
+        }
+
+        private synchronized Results results() {
+            Map<String, Duration> timings = new LinkedHashMap<>();
+            for (String name : nodes.keySet()) {
+                timings.put(name, Duration.ofNanos(finished.get(name) - started.get(name)));
+            }
+            return new Results(new HashMap<>(values), timings, criticalPath());
+        }
+
+        /**
+         * Walks back from the node that finished last through whichever input finished last.
+         */
+        private List<String> criticalPath() {
+            Comparator<String> byFinish = Comparator.comparingLong(finished::get);
+            String current = nodes.keySet().stream().max(byFinish).orElse(null);
+            List<String> path = new ArrayList<>();
+            while (current != null) {
+                path.add(current);
+                current = nodes.get(current).inputs.stream().max(byFinish).orElse(null);
+            }
+            Collections.reverse(path);
+            return path;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.agentictravel.services;
+
+import com.agentictravel.model.EventOption;
+import com.agentictravel.model.FlightOption;
+import com.agentictravel.model.HotelOption;
+import com.agentictravel.model.TransportOption;
+import com.agentictravel.model.WeatherForecast;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The one ObjectMapper the agents share, with readers and types resolved up front. Building a
+ * mapper per response threw away Jackson's deserializer caches on every call; readers are
+ * immutable and safe to share between threads.
+ * <p>
+ * Typed bindings are lenient the way LLM answers need: unknown fields are ignored, scalars
+ * are coerced to strings and a lone string stands in for a one-element list.
+ */
+final class AgentJson {
+
+    static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
+
+    static final ObjectReader MAP = MAPPER.readerFor(new TypeReference<Map<String, Object>>() {
+    });
+    static final ObjectReader TREE = MAPPER.readerFor(JsonNode.class);
+    static final ObjectReader ANY = MAPPER.readerFor(Object.class);
+
+    static final JavaType FLIGHT_OPTIONS = listOf(FlightOption.class);
+    static final JavaType HOTEL_OPTIONS = listOf(HotelOption.class);
+    static final JavaType TRANSPORT_OPTIONS = listOf(TransportOption.class);
+    static final JavaType EVENT = TypeFactory.defaultInstance().constructType(EventOption.class);
+    static final JavaType WEATHER = TypeFactory.defaultInstance().constructType(WeatherForecast.class);
+
+    private AgentJson() {
+    }
+
+    static Map<String, Object> readMap(String json) throws IOException {
+        return MAP.readValue(json);
+    }
+
+    /**
+     * Binds an already-parsed value (maps and lists from {@link #MAP}) to {@code type} without
+     * going back through text. Null stays null.
+     */
+    static <T> T bind(Object value, JavaType type) {
+        return value == null ? null : MAPPER.convertValue(value, type);
+    }
+
+    private static JavaType listOf(Class<?> element) {
+        return TypeFactory.defaultInstance().constructCollectionType(List.class, element);
+    }
+}
@@ -0,0 +1,117 @@
+package com.agentictravel.services;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Rule-based, local classification of a refinement request into the search sections it
+ * invalidates. "More relaxing on day 3" touches no search result and only needs the planner;
+ * "a cheaper hotel" needs the hotel agent; a change of dates, length, destination or party
+ * invalidates everything, and a budget change alone invalidates every priced section.
+ * Unknown wording affects nothing but the day plans, which the planner always revisits.
+ */
+public class AmendmentClassifier {
+
+    public enum Section {
+        FLIGHTS("flights"),
+        TRANSPORT("transport"),
+        HOTELS("hotels"),
+        EVENTS("events"),
+        WEATHER("weather");
+
+        private final String key;
+
+        Section(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Section name as used in itinerary events and degraded-section notes.
+         */
+        public String key() {
+            return key;
+        }
+    }
+
+    private static final Map<Section, Pattern> SECTION_RULES = new LinkedHashMap<>();
+
+    static {
+        SECTION_RULES.put(Section.FLIGHTS, words(
+                "flights?", "fly(ing)?", "airlines?", "airports?", "plane", "layovers?", "stopovers?",
+                "non-?stop", "direct", "departures?", "depart(ing)?", "arrivals?", "economy", "business class",
+                "first class", "red-?eye", "carrier"));
+        SECTION_RULES.put(Section.HOTELS, words(
+                "hotels?", "stays?", "staying", "accommodations?", "rooms?", "hostels?", "resorts?", "airbnb",
+                "lodging", "apartments?", "b&b", "bed and breakfast", "suite", "pool", "check-?in", "check-?out"));
+        SECTION_RULES.put(Section.TRANSPORT, words(
+                "cars?", "rental", "rent a car", "trains?", "rail", "bus(es)?", "taxis?", "uber", "transfers?",
+                "driv(e|ing)", "transport(ation)?", "metro", "subway", "ferr(y|ies)", "bikes?", "public transit"));
+        SECTION_RULES.put(Section.EVENTS, words(
+                "events?", "activit(y|ies)", "museums?", "tours?", "concerts?", "shows?", "attractions?",
+                "sightseeing", "festivals?", "nightlife", "hik(e|es|ing)", "excursions?", "theat(er|re)",
+                "galler(y|ies)", "shopping", "things to do", "adventure", "outdoors?", "sports?"));
+        SECTION_RULES.put(Section.WEATHER, words(
+                "weather", "rain(y)?", "sunny", "sunshine", "temperatures?", "cold(er)?", "hot(ter)?", "warm(er)?",
+                "forecast", "climate", "snow(y)?", "storms?"));
+    }
+
+    private static final String NUMBER = "\\d+|one|two|three|four|five|six|seven|eight|nine|ten|fourteen";
+    private static final String MONTH =
+            "january|february|march|april|may|june|july|august|september|october|november|december";
+    // Who travels; not followed by "-" or "'s", so "family-friendly" or "my partner's favourite" do not count
+    private static final String PARTY = "(people|persons?|adults?|kids|children|child|bab(y|ies)|toddlers?|teens?"
+            + "|elderly|seniors?|grandparents|parents|partner|wife|husband|spouse|friends?|family|travell?ers"
+            + "|guests?|wheelchair users?)(?![-'])";
+
+    // Changes to the trip itself: when, how long, where and who. Months only count next to a day
+    // number or after a preposition ("in May", "to October", "May 12"), so "it may rain" does not;
+    // the party only changes with a count ("4 people") or a verb saying who joins or drops out.
+    private static final Pattern GLOBAL = Pattern.compile(
+            "\\b(" + NUMBER + ")\\s+(days?|nights?|weeks?)\\b"
+            + "|\\b(longer|shorter|extend|shorten|dates?|reschedule|postpone|earlier|later trip)\\b"
+            + "|\\b(in|on|to|from|until|till|by|during|for)\\s+((early|mid|late)[- ]?)?(" + MONTH + ")\\b"
+            + "|\\b(" + MONTH + ")\\s+\\d{1,2}(st|nd|rd|th)?\\b"
+            + "|\\b\\d{1,2}(st|nd|rd|th)?\\s+(of\\s+)?(" + MONTH + ")\\b"
+            + "|\\b(different (city|country|region|destination)|destination|travel(l)?ing to)\\b"
+            + "|\\b(" + NUMBER + "|another|an? (extra|additional)|extra|additional|fewer)\\s+" + PARTY
+            + "|\\b(add(ing)?|bring(ing)?|invit(e|ing)|tak(e|ing) along|remov(e|ing)|drop(ping)?|without|plus"
+            + "|now with|also with)\\s+((my|our|the|a|an|his|her|their|" + NUMBER + ")\\s+){0,2}" + PARTY
+            + "|\\b" + PARTY + "\\s+((is|are|will|now|also|be)\\s+){0,2}(joining|joins|coming( along)?|come along"
+            + "|can't come|cannot come|won't come|not coming|dropp(ed|ing) out|staying home)\\b"
+            + "|\\b(needs?|requires?|uses?)\\s+(a\\s+)?wheelchair\\b(?![-'])");
+
+    // Price changes apply to the sections named alongside them, or to every priced section
+    private static final Pattern PRICE = Pattern.compile(
+            "\\b(budget|cheap(er)?|less expensive|more expensive|pricey|luxury|luxurious|afford(able)?|splurge)\\b");
+
+    private static Pattern words(String... alternatives) {
+        return Pattern.compile("\\b(" + String.join("|", alternatives) + ")\\b");
+    }
+
+    /**
+     * Sections whose previous search results no longer hold after {@code amendments}.
+     */
+    public Set<Section> affectedSections(String amendments) {
+        Set<Section> affected = EnumSet.noneOf(Section.class);
+        if (amendments == null || amendments.isBlank()) {
+            return affected;
+        }
+        String text = amendments.toLowerCase(Locale.ROOT);
+        if (GLOBAL.matcher(text).find()) {
+            return EnumSet.allOf(Section.class);
+        }
+        for (Map.Entry<Section, Pattern> rule : SECTION_RULES.entrySet()) {
+            if (rule.getValue().matcher(text).find()) {
+                affected.add(rule.getKey());
+            }
+        }
+        if (affected.isEmpty() && PRICE.matcher(text).find()) {
+            return EnumSet.of(Section.FLIGHTS, Section.HOTELS, Section.TRANSPORT, Section.EVENTS);
+        }
+        return affected;
+    }
+}
@@ -0,0 +1,267 @@
+package com.agentictravel.services;
+
+import com.agentictravel.model.Activity;
+import com.agentictravel.model.DayPlan;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Decodes the planner's {@code {"dayPlans": [...], ...}} answer incrementally with Jackson's
+ * non-blocking parser. Text is fed in chunks as it arrives (one chunk for a buffered response)
+ * and each DayPlan is handed to the consumer as soon as its closing brace has been read, so a
+ * long trip's first days are available while later ones are still being generated. No JSON
+ * tree is built. Day plans come out exactly as the tree-walking code used to build them:
+ * missing or non-scalar fields read as "" (dayNumber as 0), and everything after the
+ * top-level object is ignored.
+ * <p>
+ * Not thread-safe; feed chunks from one thread at a time, in order.
+ */
+class DayPlanDecoder {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    static final List<String> ACTIVITY_FIELDS =
+            List.of("title", "time", "duration", "location", "description", "category", "cost", "bookingUrl");
+
+    private final Consumer<DayPlan> onDayPlan;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final List<DayPlan> dayPlans = new ArrayList<>();
+
+    // Nesting depth after the last token; the root object is depth 1, a day plan 3, an activity 5
+    private int depth;
+    // While > 0, tokens are skipped until the depth drops back to this value
+    private int skipTo = -1;
+    private String field;
+    private boolean inDayPlans;
+    private boolean inActivities;
+    private boolean rootClosed;
+    private boolean started;
+    private DayPlan day;
+    private Map<String, Object> activity;
+    private char pendingHighSurrogate;
+    private IOException failure;
+
+    DayPlanDecoder(Consumer<DayPlan> onDayPlan) {
+        this.onDayPlan = onDayPlan;
+        try {
+            this.parser = JSON.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create non-blocking JSON parser", e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Decodes a complete response in one go.
+     */
+    static List<DayPlan> decode(String response) throws IOException {
+        DayPlanDecoder decoder = new DayPlanDecoder(plan -> {
+        });
+        decoder.feed(response);
+        return decoder.finish();
+    }
+
+    /**
+     * Feeds the next chunk of the response. Malformed input is remembered and reported by
+     * {@link #finish()}; anything fed after it, or after the top-level object, is ignored.
+     */
+    void feed(String chunk) {
+        if (failure != null || rootClosed || chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        // A surrogate pair split across chunks must be encoded as one code point
+        String text = pendingHighSurrogate != 0 ? pendingHighSurrogate + chunk : chunk;
+        pendingHighSurrogate = 0;
+        if (Character.isHighSurrogate(text.charAt(text.length() - 1))) {
+            pendingHighSurrogate = text.charAt(text.length() - 1);
+            text = text.substring(0, text.length() - 1);
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            drain();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Ends the input and returns every day plan decoded. Throws when the response was not
+     * valid JSON or ended before the top-level value was complete; an empty response yields
+     * no day plans.
+     */
+    List<DayPlan> finish() throws IOException {
+        if (failure == null && !rootClosed) {
+            try {
+                feeder.endOfInput();
+                drain();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (started && !rootClosed) {
+            throw new IOException("Planner response ended before the JSON was complete");
+        }
+        return dayPlans;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!rootClosed && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            started = true;
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+            if (skipTo >= 0) {
+                if (depth == skipTo) {
+                    skipTo = -1;
+                }
+            } else {
+                onToken(token);
+            }
+            if (depth == 0) {
+                rootClosed = true;
+            }
+        }
+    }
+
+    private void onToken(JsonToken token) throws IOException {
+        if (token == JsonToken.FIELD_NAME) {
+            field = parser.currentName();
+            return;
+        }
+        if (depth == 1 && token == JsonToken.START_OBJECT) {
+            return;
+        }
+        if (depth == 1 && token.isStructStart()) {
+            // The root is not an object: it has no dayPlans
+            skipTo = 0;
+            return;
+        }
+
+        // A value inside the root object
+        if (!inDayPlans) {
+            if (depth == 2 && "dayPlans".equals(field) && token == JsonToken.START_ARRAY) {
+                inDayPlans = true;
+            } else {
+                skipValue(token);
+            }
+            return;
+        }
+        if (depth == 1 && token == JsonToken.END_ARRAY) {
+            inDayPlans = false;
+            return;
+        }
+
+        // An element of dayPlans
+        if (day == null) {
+            day = newDay();
+            if (token == JsonToken.START_OBJECT) {
+                return;
+            }
+            // Not an object: an empty day, as JsonNode.path() on it would give
+            skipValue(token);
+            emitDay();
+            return;
+        }
+        if (depth == 2 && token == JsonToken.END_OBJECT) {
+            emitDay();
+            return;
+        }
+
+        // A field of the day plan
+        if (!inActivities) {
+            if (depth == 3 && token.isScalarValue()) {
+                if ("dayNumber".equals(field)) {
+                    day.dayNumber = parser.getValueAsInt(0);
+                } else if ("title".equals(field)) {
+                    day.title = parser.getText();
+                }
+            } else if (depth == 4 && "activities".equals(field) && token == JsonToken.START_ARRAY) {
+                inActivities = true;
+            } else {
+                if ("title".equals(field)) {
+                    day.title = "";
+                }
+                skipValue(token);
+            }
+            return;
+        }
+        if (depth == 3 && token == JsonToken.END_ARRAY) {
+            inActivities = false;
+            return;
+        }
+
+        // An element of activities
+        if (activity == null) {
+            activity = newActivity();
+            if (token == JsonToken.START_OBJECT) {
+                return;
+            }
+            skipValue(token);
+            addActivity();
+            return;
+        }
+        if (depth == 4 && token == JsonToken.END_OBJECT) {
+            addActivity();
+            return;
+        }
+        if (activity.containsKey(field)) {
+            activity.put(field, token.isScalarValue() ? parser.getText() : "");
+        }
+        skipValue(token);
+    }
+
+    private void skipValue(JsonToken token) {
+        if (token.isStructStart()) {
+            skipTo = depth - 1;
+        }
+    }
+
+    private static DayPlan newDay() {
+        DayPlan plan = new DayPlan();
+        plan.title = "";
+        plan.activities = new ArrayList<>();
+        plan.activitiesTyped = new ArrayList<>();
+        return plan;
+    }
+
+    private static Map<String, Object> newActivity() {
+        Map<String, Object> fields = new HashMap<>();
+        ACTIVITY_FIELDS.forEach(name -> fields.put(name, ""));
+        return fields;
+    }
+
+    private void addActivity() {
+        day.activities.add(activity);
+        Activity typed = new Activity();
+        typed.title = (String) activity.get("title");
+        typed.time = (String) activity.get("time");
+        typed.details = activity;
+        day.activitiesTyped.add(typed);
+        activity = null;
+    }
+
+    private void emitDay() {
+        DayPlan finished = day;
+        day = null;
+        dayPlans.add(finished);
+        onDayPlan.accept(finished);
+    }
+}
@@ -1,5 +1,6 @@
 package com.agentictravel.services;
 
+import com.agentictravel.llm.Futures;
 import com.agentictravel.llm.LLMClient;
 import com.agentictravel.model.TripRequest;
 
@@ -14,7 +15,7 @@ public class EventAgent {
         this.llm = llm;
     }
 
-    public CompletableFuture<List<Map<String,Object>>> search(TripRequest request){
+    String prompt(TripRequest request){
         String amendments = safeGetAmendments(request);
         Object dates = safeGetTentativeDates(request);
         String schema = """
@@ -35,7 +36,7 @@ public class EventAgent {
                 "summary": "string"
             }
             """;
-        String prompt = "You are an events and activities assistant. Given region " + request.region +
+        return "You are an events and activities assistant. Given region " + request.region +
         ", tentative dates '" + (dates==null?"":dates.toString()) + "', interests: " + (request.interests!=null?request.interests.toString():"general") +
         ", and user amendments '" + (amendments==null?"":amendments) + "'. " +
         "Find 5-10 relevant events, activities, attractions, or experiences that would be suitable for this trip. " +
@@ -43,14 +44,20 @@ public class EventAgent {
         ", elderly=" + (request.special != null ? request.special.elderly : false) + 
         ", accessible=" + (request.special != null ? request.special.differentlyAbled : false) + ". " +
         "Return ONLY a valid JSON object matching this schema: \n" + schema + "\nDo not add any commentary outside the JSON.";
+    }
+
+    public CompletableFuture<List<Map<String,Object>>> search(TripRequest request){
+        String prompt = prompt(request);
 
-        return llm.prompt(prompt, "gpt-3.5-turbo").thenApply(resp -> {
+        return Futures.map(llm.prompt(prompt, "gpt-3.5-turbo"), resp -> {
             try {
-                // Try to parse the response as JSON, fallback to mock data if parsing fails
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                Map<String, Object> responseMap = mapper.readValue(resp, Map.class);
+                // Parse the response as JSON, repairing it if needed; fallback to mock data if nothing is recoverable
+                Map<String, Object> responseMap = JsonRepair.readMap(resp);
                 @SuppressWarnings("unchecked")
                 List<Map<String, Object>> events = (List<Map<String, Object>>) responseMap.get("events");
+                if (events != null && responseMap instanceof JsonRepair.Repaired repaired) {
+                    return new JsonRepair.RepairedList<>(events, repaired.repairs());
+                }
                 return events != null ? events : java.util.List.of();
             } catch (Exception e) {
                 // Fallback to mock data
@@ -1,5 +1,6 @@
 package com.agentictravel.services;
 
+import com.agentictravel.llm.Futures;
 import com.agentictravel.llm.LLMClient;
 import com.agentictravel.model.TripRequest;
 
@@ -7,45 +8,50 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 public class FlightAgent {
+    // Response shape; FusedSearchAgent embeds the same schema in its combined prompt
+    static final String SCHEMA = """
+        {
+            "options": [
+                {
+                    "carrier": "string",
+                    "price": "string",
+                    "departureTime": "string",
+                    "arrivalTime": "string",
+                    "duration": "string",
+                    "stops": "string",
+                    "pros": ["pro1", "pro2"],
+                    "cons": ["con1", "con2"],
+                    "bookingUrl": "string"
+                }
+            ],
+            "summary": "string"
+        }
+        """;
+
     private final LLMClient llm;
 
     public FlightAgent(LLMClient llm){
         this.llm = llm;
     }
 
-    public CompletableFuture<Map<String,Object>> search(TripRequest request){
+    String prompt(TripRequest request){
         String amendments = safeGetAmendments(request);
         Object dates = safeGetTentativeDates(request);
-        String schema = """
-            {
-                "options": [
-                    {
-                        "carrier": "string",
-                        "price": "string",
-                        "departureTime": "string",
-                        "arrivalTime": "string",
-                        "duration": "string",
-                        "stops": "string",
-                        "pros": ["pro1", "pro2"],
-                        "cons": ["con1", "con2"],
-                        "bookingUrl": "string"
-                    }
-                ],
-                "summary": "string"
-            }
-            """;
-        String prompt = "You are a flight search assistant. Given the trip request: " + request.tripTitle +
+        return "You are a flight search assistant. Given the trip request: " + request.tripTitle +
         ", days=" + request.days + ", region=" + request.region + ", people=" + request.people +
         ". Tentative dates: '" + (dates==null?"":dates.toString()) + "'. " +
         "Find 3-5 flight options with different price points and convenience levels. " +
         "If the user provided amendments: '" + (amendments==null?"":amendments) + "' include them when suggesting flights. " +
-        "Return ONLY valid JSON strictly matching this schema: \n" + schema + "\nDo not add any extra commentary outside the JSON.";
+        "Return ONLY valid JSON strictly matching this schema: \n" + SCHEMA + "\nDo not add any extra commentary outside the JSON.";
+    }
+
+    public CompletableFuture<Map<String,Object>> search(TripRequest request){
+        String prompt = prompt(request);
 
-        return llm.prompt(prompt, "gpt-3.5-turbo").thenApply(resp -> {
+        return Futures.map(llm.prompt(prompt, "gpt-3.5-turbo"), resp -> {
             try {
-                // Try to parse the response as JSON, fallback to mock data if parsing fails
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                return mapper.readValue(resp, Map.class);
+                // Parse the response as JSON, repairing it if needed; fallback to mock data if nothing is recoverable
+                return JsonRepair.readMap(resp);
             } catch (Exception e) {
                 // Fallback to mock data
                 return Map.of(
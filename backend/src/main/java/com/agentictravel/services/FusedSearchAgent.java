@@ -0,0 +1,83 @@
+package com.agentictravel.services;
+
+import com.agentictravel.llm.Futures;
+import com.agentictravel.llm.LLMClient;
+import com.agentictravel.model.TripRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Searches flights, hotels and transport in one LLM call: the trip context is sent once and
+ * the answer follows a composite schema made of the three agents' own schemas. The result is
+ * split back into the maps FlightAgent, HotelAgent and TransportAgent return. Unlike those
+ * agents it has no mock fallback: a section the answer leaves out is missing from the result,
+ * and an answer that does not parse yields null, so the caller searches just those sections
+ * individually.
+ */
+public class FusedSearchAgent {
+    private static final Logger LOG = LoggerFactory.getLogger(FusedSearchAgent.class);
+
+    public static final List<String> SECTIONS = List.of("flights", "hotels", "transport");
+
+    private final LLMClient llm;
+
+    public FusedSearchAgent(LLMClient llm) {
+        this.llm = llm;
+    }
+
+    /**
+     * Completes with the flights, hotels and transport sections the combined answer has, or
+     * null when it is not valid JSON.
+     */
+    public CompletableFuture<Map<String, Map<String, Object>>> search(TripRequest request) {
+        String schema = "{\n\"flights\": " + FlightAgent.SCHEMA.strip()
+                + ",\n\"hotels\": " + HotelAgent.SCHEMA.strip()
+                + ",\n\"transport\": " + TransportAgent.SCHEMA.strip() + "\n}";
+        String prompt = "You are a combined travel search assistant covering flights, hotels and local transport. "
+                + "Given the trip: " + request.tripTitle + ", days=" + request.days + ", region=" + request.region
+                + ", people=" + request.people
+                + ", tentativeDates='" + (request.tentativeDates == null ? "" : request.tentativeDates) + "'"
+                + ", nights=" + Math.max(request.days, 1)
+                + ", bookingPreferences=" + (request.bookingPreferences != null ? request.bookingPreferences.toString() : "none")
+                + ". Consider special needs: kids=" + (request.special != null && request.special.kids)
+                + ", elderly=" + (request.special != null && request.special.elderly)
+                + ", accessible=" + (request.special != null && request.special.differentlyAbled) + ". "
+                + "Find 3-5 flight options with different price points and convenience levels, "
+                + "3-5 hotel options with different price ranges and locations, "
+                + "and transport options including car rental, trains and buses. "
+                + "If the user provided amendments: '" + (request.getAmendments() == null ? "" : request.getAmendments())
+                + "' include them in every section. "
+                + "Return ONLY valid JSON strictly matching this schema, one object per section: \n" + schema
+                + "\nDo not add any commentary outside the JSON.";
+
+        return Futures.map(llm.prompt(prompt, "gpt-3.5-turbo"), this::split);
+    }
+
+    Map<String, Map<String, Object>> split(String response) {
+        try {
+            Map<String, Object> root = JsonRepair.readMap(response);
+            Map<String, Map<String, Object>> sections = new LinkedHashMap<>();
+            for (String section : SECTIONS) {
+                Object value = root == null ? null : root.get(section);
+                if (!(value instanceof Map)) {
+                    LOG.info("Fused search answer has no {} section; searching it individually", section);
+                    continue;
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, Object> map = (Map<String, Object>) value;
+                // Each section reports the repair, since the fused answer is not a section of its own
+                sections.put(section, root instanceof JsonRepair.Repaired repaired
+                        ? new JsonRepair.RepairedMap(map, repaired.repairs()) : map);
+            }
+            return sections;
+        } catch (Exception e) {
+            LOG.info("Fused search answer did not parse ({}); falling back to individual searches", e.getMessage());
+            return null;
+        }
+    }
+}
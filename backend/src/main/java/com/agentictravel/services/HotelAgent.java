@@ -1,5 +1,6 @@
 package com.agentictravel.services;
 
+import com.agentictravel.llm.Futures;
 import com.agentictravel.llm.LLMClient;
 import com.agentictravel.model.TripRequest;
 
@@ -7,47 +8,51 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 public class HotelAgent {
+    static final String SCHEMA = """
+        {
+            "options": [
+                {
+                    "name": "string",
+                    "pricePerNight": "string",
+                    "totalPrice": "string",
+                    "location": "string",
+                    "rating": "string",
+                    "amenities": ["amenity1", "amenity2"],
+                    "pros": ["pro1", "pro2"],
+                    "cons": ["con1", "con2"],
+                    "bookingUrl": "string"
+                }
+            ],
+            "summary": "string"
+        }
+        """;
+
     private final LLMClient llm;
 
     public HotelAgent(LLMClient llm){
         this.llm = llm;
     }
 
-    public CompletableFuture<Map<String,Object>> search(TripRequest request){
+    String prompt(TripRequest request){
         String amendments = safeGetAmendments(request);
         Object dates = safeGetTentativeDates(request);
-        String schema = """
-            {
-                "options": [
-                    {
-                        "name": "string",
-                        "pricePerNight": "string",
-                        "totalPrice": "string",
-                        "location": "string",
-                        "rating": "string",
-                        "amenities": ["amenity1", "amenity2"],
-                        "pros": ["pro1", "pro2"],
-                        "cons": ["con1", "con2"],
-                        "bookingUrl": "string"
-                    }
-                ],
-                "summary": "string"
-            }
-            """;
-        String prompt = "You are a hotel search assistant. Given the trip: " + request.tripTitle +
+        return "You are a hotel search assistant. Given the trip: " + request.tripTitle +
         ", region=" + request.region + ", tentativeDates='" + (dates==null?"":dates.toString()) + "', nights=" + Math.max(request.days,1) +
         ", people=" + request.people + ". Find 3-5 hotel options with different price ranges and locations. " +
         "Consider special needs: kids=" + (request.special != null ? request.special.kids : false) + 
         ", elderly=" + (request.special != null ? request.special.elderly : false) + 
         ", accessible=" + (request.special != null ? request.special.differentlyAbled : false) + ". " +
         "If the user provided amendments: '" + (amendments==null?"":amendments) + "' include them when suggesting hotels. " +
-        "Return ONLY valid JSON strictly matching this schema: \n" + schema + "\nDo not add any commentary outside the JSON.";
+        "Return ONLY valid JSON strictly matching this schema: \n" + SCHEMA + "\nDo not add any commentary outside the JSON.";
+    }
+
+    public CompletableFuture<Map<String,Object>> search(TripRequest request){
+        String prompt = prompt(request);
 
-        return llm.prompt(prompt, "gpt-3.5-turbo").thenApply(resp -> {
+        return Futures.map(llm.prompt(prompt, "gpt-3.5-turbo"), resp -> {
             try {
-                // Try to parse the response as JSON, fallback to mock data if parsing fails
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                return mapper.readValue(resp, Map.class);
+                // Parse the response as JSON, repairing it if needed; fallback to mock data if nothing is recoverable
+                return JsonRepair.readMap(resp);
             } catch (Exception e) {
                 // Fallback to mock data
                 return Map.of(
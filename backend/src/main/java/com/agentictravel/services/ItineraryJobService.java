@@ -0,0 +1,257 @@
+package com.agentictravel.services;
+
+import com.agentictravel.model.Itinerary;
+import com.agentictravel.model.ItineraryJob;
+import com.agentictravel.model.TripRequest;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs itinerary generation as background jobs so clients need not hold a connection open for
+ * the 30-60 s it takes. At most {@code maxRunning} jobs generate at once and at most
+ * {@code maxQueued} wait behind them; submissions beyond that are refused with
+ * {@link JobQueueFullException}. Finished jobs are kept for {@code resultTtl} so clients can
+ * collect them, then evicted by a periodic sweep. Queued jobs are started, and the sweep run,
+ * on the service's own thread rather than on whichever agent or LLM thread finished the job
+ * before them.
+ */
+@Service
+public class ItineraryJobService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ItineraryJobService.class);
+    private static final Duration MIN_EVICTION_INTERVAL = Duration.ofMillis(100);
+    private static final Duration MAX_EVICTION_INTERVAL = Duration.ofMinutes(1);
+
+    private final AgentCoordinator coordinator;
+    private final int maxRunning;
+    private final int maxQueued;
+    private final Duration resultTtl;
+    private final Duration maxWait;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Deque<Job> queue = new ArrayDeque<>();
+    private int running;
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final TripRequest request;
+        final Instant createdAt;
+        final List<String> completedSections = new CopyOnWriteArrayList<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        volatile ItineraryJob.Status status = ItineraryJob.Status.QUEUED;
+        volatile Itinerary itinerary;
+        volatile String error;
+        volatile Instant completedAt;
+
+        Job(TripRequest request, Instant createdAt) {
+            this.request = request;
+            this.createdAt = createdAt;
+        }
+
+        ItineraryJob snapshot() {
+            ItineraryJob view = new ItineraryJob();
+            view.id = id;
+            view.status = status;
+            view.completedSections = new ArrayList<>(completedSections);
+            view.itinerary = itinerary;
+            view.error = error;
+            view.createdAt = createdAt;
+            view.completedAt = completedAt;
+            return view;
+        }
+    }
+
+    public ItineraryJobService(AgentCoordinator coordinator) {
+        this(coordinator, 8, 100, 600, 30);
+    }
+
+    @Autowired
+    public ItineraryJobService(AgentCoordinator coordinator,
+                               @Value("${itinerary.jobs.max-running:8}") int maxRunning,
+                               @Value("${itinerary.jobs.max-queued:100}") int maxQueued,
+                               @Value("${itinerary.jobs.result-ttl-seconds:600}") long resultTtlSeconds,
+                               @Value("${itinerary.jobs.max-wait-seconds:30}") long maxWaitSeconds) {
+        this(coordinator, maxRunning, maxQueued, Duration.ofSeconds(resultTtlSeconds), Duration.ofSeconds(maxWaitSeconds),
+                Clock.systemUTC());
+    }
+
+    ItineraryJobService(AgentCoordinator coordinator, int maxRunning, int maxQueued, Duration resultTtl,
+                        Duration maxWait, Clock clock) {
+        this.coordinator = coordinator;
+        this.maxRunning = Math.max(maxRunning, 1);
+        this.maxQueued = Math.max(maxQueued, 0);
+        this.resultTtl = resultTtl;
+        this.maxWait = maxWait;
+        this.clock = clock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "itinerary-jobs");
+            t.setDaemon(true);
+            return t;
+        });
+        long sweepMillis = evictionInterval(resultTtl).toMillis();
+        scheduler.scheduleWithFixedDelay(this::evictExpired, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the sweep and the hand-over of queued jobs; jobs already generating run to completion.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Accepts a job and returns its initial snapshot; it starts right away when a slot is free.
+     */
+    public ItineraryJob submit(TripRequest request) {
+        evictExpired();
+        Job job = new Job(request, clock.instant());
+        synchronized (this) {
+            if (running >= maxRunning && queue.size() >= maxQueued) {
+                throw new JobQueueFullException(
+                        "Itinerary job queue is full: " + running + " running, " + queue.size() + " queued");
+            }
+            jobs.put(job.id, job);
+            if (running < maxRunning) {
+                running++;
+            } else {
+                queue.addLast(job);
+                LOG.info("Queued itinerary job {} for trip: {} ({} waiting)", job.id, request.tripTitle, queue.size());
+                return job.snapshot();
+            }
+        }
+        start(job);
+        return job.snapshot();
+    }
+
+    public Optional<ItineraryJob> get(String id) {
+        evictExpired();
+        Job job = jobs.get(id);
+        return job == null ? Optional.empty() : Optional.of(job.snapshot());
+    }
+
+    /**
+     * Long-poll: completes with the job once it has finished or {@code wait} (capped at the
+     * configured maximum) has passed, whichever comes first, or empty when the job is unknown.
+     */
+    public CompletableFuture<Optional<ItineraryJob>> await(String id, Duration wait) {
+        evictExpired();
+        Job job = jobs.get(id);
+        if (job == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        Duration bounded = wait.compareTo(maxWait) > 0 ? maxWait : wait;
+        if (job.done.isDone() || bounded.isZero() || bounded.isNegative()) {
+            return CompletableFuture.completedFuture(Optional.of(job.snapshot()));
+        }
+        return job.done.thenApply(v -> true)
+                .completeOnTimeout(false, bounded.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(finished -> Optional.of(job.snapshot()));
+    }
+
+    /**
+     * The longest a long-poll is held.
+     */
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+
+    private void start(Job job) {
+        job.status = ItineraryJob.Status.RUNNING;
+        LOG.info("Starting itinerary job {} for trip: {}", job.id, job.request.tripTitle);
+        ItineraryListener listener = new ItineraryListener() {
+            @Override
+            public void onSection(String section, Object data) {
+                job.completedSections.add(section);
+            }
+        };
+
+        CompletableFuture<Itinerary> generation;
+        try {
+            generation = coordinator.generateItinerary(job.request, listener);
+        } catch (RuntimeException e) {
+            generation = CompletableFuture.failedFuture(e);
+        }
+        generation.whenComplete((itinerary, throwable) -> {
+            if (throwable != null) {
+                LOG.error("Itinerary job {} failed for trip: {}", job.id, job.request.tripTitle, throwable);
+                job.error = "Failed to generate itinerary";
+                job.completedAt = clock.instant();
+                job.status = ItineraryJob.Status.FAILED;
+            } else {
+                LOG.info("Itinerary job {} finished for trip: {}", job.id, job.request.tripTitle);
+                job.itinerary = itinerary;
+                job.completedAt = clock.instant();
+                job.status = ItineraryJob.Status.SUCCEEDED;
+            }
+            job.done.complete(null);
+            startNext();
+        });
+    }
+
+    private void startNext() {
+        Job next;
+        synchronized (this) {
+            next = queue.pollFirst();
+            if (next == null) {
+                running--;
+                return;
+            }
+        }
+        // The finished job's slot passes straight to the next one, which sets up its agents on our thread
+        try {
+            scheduler.execute(() -> start(next));
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Itinerary job {} not started: the service is shutting down", next.id);
+        }
+    }
+
+    int size() {
+        return jobs.size();
+    }
+
+    private void evictExpired() {
+        Instant cutoff = clock.instant().minus(resultTtl);
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(cutoff));
+    }
+
+    // Often enough that a finished job outlives its TTL by at most a tenth of it (and never by more than a minute)
+    private static Duration evictionInterval(Duration resultTtl) {
+        Duration interval = resultTtl.dividedBy(10);
+        if (interval.compareTo(MIN_EVICTION_INTERVAL) < 0) {
+            return MIN_EVICTION_INTERVAL;
+        }
+        return interval.compareTo(MAX_EVICTION_INTERVAL) > 0 ? MAX_EVICTION_INTERVAL : interval;
+    }
+}
@@ -0,0 +1,32 @@
+package com.agentictravel.services;
+
+import com.agentictravel.model.DayPlan;
+
+/**
+ * Receives itinerary sections as soon as each agent finishes, before the full itinerary is
+ * assembled. Callbacks run on whichever thread completed the agent call and must not block.
+ */
+public interface ItineraryListener {
+
+    ItineraryListener NONE = new ItineraryListener() {
+    };
+
+    /**
+     * A section arrived: flights, transport, hotels, weather (maps), events (list) or dayPlans.
+     */
+    default void onSection(String section, Object data) {
+    }
+
+    /**
+     * A section missed its deadline or failed; {@code note} is the entry added to notesParsingErrors.
+     */
+    default void onDegraded(String section, String note) {
+    }
+
+    /**
+     * One day of the plan has been generated, ahead of the complete dayPlans section. Provisional:
+     * if the planner's answer turns out to be unusable, dayPlans carries the fallback instead.
+     */
+    default void onDayPlan(DayPlan dayPlan) {
+    }
+}
@@ -1,33 +1,77 @@
 package com.agentictravel.services;
 
 import com.agentictravel.llm.LLMClient;
+import com.agentictravel.llm.PromptBudget;
+import com.agentictravel.llm.TokenCounter;
 import com.agentictravel.model.TripRequest;
 import com.agentictravel.model.DayPlan;
 import com.agentictravel.model.Activity;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.agentictravel.model.EventOption;
+import com.agentictravel.model.FlightOption;
+import com.agentictravel.model.HotelOption;
+import com.agentictravel.model.TransportOption;
+import com.agentictravel.model.WeatherForecast;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class ItineraryPlannerAgent {
+    private static final Logger LOG = LoggerFactory.getLogger(ItineraryPlannerAgent.class);
+    private static final String MODEL = "gpt-3.5-turbo";
+    private static final int OUTPUT_TOKENS_BASE = 300;
+    private static final int OUTPUT_TOKENS_PER_DAY = 400;
+
+    // Which resource sections keep the most room when the prompt has to be trimmed
+    private static final Map<String, Integer> SECTION_PRIORITY = Map.of(
+            "events", 5, "hotels", 4, "weather", 3, "flights", 2, "transport", 1);
+
     private final LLMClient llm;
-    private final ObjectMapper objectMapper;
+    private final PlannerContext context;
     
     public ItineraryPlannerAgent(LLMClient llm) {
+        this(llm, PlannerContext.DEFAULT_OPTIONS, PlannerContext.DEFAULT_EVENTS);
+    }
+
+    /**
+     * {@code contextOptions} flights, hotels and transport options of each mode, and
+     * {@code contextEvents} events, are passed on to the planner; the rest are left out of the prompt.
+     */
+    public ItineraryPlannerAgent(LLMClient llm, int contextOptions, int contextEvents) {
         this.llm = llm;
-        this.objectMapper = new ObjectMapper();
+        this.context = new PlannerContext(contextOptions, contextEvents);
     }
     
     public CompletableFuture<List<DayPlan>> createDayPlans(
             TripRequest request,
-            Map<String, Object> flights,
-            Map<String, Object> hotels,
-            Map<String, Object> transport,
-            List<Map<String, Object>> events,
-            Map<String, Object> weather) {
+            List<FlightOption> flights,
+            List<HotelOption> hotels,
+            Map<String, List<TransportOption>> transport,
+            List<EventOption> events,
+            WeatherForecast weather) {
+        return createDayPlans(request, flights, hotels, transport, events, weather, plan -> {
+        });
+    }
+
+    /**
+     * Like {@link #createDayPlans(TripRequest, List, List, Map, List, WeatherForecast)}, also handing each day
+     * to {@code onDayPlan} as soon as it has been generated.
+     */
+    public CompletableFuture<List<DayPlan>> createDayPlans(
+            TripRequest request,
+            List<FlightOption> flights,
+            List<HotelOption> hotels,
+            Map<String, List<TransportOption>> transport,
+            List<EventOption> events,
+            WeatherForecast weather,
+            Consumer<DayPlan> onDayPlan) {
         
         String schema = """
             {
@@ -53,7 +97,7 @@ public class ItineraryPlannerAgent {
             }
             """;
             
-        String prompt = String.format("""
+        String template = """
             You are an expert travel itinerary planner. Create a detailed day-by-day itinerary based on the following information:
             
             Trip Details:
@@ -84,7 +128,8 @@ public class ItineraryPlannerAgent {
             
             Return ONLY valid JSON matching this schema:
             %s
-            """,
+            """;
+        Object[] tripDetails = {
             request.tripTitle != null ? request.tripTitle : "Travel Trip",
             request.days,
             request.region != null ? request.region : "Unknown",
@@ -94,71 +139,69 @@ public class ItineraryPlannerAgent {
             request.special != null ? request.special.elderly : false,
             request.special != null ? request.special.differentlyAbled : false,
             request.weatherPreference != null ? request.weatherPreference : "Any",
-            request.notes != null ? request.notes : "None",
-            flights != null ? flights.toString() : "None",
-            hotels != null ? hotels.toString() : "None",
-            transport != null ? transport.toString() : "None",
-            events != null ? events.toString() : "None",
-            weather != null ? weather.toString() : "None",
+            request.notes != null ? request.notes : "None"
+        };
+
+        // Measure the fixed part, reserve room for the answer, and fit the resource sections in what is left
+        String fixed = formatDayPlanPrompt(template, tripDetails, "", "", "", "", "", request.days, schema);
+        TokenCounter.ModelLimits limits = TokenCounter.limitsFor(MODEL);
+        int reservedOutput = Math.min(limits.maxOutputTokens(), OUTPUT_TOKENS_BASE + request.days * OUTPUT_TOKENS_PER_DAY);
+        int sectionBudget = TokenCounter.safeBudget(limits.contextWindow() - reservedOutput) - TokenCounter.countPrompt(fixed);
+        PromptBudget.Result sections = new PromptBudget(sectionBudget)
+                .section("events", context.events(events), SECTION_PRIORITY.get("events"))
+                .section("hotels", context.hotels(hotels), SECTION_PRIORITY.get("hotels"))
+                .section("weather", context.weather(weather, request.days), SECTION_PRIORITY.get("weather"))
+                .section("flights", context.flights(flights), SECTION_PRIORITY.get("flights"))
+                .section("transport", context.transport(transport), SECTION_PRIORITY.get("transport"))
+                .fit();
+        if (!sections.trimmed().isEmpty()) {
+            LOG.info("Planner prompt trimmed to fit {} context: sections {} cut, {} of {} section tokens used",
+                    MODEL, sections.trimmed(), sections.totalTokens(), sectionBudget);
+        }
+
+        String prompt = formatDayPlanPrompt(template, tripDetails,
+            sections.get("flights"),
+            sections.get("hotels"),
+            sections.get("transport"),
+            sections.get("events"),
+            sections.get("weather"),
             request.days,
             schema
         );
+        LOG.info("Planner prompt for {} days: {} tokens, {} of them search results",
+                request.days, TokenCounter.countPrompt(prompt), sections.totalTokens());
         
-        return llm.prompt(prompt, "gpt-3.5-turbo").thenApply(response -> {
-            try {
-                JsonNode jsonNode = objectMapper.readTree(response);
-                List<DayPlan> dayPlans = new ArrayList<>();
-                
-                JsonNode dayPlansNode = jsonNode.path("dayPlans");
-                if (dayPlansNode.isArray()) {
-                    for (JsonNode dayNode : dayPlansNode) {
-                        DayPlan dayPlan = new DayPlan();
-                        dayPlan.dayNumber = dayNode.path("dayNumber").asInt();
-                        dayPlan.title = dayNode.path("title").asText();
-                        dayPlan.activities = new ArrayList<>();
-                        dayPlan.activitiesTyped = new ArrayList<>();
-                        
-                        JsonNode activitiesNode = dayNode.path("activities");
-                        if (activitiesNode.isArray()) {
-                            for (JsonNode activityNode : activitiesNode) {
-                                Map<String, Object> activityMap = new java.util.HashMap<>();
-                                activityMap.put("title", activityNode.path("title").asText());
-                                activityMap.put("time", activityNode.path("time").asText());
-                                activityMap.put("duration", activityNode.path("duration").asText());
-                                activityMap.put("location", activityNode.path("location").asText());
-                                activityMap.put("description", activityNode.path("description").asText());
-                                activityMap.put("category", activityNode.path("category").asText());
-                                activityMap.put("cost", activityNode.path("cost").asText());
-                                activityMap.put("bookingUrl", activityNode.path("bookingUrl").asText());
-                                
-                                dayPlan.activities.add(activityMap);
-                                
-                                // Create typed activity
-                                Activity activity = new Activity();
-                                activity.title = activityNode.path("title").asText();
-                                activity.time = activityNode.path("time").asText();
-                                activity.details = activityMap;
-                                dayPlan.activitiesTyped.add(activity);
-                            }
-                        }
-                        
-                        dayPlans.add(dayPlan);
-                    }
-                }
-                
-                return dayPlans;
-                
-            } catch (Exception e) {
-                // Fallback to mock day plans if JSON parsing fails
-                return createMockDayPlans(request.days);
-            }
-        });
+        // Fallback to mock day plans if JSON parsing fails
+        return planDays(prompt, onDayPlan, () -> createMockDayPlans(request.days));
+    }
+    
+    private static String formatDayPlanPrompt(String template, Object[] tripDetails, String flights, String hotels,
+                                              String transport, String events, String weather, int days, String schema) {
+        List<Object> args = new ArrayList<>(List.of(tripDetails));
+        args.addAll(List.of(flights, hotels, transport, events, weather, days, schema));
+        return String.format(template, args.toArray());
     }
     
     public CompletableFuture<List<DayPlan>> refineDayPlans(
             TripRequest request,
             List<DayPlan> previousDayPlans,
             String amendments) {
+        return refineDayPlans(request, previousDayPlans, amendments, Map.of(), plan -> {
+        });
+    }
+
+    /**
+     * Refines the previous plan; {@code updatedSections} holds the records of the searches that
+     * were run again for these amendments (flights, hotels, transport, events, weather), bound as
+     * by {@link SectionResult}, so the planner can work them in. Sections that did not change are left out of the prompt. Each refined
+     * day is handed to {@code onDayPlan} as soon as it has been generated.
+     */
+    public CompletableFuture<List<DayPlan>> refineDayPlans(
+            TripRequest request,
+            List<DayPlan> previousDayPlans,
+            String amendments,
+            Map<String, ?> updatedSections,
+            Consumer<DayPlan> onDayPlan) {
         
         String schema = """
             {
@@ -189,7 +232,7 @@ public class ItineraryPlannerAgent {
                 .reduce((a, b) -> a + "; " + b)
                 .orElse("No previous itinerary");
         
-        String prompt = String.format("""
+        String template = """
             You are an expert travel itinerary planner. Refine the following itinerary based on user feedback:
             
             Previous Itinerary:
@@ -197,7 +240,7 @@ public class ItineraryPlannerAgent {
             
             User Amendments/Feedback:
             %s
-            
+            %s
             Trip Details:
             - Title: %s
             - Duration: %d days
@@ -209,68 +252,108 @@ public class ItineraryPlannerAgent {
             
             Return ONLY valid JSON matching this schema:
             %s
-            """,
+            """;
+        Object[] args = {
             previousItinerarySummary,
             amendments != null ? amendments : "No specific feedback",
+            "",
             request.tripTitle != null ? request.tripTitle : "Travel Trip",
             request.days,
             request.region != null ? request.region : "Unknown",
             request.people,
             request.interests != null ? String.join(", ", request.interests) : "General",
             schema
-        );
+        };
+
+        if (updatedSections != null && !updatedSections.isEmpty()) {
+            TokenCounter.ModelLimits limits = TokenCounter.limitsFor(MODEL);
+            int reservedOutput = Math.min(limits.maxOutputTokens(), OUTPUT_TOKENS_BASE + request.days * OUTPUT_TOKENS_PER_DAY);
+            int sectionBudget = TokenCounter.safeBudget(limits.contextWindow() - reservedOutput)
+                    - TokenCounter.countPrompt(String.format(template, args));
+            PromptBudget budget = new PromptBudget(sectionBudget);
+            updatedSections.forEach((name, data) ->
+                    budget.section(name, context.section(name, data, request.days), SECTION_PRIORITY.getOrDefault(name, 0)));
+            PromptBudget.Result sections = budget.fit();
+
+            StringBuilder updated = new StringBuilder("\nUpdated Resources (searched again for these amendments):\n");
+            updatedSections.keySet().forEach(name ->
+                    updated.append("- ").append(name).append(": ").append(sections.get(name)).append('\n'));
+            args[2] = updated.toString();
+        }
+        String prompt = String.format(template, args);
+        LOG.info("Planner refinement prompt for {} days: {} tokens", request.days, TokenCounter.countPrompt(prompt));
         
-        return llm.prompt(prompt, "gpt-3.5-turbo").thenApply(response -> {
+        // Fallback to previous day plans if refinement fails
+        return planDays(prompt, onDayPlan, () -> previousDayPlans);
+    }
+    
+    /**
+     * Streams the answer through a {@link DayPlanDecoder} so days are decoded as they arrive
+     * rather than after the whole response. A failed call fails the future; an answer that does
+     * not decode yields {@code fallback}. Cancelling the future stops the stream.
+     */
+    private CompletableFuture<List<DayPlan>> planDays(String prompt, Consumer<DayPlan> onDayPlan,
+                                                      Supplier<List<DayPlan>> fallback) {
+        Consumer<DayPlan> emit = plan -> {
             try {
-                JsonNode jsonNode = objectMapper.readTree(response);
-                List<DayPlan> dayPlans = new ArrayList<>();
-                
-                JsonNode dayPlansNode = jsonNode.path("dayPlans");
-                if (dayPlansNode.isArray()) {
-                    for (JsonNode dayNode : dayPlansNode) {
-                        DayPlan dayPlan = new DayPlan();
-                        dayPlan.dayNumber = dayNode.path("dayNumber").asInt();
-                        dayPlan.title = dayNode.path("title").asText();
-                        dayPlan.activities = new ArrayList<>();
-                        dayPlan.activitiesTyped = new ArrayList<>();
-                        
-                        JsonNode activitiesNode = dayNode.path("activities");
-                        if (activitiesNode.isArray()) {
-                            for (JsonNode activityNode : activitiesNode) {
-                                Map<String, Object> activityMap = new java.util.HashMap<>();
-                                activityMap.put("title", activityNode.path("title").asText());
-                                activityMap.put("time", activityNode.path("time").asText());
-                                activityMap.put("duration", activityNode.path("duration").asText());
-                                activityMap.put("location", activityNode.path("location").asText());
-                                activityMap.put("description", activityNode.path("description").asText());
-                                activityMap.put("category", activityNode.path("category").asText());
-                                activityMap.put("cost", activityNode.path("cost").asText());
-                                activityMap.put("bookingUrl", activityNode.path("bookingUrl").asText());
-                                
-                                dayPlan.activities.add(activityMap);
-                                
-                                // Create typed activity
-                                Activity activity = new Activity();
-                                activity.title = activityNode.path("title").asText();
-                                activity.time = activityNode.path("time").asText();
-                                activity.details = activityMap;
-                                dayPlan.activitiesTyped.add(activity);
-                            }
+                onDayPlan.accept(plan);
+            } catch (RuntimeException e) {
+                // A failing listener (e.g. a client that went away) must not fail the plan
+                LOG.debug("Day plan listener failed for day {}: {}", plan.dayNumber, e.getMessage());
+            }
+        };
+        List<DayPlan> emitted = new ArrayList<>();
+        DayPlanDecoder decoder = new DayPlanDecoder(plan -> {
+            emitted.add(plan);
+            emit.accept(plan);
+        });
+        // Kept for repairing an answer the decoder gives up on
+        StringBuilder answer = new StringBuilder();
+        CompletableFuture<List<DayPlan>> result = new CompletableFuture<>();
+        Disposable subscription = llm.stream(prompt, MODEL).subscribe(
+                chunk -> {
+                    answer.append(chunk);
+                    decoder.feed(chunk);
+                },
+                result::completeExceptionally,
+                () -> {
+                    try {
+                        result.complete(decoder.finish());
+                    } catch (IOException e) {
+                        LOG.debug("Planner answer did not decode: {}", e.getMessage());
+                        List<DayPlan> repaired = repairDayPlans(answer.toString());
+                        if (repaired == null) {
+                            result.complete(fallback.get());
+                            return;
                         }
-                        
-                        dayPlans.add(dayPlan);
+                        // Days decoded before the answer broke off were emitted already
+                        repaired.stream().skip(emitted.size()).forEach(emit);
+                        result.complete(repaired);
                     }
-                }
-                
-                return dayPlans;
-                
-            } catch (Exception e) {
-                // Fallback to previous day plans if refinement fails
-                return previousDayPlans;
+                });
+        result.whenComplete((plans, error) -> {
+            if (result.isCancelled()) {
+                subscription.dispose();
             }
         });
+        return result;
     }
-    
+
+    // The day plans in a malformed answer, or null when repair recovers none
+    private static List<DayPlan> repairDayPlans(String answer) {
+        JsonRepair.Result repaired = JsonRepair.repair(answer);
+        if (repaired == null) {
+            return null;
+        }
+        try {
+            List<DayPlan> plans = DayPlanDecoder.decode(repaired.json());
+            return plans.isEmpty() ? null : new JsonRepair.RepairedList<>(plans, repaired.fixes());
+        } catch (IOException e) {
+            LOG.debug("Repaired planner answer did not decode either: {}", e.getMessage());
+            return null;
+        }
+    }
+
     private List<DayPlan> createMockDayPlans(int days) {
         List<DayPlan> mockPlans = new ArrayList<>();
         
@@ -0,0 +1,13 @@
+package com.agentictravel.services;
+
+/**
+ * Raised when an itinerary job is submitted while the job queue is at capacity.
+ */
+public class JobQueueFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public JobQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,233 @@
+package com.agentictravel.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Recovers the JSON object in an LLM answer that is almost right, so the agents keep the answer
+ * they paid for instead of substituting mock data. Handles prose or a code fence around the
+ * object, trailing commas, and a truncated tail: the incomplete last value is dropped and the
+ * structures still open are closed, keeping the longest prefix that parses.
+ * <p>
+ * Repair only runs after strict parsing has failed. A repaired result is a {@link Repaired}
+ * map or list listing what was fixed; the coordinator copies that into notesParsingErrors.
+ */
+final class JsonRepair {
+
+    private static final Pattern SCALAR = Pattern.compile("true|false|null|-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?");
+
+    /**
+     * An agent result recovered from a malformed answer.
+     */
+    interface Repaired {
+        List<String> repairs();
+    }
+
+    static final class RepairedMap extends LinkedHashMap<String, Object> implements Repaired {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> repairs;
+
+        RepairedMap(Map<String, Object> map, List<String> repairs) {
+            super(map);
+            this.repairs = List.copyOf(repairs);
+        }
+
+        @Override
+        public List<String> repairs() {
+            return repairs;
+        }
+    }
+
+    static final class RepairedList<T> extends ArrayList<T> implements Repaired {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> repairs;
+
+        RepairedList(Collection<T> items, List<String> repairs) {
+            super(items);
+            this.repairs = List.copyOf(repairs);
+        }
+
+        @Override
+        public List<String> repairs() {
+            return repairs;
+        }
+    }
+
+    /**
+     * The repaired text and what was done to it.
+     */
+    record Result(String json, List<String> fixes) {
+    }
+
+    private JsonRepair() {
+    }
+
+    /**
+     * Parses a JSON object answer, repairing it when it does not parse as it is. Throws the
+     * original error when there is nothing to recover.
+     */
+    static Map<String, Object> readMap(String text) throws IOException {
+        try {
+            return AgentJson.readMap(text);
+        } catch (JsonProcessingException e) {
+            Result repaired = repair(text);
+            if (repaired == null) {
+                throw e;
+            }
+            Map<String, Object> map;
+            try {
+                map = AgentJson.readMap(repaired.json());
+            } catch (JsonProcessingException stillBroken) {
+                e.addSuppressed(stillBroken);
+                throw e;
+            }
+            return new RepairedMap(map, repaired.fixes());
+        }
+    }
+
+    /**
+     * Repairs the first JSON object in {@code text}; null when there is none or nothing to fix.
+     */
+    static Result repair(String text) {
+        int start = text == null ? -1 : text.indexOf('{');
+        if (start < 0) {
+            return null;
+        }
+        List<String> fixes = new ArrayList<>();
+        if (!text.substring(0, start).isBlank()) {
+            fixes.add(text.substring(0, start).contains("```") ? "removed code fence" : "skipped text before the JSON");
+        }
+
+        StringBuilder out = new StringBuilder(text.length() - start + 8);
+        // Closers of the structures open, innermost last
+        StringBuilder open = new StringBuilder();
+        // Longest output, and its open depth, that a closing of the open structures makes valid
+        int safeLength = 0;
+        int safeDepth = 0;
+        boolean inString = false;
+        boolean stringIsKey = false;
+        boolean escaped = false;
+        int unicodeStart = -1;
+        int unicodeLeft = 0;
+        int scalarStart = -1;
+        int pendingComma = -1;
+        boolean trailingComma = false;
+        char lastSignificant = 0;
+        int end = text.length();
+
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                out.append(c);
+                if (unicodeLeft > 0) {
+                    unicodeLeft--;
+                } else if (escaped) {
+                    escaped = false;
+                    if (c == 'u') {
+                        unicodeStart = out.length() - 2;
+                        unicodeLeft = 4;
+                    }
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                    lastSignificant = c;
+                    if (!stringIsKey) {
+                        safeLength = out.length();
+                        safeDepth = open.length();
+                    }
+                }
+                continue;
+            }
+            boolean structural = c == '{' || c == '[' || c == '}' || c == ']' || c == ',' || c == ':' || c == '"';
+            if (scalarStart >= 0 && (structural || Character.isWhitespace(c))) {
+                scalarStart = -1;
+                safeLength = out.length();
+                safeDepth = open.length();
+            }
+            if (Character.isWhitespace(c)) {
+                out.append(c);
+                continue;
+            }
+            if (c == '}' || c == ']') {
+                if (pendingComma >= 0) {
+                    out.deleteCharAt(pendingComma);
+                    trailingComma = true;
+                }
+                if (open.length() > 0 && open.charAt(open.length() - 1) == c) {
+                    open.setLength(open.length() - 1);
+                }
+                out.append(c);
+                pendingComma = -1;
+                lastSignificant = c;
+                safeLength = out.length();
+                safeDepth = open.length();
+                if (open.length() == 0) {
+                    end = i + 1;
+                    break;
+                }
+                continue;
+            }
+            pendingComma = c == ',' ? out.length() : -1;
+            if (c == '"') {
+                inString = true;
+                stringIsKey = open.length() > 0 && open.charAt(open.length() - 1) == '}'
+                        && (lastSignificant == '{' || lastSignificant == ',');
+            } else if (c == '{' || c == '[') {
+                open.append(c == '{' ? '}' : ']');
+            } else if (!structural && scalarStart < 0) {
+                scalarStart = out.length();
+            }
+            out.append(c);
+            lastSignificant = c;
+            if (c == '{' || c == '[') {
+                safeLength = out.length();
+                safeDepth = open.length();
+            }
+        }
+
+        if (trailingComma) {
+            fixes.add("removed trailing comma");
+        }
+        if (open.length() == 0) {
+            String rest = text.substring(end);
+            String fix = rest.contains("```") ? "removed code fence" : "ignored text after the JSON";
+            if (!rest.isBlank() && !fixes.contains(fix)) {
+                fixes.add(fix);
+            }
+        } else {
+            // Truncated: keep a value string or scalar that was cut short if it still reads as one
+            if (inString && !stringIsKey) {
+                if (unicodeLeft > 0) {
+                    out.setLength(unicodeStart);
+                } else if (escaped) {
+                    out.setLength(out.length() - 1);
+                }
+                out.append('"');
+                safeLength = out.length();
+                safeDepth = open.length();
+            } else if (!inString && scalarStart >= 0 && SCALAR.matcher(out.substring(scalarStart)).matches()) {
+                safeLength = out.length();
+                safeDepth = open.length();
+            }
+            boolean droppedTail = !out.substring(safeLength).isBlank();
+            out.setLength(safeLength);
+            int closed = safeDepth;
+            for (int d = safeDepth - 1; d >= 0; d--) {
+                out.append(open.charAt(d));
+            }
+            fixes.add("closed " + closed + " unterminated " + (closed == 1 ? "structure" : "structures")
+                    + " of a truncated answer" + (droppedTail ? ", dropping its incomplete last value" : ""));
+        }
+        return fixes.isEmpty() ? null : new Result(out.toString(), fixes);
+    }
+}
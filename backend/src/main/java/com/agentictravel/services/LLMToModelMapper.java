@@ -2,15 +2,23 @@ package com.agentictravel.services;
 
 import com.agentictravel.model.Booking;
 import com.agentictravel.model.DayPlan;
-import com.agentictravel.model.Itinerary;
-import com.agentictravel.model.TripRequest;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.agentictravel.model.EventOption;
+import com.agentictravel.model.FlightBooking;
+import com.agentictravel.model.FlightOption;
+import com.agentictravel.model.HotelBooking;
+import com.agentictravel.model.HotelOption;
+import com.agentictravel.model.TransportBooking;
+import com.agentictravel.model.TransportOption;
+import com.agentictravel.model.WeatherForecast;
+import com.fasterxml.jackson.databind.JavaType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,25 +27,144 @@ public class LLMToModelMapper {
 
     private static final Logger LOG = LoggerFactory.getLogger(LLMToModelMapper.class);
 
-    public static Booking mapToBooking(Map<String, Object> flightsRaw, Map<String, Object> transportRaw, Map<String, Object> hotelsRaw) {
+    static final String NOTES_PARSED = "notes_parsed";
+
+    // Where each agent puts its options, best first: the schema's lists, then the mock fallbacks' shape
+    static final List<String> FLIGHT_OPTION_LISTS = List.of("options", "recommended", "alternatives");
+    static final List<String> HOTEL_OPTION_LISTS = FLIGHT_OPTION_LISTS;
+    static final List<String> TRANSPORT_OPTION_LISTS = List.of("carRental", "trainOptions", "busOptions", "recommended");
+
+    /**
+     * The booking the client is sent: each section's answer as it came, plus its records and the
+     * headline (first) option of each, typed. The records are the ones bound when the answers
+     * arrived; nothing is bound again here. A missing section is empty.
+     */
+    static Booking mapToBooking(SectionResult<List<FlightOption>> flights,
+                                SectionResult<Map<String, List<TransportOption>>> transport,
+                                SectionResult<List<HotelOption>> hotels) {
         Booking b = new Booking();
-        b.flights = safeCopyMap(flightsRaw);
-        b.transport = safeCopyMap(transportRaw);
-        b.hotels = safeCopyMap(hotelsRaw);
+        b.flights = orEmpty(SectionResult.raw(flights));
+        b.transport = orEmpty(SectionResult.raw(transport));
+        b.hotels = orEmpty(SectionResult.raw(hotels));
+        b.flightOptions = flights != null ? flights.records() : List.of();
+        b.transportOptions = transport != null ? transport.records() : Map.of();
+        b.hotelOptions = hotels != null ? hotels.records() : List.of();
+
+        if (!b.flightOptions.isEmpty()) {
+            FlightOption flight = b.flightOptions.get(0);
+            b.flightsTyped = new FlightBooking();
+            b.flightsTyped.carrier = flight.carrier();
+            b.flightsTyped.price = flight.price();
+            b.flightsTyped.notes = parsedNotes(flight.notes());
+        }
+        if (!b.hotelOptions.isEmpty()) {
+            HotelOption hotel = b.hotelOptions.get(0);
+            b.hotelsTyped = new HotelBooking();
+            b.hotelsTyped.name = hotel.name();
+            b.hotelsTyped.price = firstNonNull(hotel.totalPrice(), hotel.pricePerNight());
+            b.hotelsTyped.notes = parsedNotes(hotel.notes());
+        }
+        TransportOption transportOption = b.transportOptions.values().stream()
+                .flatMap(List::stream).findFirst().orElse(null);
+        if (transportOption != null) {
+            b.transportTyped = new TransportBooking();
+            b.transportTyped.provider = transportOption.provider();
+            b.transportTyped.price = firstNonNull(transportOption.price(), transportOption.totalPrice(),
+                    transportOption.pricePerDay());
+            b.transportTyped.notes = parsedNotes(transportOption.notes());
+        }
         return b;
     }
 
-    public static List<Map<String, Object>> mapToEvents(List<Map<String, Object>> eventsRaw) {
-        if (eventsRaw == null) return List.of();
-        List<Map<String, Object>> out = new ArrayList<>();
-        for (Map<String, Object> e : eventsRaw) {
-            out.add(safeCopyMap(e));
+    /**
+     * Transport options by mode, in {@link #TRANSPORT_OPTION_LISTS} order: car rentals first,
+     * whatever order the agent wrote them in. Modes with no options are left out.
+     */
+    static Map<String, List<TransportOption>> bindTransportOptions(Map<String, Object> transport) {
+        Map<String, List<TransportOption>> out = new LinkedHashMap<>();
+        if (transport == null) return out;
+        for (String key : TRANSPORT_OPTION_LISTS) {
+            List<TransportOption> options = bindOptions(transport, List.of(key), AgentJson.TRANSPORT_OPTIONS);
+            if (!options.isEmpty()) out.put(key, options);
+        }
+        return out;
+    }
+
+    /**
+     * Typed events; an event the agent got badly wrong is left out rather than failing the rest.
+     */
+    public static List<EventOption> mapToEventOptions(List<Map<String, Object>> events) {
+        List<EventOption> out = new ArrayList<>();
+        if (events == null) return out;
+        for (Object e : events) {
+            if (!(e instanceof Map)) continue;
+            try {
+                out.add(AgentJson.bind(e, AgentJson.EVENT));
+            } catch (IllegalArgumentException ex) {
+                LOG.debug("Skipping event that does not bind: {}", ex.getMessage());
+            }
+        }
+        return out;
+    }
+
+    public static WeatherForecast mapToWeatherForecast(Map<String, Object> weather) {
+        if (weather == null || weather.isEmpty()) return null;
+        try {
+            return AgentJson.bind(weather, AgentJson.WEATHER);
+        } catch (IllegalArgumentException e) {
+            LOG.debug("Weather does not bind to a forecast: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Binds the entries under {@code keys} (each a list of options or a single option) to
+     * {@code listType}. A list that does not bind is skipped; the raw map still has it.
+     */
+    static <T> List<T> bindOptions(Map<String, Object> section, List<String> keys, JavaType listType) {
+        List<T> out = new ArrayList<>();
+        for (String key : keys) {
+            Object value = section.get(key);
+            if (!(value instanceof List) && !(value instanceof Map)) continue;
+            try {
+                List<T> bound = AgentJson.bind(value, listType);
+                for (T option : bound) {
+                    if (option != null) out.add(option);
+                }
+            } catch (IllegalArgumentException e) {
+                LOG.debug("Options under {} do not bind: {}", key, e.getMessage());
+            }
         }
         return out;
     }
 
+    // An option's notes when they hold a JSON object, written inline or as a string
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parsedNotes(Object notes) {
+        Object parsed = notes;
+        if (notes instanceof String str && looksLikeJson(str)) {
+            try {
+                parsed = AgentJson.ANY.readValue(str);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return parsed instanceof Map ? (Map<String, Object>) parsed : null;
+    }
+
+    private static String firstNonNull(String... values) {
+        for (String v : values) {
+            if (v != null) return v;
+        }
+        return null;
+    }
+
+    public static List<Map<String, Object>> mapToEvents(List<Map<String, Object>> eventsRaw) {
+        return eventsRaw == null ? List.of() : eventsRaw;
+    }
+
     public static Map<String, Object> mapToWeather(Map<String, Object> weatherRaw) {
-        return safeCopyMap(weatherRaw);
+        return orEmpty(weatherRaw);
     }
 
     public static List<DayPlan> mapToDayPlans(Object dayPlansObj) {
@@ -64,43 +191,60 @@ public class LLMToModelMapper {
         }
     }
 
-    private static Map<String, Object> safeCopyMap(Map<String, Object> m) {
-        if (m == null) return java.util.Map.of();
-        java.util.Map<String,Object> out = new java.util.HashMap<>(m);
-        // Recursively process nested maps/lists to parse any 'notes' strings into notes_parsed
-        processNestedForNotes(out);
-        return out;
+    private static Map<String, Object> orEmpty(Map<String, Object> m) {
+        return m == null ? Map.of() : m;
     }
 
+    /**
+     * Walks the maps and lists under {@code root} once, without recursion, and gives every map
+     * whose "notes" string is valid JSON a lazily parsed notes_parsed next to it; other notes get
+     * none. Maps are updated in place, so this runs as an answer is bound, before it is published:
+     * agent results are parsed fresh for each itinerary and owned by it, and once sent they are
+     * only read. Read-only maps (the agents' mock fallbacks) are left as they are.
+     */
     @SuppressWarnings("unchecked")
-    private static void processNestedForNotes(java.util.Map<String,Object> map) {
-        ObjectMapper om = new ObjectMapper();
-        for (java.util.Map.Entry<String,Object> e : new java.util.ArrayList<>(map.entrySet())) {
-            String key = e.getKey();
-            Object val = e.getValue();
-            if (val instanceof java.util.Map) {
-                processNestedForNotes((java.util.Map<String,Object>) val);
-            } else if (val instanceof java.util.List) {
-                java.util.List<?> lst = (java.util.List<?>) val;
-                for (Object item : lst) {
-                    if (item instanceof java.util.Map) {
-                        processNestedForNotes((java.util.Map<String,Object>) item);
-                    }
+    static void attachParsedNotes(Object root) {
+        if (root == null) return;
+        ArrayDeque<Object> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Object node = pending.pop();
+            if (node instanceof List<?> list) {
+                for (Object item : list) {
+                    if (item instanceof Map || item instanceof List) pending.push(item);
+                }
+                continue;
+            }
+            Map<String, Object> map = (Map<String, Object>) node;
+            String notes = null;
+            for (Map.Entry<String, Object> e : map.entrySet()) {
+                Object val = e.getValue();
+                if (val instanceof Map || val instanceof List) {
+                    pending.push(val);
+                } else if (val instanceof String str && "notes".equalsIgnoreCase(e.getKey()) && looksLikeJson(str)) {
+                    notes = str;
                 }
-            } else if ("notes".equalsIgnoreCase(key) && val instanceof String) {
-                String s = ((String) val).trim();
-                if (s.startsWith("{") || s.startsWith("[")) {
-                    try {
-                        Object parsed = om.readValue(s, Object.class);
-                        map.put("notes_parsed", parsed);
-                    } catch (Exception ex) {
-                        LOG.debug("notes field not valid JSON: {}", ex.getMessage());
-                    }
+            }
+            // Added after the loop: putting while iterating would invalidate the iterator
+            LazyJson parsed = notes != null && !map.containsKey(NOTES_PARSED) ? LazyJson.of(notes) : null;
+            if (parsed != null) {
+                try {
+                    map.put(NOTES_PARSED, parsed);
+                } catch (UnsupportedOperationException e) {
+                    LOG.debug("Leaving notes of a read-only map unparsed");
                 }
             }
         }
     }
 
+    private static boolean looksLikeJson(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!Character.isWhitespace(c)) return c == '{' || c == '[';
+        }
+        return false;
+    }
+
     private static String safeGetString(Map<String, Object> m, String key) {
         if (m == null) return null;
         Object v = m.get(key);
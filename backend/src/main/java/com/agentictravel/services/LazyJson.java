@@ -0,0 +1,69 @@
+package com.agentictravel.services;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.JsonParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * JSON text that is parsed the first time it is needed, normally when the itinerary holding it
+ * is serialized, and serializes as the parsed value. {@link #of} only makes one for text that
+ * is valid JSON, so there is never a null to serialize in its place. Parsing happens at most
+ * once; concurrent first reads may both parse, with the same result.
+ */
+public final class LazyJson {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LazyJson.class);
+
+    private static final Object INVALID = new Object();
+
+    private final String text;
+    private volatile Object value;
+
+    private LazyJson(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Lazy JSON for {@code text}, or null when it is not valid JSON. The check streams through
+     * the tokens and builds nothing; the maps and lists are built when the value is first read.
+     */
+    static LazyJson of(String text) {
+        try (JsonParser parser = AgentJson.MAPPER.getFactory().createParser(text)) {
+            if (parser.nextToken() == null) {
+                return null;
+            }
+            parser.skipChildren();
+            return new LazyJson(text);
+        } catch (IOException e) {
+            LOG.debug("notes field not valid JSON: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @JsonValue
+    public Object value() {
+        Object v = value;
+        if (v == null) {
+            try {
+                v = AgentJson.ANY.readValue(text);
+            } catch (Exception e) {
+                LOG.debug("notes field not valid JSON: {}", e.getMessage());
+                v = INVALID;
+            }
+            value = v == null ? INVALID : v;
+        }
+        return v == INVALID ? null : v;
+    }
+
+    public String text() {
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,167 @@
+package com.agentictravel.services;
+
+import com.agentictravel.model.EventOption;
+import com.agentictravel.model.FlightOption;
+import com.agentictravel.model.HotelOption;
+import com.agentictravel.model.TransportOption;
+import com.agentictravel.model.WeatherForecast;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes search results into the planner prompt in as few tokens as will do: only the fields
+ * the planner plans with, the first few options of each kind (agents list the best first), one
+ * line per option with its fields separated by " | ". Pros and cons, booking URLs, notes and
+ * summaries are left out. A section with nothing usable in it reads "None".
+ */
+final class PlannerContext {
+
+    static final int DEFAULT_OPTIONS = 3;
+    static final int DEFAULT_EVENTS = 8;
+
+    private static final String NONE = "None";
+    private static final Map<String, String> TRANSPORT_MODES = Map.of(
+            "carRental", "car", "trainOptions", "train", "busOptions", "bus", "recommended", "");
+
+    private final int maxOptions;
+    private final int maxEvents;
+
+    PlannerContext(int maxOptions, int maxEvents) {
+        this.maxOptions = Math.max(1, maxOptions);
+        this.maxEvents = Math.max(1, maxEvents);
+    }
+
+    /**
+     * The records of the named section (flights, hotels, transport, events or weather), as
+     * bound by {@link SectionResult}, as prompt text.
+     */
+    @SuppressWarnings("unchecked")
+    String section(String name, Object records, int days) {
+        return switch (name) {
+            case "flights" -> records instanceof List<?> list ? flights((List<FlightOption>) list) : NONE;
+            case "hotels" -> records instanceof List<?> list ? hotels((List<HotelOption>) list) : NONE;
+            case "transport" -> records instanceof Map<?, ?> map
+                    ? transport((Map<String, List<TransportOption>>) map) : NONE;
+            case "events" -> records instanceof List<?> list ? events((List<EventOption>) list) : NONE;
+            case "weather" -> records instanceof WeatherForecast forecast ? weather(forecast, days) : NONE;
+            default -> NONE;
+        };
+    }
+
+    String flights(List<FlightOption> flights) {
+        Lines lines = new Lines();
+        for (FlightOption f : first(flights, maxOptions)) {
+            lines.add(f.carrier(), f.price(), pair(f.departureTime(), " to ", f.arrivalTime()), f.duration(),
+                    suffix(f.stops(), " stops"));
+        }
+        return lines.toString();
+    }
+
+    String hotels(List<HotelOption> hotels) {
+        Lines lines = new Lines();
+        for (HotelOption h : first(hotels, maxOptions)) {
+            lines.add(h.name(), suffix(h.pricePerNight(), "/night"), suffix(h.totalPrice(), " total"), h.location(),
+                    prefix("rating ", h.rating()));
+        }
+        return lines.toString();
+    }
+
+    /**
+     * Each mode is a kind of option of its own: the first few cars, trains and buses.
+     */
+    String transport(Map<String, List<TransportOption>> transport) {
+        Lines lines = new Lines();
+        if (transport != null) {
+            transport.forEach((key, options) -> {
+                String mode = TRANSPORT_MODES.getOrDefault(key, "");
+                for (TransportOption t : first(options, maxOptions)) {
+                    lines.add(mode.isEmpty() ? t.provider() : mode + " " + t.provider(), t.carType(),
+                            suffix(t.pricePerDay(), "/day"), suffix(t.totalPrice(), " total"), t.price(), t.duration(),
+                            t.route());
+                }
+            });
+        }
+        return lines.toString();
+    }
+
+    String events(List<EventOption> events) {
+        Lines lines = new Lines();
+        for (EventOption e : first(events, maxEvents)) {
+            lines.add(pair(e.date(), " ", e.time()), e.name(), e.location(), e.category(), e.price(), e.duration());
+        }
+        return lines.toString();
+    }
+
+    String weather(WeatherForecast forecast, int days) {
+        Lines lines = new Lines();
+        if (forecast == null) {
+            return lines.toString();
+        }
+        lines.add(forecast.forecastSummary());
+        if (forecast.dailyForecast() != null) {
+            for (WeatherForecast.Day d : first(forecast.dailyForecast(), Math.max(days, 1))) {
+                if (d != null) {
+                    lines.add(d.date(), pair(d.high(), "/", d.low()), d.condition(),
+                            prefix("rain ", d.precipitation()));
+                }
+            }
+        }
+        if (forecast.activityRecommendations() != null && !forecast.activityRecommendations().isEmpty()) {
+            lines.add("suits " + String.join(", ", forecast.activityRecommendations()));
+        }
+        return lines.toString();
+    }
+
+    // Null reads as no items
+    private static <T> List<T> first(List<T> items, int n) {
+        if (items == null) {
+            return List.of();
+        }
+        return items.size() <= n ? items : items.subList(0, n);
+    }
+
+    private static String pair(String a, String separator, String b) {
+        return blank(a) ? b : blank(b) ? a : a + separator + b;
+    }
+
+    private static String prefix(String prefix, String value) {
+        return blank(value) ? null : prefix + value;
+    }
+
+    private static String suffix(String value, String suffix) {
+        return blank(value) ? null : value + suffix;
+    }
+
+    private static boolean blank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    /**
+     * One line per option, skipping empty fields and options with nothing left.
+     */
+    private static final class Lines {
+        private final List<String> lines = new ArrayList<>();
+
+        void add(String... fields) {
+            StringBuilder line = new StringBuilder();
+            for (String field : fields) {
+                if (!blank(field)) {
+                    if (line.length() > 0) {
+                        line.append(" | ");
+                    }
+                    line.append(field.strip());
+                }
+            }
+            if (line.length() > 0) {
+                lines.add(line.toString());
+            }
+        }
+
+        @Override
+        public String toString() {
+            return lines.isEmpty() ? NONE : "\n  " + String.join("\n  ", lines);
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package com.agentictravel.services;
 
+import com.agentictravel.llm.Futures;
 import com.agentictravel.llm.LLMClient;
 import com.agentictravel.model.TripRequest;
 import com.agentictravel.model.ClarifyingQuestion;
 import com.agentictravel.model.QuestionResponse;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import java.util.List;
@@ -14,11 +14,9 @@ import java.util.concurrent.CompletableFuture;
 
 public class QuestionAgent {
     private final LLMClient llm;
-    private final ObjectMapper objectMapper;
     
     public QuestionAgent(LLMClient llm) {
         this.llm = llm;
-        this.objectMapper = new ObjectMapper();
     }
     
     public CompletableFuture<QuestionResponse> generateQuestions(TripRequest request) {
@@ -75,9 +73,9 @@ public class QuestionAgent {
             schema
         );
         
-        return llm.prompt(prompt, "gpt-3.5-turbo").thenApply(response -> {
+        return Futures.map(llm.prompt(prompt, "gpt-3.5-turbo"), response -> {
             try {
-                JsonNode jsonNode = objectMapper.readTree(response);
+                JsonNode jsonNode = AgentJson.TREE.readTree(response);
                 List<ClarifyingQuestion> questions = new ArrayList<>();
                 
                 JsonNode questionsNode = jsonNode.path("questions");
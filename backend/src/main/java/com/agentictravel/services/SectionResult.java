@@ -0,0 +1,81 @@
+package com.agentictravel.services;
+
+import com.agentictravel.model.EventOption;
+import com.agentictravel.model.FlightOption;
+import com.agentictravel.model.HotelOption;
+import com.agentictravel.model.TransportOption;
+import com.agentictravel.model.WeatherForecast;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One search section's answer twice over: {@code raw} as the agent wrote it, which is what
+ * clients are sent, and {@code records} bound from it, which the planner prompt and the typed
+ * bookings are built from. The coordinator binds each answer once, as it arrives and before
+ * it is published; binding also gives the raw answer its notes_parsed, so nothing changes it
+ * once a client may be serializing it.
+ */
+record SectionResult<T>(Object raw, T records) {
+
+    static SectionResult<List<FlightOption>> flights(Map<String, Object> raw) {
+        LLMToModelMapper.attachParsedNotes(raw);
+        return new SectionResult<>(raw, raw == null ? List.of() : LLMToModelMapper.bindOptions(raw,
+                LLMToModelMapper.FLIGHT_OPTION_LISTS, AgentJson.FLIGHT_OPTIONS));
+    }
+
+    static SectionResult<List<HotelOption>> hotels(Map<String, Object> raw) {
+        LLMToModelMapper.attachParsedNotes(raw);
+        return new SectionResult<>(raw, raw == null ? List.of() : LLMToModelMapper.bindOptions(raw,
+                LLMToModelMapper.HOTEL_OPTION_LISTS, AgentJson.HOTEL_OPTIONS));
+    }
+
+    static SectionResult<Map<String, List<TransportOption>>> transport(Map<String, Object> raw) {
+        LLMToModelMapper.attachParsedNotes(raw);
+        return new SectionResult<>(raw, LLMToModelMapper.bindTransportOptions(raw));
+    }
+
+    static SectionResult<List<EventOption>> events(List<Map<String, Object>> raw) {
+        LLMToModelMapper.attachParsedNotes(raw);
+        return new SectionResult<>(raw, LLMToModelMapper.mapToEventOptions(raw));
+    }
+
+    static SectionResult<WeatherForecast> weather(Map<String, Object> raw) {
+        LLMToModelMapper.attachParsedNotes(raw);
+        return new SectionResult<>(raw, LLMToModelMapper.mapToWeatherForecast(raw));
+    }
+
+    /**
+     * Binds the answer of the named section (flights, hotels, transport, events or weather).
+     * An answer of the wrong shape binds to no records.
+     */
+    @SuppressWarnings("unchecked")
+    static SectionResult<?> bind(String section, Object raw) {
+        Map<String, Object> map = raw instanceof Map ? (Map<String, Object>) raw : null;
+        SectionResult<?> bound = switch (section) {
+            case "flights" -> flights(map);
+            case "hotels" -> hotels(map);
+            case "transport" -> transport(map);
+            case "events" -> events(raw instanceof List ? (List<Map<String, Object>>) raw : null);
+            case "weather" -> weather(map);
+            default -> throw new IllegalArgumentException("Not a search section: " + section);
+        };
+        // Keep the answer itself even when it bound to nothing: it is what the client is sent
+        return new SectionResult<>(raw, bound.records());
+    }
+
+    /**
+     * The records of {@code section}, or null when the section has no result.
+     */
+    static <T> T records(SectionResult<T> section) {
+        return section != null ? section.records() : null;
+    }
+
+    /**
+     * The answer of {@code section} as the type its agent returns, or null when there is none.
+     */
+    @SuppressWarnings("unchecked")
+    static <R> R raw(SectionResult<?> section) {
+        return section != null ? (R) section.raw() : null;
+    }
+}
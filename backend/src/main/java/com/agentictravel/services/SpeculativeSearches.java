@@ -0,0 +1,127 @@
+package com.agentictravel.services;
+
+import com.agentictravel.llm.Futures;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Searches started ahead of need while the user answers the clarifying questions, so the
+ * itinerary request that follows finds them done or under way. Each search is keyed by its
+ * agent and a fingerprint of the request: the agent's own prompt, so a speculative result is
+ * only used when the answers left every field that search depends on unchanged. A result is
+ * used once; unused ones are dropped (and cancelled if still running) after {@code ttl}.
+ */
+public class SpeculativeSearches {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpeculativeSearches.class);
+
+    private final Duration ttl;
+    private final int maxEntries;
+    private final LongSupplier ticker;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    private record Entry(CompletableFuture<?> result, long startedAt) {
+    }
+
+    public SpeculativeSearches(Duration ttl, int maxEntries, MeterRegistry meterRegistry) {
+        this(ttl, maxEntries, meterRegistry, System::nanoTime);
+    }
+
+    SpeculativeSearches(Duration ttl, int maxEntries, MeterRegistry meterRegistry, LongSupplier ticker) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.meterRegistry = meterRegistry;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Starts {@code search} in the background unless the same search is already waiting.
+     */
+    public void start(String agent, String fingerprint, Supplier<? extends CompletableFuture<?>> search) {
+        String key = agent + '\n' + fingerprint;
+        CompletableFuture<Object> slot = new CompletableFuture<>();
+        synchronized (this) {
+            evictExpired();
+            if (entries.containsKey(key) || entries.size() >= maxEntries) {
+                return;
+            }
+            // Take the slot before starting so a concurrent start does not run the same search twice
+            entries.put(key, new Entry(slot, ticker.getAsLong()));
+        }
+        CompletableFuture<?> result;
+        try {
+            result = search.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                slot.completeExceptionally(error);
+            } else {
+                slot.complete(value);
+            }
+        });
+        Futures.propagateCancellation(slot, result);
+        record(agent, "started");
+    }
+
+    /**
+     * Attaches to the speculative result for this search when there is one, otherwise runs
+     * {@code search}. A speculative search that fails is retried for real.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> attach(String agent, String fingerprint, Supplier<CompletableFuture<T>> search) {
+        Entry entry;
+        synchronized (this) {
+            evictExpired();
+            entry = entries.remove(agent + '\n' + fingerprint);
+        }
+        if (entry == null || entry.result().isCompletedExceptionally()) {
+            record(agent, "miss");
+            return search.get();
+        }
+        record(agent, "hit");
+        LOG.debug("Itinerary attached to speculative {} search", agent);
+        CompletableFuture<T> speculative = (CompletableFuture<T>) entry.result();
+        // The result is spoken for: if this caller gives up, nobody else will use it
+        return Futures.propagateCancellation(speculative.exceptionallyCompose(e -> search.get()), speculative);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void evictExpired() {
+        long now = ticker.getAsLong();
+        for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Entry> e = it.next();
+            if (now - e.getValue().startedAt() < ttl.toNanos()) {
+                break; // insertion order is start order
+            }
+            it.remove();
+            e.getValue().result().cancel(true);
+            record(e.getKey().substring(0, e.getKey().indexOf('\n')), "expired");
+        }
+    }
+
+    private void record(String agent, String outcome) {
+        if (meterRegistry != null) {
+            Counter.builder("agent.speculative.searches")
+                    .tag("agent", agent)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.agentictravel.services;
 
+import com.agentictravel.llm.Futures;
 import com.agentictravel.llm.LLMClient;
 import com.agentictravel.model.TripRequest;
 
@@ -7,6 +8,45 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 public class TransportAgent {
+    static final String SCHEMA = """
+        {
+            "carRental": [
+                {
+                    "provider": "string",
+                    "pricePerDay": "string",
+                    "totalPrice": "string",
+                    "carType": "string",
+                    "pros": ["pro1", "pro2"],
+                    "cons": ["con1", "con2"],
+                    "bookingUrl": "string"
+                }
+            ],
+            "trainOptions": [
+                {
+                    "provider": "string",
+                    "price": "string",
+                    "duration": "string",
+                    "route": "string",
+                    "pros": ["pro1", "pro2"],
+                    "cons": ["con1", "con2"],
+                    "bookingUrl": "string"
+                }
+            ],
+            "busOptions": [
+                {
+                    "provider": "string",
+                    "price": "string",
+                    "duration": "string",
+                    "route": "string",
+                    "pros": ["pro1", "pro2"],
+                    "cons": ["con1", "con2"],
+                    "bookingUrl": "string"
+                }
+            ],
+            "summary": "string"
+        }
+        """;
+
     private final LLMClient llm;
 
     public TransportAgent(LLMClient llm){
@@ -16,44 +56,6 @@ public class TransportAgent {
     public CompletableFuture<Map<String,Object>> search(TripRequest request){
         String amendments = safeGetAmendments(request);
         Object dates = safeGetTentativeDates(request);
-        String schema = """
-            {
-                "carRental": [
-                    {
-                        "provider": "string",
-                        "pricePerDay": "string",
-                        "totalPrice": "string",
-                        "carType": "string",
-                        "pros": ["pro1", "pro2"],
-                        "cons": ["con1", "con2"],
-                        "bookingUrl": "string"
-                    }
-                ],
-                "trainOptions": [
-                    {
-                        "provider": "string",
-                        "price": "string",
-                        "duration": "string",
-                        "route": "string",
-                        "pros": ["pro1", "pro2"],
-                        "cons": ["con1", "con2"],
-                        "bookingUrl": "string"
-                    }
-                ],
-                "busOptions": [
-                    {
-                        "provider": "string",
-                        "price": "string",
-                        "duration": "string",
-                        "route": "string",
-                        "pros": ["pro1", "pro2"],
-                        "cons": ["con1", "con2"],
-                        "bookingUrl": "string"
-                    }
-                ],
-                "summary": "string"
-            }
-            """;
         String prompt = "You are a transport search assistant. Given trip to " + request.region +
         ", tentativeDates='" + (dates==null?"":dates.toString()) + "', for " + request.people + " people and preferences " + (request.bookingPreferences!=null?request.bookingPreferences.toString():"none") +
         ". Find multiple transport options including car rental, trains, and buses. " +
@@ -61,13 +63,12 @@ public class TransportAgent {
         ", elderly=" + (request.special != null ? request.special.elderly : false) + 
         ", accessible=" + (request.special != null ? request.special.differentlyAbled : false) + ". " +
         "If user amendments: '" + (amendments==null?"":amendments) + "' include them in consideration. " +
-        "Return ONLY valid JSON strictly matching this schema: \n" + schema + "\nDo not add any extra commentary.";
+        "Return ONLY valid JSON strictly matching this schema: \n" + SCHEMA + "\nDo not add any extra commentary.";
 
-        return llm.prompt(prompt, "gpt-3.5-turbo").thenApply(resp -> {
+        return Futures.map(llm.prompt(prompt, "gpt-3.5-turbo"), resp -> {
             try {
-                // Try to parse the response as JSON, fallback to mock data if parsing fails
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                return mapper.readValue(resp, Map.class);
+                // Parse the response as JSON, repairing it if needed; fallback to mock data if nothing is recoverable
+                return JsonRepair.readMap(resp);
             } catch (Exception e) {
                 // Fallback to mock data
                 return Map.of(
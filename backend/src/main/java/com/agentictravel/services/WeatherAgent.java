@@ -1,5 +1,6 @@
 package com.agentictravel.services;
 
+import com.agentictravel.llm.Futures;
 import com.agentictravel.llm.LLMClient;
 import com.agentictravel.model.TripRequest;
 
@@ -13,7 +14,7 @@ public class WeatherAgent {
         this.llm = llm;
     }
 
-    public CompletableFuture<Map<String,Object>> search(TripRequest request){
+    String prompt(TripRequest request){
         String amendments = safeGetAmendments(request);
         Object dates = safeGetTentativeDates(request);
         String schema = """
@@ -34,18 +35,21 @@ public class WeatherAgent {
                 "activityRecommendations": ["activity1", "activity2"]
             }
             """;
-        String prompt = "You are a weather assistant. For region " + request.region + 
+        return "You are a weather assistant. For region " + request.region + 
         ", tentativeDates='" + (dates==null?"":dates.toString()) + "', user amendments '" + (amendments==null?"":amendments) + 
         "', and weather preference '" + (request.weatherPreference!=null?request.weatherPreference:"any") + "'. " +
         "Provide a detailed weather forecast and recommendations for the trip duration. " +
         "Consider the user's weather preference and suggest appropriate activities and packing items. " +
         "Return ONLY valid JSON strictly matching this schema: \n" + schema + "\nDo not add commentary outside the JSON.";
+    }
+
+    public CompletableFuture<Map<String,Object>> search(TripRequest request){
+        String prompt = prompt(request);
 
-        return llm.prompt(prompt, "gpt-3.5-turbo").thenApply(resp -> {
+        return Futures.map(llm.prompt(prompt, "gpt-3.5-turbo"), resp -> {
             try {
-                // Try to parse the response as JSON, fallback to mock data if parsing fails
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                return mapper.readValue(resp, Map.class);
+                // Parse the response as JSON, repairing it if needed; fallback to mock data if nothing is recoverable
+                return JsonRepair.readMap(resp);
             } catch (Exception e) {
                 // Fallback to mock data
                 return Map.of(
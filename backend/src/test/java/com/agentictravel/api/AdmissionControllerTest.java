@@ -0,0 +1,102 @@
+package com.agentictravel.api;
+
+import com.agentictravel.llm.LLMClient;
+import com.agentictravel.llm.LLMLoadTracker;
+import com.agentictravel.llm.LoadTrackingLLMClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControllerTest {
+
+    private static final Duration QUESTIONS_DEADLINE = Duration.ofSeconds(10);
+    private static final Duration ITINERARY_DEADLINE = Duration.ofSeconds(20);
+
+    /**
+     * Hands out calls that stay open until the test completes them.
+     */
+    private static class PendingLLMClient implements LLMClient {
+        final List<CompletableFuture<String>> calls = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String getName() {
+            return "pending";
+        }
+
+        @Override
+        public CompletableFuture<String> prompt(String prompt, String modelName) {
+            CompletableFuture<String> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+        }
+    }
+
+    // Four LLM slots, one kept for questions, 5 s per call until latencies are observed
+    private static AdmissionController admission(LLMLoadTracker tracker, SimpleMeterRegistry registry) {
+        return new AdmissionController(tracker, true, 4, 1, QUESTIONS_DEADLINE, ITINERARY_DEADLINE, 5000, registry);
+    }
+
+    @Test
+    public void shedsItinerariesBeforeQuestions() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionController admission = admission(new LLMLoadTracker(), registry);
+
+        // Idle: one round of queueing for the calls over three slots, then two rounds of its own
+        AdmissionController.Admission first = admission.admit(AdmissionController.Work.ITINERARY);
+        assertTrue(first.isAdmitted());
+        assertEquals(6, admission.getReservedCalls());
+
+        // Behind the first one it would take 25 s against a 20 s deadline
+        AdmissionController.Admission second = admission.admit(AdmissionController.Work.ITINERARY);
+        assertFalse(second.isAdmitted());
+        assertEquals(5, second.getRetryAfterSeconds());
+        assertEquals(1.0, registry.get("admission.rejected").tag("work", "itinerary").counter().count());
+
+        // A question still fits in its deadline
+        AdmissionController.Admission question = admission.admit(AdmissionController.Work.QUESTIONS);
+        assertTrue(question.isAdmitted());
+
+        first.release();
+        first.release();
+        second.release();
+        assertEquals(1, admission.getReservedCalls());
+        assertTrue(admission.admit(AdmissionController.Work.ITINERARY).isAdmitted());
+    }
+
+    @Test
+    public void predictsFromInFlightCallsAndObservedLatency() {
+        LLMLoadTracker tracker = new LLMLoadTracker();
+        PendingLLMClient upstream = new PendingLLMClient();
+        LLMClient client = new LoadTrackingLLMClient(upstream, tracker);
+        AdmissionController admission = admission(tracker, null);
+
+        for (int i = 0; i < 8; i++) {
+            client.prompt("p" + i, null);
+        }
+        assertEquals(8, tracker.getInFlight());
+        assertFalse(admission.admit(AdmissionController.Work.ITINERARY).isAdmitted());
+
+        // Calls turn out to be quick: the same backlog now clears well within the deadline
+        upstream.calls.forEach(call -> call.complete("ok"));
+        assertEquals(0, tracker.getInFlight());
+        assertTrue(tracker.latencyPercentile(50) < 1000);
+        for (int i = 0; i < 8; i++) {
+            client.prompt("p" + i, null);
+        }
+        assertTrue(admission.admit(AdmissionController.Work.ITINERARY).isAdmitted());
+    }
+
+    @Test
+    public void disabledAdmitsEverything() {
+        AdmissionController admission = AdmissionController.disabled();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(admission.admit(AdmissionController.Work.ITINERARY).isAdmitted());
+        }
+    }
+}
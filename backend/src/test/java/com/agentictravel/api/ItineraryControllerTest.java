@@ -1,17 +1,47 @@
 package com.agentictravel.api;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.agentictravel.config.StreamConfig;
 import com.agentictravel.model.Itinerary;
 import com.agentictravel.model.TripRequest;
 import com.agentictravel.services.AgentCoordinator;
 import com.agentictravel.validation.TripRequestValidator;
+import com.agentictravel.services.ItineraryJobService;
+import com.agentictravel.services.ItineraryListener;
+import com.agentictravel.llm.LLMLoadTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 public class ItineraryControllerTest {
     @Test
@@ -29,8 +59,287 @@ public class ItineraryControllerTest {
             new TripRequestValidator.ValidationResult(new ArrayList<>(), new ArrayList<>()));
         ItineraryController ctrl = new ItineraryController(coord, validator);
         TripRequest req = new TripRequest();
-        var fut = ctrl.createItinerary(req);
-        var resp = fut.get();
-        assertEquals("ok", resp.getBody().summary);
+        var result = ctrl.createItinerary(req);
+        var resp = (ResponseEntity<?>) result.getResult();
+        assertEquals("ok", ((Itinerary) resp.getBody()).summary);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void streamPushesSectionsAsTheyComplete() throws Exception {
+        CompletableFuture<Itinerary> done = new CompletableFuture<>();
+        List<ItineraryListener> listeners = new ArrayList<>();
+        AgentCoordinator coord = new AgentCoordinator(new com.agentictravel.llm.FakeLLMClient("ok")){
+            @Override
+            public CompletableFuture<Itinerary> generateItinerary(TripRequest request, ItineraryListener listener){
+                listeners.add(listener);
+                return done;
+            }
+        };
+        TripRequestValidator validator = Mockito.mock(TripRequestValidator.class);
+        Mockito.when(validator.validate(Mockito.any())).thenReturn(
+            new TripRequestValidator.ValidationResult(new ArrayList<>(), new ArrayList<>()));
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new ItineraryController(coord, validator, new ItineraryJobService(coord), 1, 30)).build();
+
+        MvcResult result = mvc.perform(post("/api/itineraries/stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"tripTitle\":\"Stream\",\"days\":2,\"region\":\"Nowhere\",\"people\":1}"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        ItineraryListener listener = listeners.get(0);
+        listener.onSection("flights", Map.of("carrier", "Stub Air"));
+        String early = result.getResponse().getContentAsString();
+        assertTrue(early.contains("event:flights"), early);
+        assertTrue(early.contains("Stub Air"));
+        assertFalse(early.contains("event:itinerary"));
+
+        // Keepalive comments flow while the slower agents are still running
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!result.getResponse().getContentAsString().contains(":keepalive") && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(result.getResponse().getContentAsString().contains(":keepalive"));
+
+        listener.onDegraded("events", "Degraded section: events (timed out after 30 s)");
+        Itinerary it = new Itinerary();
+        it.summary = "streamed";
+        done.complete(it);
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains("event:degraded"));
+        assertTrue(body.indexOf("event:flights") < body.indexOf("event:itinerary"));
+        assertTrue(body.contains("\"summary\":\"streamed\""));
+    }
+
+    @Test
+    public void aStreamWhoseClientDisconnectsEndsQuietly() throws Exception {
+        CompletableFuture<Itinerary> generation = new CompletableFuture<>();
+        AgentCoordinator coord = new AgentCoordinator(new com.agentictravel.llm.FakeLLMClient("ok")){
+            @Override
+            public CompletableFuture<Itinerary> generateItinerary(TripRequest request, ItineraryListener listener){
+                return generation;
+            }
+        };
+        TripRequestValidator validator = Mockito.mock(TripRequestValidator.class);
+        Mockito.when(validator.validate(Mockito.any())).thenReturn(
+            new TripRequestValidator.ValidationResult(new ArrayList<>(), new ArrayList<>()));
+        ThreadPoolTaskScheduler keepAlives = StreamConfig.keepAliveScheduler();
+        keepAlives.initialize();
+        Logger log = (Logger) LoggerFactory.getLogger(ItineraryController.class);
+        ListAppender<ILoggingEvent> logged = new ListAppender<>();
+        logged.start();
+        log.addAppender(logged);
+        try {
+            MockMvc mvc = MockMvcBuilders.standaloneSetup(new ItineraryController(coord, validator,
+                new ItineraryJobService(coord), AdmissionController.disabled(), new SimpleMeterRegistry(), keepAlives, 15, 180)).build();
+
+            MvcResult result = mvc.perform(post("/api/itineraries/stream")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"tripTitle\":\"Gone\",\"days\":2,\"region\":\"Nowhere\",\"people\":1}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            MockAsyncContext context = (MockAsyncContext) result.getRequest().getAsyncContext();
+            for (AsyncListener listener : context.getListeners()) {
+                listener.onError(new AsyncEvent(context, new java.io.IOException("Broken pipe")));
+            }
+
+            assertTrue(generation.isCancelled());
+            // A disconnect is not a failure: nothing is sent to the closed stream
+            assertFalse(result.getResponse().getContentAsString().contains("event:error"));
+            assertTrue(logged.list.stream().noneMatch(e -> e.getLevel() == Level.ERROR), logged.list.toString());
+        } finally {
+            log.detachAppender(logged);
+            keepAlives.shutdown();
+        }
+    }
+
+    @Test
+    public void jobsAreAcceptedImmediatelyAndCollectedByLongPoll() throws Exception {
+        List<CompletableFuture<Itinerary>> generations = new ArrayList<>();
+        AgentCoordinator coord = new AgentCoordinator(new com.agentictravel.llm.FakeLLMClient("ok")){
+            @Override
+            public CompletableFuture<Itinerary> generateItinerary(TripRequest request, ItineraryListener listener){
+                CompletableFuture<Itinerary> generation = new CompletableFuture<>();
+                generations.add(generation);
+                return generation;
+            }
+        };
+        TripRequestValidator validator = Mockito.mock(TripRequestValidator.class);
+        Mockito.when(validator.validate(Mockito.any())).thenReturn(
+            new TripRequestValidator.ValidationResult(new ArrayList<>(), new ArrayList<>()));
+        ItineraryJobService jobs = new ItineraryJobService(coord, 1, 0, 600, 30);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new ItineraryController(coord, validator, jobs, 15, 180)).build();
+        String trip = "{\"tripTitle\":\"Jobs\",\"days\":2,\"region\":\"Nowhere\",\"people\":1}";
+
+        MvcResult accepted = mvc.perform(post("/api/itineraries/jobs").contentType(MediaType.APPLICATION_JSON).content(trip))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.status").value("RUNNING"))
+            .andReturn();
+        String location = accepted.getResponse().getHeader("Location");
+        assertNotNull(location);
+
+        // One running job and no queue: the next submission is pushed back
+        mvc.perform(post("/api/itineraries/jobs").contentType(MediaType.APPLICATION_JSON).content(trip))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists("Retry-After"));
+
+        MvcResult poll = mvc.perform(get(location).param("waitSeconds", "20"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        Itinerary it = new Itinerary();
+        it.summary = "from job";
+        generations.get(0).complete(it);
+        mvc.perform(asyncDispatch(poll))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("SUCCEEDED"))
+            .andExpect(jsonPath("$.itinerary.summary").value("from job"));
+
+        MvcResult missing = mvc.perform(get("/api/itineraries/jobs/unknown")).andReturn();
+        mvc.perform(asyncDispatch(missing)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void aLongPollThatWaitsTheFullMaxWaitReturnsTheJob() throws Exception {
+        AgentCoordinator coord = new AgentCoordinator(new com.agentictravel.llm.FakeLLMClient("ok")){
+            @Override
+            public CompletableFuture<Itinerary> generateItinerary(TripRequest request, ItineraryListener listener){
+                return new CompletableFuture<>();
+            }
+        };
+        TripRequestValidator validator = Mockito.mock(TripRequestValidator.class);
+        Mockito.when(validator.validate(Mockito.any())).thenReturn(
+            new TripRequestValidator.ValidationResult(new ArrayList<>(), new ArrayList<>()));
+        ItineraryJobService jobs = new ItineraryJobService(coord, 1, 0, 600, 1);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new ItineraryController(coord, validator, jobs, 15, 180)).build();
+        String id = jobs.submit(new TripRequest()).id;
+
+        MvcResult poll = mvc.perform(get("/api/itineraries/jobs/" + id).param("waitSeconds", "60"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        // The async timeout outlasts the capped wait instead of racing it
+        assertTrue(poll.getRequest().getAsyncContext().getTimeout() > 1_000);
+        mvc.perform(asyncDispatch(poll))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("RUNNING"));
+        jobs.shutdown();
+    }
+
+    @Test
+    public void overloadedRequestsAreShedWithRetryAfter() throws Exception {
+        AgentCoordinator coord = Mockito.mock(AgentCoordinator.class);
+        TripRequestValidator validator = Mockito.mock(TripRequestValidator.class);
+        Mockito.when(validator.validate(Mockito.any())).thenReturn(
+            new TripRequestValidator.ValidationResult(new ArrayList<>(), new ArrayList<>()));
+        // Latency so far beyond the deadline that nothing can be admitted
+        AdmissionController admission = new AdmissionController(new LLMLoadTracker(), true, 8, 2,
+            Duration.ofSeconds(1), Duration.ofSeconds(1), 120_000, null);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new ItineraryController(coord, validator,
+            new ItineraryJobService(coord), admission, new SimpleMeterRegistry(), 15, 180)).build();
+        String trip = "{\"tripTitle\":\"Busy\",\"days\":2,\"region\":\"Nowhere\",\"people\":1}";
+
+        for (String path : List.of("/api/itineraries", "/api/itineraries/questions", "/api/itineraries/stream")) {
+            MvcResult result = mvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(trip)).andReturn();
+            if (result.getRequest().isAsyncStarted()) {
+                mvc.perform(asyncDispatch(result))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "60"));
+            } else {
+                assertEquals(503, result.getResponse().getStatus(), path);
+                assertEquals("60", result.getResponse().getHeader("Retry-After"), path);
+            }
+        }
+        Mockito.verifyNoInteractions(coord);
+    }
+
+    @Test
+    public void abandonedRequestsCancelTheirGeneration() throws Exception {
+        List<CompletableFuture<?>> generations = new CopyOnWriteArrayList<>();
+        AgentCoordinator coord = new AgentCoordinator(new com.agentictravel.llm.FakeLLMClient("ok")){
+            @Override
+            public CompletableFuture<Itinerary> generateItinerary(TripRequest request){
+                CompletableFuture<Itinerary> generation = new CompletableFuture<>();
+                generations.add(generation);
+                return generation;
+            }
+        };
+        TripRequestValidator validator = Mockito.mock(TripRequestValidator.class);
+        Mockito.when(validator.validate(Mockito.any())).thenReturn(
+            new TripRequestValidator.ValidationResult(new ArrayList<>(), new ArrayList<>()));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new ItineraryController(coord, validator,
+            new ItineraryJobService(coord), AdmissionController.disabled(), registry, 15, 180)).build();
+        String trip = "{\"tripTitle\":\"Gone\",\"days\":2,\"region\":\"Nowhere\",\"people\":1}";
+
+        MvcResult timedOut = mvc.perform(post("/api/itineraries").contentType(MediaType.APPLICATION_JSON).content(trip))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        MockAsyncContext context = (MockAsyncContext) timedOut.getRequest().getAsyncContext();
+        for (AsyncListener listener : context.getListeners()) {
+            listener.onTimeout(new AsyncEvent(context));
+        }
+        assertTrue(generations.get(0).isCancelled());
+
+        MvcResult disconnected = mvc.perform(post("/api/itineraries").contentType(MediaType.APPLICATION_JSON).content(trip))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        context = (MockAsyncContext) disconnected.getRequest().getAsyncContext();
+        for (AsyncListener listener : context.getListeners()) {
+            listener.onError(new AsyncEvent(context, new java.io.IOException("Broken pipe")));
+        }
+        assertTrue(generations.get(1).isCancelled());
+
+        assertEquals(1.0, registry.get("itinerary.requests.abandoned").tag("reason", "timeout").counter().count());
+        assertEquals(1.0, registry.get("itinerary.requests.abandoned").tag("reason", "disconnect").counter().count());
+    }
+
+    @Test
+    public void itineraryRequestsOutliveTheContainersDefaultAsyncTimeout() throws Exception {
+        CompletableFuture<Itinerary> generation = new CompletableFuture<>();
+        AgentCoordinator coord = new AgentCoordinator(new com.agentictravel.llm.FakeLLMClient("ok")){
+            @Override
+            public CompletableFuture<Itinerary> generateItinerary(TripRequest request){
+                return generation;
+            }
+        };
+        TripRequestValidator validator = Mockito.mock(TripRequestValidator.class);
+        Mockito.when(validator.validate(Mockito.any())).thenReturn(
+            new TripRequestValidator.ValidationResult(new ArrayList<>(), new ArrayList<>()));
+        AdmissionController admission = new AdmissionController(new LLMLoadTracker(), false, 8, 2,
+            Duration.ofSeconds(30), Duration.ofSeconds(120), 8000, null);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new ItineraryController(coord, validator,
+            new ItineraryJobService(coord), admission, new SimpleMeterRegistry(), 15, 180)).build();
+
+        MvcResult result = mvc.perform(post("/api/itineraries").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"tripTitle\":\"Slow\",\"days\":5,\"region\":\"Nowhere\",\"people\":1}"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        // Held open until the itinerary deadline, not the 30 s container default
+        assertEquals(120_000, result.getRequest().getAsyncContext().getTimeout());
+        assertFalse(generation.isDone());
+
+        Itinerary it = new Itinerary();
+        it.summary = "slow but fine";
+        generation.complete(it);
+        mvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.summary").value("slow but fine"));
+    }
+
+    @Test
+    public void invalidStreamRequestsAreRejectedBeforeTheStreamOpens() throws Exception {
+        AgentCoordinator coord = Mockito.mock(AgentCoordinator.class);
+        TripRequestValidator validator = Mockito.mock(TripRequestValidator.class);
+        Mockito.when(validator.validate(Mockito.any())).thenReturn(
+            new TripRequestValidator.ValidationResult(List.of("Region is required"), new ArrayList<>()));
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new ItineraryController(coord, validator,
+            new ItineraryJobService(coord), 15, 180)).build();
+
+        MvcResult result = mvc.perform(post("/api/itineraries/stream").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"tripTitle\":\"Nowhere\",\"days\":2,\"people\":1}"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+        assertFalse(result.getRequest().isAsyncStarted());
+        assertFalse(result.getResponse().getContentAsString().contains("event:"));
+        Mockito.verifyNoInteractions(coord);
+    }
+}
@@ -0,0 +1,175 @@
+package com.agentictravel.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkheadLLMClientTest {
+
+    private final List<ExecutorService> executors = new CopyOnWriteArrayList<>();
+
+    /**
+     * Hands out calls that stay open until the test completes them.
+     */
+    private static class PendingLLMClient implements LLMClient {
+        final List<CompletableFuture<String>> calls = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String getName() {
+            return "pending";
+        }
+
+        @Override
+        public CompletableFuture<String> prompt(String prompt, String modelName) {
+            CompletableFuture<String> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executors.forEach(ExecutorService::shutdownNow);
+    }
+
+    private ExecutorService executor(String agent) {
+        ExecutorService executor = LLMExecutors.newAgentExecutor(agent, 1);
+        executors.add(executor);
+        return executor;
+    }
+
+    private static void awaitCalls(PendingLLMClient client, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (client.calls.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, client.calls.size());
+    }
+
+    @Test
+    public void queuesBeyondTheCapAndRejectsBeyondTheQueue() throws Exception {
+        PendingLLMClient upstream = new PendingLLMClient();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BulkheadLLMClient client = new BulkheadLLMClient(upstream, "planner",
+            new BulkheadLLMClient.Config(2, 1), executor("planner"), registry);
+
+        CompletableFuture<String> first = client.prompt("a", null);
+        CompletableFuture<String> second = client.prompt("b", null);
+        CompletableFuture<String> queued = client.prompt("c", null);
+        CompletableFuture<String> rejected = client.prompt("d", null);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(BulkheadFullException.class, e.getCause());
+        assertFalse(((LLMClientException) e.getCause()).isRetryable());
+        assertEquals(1.0, registry.get("llm.bulkhead.rejected").tag("agent", "planner").counter().count());
+
+        awaitCalls(upstream, 2);
+        assertEquals(2, client.getInFlight());
+        assertEquals(1, client.getQueueDepth());
+
+        upstream.calls.get(0).complete("A");
+        assertEquals("A", first.get(1, TimeUnit.SECONDS));
+        awaitCalls(upstream, 3);
+        assertEquals(0, client.getQueueDepth());
+
+        upstream.calls.get(1).complete("B");
+        upstream.calls.get(2).complete("C");
+        assertEquals("B", second.get(1, TimeUnit.SECONDS));
+        assertEquals("C", queued.get(1, TimeUnit.SECONDS));
+        assertEquals(0, client.getInFlight());
+    }
+
+    @Test
+    public void aSaturatedAgentDoesNotTakeAnotherAgentsCapacity() throws Exception {
+        PendingLLMClient slow = new PendingLLMClient();
+        BulkheadLLMClient planner = new BulkheadLLMClient(slow, "planner",
+            new BulkheadLLMClient.Config(1, 0), executor("planner"));
+        PendingLLMClient quick = new PendingLLMClient();
+        BulkheadLLMClient questions = new BulkheadLLMClient(quick, "questions",
+            new BulkheadLLMClient.Config(1, 0), executor("questions"));
+
+        planner.prompt("long plan", null);
+        assertTrue(planner.prompt("another plan", null).isCompletedExceptionally());
+
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> answer = questions.prompt("clarifying questions", null)
+            .thenApply(r -> {
+                threads.add(Thread.currentThread().getName());
+                return r;
+            });
+        awaitCalls(quick, 1);
+        quick.calls.get(0).complete("{\"questions\":[]}");
+        assertTrue(answer.get(1, TimeUnit.SECONDS).contains("questions"));
+        // Results are handed back on the agent's own executor
+        assertTrue(threads.get(0).startsWith("agent-questions-"), threads.get(0));
+    }
+
+    @Test
+    public void cancellingAQueuedCallFreesItsSlot() throws Exception {
+        PendingLLMClient upstream = new PendingLLMClient();
+        BulkheadLLMClient client = new BulkheadLLMClient(upstream, "hotels",
+            new BulkheadLLMClient.Config(1, 1), executor("hotels"));
+
+        client.prompt("a", null);
+        CompletableFuture<String> queued = client.prompt("b", null);
+        assertEquals(1, client.getQueueDepth());
+
+        queued.cancel(true);
+        assertEquals(0, client.getQueueDepth());
+        assertFalse(client.prompt("c", null).isCompletedExceptionally());
+
+        awaitCalls(upstream, 1);
+        upstream.calls.get(0).complete("A");
+        awaitCalls(upstream, 2);
+    }
+
+    @Test
+    public void aStreamHoldsItsSlotUntilItEnds() throws Exception {
+        Sinks.Many<String> answer = Sinks.many().replay().all();
+        PendingLLMClient upstream = new PendingLLMClient() {
+            @Override
+            public Flux<String> stream(String prompt, String modelName) {
+                return "hang".equals(prompt) ? Flux.never() : answer.asFlux();
+            }
+        };
+        BulkheadLLMClient client = new BulkheadLLMClient(upstream, "planner",
+            new BulkheadLLMClient.Config(1, 1), executor("planner"));
+
+        CompletableFuture<List<String>> streamed = client.stream("p", null).collectList().toFuture();
+        answer.tryEmitNext("a");
+        CompletableFuture<String> queued = client.prompt("q", null);
+        assertEquals(1, client.getInFlight());
+        assertEquals(1, client.getQueueDepth());
+
+        answer.tryEmitNext("b");
+        answer.tryEmitComplete();
+        assertEquals(List.of("a", "b"), streamed.get(5, TimeUnit.SECONDS));
+        awaitCalls(upstream, 1);
+        upstream.calls.get(0).complete("Q");
+        assertEquals("Q", queued.get(5, TimeUnit.SECONDS));
+
+        // Cancelling a stream part-way through frees its slot
+        Disposable hanging = client.stream("hang", null).subscribe();
+        assertEquals(1, client.getInFlight());
+        hanging.dispose();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (client.getInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, client.getInFlight());
+        client.prompt("after", null);
+        awaitCalls(upstream, 2);
+    }
+}
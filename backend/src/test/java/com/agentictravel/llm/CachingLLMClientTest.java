@@ -0,0 +1,126 @@
+package com.agentictravel.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingLLMClientTest {
+
+    private static class CountingLLMClient implements LLMClient {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String getName() {
+            return "counting";
+        }
+
+        @Override
+        public CompletableFuture<String> prompt(String prompt, String modelName) {
+            return CompletableFuture.completedFuture("response-" + calls.incrementAndGet());
+        }
+    }
+
+    @Test
+    public void identicalPromptsAreServedFromCache() throws Exception {
+        CountingLLMClient upstream = new CountingLLMClient();
+        CachingLLMClient cache = new CachingLLMClient(upstream,
+            Map.of("weather", new CachingLLMClient.Policy(Duration.ofMinutes(5), 10)));
+        LLMClient weather = cache.withNamespace("weather");
+
+        assertEquals("response-1", weather.prompt("Weather for  Lisbon\n", "gpt-3.5-turbo").get());
+        assertEquals("response-1", weather.prompt("Weather for Lisbon", "gpt-3.5-turbo").get());
+        assertEquals(1, upstream.calls.get());
+
+        // A different model is a different key
+        assertEquals("response-2", weather.prompt("Weather for Lisbon", "gpt-4").get());
+        assertEquals(2, upstream.calls.get());
+    }
+
+    @Test
+    public void namespacesAreIsolatedAndUnconfiguredOnesPassThrough() throws Exception {
+        CountingLLMClient upstream = new CountingLLMClient();
+        CachingLLMClient cache = new CachingLLMClient(upstream, Map.of(
+            "weather", new CachingLLMClient.Policy(Duration.ofMinutes(5), 10),
+            "events", new CachingLLMClient.Policy(Duration.ofMinutes(5), 10)));
+
+        cache.withNamespace("weather").prompt("same prompt", "m").get();
+        cache.withNamespace("events").prompt("same prompt", "m").get();
+        assertEquals(2, upstream.calls.get());
+
+        cache.withNamespace("planner").prompt("same prompt", "m").get();
+        cache.withNamespace("planner").prompt("same prompt", "m").get();
+        cache.prompt("same prompt", "m").get();
+        assertEquals(5, upstream.calls.get());
+        assertEquals(0, cache.size("planner"));
+    }
+
+    @Test
+    public void entriesExpireAfterTtl() throws Exception {
+        CountingLLMClient upstream = new CountingLLMClient();
+        AtomicLong now = new AtomicLong();
+        CachingLLMClient cache = new CachingLLMClient(upstream,
+            Map.of("flights", new CachingLLMClient.Policy(Duration.ofSeconds(10), 10)), null, now::get);
+        LLMClient flights = cache.withNamespace("flights");
+
+        flights.prompt("p", "m").get();
+        now.addAndGet(Duration.ofSeconds(9).toNanos());
+        flights.prompt("p", "m").get();
+        assertEquals(1, upstream.calls.get());
+
+        now.addAndGet(Duration.ofSeconds(2).toNanos());
+        assertEquals("response-2", flights.prompt("p", "m").get());
+        assertEquals(2, upstream.calls.get());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvictedAtMaxSize() throws Exception {
+        CountingLLMClient upstream = new CountingLLMClient();
+        CachingLLMClient cache = new CachingLLMClient(upstream,
+            Map.of("hotels", new CachingLLMClient.Policy(Duration.ofMinutes(5), 2)));
+        LLMClient hotels = cache.withNamespace("hotels");
+
+        hotels.prompt("a", "m").get();
+        hotels.prompt("b", "m").get();
+        hotels.prompt("a", "m").get();
+        hotels.prompt("c", "m").get();
+        assertEquals(2, cache.size("hotels"));
+
+        hotels.prompt("a", "m").get();
+        assertEquals(3, upstream.calls.get());
+        hotels.prompt("b", "m").get();
+        assertEquals(4, upstream.calls.get());
+    }
+
+    @Test
+    public void failuresAreNotCachedAndMetricsRecorded() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        LLMClient failing = new LLMClient() {
+            @Override
+            public String getName() {
+                return "failing";
+            }
+
+            @Override
+            public CompletableFuture<String> prompt(String prompt, String modelName) {
+                calls.incrementAndGet();
+                return CompletableFuture.failedFuture(new RuntimeException("boom"));
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CachingLLMClient cache = new CachingLLMClient(failing,
+            Map.of("events", new CachingLLMClient.Policy(Duration.ofMinutes(5), 10)), registry);
+        LLMClient events = cache.withNamespace("events");
+
+        assertTrue(events.prompt("p", "m").isCompletedExceptionally());
+        assertTrue(events.prompt("p", "m").isCompletedExceptionally());
+        assertEquals(2, calls.get());
+        assertEquals(2.0, registry.counter("llm.cache.requests", "namespace", "events", "result", "miss").count());
+    }
+}
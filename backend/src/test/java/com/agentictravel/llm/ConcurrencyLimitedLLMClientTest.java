@@ -0,0 +1,171 @@
+package com.agentictravel.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimitedLLMClientTest {
+
+    private static class ManualLLMClient implements LLMClient {
+        final List<CompletableFuture<String>> calls = new ArrayList<>();
+
+        @Override
+        public String getName() {
+            return "manual";
+        }
+
+        @Override
+        public synchronized CompletableFuture<String> prompt(String prompt, String modelName) {
+            CompletableFuture<String> f = new CompletableFuture<>();
+            calls.add(f);
+            return f;
+        }
+
+        synchronized int count() {
+            return calls.size();
+        }
+
+        synchronized CompletableFuture<String> call(int i) {
+            return calls.get(i);
+        }
+    }
+
+    private static AdaptiveConcurrencyLimiter.Config config(int initial, int maxQueue, long maxWaitMs) {
+        return new AdaptiveConcurrencyLimiter.Config(initial, 1, 10, 0.5, 2.0, maxQueue, Duration.ofMillis(maxWaitMs));
+    }
+
+    @Test
+    public void excessCallsQueueUntilAPermitIsReleased() throws Exception {
+        ManualLLMClient upstream = new ManualLLMClient();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimitedLLMClient client = new ConcurrencyLimitedLLMClient(upstream, "k", config(2, 10, 5000), registry);
+
+        CompletableFuture<String> first = client.prompt("a", "m");
+        client.prompt("b", "m");
+        CompletableFuture<String> third = client.prompt("c", "m");
+
+        assertEquals(2, upstream.count());
+        assertEquals(2.0, registry.get("llm.concurrency.inflight").tag("key", "k").tag("model", "m").gauge().value());
+        assertEquals(1.0, registry.get("llm.concurrency.queue").tag("model", "m").gauge().value());
+
+        upstream.call(0).complete("done");
+        assertEquals("done", first.get(1, TimeUnit.SECONDS));
+        assertEquals(3, upstream.count());
+        assertEquals(0, client.getLimiter("m").getQueueDepth());
+
+        upstream.call(2).complete("third");
+        assertEquals("third", third.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void fullQueueAndLongWaitsAreRejected() throws Exception {
+        ManualLLMClient upstream = new ManualLLMClient();
+        ConcurrencyLimitedLLMClient client = new ConcurrencyLimitedLLMClient(upstream, "k", config(1, 1, 50));
+
+        client.prompt("a", "m");
+        CompletableFuture<String> queued = client.prompt("b", "m");
+        CompletableFuture<String> rejected = client.prompt("c", "m");
+
+        ExecutionException full = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertTrue(full.getCause() instanceof ConcurrencyLimitExceededException);
+        assertFalse(RetryPolicy.isRetryable(full.getCause()));
+
+        ExecutionException timedOut = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertTrue(timedOut.getCause() instanceof ConcurrencyLimitExceededException);
+        assertEquals(0, client.getLimiter("m").getQueueDepth());
+        assertEquals(1, upstream.count());
+    }
+
+    @Test
+    public void cancellingAQueuedCallFreesItsSlot() {
+        ManualLLMClient upstream = new ManualLLMClient();
+        ConcurrencyLimitedLLMClient client = new ConcurrencyLimitedLLMClient(upstream, "k", config(1, 10, 5000));
+
+        client.prompt("a", "m");
+        CompletableFuture<String> queued = client.prompt("b", "m");
+        queued.cancel(true);
+        assertEquals(0, client.getLimiter("m").getQueueDepth());
+
+        upstream.call(0).complete("done");
+        assertEquals(1, upstream.count());
+        assertEquals(0, client.getLimiter("m").getInFlight());
+    }
+
+    @Test
+    public void throttlingShrinksTheLimitPerModel() {
+        ManualLLMClient upstream = new ManualLLMClient();
+        ConcurrencyLimitedLLMClient client = new ConcurrencyLimitedLLMClient(upstream, "k", config(8, 10, 5000));
+
+        client.prompt("a", "m");
+        client.prompt("b", "other");
+        upstream.call(0).completeExceptionally(new LLMClientException("slow down", 429, null));
+        upstream.call(1).completeExceptionally(new LLMClientException("bad request", 400, null));
+
+        assertEquals(4, client.getLimiter("m").getLimit());
+        assertEquals(8, client.getLimiter("other").getLimit());
+    }
+
+    @Test
+    public void limitGrowsAdditivelyAndBacksOffOnLatencyInflation() {
+        AtomicLong now = new AtomicLong();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config(2, 10, 5000), now::get);
+
+        // Two successful windows at steady latency: +1 permit per window
+        for (int i = 0; i < 4; i++) {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire().join();
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+            permit.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+        }
+        assertEquals(3, limiter.getLimit());
+
+        // Latency well beyond the baseline signals provider-side queueing
+        AdaptiveConcurrencyLimiter.Permit slow = limiter.acquire().join();
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        slow.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    public void aStreamHoldsItsPermitUntilItEnds() throws Exception {
+        Sinks.Many<String> answer = Sinks.many().unicast().onBackpressureBuffer();
+        LLMClient upstream = new FakeLLMClient("queued") {
+            @Override
+            public Flux<String> stream(String prompt, String modelName) {
+                return "hang".equals(prompt) ? Flux.never() : answer.asFlux();
+            }
+        };
+        ConcurrencyLimitedLLMClient client = new ConcurrencyLimitedLLMClient(upstream, "k", config(1, 10, 5000));
+
+        List<String> deltas = new CopyOnWriteArrayList<>();
+        client.stream("p", "m").subscribe(deltas::add);
+        answer.tryEmitNext("a");
+        assertEquals(List.of("a"), deltas);
+
+        CompletableFuture<String> queued = client.prompt("q", "m");
+        assertEquals(1, client.getLimiter("m").getQueueDepth());
+        answer.tryEmitNext("b");
+        answer.tryEmitComplete();
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("a", "b"), deltas);
+        assertEquals(0, client.getLimiter("m").getInFlight());
+
+        // Cancelling a stream part-way through hands its permit back
+        Disposable hanging = client.stream("hang", "m").subscribe();
+        assertEquals(1, client.getLimiter("m").getInFlight());
+        hanging.dispose();
+        assertEquals(0, client.getLimiter("m").getInFlight());
+    }
+}
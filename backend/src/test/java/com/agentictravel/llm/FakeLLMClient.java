@@ -1,12 +1,25 @@
 package com.agentictravel.llm;
 
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 public class FakeLLMClient implements LLMClient {
     private final String cannedResponse;
+    private final int chunkSize;
 
     public FakeLLMClient(String cannedResponse){
+        this(cannedResponse, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Streams the canned response in deltas of at most chunkSize characters.
+     */
+    public FakeLLMClient(String cannedResponse, int chunkSize){
         this.cannedResponse = cannedResponse;
+        this.chunkSize = chunkSize;
     }
 
     @Override
@@ -18,4 +31,16 @@ public class FakeLLMClient implements LLMClient {
     public CompletableFuture<String> prompt(String prompt, String modelName) {
         return CompletableFuture.completedFuture(cannedResponse);
     }
+
+    @Override
+    public Flux<String> stream(String prompt, String modelName) {
+        if (cannedResponse == null || cannedResponse.isEmpty()) {
+            return Flux.empty();
+        }
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < cannedResponse.length(); i += chunkSize) {
+            chunks.add(cannedResponse.substring(i, (int) Math.min((long) i + chunkSize, cannedResponse.length())));
+        }
+        return Flux.fromIterable(chunks);
+    }
 }
@@ -0,0 +1,276 @@
+package com.agentictravel.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HedgingLLMClientTest {
+
+    /**
+     * Hands out futures the test completes by hand, in call order.
+     */
+    private static class ManualLLMClient implements LLMClient {
+        final List<CompletableFuture<String>> calls = new ArrayList<>();
+
+        @Override
+        public String getName() {
+            return "manual";
+        }
+
+        @Override
+        public synchronized CompletableFuture<String> prompt(String prompt, String modelName) {
+            CompletableFuture<String> f = new CompletableFuture<>();
+            calls.add(f);
+            return f;
+        }
+
+        synchronized int count() {
+            return calls.size();
+        }
+
+        synchronized CompletableFuture<String> call(int i) {
+            return calls.get(i);
+        }
+    }
+
+    private static HedgingLLMClient.Policy policy(long delayMs) {
+        return new HedgingLLMClient.Policy(95, Duration.ofMillis(delayMs), Duration.ofMillis(delayMs), 1.0);
+    }
+
+    private static void awaitCalls(ManualLLMClient upstream, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (upstream.count() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, upstream.count());
+    }
+
+    @Test
+    public void hedgeWinsWhenPrimaryIsSlowAndLoserIsCancelled() throws Exception {
+        ManualLLMClient upstream = new ManualLLMClient();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HedgingLLMClient client = new HedgingLLMClient(upstream, policy(20), registry);
+
+        CompletableFuture<String> result = client.prompt("p", "m");
+        awaitCalls(upstream, 2);
+        upstream.call(1).complete("hedged");
+
+        assertEquals("hedged", result.get(5, TimeUnit.SECONDS));
+        assertTrue(upstream.call(0).isCancelled());
+        assertEquals(1.0, registry.counter("llm.hedge.requests", "model", "m").count());
+        assertEquals(1.0, registry.counter("llm.hedge.wins", "model", "m").count());
+        // The cancelled primary counts too, or the slowest calls would never reach the percentile
+        assertEquals(2, client.getLatencies("m").size());
+        assertTrue(client.getLatencies("m").percentile(100) >= 20);
+    }
+
+    @Test
+    public void fastPrimaryIsNotHedged() throws Exception {
+        ManualLLMClient upstream = new ManualLLMClient();
+        HedgingLLMClient client = new HedgingLLMClient(upstream, policy(100));
+
+        CompletableFuture<String> result = client.prompt("p", "m");
+        upstream.call(0).complete("primary");
+        assertEquals("primary", result.get(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(1, upstream.count());
+    }
+
+    @Test
+    public void failedPrimaryWaitsForHedge() throws Exception {
+        ManualLLMClient upstream = new ManualLLMClient();
+        HedgingLLMClient client = new HedgingLLMClient(upstream, policy(20));
+
+        CompletableFuture<String> result = client.prompt("p", "m");
+        awaitCalls(upstream, 2);
+        upstream.call(0).completeExceptionally(new LLMClientException("boom", 500, null));
+        assertFalse(result.isDone());
+        upstream.call(1).complete("hedged");
+        assertEquals("hedged", result.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failsWhenAllAttemptsFail() throws Exception {
+        ManualLLMClient upstream = new ManualLLMClient();
+        HedgingLLMClient client = new HedgingLLMClient(upstream, policy(20));
+
+        CompletableFuture<String> result = client.prompt("p", "m");
+        awaitCalls(upstream, 2);
+        upstream.call(0).completeExceptionally(new LLMClientException("first", 500, null));
+        upstream.call(1).completeExceptionally(new LLMClientException("second", 502, null));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertEquals("second", e.getCause().getMessage());
+        assertEquals(0, client.getLatencies("m").size());
+    }
+
+    @Test
+    public void fastFailuresDoNotLowerTheHedgeDelay() throws Exception {
+        HedgingLLMClient client = new HedgingLLMClient(new FakeLLMClient("unused") {
+            @Override
+            public CompletableFuture<String> prompt(String prompt, String modelName) {
+                return CompletableFuture.failedFuture(new LLMClientException("throttled", 429, null));
+            }
+        }, new HedgingLLMClient.Policy(95, Duration.ofMillis(10), Duration.ofSeconds(5), 0.1));
+
+        for (int i = 0; i < 50; i++) {
+            CompletableFuture<String> result = client.prompt("p", "m");
+            assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        }
+        // Throttling answers instantly; had those answers counted, the next call would hedge after 10 ms
+        assertEquals(0, client.getLatencies("m").size());
+        assertEquals(Duration.ofSeconds(5), client.hedgeDelay(client.getLatencies("m")));
+    }
+
+    @Test
+    public void hedgeDelayFollowsObservedPercentile() {
+        HedgingLLMClient client = new HedgingLLMClient(new FakeLLMClient("x"),
+            new HedgingLLMClient.Policy(90, Duration.ofMillis(10), Duration.ofSeconds(5), 0.1));
+        LatencyTracker tracker = new LatencyTracker(100);
+        assertEquals(Duration.ofSeconds(5), client.hedgeDelay(tracker));
+
+        for (int i = 1; i <= 100; i++) {
+            tracker.record(i * 10);
+        }
+        assertEquals(Duration.ofMillis(900), client.hedgeDelay(tracker));
+    }
+
+    @Test
+    public void circuitBreakerOpensOnTransientFailuresAndRecovers() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(
+            new CircuitBreaker.Config(50, 4, 4, Duration.ofSeconds(10), 1), now::get);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(breaker.tryAcquire());
+            if (i % 2 == 1) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertTrue(breaker.remainingOpen().toMillis() > 0);
+
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void circuitBreakerClientFailsFastWhileOpen() throws Exception {
+        ManualLLMClient upstream = new ManualLLMClient();
+        CircuitBreakerLLMClient client = new CircuitBreakerLLMClient(upstream,
+            new CircuitBreaker.Config(50, 2, 2, Duration.ofMinutes(1), 1));
+
+        client.prompt("p", "m");
+        client.prompt("p", "m");
+        upstream.call(0).completeExceptionally(new LLMClientException("throttled", 429, null));
+        upstream.call(1).completeExceptionally(new LLMClientException("unavailable", 503, null));
+        assertEquals(CircuitBreaker.State.OPEN, client.getState("m"));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> client.prompt("p", "m").get());
+        assertTrue(e.getCause() instanceof CircuitOpenException);
+        assertFalse(RetryPolicy.isRetryable(e.getCause()));
+        assertEquals(2, upstream.count());
+
+        // Other models have their own breaker
+        client.prompt("p", "other");
+        assertEquals(3, upstream.count());
+    }
+
+    @Test
+    public void clientErrorsDoNotTripBreaker() {
+        ManualLLMClient upstream = new ManualLLMClient();
+        CircuitBreakerLLMClient client = new CircuitBreakerLLMClient(upstream,
+            new CircuitBreaker.Config(50, 2, 2, Duration.ofMinutes(1), 1));
+
+        client.prompt("p", "m");
+        client.prompt("p", "m");
+        upstream.call(0).completeExceptionally(new LLMClientException("bad request", 400, null));
+        upstream.call(1).completeExceptionally(new LLMClientException("bad request", 400, null));
+        assertEquals(CircuitBreaker.State.CLOSED, client.getState("m"));
+    }
+
+    @Test
+    public void cancelledProbeLeavesBreakerHalfOpen() throws Exception {
+        ManualLLMClient upstream = new ManualLLMClient();
+        CircuitBreakerLLMClient client = new CircuitBreakerLLMClient(upstream,
+            new CircuitBreaker.Config(50, 2, 2, Duration.ofMillis(20), 1));
+
+        client.prompt("p", "m");
+        client.prompt("p", "m");
+        upstream.call(0).completeExceptionally(new LLMClientException("unavailable", 503, null));
+        upstream.call(1).completeExceptionally(new LLMClientException("unavailable", 503, null));
+        Thread.sleep(40);
+
+        client.prompt("p", "m").cancel(true);
+        assertTrue(upstream.call(2).isCancelled());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, client.getState("m"));
+
+        // The probe slot was handed back, so the next call probes instead of failing fast
+        CompletableFuture<String> probe = client.prompt("p", "m");
+        assertEquals(4, upstream.count());
+        upstream.call(3).complete("ok");
+        assertEquals("ok", probe.get(5, TimeUnit.SECONDS));
+        assertEquals(CircuitBreaker.State.CLOSED, client.getState("m"));
+    }
+
+    @Test
+    public void streamHedgeWinsOnItsFirstDeltaAndPrimaryIsCancelled() throws Exception {
+        List<Sinks.Many<String>> streams = new CopyOnWriteArrayList<>();
+        LLMClient upstream = new FakeLLMClient("unused") {
+            @Override
+            public Flux<String> stream(String prompt, String modelName) {
+                Sinks.Many<String> answer = Sinks.many().unicast().onBackpressureBuffer();
+                streams.add(answer);
+                return answer.asFlux();
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HedgingLLMClient client = new HedgingLLMClient(upstream, policy(20), registry);
+
+        CompletableFuture<List<String>> result = client.stream("p", "m").collectList().toFuture();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (streams.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(2, streams.size());
+        streams.get(1).tryEmitNext("{\"a\"");
+        assertEquals(0, streams.get(0).currentSubscriberCount());
+        streams.get(1).tryEmitNext(":1}");
+        streams.get(1).tryEmitComplete();
+
+        assertEquals(List.of("{\"a\"", ":1}"), result.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, registry.counter("llm.hedge.wins", "model", "m").count());
+        assertEquals(2, client.getFirstDeltaLatencies("m").size());
+    }
+
+    @Test
+    public void streamFailsOnceEveryAttemptHasFailed() {
+        HedgingLLMClient client = new HedgingLLMClient(new FakeLLMClient("unused") {
+            @Override
+            public Flux<String> stream(String prompt, String modelName) {
+                return Flux.error(new LLMClientException("unavailable", 503, null));
+            }
+        }, policy(1000));
+
+        LLMClientException e = assertThrows(LLMClientException.class,
+            () -> client.stream("p", "m").blockLast(Duration.ofSeconds(5)));
+        assertEquals(503, e.getStatusCode());
+    }
+}
@@ -0,0 +1,133 @@
+package com.agentictravel.llm;
+
+import com.agentictravel.config.CacheConfig;
+import com.agentictravel.config.LLMConfig;
+import com.agentictravel.config.OpenAIConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.ExecutorService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LLMClientStreamingTest {
+
+    @Test
+    public void defaultStreamEmitsWholeResponseOnce() {
+        LLMClient plain = new LLMClient() {
+            @Override
+            public String getName() {
+                return "plain";
+            }
+
+            @Override
+            public CompletableFuture<String> prompt(String prompt, String modelName) {
+                return CompletableFuture.completedFuture("{\"a\":1}");
+            }
+        };
+        assertEquals(List.of("{\"a\":1}"), plain.stream("p", "m").collectList().block());
+    }
+
+    @Test
+    public void fakeClientStreamsInChunks() {
+        FakeLLMClient fake = new FakeLLMClient("{\"dayPlans\":[]}", 4);
+        List<String> deltas = fake.stream("p", "m").collectList().block();
+        assertEquals(4, deltas.size());
+        assertEquals("{\"dayPlans\":[]}", String.join("", deltas));
+    }
+
+    @Test
+    public void sseLinesAreParsedIntoDeltas() {
+        List<String> lines = List.of(
+            ": keepalive",
+            "data: {\"choices\":[{\"delta\":{\"role\":\"assistant\"}}]}",
+            "",
+            "data: {\"choices\":[{\"delta\":{\"content\":\"{\\\"a\\\"\"}}]}",
+            "data: {\"choices\":[{\"delta\":{\"content\":\":1}\"}}]}",
+            "data: [DONE]",
+            "data: {\"choices\":[{\"delta\":{\"content\":\"ignored\"}}]}");
+
+        List<String> deltas = feed(lines).collectList().block(Duration.ofSeconds(5));
+        assertEquals(List.of("{\"a\"", ":1}"), deltas);
+    }
+
+    @Test
+    public void sseErrorChunkFailsStream() {
+        List<String> lines = List.of("data: {\"error\":{\"message\":\"rate limited\"}}");
+        RuntimeException e = assertThrows(RuntimeException.class, () -> feed(lines).blockLast(Duration.ofSeconds(5)));
+        assertTrue(e.getMessage().contains("rate limited"));
+    }
+
+    @Test
+    public void cachingClientCachesStreamedResponse() {
+        AtomicInteger streams = new AtomicInteger();
+        FakeLLMClient upstream = new FakeLLMClient("{\"forecast\":\"sunny\"}", 5) {
+            @Override
+            public Flux<String> stream(String prompt, String modelName) {
+                streams.incrementAndGet();
+                return super.stream(prompt, modelName);
+            }
+        };
+        LLMClient weather = new CachingLLMClient(upstream,
+            Map.of("weather", new CachingLLMClient.Policy(Duration.ofMinutes(1), 10))).withNamespace("weather");
+
+        assertEquals("{\"forecast\":\"sunny\"}", String.join("", weather.stream("p", "m").collectList().block()));
+        assertEquals(List.of("{\"forecast\":\"sunny\"}"), weather.stream("p", "m").collectList().block());
+        assertEquals(1, streams.get());
+    }
+
+    private static Flux<String> feed(List<String> lines) {
+        return Flux.create(sink -> {
+            OpenAILLMClient.SseLineSubscriber subscriber = new OpenAILLMClient.SseLineSubscriber(sink, new ObjectMapper());
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            lines.forEach(subscriber::onNext);
+            subscriber.onComplete();
+        });
+    }
+
+    @Test
+    public void configuredChainStreamsInChunks() throws Exception {
+        ExecutorService io = LLMExecutors.create(2, false);
+        ExecutorService agent = LLMExecutors.newAgentExecutor("planner", 1);
+        try (OpenAIStubServer stub = new OpenAIStubServer().withTravelAgents().streamChunkChars(16).start()) {
+            OpenAIConfig openAI = new OpenAIConfig();
+            openAI.setApiKey("sk-test-streaming-chain");
+            openAI.setBaseUrl(stub.baseUrl());
+            StaticListableBeanFactory beans = new StaticListableBeanFactory(
+                Map.of("meterRegistry", new SimpleMeterRegistry()));
+            LLMClient chain = new LLMConfig(openAI, new CacheConfig())
+                .llmClient(io, new LLMLoadTracker(), beans.getBeanProvider(MeterRegistry.class));
+            LLMClient planner = new BulkheadLLMClient(chain, "planner", new BulkheadLLMClient.Config(2, 2), agent);
+
+            List<String> deltas = planner.stream("You are an itinerary planner.", null)
+                .collectList().block(Duration.ofSeconds(10));
+            assertTrue(deltas.size() > 1, "expected several deltas, got " + deltas.size());
+            assertTrue(String.join("", deltas).startsWith("{\"dayPlans\""));
+
+            List<String> cached = chain.withNamespace("weather").stream("You are a weather assistant.", null)
+                .collectList().block(Duration.ofSeconds(10));
+            assertTrue(cached.size() > 1);
+        } finally {
+            io.shutdownNow();
+            agent.shutdownNow();
+        }
+    }
+}
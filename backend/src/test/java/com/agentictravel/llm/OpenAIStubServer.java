@@ -0,0 +1,359 @@
+package com.agentictravel.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Embeddable OpenAI-compatible {@code /v1/chat/completions} server for tests and offline load
+ * runs. Requests are matched to scripted routes (one per agent by default), answered after a
+ * latency drawn from the route's distribution, optionally failed with an injected status,
+ * and streamed as SSE when the request asks for it. Responses are scheduled rather than slept
+ * on, so thousands of slow completions can be in flight at once.
+ */
+public class OpenAIStubServer implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<Route> routes = new ArrayList<>();
+    private final Route fallback = new Route("default", p -> true, "{}");
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final Random random;
+    private Latency defaultLatency = Latency.fixed(0);
+    private double timeScale = 1.0;
+    private int streamChunkChars = 16;
+    private HttpServer server;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService httpExecutor;
+
+    public OpenAIStubServer() {
+        this(42L);
+    }
+
+    public OpenAIStubServer(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Adds canned JSON answers for every agent in the app, matched on the agent's role line.
+     */
+    public OpenAIStubServer withTravelAgents() {
+        script("flights", "flight search assistant", """
+            {"recommended":{"carrier":"Stub Air","price":"410 USD","notes":"Direct, morning departure"},\
+            "alternatives":[{"carrier":"Budget Stub","price":"290 USD","notes":"One stop"}],\
+            "summary":"Stub flight options"}""");
+        script("hotels", "hotel search assistant", """
+            {"recommended":{"name":"Stub Hotel","price":"150 USD/night","notes":"Central"},\
+            "alternatives":[{"name":"Stub Hostel","price":"45 USD/night","notes":"Shared rooms"}],\
+            "summary":"Stub hotel options"}""");
+        script("transport", "transport search assistant", """
+            {"recommended":{"type":"train","provider":"Stub Rail","price":"30 USD","notes":"Hourly"},\
+            "alternatives":[],"summary":"Stub transport options"}""");
+        script("bookings", "combined travel search assistant", """
+            {"flights":{"recommended":{"carrier":"Stub Air","price":"410 USD","notes":"Direct"},"alternatives":[],\
+            "summary":"Stub flight options"},\
+            "hotels":{"recommended":{"name":"Stub Hotel","price":"150 USD/night","notes":"Central"},"alternatives":[],\
+            "summary":"Stub hotel options"},\
+            "transport":{"recommended":{"type":"train","provider":"Stub Rail","price":"30 USD","notes":"Hourly"},\
+            "alternatives":[],"summary":"Stub transport options"}}""");
+        script("events", "events and activities assistant", """
+            {"events":[{"title":"Stub Walking Tour","date":"any","location":"Old Town","price":"Free"}],\
+            "summary":"Stub events"}""");
+        script("weather", "weather assistant", """
+            {"forecast":"Mild and sunny","temperature":"18-24C","recommendations":["Light jacket"],\
+            "summary":"Stub weather"}""");
+        script("questions", "clarifying questions", """
+            {"questions":[{"id":"q1","question":"Which cities do you want to visit?","type":"text",\
+            "required":true}],"summary":"Stub questions"}""");
+        script("planner", "itinerary planner", """
+            {"dayPlans":[{"dayNumber":1,"title":"Arrival","activities":[{"title":"Check in","time":"15:00",\
+            "duration":"1h","location":"Stub Hotel","description":"Settle in","category":"Logistics",\
+            "cost":"0","bookingUrl":""}]}],"summary":"Stub itinerary"}""");
+        return this;
+    }
+
+    /**
+     * Answers prompts containing {@code marker} with {@code content} (the assistant message).
+     */
+    public OpenAIStubServer script(String name, String marker, String content) {
+        return script(name, prompt -> prompt.contains(marker), content);
+    }
+
+    public OpenAIStubServer script(String name, Predicate<String> matcher, String content) {
+        routes.removeIf(r -> r.name.equals(name));
+        routes.add(new Route(name, matcher, content));
+        return this;
+    }
+
+    /**
+     * Latency for one route, or for every route without its own when name is null.
+     */
+    public OpenAIStubServer latency(String name, Latency latency) {
+        if (name == null) {
+            defaultLatency = latency;
+        } else {
+            route(name).latency = latency;
+        }
+        return this;
+    }
+
+    /**
+     * Fails the given fraction of a route's requests (every route when name is null) with
+     * {@code status}; 429s carry a Retry-After of {@code retryAfterSeconds} when positive.
+     */
+    public OpenAIStubServer errors(String name, double rate, int status, int retryAfterSeconds) {
+        List<Route> targets = name == null ? allRoutes() : List.of(route(name));
+        for (Route r : targets) {
+            r.errorRate = rate;
+            r.errorStatus = status;
+            r.retryAfterSeconds = retryAfterSeconds;
+        }
+        return this;
+    }
+
+    /**
+     * Multiplies every sampled latency, e.g. 0.01 to replay a 2-30 s profile in a fast test.
+     */
+    public OpenAIStubServer timeScale(double timeScale) {
+        this.timeScale = timeScale;
+        return this;
+    }
+
+    public OpenAIStubServer streamChunkChars(int chars) {
+        this.streamChunkChars = Math.max(1, chars);
+        return this;
+    }
+
+    public OpenAIStubServer start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, "openai-stub");
+            t.setDaemon(true);
+            return t;
+        });
+        httpExecutor = Executors.newFixedThreadPool(4, r -> {
+            Thread t = new Thread(r, "openai-stub-http");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(httpExecutor);
+        server.createContext("/v1/chat/completions", this::handle);
+        server.start();
+        return this;
+    }
+
+    /**
+     * API root to hand to {@link OpenAILLMClient} or {@code openai.base-url}.
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    public int requests(String name) {
+        AtomicInteger count = requestCounts.get(name);
+        return count == null ? 0 : count.get();
+    }
+
+    public int totalRequests() {
+        return requestCounts.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    /**
+     * Highest number of requests that were being served at the same time.
+     */
+    public int maxConcurrent() {
+        return maxInFlight.get();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            httpExecutor.shutdownNow();
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonNode body = MAPPER.readTree(exchange.getRequestBody());
+        JsonNode messages = body.path("messages");
+        String prompt = messages.isArray() && !messages.isEmpty()
+                ? messages.get(messages.size() - 1).path("content").asText("") : "";
+        boolean stream = body.path("stream").asBoolean(false);
+
+        Route route = routes.stream().filter(r -> r.matcher.test(prompt)).findFirst().orElse(fallback);
+        requestCounts.computeIfAbsent(route.name, n -> new AtomicInteger()).incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+        long latencyMs;
+        boolean fail;
+        synchronized (random) {
+            latencyMs = Math.round((route.latency != null ? route.latency : defaultLatency).sampleMillis(random) * timeScale);
+            fail = route.errorRate > 0 && random.nextDouble() < route.errorRate;
+        }
+
+        if (fail) {
+            scheduler.schedule(() -> respondError(exchange, route), latencyMs, TimeUnit.MILLISECONDS);
+        } else if (stream) {
+            streamResponse(exchange, route.content, latencyMs);
+        } else {
+            scheduler.schedule(() -> respond(exchange, route.content), latencyMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void respond(HttpExchange exchange, String content) {
+        Map<String, Object> response = Map.of(
+                "id", "chatcmpl-stub",
+                "object", "chat.completion",
+                "choices", List.of(Map.of("index", 0, "finish_reason", "stop",
+                        "message", Map.of("role", "assistant", "content", content))));
+        try {
+            send(exchange, 200, MAPPER.writeValueAsBytes(response));
+        } catch (IOException e) {
+            exchange.close();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void respondError(HttpExchange exchange, Route route) {
+        try {
+            if (route.errorStatus == 429 && route.retryAfterSeconds > 0) {
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(route.retryAfterSeconds));
+            }
+            byte[] body = ("{\"error\":{\"message\":\"Injected stub failure\",\"code\":" + route.errorStatus + "}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            send(exchange, route.errorStatus, body);
+        } catch (IOException e) {
+            exchange.close();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Sends the first delta at 30% of the latency (time to first token) and spreads the rest
+     * evenly over the remainder.
+     */
+    private void streamResponse(HttpExchange exchange, String content, long latencyMs) {
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < content.length(); i += streamChunkChars) {
+            chunks.add(content.substring(i, Math.min(i + streamChunkChars, content.length())));
+        }
+        long firstToken = latencyMs * 3 / 10;
+        long gap = chunks.isEmpty() ? 0 : (latencyMs - firstToken) / chunks.size();
+        scheduler.schedule(() -> {
+            try {
+                exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+                exchange.sendResponseHeaders(200, 0);
+            } catch (IOException e) {
+                exchange.close();
+                inFlight.decrementAndGet();
+                return;
+            }
+            writeChunk(exchange, chunks, 0, gap);
+        }, firstToken, TimeUnit.MILLISECONDS);
+    }
+
+    private void writeChunk(HttpExchange exchange, List<String> chunks, int index, long gap) {
+        OutputStream out = exchange.getResponseBody();
+        try {
+            if (index >= chunks.size()) {
+                out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+                out.close();
+                inFlight.decrementAndGet();
+                return;
+            }
+            Map<String, Object> event = Map.of("choices",
+                    List.of(Map.of("index", 0, "delta", Map.of("content", chunks.get(index)))));
+            out.write(("data: " + MAPPER.writeValueAsString(event) + "\n\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            scheduler.schedule(() -> writeChunk(exchange, chunks, index + 1, gap), gap, TimeUnit.MILLISECONDS);
+        } catch (IOException e) {
+            // Client went away mid-stream
+            exchange.close();
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private Route route(String name) {
+        return routes.stream().filter(r -> r.name.equals(name)).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No stub route named " + name));
+    }
+
+    private List<Route> allRoutes() {
+        List<Route> all = new ArrayList<>(routes);
+        all.add(fallback);
+        return all;
+    }
+
+    /**
+     * Completion latency distribution, in milliseconds.
+     */
+    @FunctionalInterface
+    public interface Latency {
+
+        long sampleMillis(Random random);
+
+        static Latency fixed(long millis) {
+            return r -> millis;
+        }
+
+        static Latency uniform(long minMillis, long maxMillis) {
+            return r -> minMillis + (long) (r.nextDouble() * (maxMillis - minMillis));
+        }
+
+        /**
+         * Right-skewed latencies typical of LLM completions: most near the median, a long tail
+         * up to {@code maxMillis}.
+         */
+        static Latency logNormal(long medianMillis, double sigma, long maxMillis) {
+            return r -> Math.min(maxMillis, Math.round(medianMillis * Math.exp(sigma * r.nextGaussian())));
+        }
+    }
+
+    private static final class Route {
+        final String name;
+        final Predicate<String> matcher;
+        final String content;
+        Latency latency;
+        double errorRate;
+        int errorStatus;
+        int retryAfterSeconds;
+
+        Route(String name, Predicate<String> matcher, String content) {
+            this.name = name;
+            this.matcher = matcher;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.agentictravel.llm;
+
+import com.agentictravel.model.TripRequest;
+import com.agentictravel.services.FlightAgent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the real OpenAILLMClient HTTP path against the local stub server.
+ */
+public class OpenAIStubServerTest {
+
+    private OpenAIStubServer stub;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        stub = new OpenAIStubServer().withTravelAgents().start();
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stub.close();
+        executor.shutdownNow();
+    }
+
+    private OpenAILLMClient client() {
+        return new OpenAILLMClient("sk-stub", "gpt-3.5-turbo", stub.baseUrl(), executor);
+    }
+
+    @Test
+    public void agentsGetTheirScriptedResponses() throws Exception {
+        TripRequest req = new TripRequest();
+        req.tripTitle = "Lisbon";
+        req.days = 3;
+        req.region = "Portugal";
+        req.people = 2;
+
+        Map<String, Object> flights = new FlightAgent(client()).search(req).get(5, TimeUnit.SECONDS);
+        assertEquals("Stub Air", ((Map<?, ?>) flights.get("recommended")).get("carrier"));
+        assertEquals(1, stub.requests("flights"));
+        assertEquals(0, stub.requests("hotels"));
+    }
+
+    @Test
+    public void slowCompletionsDoNotTieUpClientThreads() throws Exception {
+        stub.latency(null, OpenAIStubServer.Latency.uniform(300, 400));
+        OpenAILLMClient client = client();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            calls.add(client.prompt("weather assistant " + i, null));
+        }
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 20 calls of 300-400 ms on a 2-thread client executor: overlapped, not serialized
+        assertTrue(elapsedMs < 2_000, "took " + elapsedMs + " ms");
+        assertEquals(20, stub.requests("weather"));
+        assertTrue(stub.maxConcurrent() > 2, "max concurrent " + stub.maxConcurrent());
+    }
+
+    @Test
+    public void injectedThrottlingCarriesRetryAfter() {
+        stub.errors("hotels", 1.0, 429, 7);
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+            () -> client().prompt("You are a hotel search assistant.", null).get(5, TimeUnit.SECONDS));
+        LLMClientException failure = (LLMClientException) e.getCause();
+        assertEquals(429, failure.getStatusCode());
+        assertTrue(failure.isRetryable());
+        assertEquals(Duration.ofSeconds(7), failure.getRetryAfter());
+    }
+
+    @Test
+    public void latencyDistributionsAreScaledAndBounded() throws Exception {
+        stub.latency("planner", OpenAIStubServer.Latency.logNormal(10_000, 0.5, 30_000)).timeScale(0.01);
+
+        long start = System.nanoTime();
+        String plan = client().prompt("You are an expert travel itinerary planner.", null).get(5, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(plan.contains("dayPlans"));
+        assertTrue(elapsedMs < 1_000, "took " + elapsedMs + " ms");
+    }
+
+    @Test
+    public void streamsScriptedContentAsServerSentEvents() {
+        stub.streamChunkChars(8).latency("questions", OpenAIStubServer.Latency.fixed(100));
+
+        List<String> deltas = client().stream("generate 2-4 clarifying questions", null)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertNotNull(deltas);
+        assertTrue(deltas.size() > 1);
+        assertTrue(String.join("", deltas).startsWith("{\"questions\":"));
+    }
+}
@@ -0,0 +1,174 @@
+package com.agentictravel.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import reactor.core.publisher.Flux;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryingLLMClientTest {
+
+    /**
+     * Replays a script of outcomes: a String completes, a Throwable fails.
+     */
+    private static class ScriptedLLMClient implements LLMClient {
+        private final Deque<Object> script;
+        final AtomicInteger calls = new AtomicInteger();
+
+        ScriptedLLMClient(List<Object> outcomes) {
+            this.script = new ArrayDeque<>(outcomes);
+        }
+
+        @Override
+        public String getName() {
+            return "scripted";
+        }
+
+        @Override
+        public synchronized CompletableFuture<String> prompt(String prompt, String modelName) {
+            calls.incrementAndGet();
+            Object next = script.isEmpty() ? "done" : script.poll();
+            if (next instanceof Throwable t) {
+                return CompletableFuture.failedFuture(t);
+            }
+            return CompletableFuture.completedFuture((String) next);
+        }
+    }
+
+    private static RetryPolicy fastPolicy(int retries) {
+        return new RetryPolicy(retries, Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void retriesThrottlingAndServerErrorsUntilSuccess() throws Exception {
+        ScriptedLLMClient upstream = new ScriptedLLMClient(List.of(
+            new LLMClientException("throttled", 429, null),
+            new LLMClientException("bad gateway", 502, null),
+            "ok"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RetryingLLMClient client = new RetryingLLMClient(upstream, fastPolicy(3), registry);
+
+        assertEquals("ok", client.prompt("p", "gpt-3.5-turbo").get());
+        assertEquals(3, upstream.calls.get());
+        assertEquals(1.0, registry.counter("llm.retries", "model", "gpt-3.5-turbo", "reason", "429").count());
+        assertEquals(1.0, registry.counter("llm.retries", "model", "gpt-3.5-turbo", "reason", "502").count());
+    }
+
+    @Test
+    public void clientErrorsAreNotRetried() {
+        ScriptedLLMClient upstream = new ScriptedLLMClient(List.of(new LLMClientException("bad request", 400, null)));
+        RetryingLLMClient client = new RetryingLLMClient(upstream, fastPolicy(3));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> client.prompt("p", "m").get());
+        assertTrue(e.getCause() instanceof LLMClientException);
+        assertEquals(1, upstream.calls.get());
+    }
+
+    @Test
+    public void givesUpAfterMaxRetries() {
+        LLMClientException unavailable = new LLMClientException("unavailable", 503, null);
+        ScriptedLLMClient upstream = new ScriptedLLMClient(List.of(unavailable, unavailable, unavailable, unavailable));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RetryingLLMClient client = new RetryingLLMClient(upstream, fastPolicy(2), registry);
+
+        assertThrows(ExecutionException.class, () -> client.prompt("p", "m").get());
+        assertEquals(3, upstream.calls.get());
+        assertEquals(1.0, registry.counter("llm.retries.exhausted", "model", "m", "reason", "503").count());
+    }
+
+    @Test
+    public void retryAfterBeyondBudgetFailsFast() {
+        ScriptedLLMClient upstream = new ScriptedLLMClient(List.of(
+            new LLMClientException("throttled", 429, Duration.ofMinutes(5)), "ok"));
+        RetryingLLMClient client = new RetryingLLMClient(upstream, fastPolicy(3));
+
+        assertThrows(ExecutionException.class, () -> client.prompt("p", "m").get());
+        assertEquals(1, upstream.calls.get());
+    }
+
+    @Test
+    public void retryAfterOverridesComputedBackoff() {
+        RetryPolicy policy = new RetryPolicy(3, Duration.ofMillis(100), Duration.ofSeconds(1), Duration.ofSeconds(30), () -> 0.5);
+        assertEquals(Duration.ofMillis(50), policy.nextDelay(1, new LLMClientException("x", 503, null), Duration.ZERO));
+        assertEquals(Duration.ofMillis(100), policy.nextDelay(2, new LLMClientException("x", 503, null), Duration.ZERO));
+        assertNull(policy.nextDelay(4, new LLMClientException("x", 503, null), Duration.ZERO));
+        assertEquals(Duration.ofSeconds(2),
+            policy.nextDelay(1, new LLMClientException("x", 429, Duration.ofSeconds(2)), Duration.ZERO));
+    }
+
+    @Test
+    public void backoffIsCappedAndJittered() {
+        RetryPolicy policy = new RetryPolicy(10, Duration.ofMillis(100), Duration.ofMillis(800), null, () -> 0.999);
+        assertTrue(policy.backoff(10).toMillis() < 800);
+        RetryPolicy low = new RetryPolicy(10, Duration.ofMillis(100), Duration.ofMillis(800), null, () -> 0.0);
+        assertEquals(Duration.ZERO, low.backoff(3));
+    }
+
+    @Test
+    public void parsesRetryAfterFormats() {
+        assertEquals(Duration.ofSeconds(7), RetryPolicy.parseRetryAfter("7"));
+        assertEquals(Duration.ofMillis(1500), RetryPolicy.parseRetryAfter("1.5"));
+        assertEquals(Duration.ofMillis(250), RetryPolicy.parseRetryAfter("250ms"));
+        assertEquals(Duration.ZERO, RetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertNull(RetryPolicy.parseRetryAfter("soon"));
+        assertNull(RetryPolicy.parseRetryAfter(null));
+    }
+
+    @Test
+    public void cancellationStopsRetrying() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        LLMClient alwaysThrottled = new LLMClient() {
+            @Override
+            public String getName() {
+                return "throttled";
+            }
+
+            @Override
+            public CompletableFuture<String> prompt(String prompt, String modelName) {
+                calls.incrementAndGet();
+                return CompletableFuture.failedFuture(new LLMClientException("throttled", 429, Duration.ofMillis(50)));
+            }
+        };
+        RetryingLLMClient client = new RetryingLLMClient(alwaysThrottled, fastPolicy(5));
+        CompletableFuture<String> result = client.prompt("p", "m");
+        result.cancel(true);
+        Thread.sleep(200);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void streamsAreRetriedOnlyBeforeTheirFirstDelta() {
+        AtomicInteger streams = new AtomicInteger();
+        LLMClient upstream = new FakeLLMClient("unused") {
+            @Override
+            public Flux<String> stream(String prompt, String modelName) {
+                return switch (streams.incrementAndGet()) {
+                    case 1 -> Flux.error(new LLMClientException("unavailable", 503, null));
+                    case 2 -> Flux.just("{\"a\"", ":1}");
+                    default -> Flux.concat(Flux.just("{\"b\""), Flux.error(new LLMClientException("reset", 502, null)));
+                };
+            }
+        };
+        RetryingLLMClient client = new RetryingLLMClient(upstream, fastPolicy(3));
+
+        assertEquals(List.of("{\"a\"", ":1}"), client.stream("p", "m").collectList().block(Duration.ofSeconds(5)));
+        assertEquals(2, streams.get());
+
+        // A delta was already delivered, so the failure cannot be hidden by starting over
+        List<String> seen = new ArrayList<>();
+        LLMClientException e = assertThrows(LLMClientException.class,
+            () -> client.stream("p", "m").doOnNext(seen::add).blockLast(Duration.ofSeconds(5)));
+        assertEquals(502, e.getStatusCode());
+        assertEquals(List.of("{\"b\""), seen);
+        assertEquals(3, streams.get());
+    }
+}
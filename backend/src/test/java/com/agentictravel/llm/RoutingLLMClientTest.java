@@ -0,0 +1,160 @@
+package com.agentictravel.llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoutingLLMClientTest {
+
+    private static final RoutingLLMClient.Policy POLICY =
+        new RoutingLLMClient.Policy(0.5, 0.5, 3, 3, Duration.ofSeconds(30));
+
+    /**
+     * Completes each call after a fixed (fake-clock) latency, optionally with a failure.
+     */
+    private static class ScriptedLLMClient implements LLMClient {
+        final AtomicLong clock;
+        final long latencyMs;
+        volatile int failStatus;
+        final AtomicInteger calls = new AtomicInteger();
+
+        ScriptedLLMClient(AtomicLong clock, long latencyMs) {
+            this.clock = clock;
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public String getName() {
+            return "scripted";
+        }
+
+        @Override
+        public CompletableFuture<String> prompt(String prompt, String modelName) {
+            calls.incrementAndGet();
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMs));
+            if (failStatus != 0) {
+                return CompletableFuture.failedFuture(new LLMClientException("failed", failStatus, null));
+            }
+            return CompletableFuture.completedFuture("ok:" + latencyMs);
+        }
+    }
+
+    @Test
+    public void prefersTheFasterEndpointOnceBothAreProbed() {
+        AtomicLong clock = new AtomicLong();
+        ScriptedLLMClient slow = new ScriptedLLMClient(clock, 800);
+        ScriptedLLMClient fast = new ScriptedLLMClient(clock, 100);
+        RoutingLLMClient client = new RoutingLLMClient(List.of(
+            new RoutingLLMClient.Target("slow", slow), new RoutingLLMClient.Target("fast", fast)),
+            POLICY, null, clock::get);
+
+        for (int i = 0; i < 10; i++) {
+            client.prompt("p", "m").join();
+        }
+        assertEquals(1, slow.calls.get());
+        assertEquals(9, fast.calls.get());
+    }
+
+    @Test
+    public void ejectsAFailingEndpointAndReadmitsItLater() {
+        AtomicLong clock = new AtomicLong();
+        ScriptedLLMClient a = new ScriptedLLMClient(clock, 100);
+        ScriptedLLMClient b = new ScriptedLLMClient(clock, 300);
+        RoutingLLMClient client = new RoutingLLMClient(List.of(
+            new RoutingLLMClient.Target("a", a), new RoutingLLMClient.Target("b", b)),
+            POLICY, null, clock::get);
+
+        client.prompt("p", "m").join();
+        client.prompt("p", "m").join();
+        assertEquals("a", client.peek());
+
+        a.failStatus = 503;
+        for (int i = 0; i < 3 && "a".equals(client.peek()); i++) {
+            client.prompt("p", "m").exceptionally(e -> null).join();
+        }
+        assertEquals("b", client.peek());
+
+        // Still ejected: all traffic goes to b even though a was faster
+        for (int i = 0; i < 5; i++) {
+            assertEquals("ok:300", client.prompt("p", "m").join());
+        }
+
+        a.failStatus = 0;
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        client.prompt("p", "m").join();
+        client.prompt("p", "m").join();
+        assertTrue(a.calls.get() >= 4, "a should be probed again after its ejection expires");
+    }
+
+    @Test
+    public void aFastFirstFailureDoesNotMakeAnEndpointLookFast() {
+        AtomicLong clock = new AtomicLong();
+        ScriptedLLMClient broken = new ScriptedLLMClient(clock, 5);
+        ScriptedLLMClient working = new ScriptedLLMClient(clock, 300);
+        broken.failStatus = 503;
+        RoutingLLMClient client = new RoutingLLMClient(List.of(
+            new RoutingLLMClient.Target("broken", broken), new RoutingLLMClient.Target("working", working)),
+            POLICY, null, clock::get);
+
+        client.prompt("p", "m").exceptionally(e -> null).join();
+        client.prompt("p", "m").join();
+        assertEquals("working", client.peek());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("ok:300", client.prompt("p", "m").join());
+        }
+        assertEquals(1, broken.calls.get());
+    }
+
+    @Test
+    public void requestErrorsDoNotCountAgainstTheEndpoint() {
+        AtomicLong clock = new AtomicLong();
+        ScriptedLLMClient a = new ScriptedLLMClient(clock, 100);
+        ScriptedLLMClient b = new ScriptedLLMClient(clock, 300);
+        RoutingLLMClient client = new RoutingLLMClient(List.of(
+            new RoutingLLMClient.Target("a", a), new RoutingLLMClient.Target("b", b)),
+            POLICY, null, clock::get);
+        client.prompt("p", "m").join();
+        client.prompt("p", "m").join();
+
+        a.failStatus = 400;
+        for (int i = 0; i < 5; i++) {
+            client.prompt("p", "m").exceptionally(e -> null).join();
+        }
+        assertEquals("a", client.peek());
+    }
+
+    @Test
+    public void routesAcrossLocalHttpStubs() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (OpenAIStubServer down = new OpenAIStubServer().errors(null, 1.0, 401, 0).start();
+             OpenAIStubServer up = new OpenAIStubServer().script("up", p -> true, "{\"from\":\"up\"}").start()) {
+            RoutingLLMClient client = new RoutingLLMClient(List.of(
+                new RoutingLLMClient.Target("down", new OpenAILLMClient("sk-test-down", "gpt-3.5-turbo", down.baseUrl(), executor)),
+                new RoutingLLMClient.Target("up", new OpenAILLMClient("sk-test-up", "gpt-3.5-turbo", up.baseUrl(), executor))),
+                POLICY);
+            int ok = 0;
+            for (int i = 0; i < 10; i++) {
+                try {
+                    assertEquals("{\"from\":\"up\"}", client.prompt("hi", null).get(5, TimeUnit.SECONDS));
+                    ok++;
+                } catch (ExecutionException e) {
+                    // the endpoint with the bad key fails until it is ejected
+                }
+            }
+            assertTrue(down.totalRequests() <= 3, "bad-key endpoint hit " + down.totalRequests() + " times");
+            assertTrue(ok >= 7);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.agentictravel.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightLLMClientTest {
+
+    private static class ManualLLMClient implements LLMClient {
+        final List<CompletableFuture<String>> calls = new ArrayList<>();
+
+        @Override
+        public String getName() {
+            return "manual";
+        }
+
+        @Override
+        public synchronized CompletableFuture<String> prompt(String prompt, String modelName) {
+            CompletableFuture<String> f = new CompletableFuture<>();
+            calls.add(f);
+            return f;
+        }
+    }
+
+    @Test
+    public void concurrentIdenticalPromptsShareOneUpstreamCall() throws Exception {
+        ManualLLMClient upstream = new ManualLLMClient();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SingleFlightLLMClient client = new SingleFlightLLMClient(upstream, registry);
+
+        CompletableFuture<String> a = client.prompt("flights to Lisbon", "m");
+        CompletableFuture<String> b = client.prompt("flights to Lisbon", "m");
+        CompletableFuture<String> other = client.prompt("flights to Lisbon", "other-model");
+
+        assertEquals(2, upstream.calls.size());
+        upstream.calls.get(0).complete("shared");
+        assertEquals("shared", a.get(1, TimeUnit.SECONDS));
+        assertEquals("shared", b.get(1, TimeUnit.SECONDS));
+        assertFalse(other.isDone());
+        assertEquals(1.0, registry.counter("llm.singleflight.requests", "model", "m", "result", "shared").count());
+
+        // Once completed, the next call goes upstream again
+        client.prompt("flights to Lisbon", "m");
+        assertEquals(3, upstream.calls.size());
+    }
+
+    @Test
+    public void failuresAreSharedToo() {
+        ManualLLMClient upstream = new ManualLLMClient();
+        SingleFlightLLMClient client = new SingleFlightLLMClient(upstream);
+
+        CompletableFuture<String> a = client.prompt("p", "m");
+        CompletableFuture<String> b = client.prompt("p", "m");
+        upstream.calls.get(0).completeExceptionally(new LLMClientException("boom", 500, null));
+
+        ExecutionException ea = assertThrows(ExecutionException.class, () -> a.get(1, TimeUnit.SECONDS));
+        ExecutionException eb = assertThrows(ExecutionException.class, () -> b.get(1, TimeUnit.SECONDS));
+        assertEquals("boom", ea.getCause().getMessage());
+        assertEquals("boom", eb.getCause().getMessage());
+        assertEquals(0, client.inFlight());
+    }
+
+    @Test
+    public void cancellationIsReferenceCounted() throws Exception {
+        ManualLLMClient upstream = new ManualLLMClient();
+        SingleFlightLLMClient client = new SingleFlightLLMClient(upstream);
+
+        CompletableFuture<String> a = client.prompt("p", "m");
+        CompletableFuture<String> b = client.prompt("p", "m");
+
+        a.cancel(true);
+        assertFalse(upstream.calls.get(0).isCancelled());
+        upstream.calls.get(0).complete("still useful");
+        assertEquals("still useful", b.get(1, TimeUnit.SECONDS));
+
+        CompletableFuture<String> c = client.prompt("q", "m");
+        CompletableFuture<String> d = client.prompt("q", "m");
+        c.cancel(true);
+        d.cancel(true);
+        assertTrue(upstream.calls.get(1).isCancelled());
+        assertEquals(0, client.inFlight());
+
+        // A fresh caller after everyone gave up starts a new call
+        client.prompt("q", "m");
+        assertEquals(3, upstream.calls.size());
+    }
+
+    @Test
+    public void concurrentIdenticalStreamsShareOneUpstreamStream() throws Exception {
+        AtomicInteger streams = new AtomicInteger();
+        Sinks.Many<String> answer = Sinks.many().unicast().onBackpressureBuffer();
+        SingleFlightLLMClient client = new SingleFlightLLMClient(new FakeLLMClient("unused") {
+            @Override
+            public Flux<String> stream(String prompt, String modelName) {
+                streams.incrementAndGet();
+                return answer.asFlux();
+            }
+        });
+
+        CompletableFuture<List<String>> first = client.stream("p", "m").collectList().toFuture();
+        answer.tryEmitNext("a");
+        // A caller joining late is replayed what it missed
+        CompletableFuture<List<String>> second = client.stream("p", "m").collectList().toFuture();
+        answer.tryEmitNext("b");
+        answer.tryEmitComplete();
+
+        assertEquals(List.of("a", "b"), first.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("a", "b"), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, streams.get());
+    }
+}
@@ -0,0 +1,79 @@
+package com.agentictravel.llm;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenCounterTest {
+
+    @Test
+    public void countsCloseToCl100kForCommonText() {
+        assertEquals(0, TokenCounter.count(""));
+        assertEquals(2, TokenCounter.count("Hello world"));
+        assertEquals(9, TokenCounter.count("The quick brown fox jumps over the lazy dog"));
+        // Digits are split into groups of at most three
+        assertEquals(3, TokenCounter.count("1234567"));
+    }
+
+    @Test
+    public void staysCloseToCl100kForJsonAndNonLatinText() {
+        String json = "{\"flights\":[{\"airline\":\"TAP\",\"price\":\"420 EUR\"}]}";
+        int tokens = TokenCounter.count(json);
+        // cl100k encodes this in 19 tokens
+        assertTrue(tokens >= 19 && tokens <= 30, "tokens=" + tokens);
+        assertTrue(TokenCounter.count("東京の天気") >= 5);
+    }
+
+    @Test
+    public void maxOutputTokensKeepsTheCapAndLeavesMarginInTheWindow() {
+        assertEquals(2_000, TokenCounter.maxOutputTokens("gpt-3.5-turbo", 1_000, 2_000, 256));
+        assertEquals(4_096, TokenCounter.maxOutputTokens("gpt-3.5-turbo", 1_000, 100_000, 256));
+        // 15% on top of the 13,000-token estimate leaves 1,435 of the 16,385-token window
+        assertEquals(1_435, TokenCounter.maxOutputTokens("gpt-3.5-turbo", 13_000, 2_000, 256));
+        assertEquals(256, TokenCounter.maxOutputTokens("gpt-3.5-turbo", 16_300, 2_000, 256));
+        assertEquals(100, TokenCounter.maxOutputTokens("gpt-3.5-turbo", 1_000, 100, 256));
+        assertEquals(16_384, TokenCounter.maxOutputTokens("gpt-4o-mini", 1_000, 20_000, 256));
+    }
+
+    @Test
+    public void safeBudgetLeavesRoomForUndercounting() {
+        assertEquals(10_000, TokenCounter.safeBudget(11_500));
+        assertTrue(TokenCounter.withMargin(TokenCounter.safeBudget(16_385)) <= 16_385);
+    }
+
+    @Test
+    public void truncateRespectsTheTokenLimit() {
+        String text = "word ".repeat(500);
+        String cut = TokenCounter.truncate(text, 100);
+        assertTrue(TokenCounter.count(cut) <= 100);
+        assertTrue(cut.endsWith("[truncated]"));
+        assertSame(text, TokenCounter.truncate(text, 1_000));
+    }
+
+    @Test
+    public void budgetTrimsLowestPrioritySectionsFirst() {
+        String big = "hotel option ".repeat(200);
+        PromptBudget.Result result = new PromptBudget(300)
+                .section("events", "museum tour, food walk", 5)
+                .section("hotels", big, 4)
+                .section("transport", big, 1)
+                .fit();
+
+        assertTrue(result.totalTokens() <= 300);
+        assertEquals("museum tour, food walk", result.get("events"));
+        assertEquals(PromptBudget.OMITTED, result.get("transport"));
+        assertTrue(result.get("hotels").endsWith("[truncated]"));
+        assertEquals(java.util.List.of("transport", "hotels"), result.trimmed());
+    }
+
+    @Test
+    public void budgetLeavesFittingSectionsAlone() {
+        PromptBudget.Result result = new PromptBudget(1_000)
+                .section("weather", "sunny, 24C", 3)
+                .section("flights", null, 2)
+                .fit();
+        assertEquals("sunny, 24C", result.get("weather"));
+        assertEquals("", result.get("flights"));
+        assertTrue(result.trimmed().isEmpty());
+    }
+}
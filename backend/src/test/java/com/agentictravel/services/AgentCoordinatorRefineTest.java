@@ -1,9 +1,16 @@
 package com.agentictravel.services;
 
 import com.agentictravel.llm.FakeLLMClient;
+import com.agentictravel.llm.LLMClient;
+import com.agentictravel.model.Booking;
+import com.agentictravel.model.Itinerary;
 import com.agentictravel.model.TripRequest;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,4 +44,56 @@ public class AgentCoordinatorRefineTest {
         // notes_parsed should be present when JSON parsed
         assertTrue(rec.containsKey("notes_parsed") || flightsMap.containsKey("notes_parsed"));
     }
+
+    @Test
+    public void refineReusesSearchResultsTheAmendmentsLeaveAlone() throws Exception {
+        FakeLLMClient fake = new FakeLLMClient("OK");
+        List<String> prompts = new CopyOnWriteArrayList<>();
+        LLMClient counting = new LLMClient() {
+            @Override
+            public String getName() {
+                return "counting";
+            }
+
+            @Override
+            public CompletableFuture<String> prompt(String prompt, String modelName) {
+                prompts.add(prompt);
+                return fake.prompt(prompt, modelName);
+            }
+        };
+        AgentCoordinator coordinator = new AgentCoordinator(counting);
+
+        Itinerary previous = new Itinerary();
+        previous.dayPlans = List.of();
+        previous.bookings = new Booking();
+        previous.bookings.flights = Map.of("recommended", Map.of("carrier", "KeptAir"));
+        previous.bookings.transport = Map.of("recommended", Map.of("type", "train"));
+        previous.bookings.hotels = Map.of("recommended", Map.of("name", "Old Hotel"));
+        previous.events = List.of(Map.of("title", "Walking tour"));
+        previous.weather = Map.of("summary", "mild");
+
+        TripRequest req = new TripRequest();
+        req.tripTitle = "Reuse Test";
+        req.days = 3;
+        req.region = "Testland";
+        req.people = 2;
+        req.previousItinerary = previous;
+
+        req.amendments = "More relaxing on day 3";
+        Itinerary relaxed = coordinator.generateItinerary(req).get();
+        assertEquals(1, prompts.size(), "only the planner should run");
+        assertTrue(prompts.get(0).contains("Refine the following itinerary"));
+        assertEquals("KeptAir", ((Map<?, ?>) relaxed.bookings.flights.get("recommended")).get("carrier"));
+        assertEquals(previous.events, relaxed.events);
+
+        prompts.clear();
+        req.amendments = "A cheaper hotel please";
+        Itinerary cheaper = coordinator.generateItinerary(req).get();
+        assertEquals(2, prompts.size());
+        assertTrue(prompts.stream().anyMatch(p -> p.contains("hotel search assistant")));
+        // The fresh hotel results are handed to the planner
+        assertTrue(prompts.stream().anyMatch(p -> p.contains("Updated Resources") && p.contains("- hotels: ")));
+        assertNotEquals(previous.bookings.hotels, cheaper.bookings.hotels);
+        assertEquals(previous.weather, cheaper.weather);
+    }
 }
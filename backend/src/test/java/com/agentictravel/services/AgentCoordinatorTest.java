@@ -1,10 +1,22 @@
 package com.agentictravel.services;
 
+import com.agentictravel.config.AgentConfig;
 import com.agentictravel.llm.FakeLLMClient;
+import com.agentictravel.llm.LLMClient;
+import com.agentictravel.llm.LLMClientException;
+import com.agentictravel.llm.LLMLoadTracker;
+import com.agentictravel.llm.LoadTrackingLLMClient;
 import com.agentictravel.model.TripRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,4 +36,288 @@ public class AgentCoordinatorTest {
         assertNotNull(it);
         assertNotNull(it.bookings);
     }
+
+    @Test
+    public void slowAndFailingAgentsDegradeTheirSectionOnly() throws Exception {
+        FakeLLMClient fake = new FakeLLMClient("OK");
+        LLMClient llm = new LLMClient() {
+            @Override
+            public String getName() {
+                return "partial";
+            }
+
+            @Override
+            public CompletableFuture<String> prompt(String prompt, String modelName) {
+                if (prompt.contains("events and activities assistant")) {
+                    return new CompletableFuture<>(); // never completes
+                }
+                if (prompt.contains("weather assistant")) {
+                    return CompletableFuture.failedFuture(new LLMClientException("upstream 503", 503, null));
+                }
+                return fake.prompt(prompt, modelName);
+            }
+        };
+        AgentConfig config = new AgentConfig();
+        config.getEvent().setTimeout(1);
+        AgentCoordinator coordinator = new AgentCoordinator(llm, config);
+
+        TripRequest req = new TripRequest();
+        req.tripTitle = "Deadline Test";
+        req.days = 2;
+        req.region = "Nowhere";
+        req.people = 1;
+
+        List<String> seen = new CopyOnWriteArrayList<>();
+        ItineraryListener listener = new ItineraryListener() {
+            @Override
+            public void onSection(String section, Object data) {
+                seen.add(section);
+            }
+
+            @Override
+            public void onDegraded(String section, String note) {
+                seen.add("degraded:" + section);
+            }
+        };
+
+        long start = System.nanoTime();
+        var it = coordinator.generateItinerary(req, listener).get(10, TimeUnit.SECONDS);
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+
+        assertNotNull(it.bookings);
+        assertNotNull(it.dayPlans);
+        assertTrue(it.events.isEmpty());
+        assertTrue(it.notesParsingErrors.contains(AgentCoordinator.DEGRADED_SECTION + "events (timed out after 1 s)"));
+        assertTrue(it.notesParsingErrors.stream()
+            .anyMatch(n -> n.startsWith(AgentCoordinator.DEGRADED_SECTION + "weather (failed:")));
+        assertEquals(2, it.notesParsingErrors.size());
+
+        assertTrue(seen.containsAll(List.of("flights", "transport", "hotels", "degraded:weather", "degraded:events")));
+        assertEquals("dayPlans", seen.get(seen.size() - 1));
+    }
+
+    @Test
+    public void fusedSearchReplacesThreeBookingCallsAndFallsBackWhenUnparseable() throws Exception {
+        String fusedAnswer = "{\"flights\":{\"recommended\":{\"carrier\":\"FusedAir\"}},"
+            + "\"hotels\":{\"recommended\":{\"name\":\"Fused Inn\"}},"
+            + "\"transport\":{\"recommended\":{\"type\":\"tram\"}}}";
+        FakeLLMClient fake = new FakeLLMClient("OK");
+        List<String> prompts = new CopyOnWriteArrayList<>();
+        String[] fused = {fusedAnswer};
+        LLMClient llm = new LLMClient() {
+            @Override
+            public String getName() {
+                return "fused";
+            }
+
+            @Override
+            public CompletableFuture<String> prompt(String prompt, String modelName) {
+                prompts.add(prompt);
+                if (prompt.contains("combined travel search assistant")) {
+                    return CompletableFuture.completedFuture(fused[0]);
+                }
+                return fake.prompt(prompt, modelName);
+            }
+        };
+        AgentConfig config = new AgentConfig();
+        config.getFusedSearch().setEnabled(true);
+        AgentCoordinator coordinator = new AgentCoordinator(llm, config);
+
+        TripRequest req = new TripRequest();
+        req.tripTitle = "Fused Test";
+        req.days = 2;
+        req.region = "Nowhere";
+        req.people = 1;
+
+        var it = coordinator.generateItinerary(req).get(10, TimeUnit.SECONDS);
+        // fused search, events, weather and the planner
+        assertEquals(4, prompts.size());
+        assertEquals("FusedAir", ((java.util.Map<?, ?>) it.bookings.flights.get("recommended")).get("carrier"));
+        assertEquals("Fused Inn", ((java.util.Map<?, ?>) it.bookings.hotels.get("recommended")).get("name"));
+        assertTrue(it.notesParsingErrors.isEmpty());
+
+        // A section the answer left out is searched on its own; the others are kept
+        prompts.clear();
+        fused[0] = "{\"flights\":{\"recommended\":{\"carrier\":\"FusedAir\"}},"
+            + "\"hotels\":{\"recommended\":{\"name\":\"Fused Inn\"}}}";
+        it = coordinator.generateItinerary(req).get(10, TimeUnit.SECONDS);
+        assertEquals(5, prompts.size());
+        assertTrue(prompts.stream().anyMatch(p -> p.contains("transport search assistant")));
+        assertFalse(prompts.stream().anyMatch(p -> p.contains("flight search assistant")));
+        assertEquals("FusedAir", ((java.util.Map<?, ?>) it.bookings.flights.get("recommended")).get("carrier"));
+        assertFalse(it.bookings.transport.isEmpty());
+        assertTrue(it.notesParsingErrors.isEmpty());
+
+        prompts.clear();
+        fused[0] = "not json";
+        it = coordinator.generateItinerary(req).get(10, TimeUnit.SECONDS);
+        assertEquals(7, prompts.size());
+        assertTrue(prompts.stream().anyMatch(p -> p.contains("flight search assistant")));
+        assertFalse(it.bookings.flights.isEmpty());
+        assertTrue(it.notesParsingErrors.isEmpty());
+    }
+
+    @Test
+    public void aStalledFusedSearchLeavesItsFallbacksAndThePlannerTimeWithinTheDeadline() throws Exception {
+        FakeLLMClient fake = new FakeLLMClient("OK");
+        LLMClient llm = new LLMClient() {
+            @Override
+            public String getName() {
+                return "stalled";
+            }
+
+            @Override
+            public CompletableFuture<String> prompt(String prompt, String modelName) {
+                return prompt.contains("combined travel search assistant")
+                    ? new CompletableFuture<>() : fake.prompt(prompt, modelName);
+            }
+        };
+        // Taken one after the other the timeouts add up to 6 s: 4 fused, 1 fallback, 1 planner
+        AgentConfig config = new AgentConfig();
+        config.setItineraryDeadline(3);
+        config.getFusedSearch().setEnabled(true);
+        config.getFusedSearch().setTimeout(4);
+        config.getFlight().setTimeout(1);
+        config.getHotel().setTimeout(1);
+        config.getTransport().setTimeout(1);
+        config.getPlanner().setTimeout(1);
+
+        TripRequest req = new TripRequest();
+        req.tripTitle = "Deadline Test";
+        req.days = 1;
+        req.region = "Nowhere";
+        req.people = 1;
+
+        long start = System.nanoTime();
+        var it = new AgentCoordinator(llm, config).generateItinerary(req).get(10, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // The fused search got what the fallback and planner did not need: about 1 s, not 4
+        assertTrue(elapsedMillis < 3000, elapsedMillis + " ms");
+        assertFalse(it.bookings.flights.isEmpty());
+        assertFalse(it.dayPlans.isEmpty());
+        assertTrue(it.notesParsingErrors.isEmpty(), it.notesParsingErrors.toString());
+    }
+
+    @Test
+    public void sectionsArePublishedWithTheirNotesAlreadyParsed() throws Exception {
+        String flights = "{\"options\": [{\"carrier\": \"A\", \"notes\": \"{\\\"seat\\\": \\\"aisle\\\"}\"},"
+            + " {\"carrier\": \"B\", \"notes\": \"{broken\"}]}";
+        FakeLLMClient fake = new FakeLLMClient("OK");
+        LLMClient llm = new LLMClient() {
+            @Override
+            public String getName() {
+                return "notes";
+            }
+
+            @Override
+            public CompletableFuture<String> prompt(String prompt, String modelName) {
+                return prompt.contains("flight search assistant")
+                    ? CompletableFuture.completedFuture(flights) : fake.prompt(prompt, modelName);
+            }
+        };
+        ObjectMapper writer = new ObjectMapper();
+        List<String> published = new CopyOnWriteArrayList<>();
+        ItineraryListener listener = new ItineraryListener() {
+            @Override
+            public void onSection(String section, Object data) {
+                if ("flights".equals(section)) {
+                    try {
+                        published.add(writer.writeValueAsString(data));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+        };
+
+        TripRequest req = new TripRequest();
+        req.tripTitle = "Notes Test";
+        req.days = 1;
+        req.region = "Nowhere";
+        req.people = 1;
+        var it = new AgentCoordinator(llm).generateItinerary(req, listener).get(10, TimeUnit.SECONDS);
+
+        // What the stream sent is what the itinerary holds: nothing was added to the map afterwards
+        assertEquals(1, published.size());
+        assertEquals(published.get(0), writer.writeValueAsString(it.bookings.flights));
+        assertTrue(published.get(0).contains("\"notes_parsed\":{\"seat\":\"aisle\"}"), published.get(0));
+        // Notes that are not JSON get no notes_parsed at all, not a null one
+        assertEquals(1, published.get(0).split("notes_parsed", -1).length - 1);
+    }
+
+    @Test
+    public void cancellingTheItineraryCancelsTheLLMCallsInFlight() throws Exception {
+        List<CompletableFuture<String>> calls = new CopyOnWriteArrayList<>();
+        LLMClient pending = new LLMClient() {
+            @Override
+            public String getName() {
+                return "pending";
+            }
+
+            @Override
+            public CompletableFuture<String> prompt(String prompt, String modelName) {
+                CompletableFuture<String> call = new CompletableFuture<>();
+                calls.add(call);
+                return call;
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LLMLoadTracker tracker = new LLMLoadTracker(10, registry);
+        AgentCoordinator coordinator = new AgentCoordinator(new LoadTrackingLLMClient(pending, tracker));
+
+        TripRequest req = new TripRequest();
+        req.tripTitle = "Abandoned";
+        req.days = 2;
+        req.region = "Nowhere";
+        req.people = 1;
+
+        CompletableFuture<?> itinerary = coordinator.generateItinerary(req);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls.size() < 5 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(5, calls.size());
+
+        itinerary.cancel(true);
+        // Every search is aborted and the planner never starts
+        assertTrue(calls.stream().allMatch(CompletableFuture::isCancelled));
+        assertEquals(0, tracker.getInFlight());
+        assertEquals(5.0, registry.get("llm.calls.cancelled").counter().count());
+        Thread.sleep(50);
+        assertEquals(5, calls.size());
+    }
+
+    @Test
+    public void questionsThatTimeOutCancelTheirLLMCall() {
+        List<CompletableFuture<String>> calls = new CopyOnWriteArrayList<>();
+        LLMClient pending = new LLMClient() {
+            @Override
+            public String getName() {
+                return "pending";
+            }
+
+            @Override
+            public CompletableFuture<String> prompt(String prompt, String modelName) {
+                CompletableFuture<String> call = new CompletableFuture<>();
+                calls.add(call);
+                return call;
+            }
+        };
+        AgentConfig config = new AgentConfig();
+        config.getQuestion().setTimeout(1);
+        AgentCoordinator coordinator = new AgentCoordinator(pending, config);
+
+        TripRequest req = new TripRequest();
+        req.tripTitle = "Slow questions";
+        req.days = 2;
+        req.region = "Nowhere";
+        req.people = 1;
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+            () -> coordinator.generateQuestions(req).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals(1, calls.size());
+        assertTrue(calls.get(0).isCancelled());
+    }
 }
@@ -0,0 +1,156 @@
+package com.agentictravel.services;
+
+import com.agentictravel.llm.Futures;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AgentGraphTest {
+
+    @Test
+    public void dependentNodesConsumeTheirInputsAsSoonAsTheyAreReady() throws Exception {
+        CompletableFuture<Object> weather = new CompletableFuture<>();
+        CompletableFuture<Object> flights = new CompletableFuture<>();
+        List<String> startOrder = new CopyOnWriteArrayList<>();
+
+        AgentGraph graph = new AgentGraph()
+            .add(new AgentGraph.Node("weather", in -> {
+                startOrder.add("weather");
+                return weather;
+            }))
+            .add(new AgentGraph.Node("flights", in -> {
+                startOrder.add("flights");
+                return flights;
+            }))
+            .add(new AgentGraph.Node("events", in -> {
+                startOrder.add("events");
+                return CompletableFuture.completedFuture("events for " + in.get("weather"));
+            }).inputs("weather"))
+            .add(new AgentGraph.Node("plan", in ->
+                CompletableFuture.completedFuture(in.get("events") + " / " + in.get("flights")))
+                .inputs("events", "flights"));
+
+        CompletableFuture<AgentGraph.Results> run = graph.run(AgentGraph.Listener.NONE);
+        assertEquals(List.of("weather", "flights"), startOrder);
+
+        weather.complete("sun");
+        // events starts without waiting for the unrelated flights node
+        assertEquals(List.of("weather", "flights", "events"), startOrder);
+        assertFalse(run.isDone());
+
+        flights.complete("LIS");
+        AgentGraph.Results results = run.get(1, TimeUnit.SECONDS);
+        assertEquals("events for sun / LIS", results.get("plan"));
+        assertEquals(4, results.timings().size());
+        assertEquals(List.of("flights", "plan"), results.criticalPath());
+    }
+
+    @Test
+    public void readyNodesStartHighestPriorityFirst() {
+        List<String> startOrder = new CopyOnWriteArrayList<>();
+        AgentGraph graph = new AgentGraph();
+        for (String name : List.of("low", "high", "mid")) {
+            int priority = name.equals("high") ? 10 : name.equals("mid") ? 5 : 0;
+            graph.add(new AgentGraph.Node(name, in -> {
+                startOrder.add(name);
+                return CompletableFuture.completedFuture(name);
+            }).priority(priority));
+        }
+        graph.run(AgentGraph.Listener.NONE).join();
+        assertEquals(List.of("high", "mid", "low"), startOrder);
+    }
+
+    @Test
+    public void failedAndSlowNodesContinueWithTheirFallback() throws Exception {
+        List<String> failures = new CopyOnWriteArrayList<>();
+        AgentGraph.Listener listener = new AgentGraph.Listener() {
+            @Override
+            public void onFailed(String node, Throwable cause, Duration elapsed) {
+                failures.add(node + ":" + (cause instanceof TimeoutException ? cause.getMessage() : "failed"));
+            }
+        };
+        AgentGraph graph = new AgentGraph()
+            .add(new AgentGraph.Node("slow", in -> new CompletableFuture<>()).timeout(1).fallback(e -> "late"))
+            .add(new AgentGraph.Node("broken", in -> {
+                throw new IllegalStateException("boom");
+            }))
+            .add(new AgentGraph.Node("plan", in ->
+                CompletableFuture.completedFuture(in.get("slow") + "," + in.get("broken")))
+                .inputs("slow", "broken"));
+
+        AgentGraph.Results results = graph.run(listener).get(5, TimeUnit.SECONDS);
+        assertEquals("late,null", results.get("plan"));
+        assertTrue(failures.contains("slow:timed out after 1 s"));
+        assertTrue(failures.contains("broken:failed"));
+    }
+
+    @Test
+    public void aBudgetCutsTimeoutsSoLaterStagesStillGetTheirTime() throws Exception {
+        List<String> failures = new CopyOnWriteArrayList<>();
+        AgentGraph.Listener listener = new AgentGraph.Listener() {
+            @Override
+            public void onFailed(String node, Throwable cause, Duration elapsed) {
+                failures.add(node + ":" + cause.getMessage());
+            }
+        };
+        // A clock that stands still: the cuts depend on the budget and the timeouts alone
+        AgentGraph graph = new AgentGraph(() -> 0L)
+            .budget(Duration.ofSeconds(2))
+            .add(new AgentGraph.Node("search", in -> new CompletableFuture<>()).timeout(5).fallback(e -> "late"))
+            .add(new AgentGraph.Node("side", in -> new CompletableFuture<>()).timeout(5))
+            .add(new AgentGraph.Node("plan", in -> new CompletableFuture<>()).inputs("search").timeout(1));
+
+        long start = System.nanoTime();
+        AgentGraph.Results results = graph.run(listener).get(5, TimeUnit.SECONDS);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 3000);
+        // search leaves plan its second; side has nothing after it and gets the whole budget
+        assertTrue(failures.contains("search:timed out after 1 s"), failures.toString());
+        assertTrue(failures.contains("plan:timed out after 1 s"), failures.toString());
+        assertTrue(failures.contains("side:timed out after 2 s"), failures.toString());
+        assertEquals("late", results.get("search"));
+    }
+
+    @Test
+    public void rejectsCyclesAndUnknownInputs() {
+        AgentGraph cyclic = new AgentGraph()
+            .add(new AgentGraph.Node("a", in -> null).inputs("b"))
+            .add(new AgentGraph.Node("b", in -> null).inputs("a"));
+        assertThrows(IllegalArgumentException.class, () -> cyclic.run(AgentGraph.Listener.NONE));
+
+        AgentGraph dangling = new AgentGraph().add(new AgentGraph.Node("a", in -> null).inputs("missing"));
+        assertThrows(IllegalArgumentException.class, () -> dangling.run(AgentGraph.Listener.NONE));
+
+        AgentGraph graph = new AgentGraph().add(new AgentGraph.Node("a", in -> null));
+        assertThrows(IllegalArgumentException.class, () -> graph.add(new AgentGraph.Node("a", in -> null)));
+    }
+
+    @Test
+    public void cancellingTheRunCancelsRunningNodes() {
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        AgentGraph graph = new AgentGraph()
+            .add(new AgentGraph.Node("a", in -> call))
+            .add(new AgentGraph.Node("b", in -> CompletableFuture.completedFuture("x")).inputs("a"));
+
+        graph.run(AgentGraph.Listener.NONE).cancel(true);
+        assertTrue(call.isCancelled());
+    }
+
+    @Test
+    public void aNodeThatTimesOutIsCancelled() throws Exception {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        AgentGraph graph = new AgentGraph()
+            .add(new AgentGraph.Node("slow", in -> Futures.map(upstream, String::trim)).timeout(1).fallback(e -> "late"));
+
+        AgentGraph.Results results = graph.run(AgentGraph.Listener.NONE).get(5, TimeUnit.SECONDS);
+        assertEquals("late", results.get("slow"));
+        // The call behind the node is aborted, not left running
+        assertTrue(upstream.isCancelled());
+    }
+}
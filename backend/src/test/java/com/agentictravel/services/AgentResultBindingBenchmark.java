@@ -0,0 +1,106 @@
+package com.agentictravel.services;
+
+import com.agentictravel.model.Booking;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the three booking answers of one itinerary: a fresh ObjectMapper per response (how
+ * the agents used to do it) against the shared reader, and the shared reader plus what the
+ * coordinator does with each answer: bind its option records once, then build the booking
+ * from them. Run with the profiler to see allocations per operation:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     org.openjdk.jmh.Main AgentResultBindingBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AgentResultBindingBenchmark {
+
+    private String flights;
+    private String hotels;
+    private String transport;
+
+    @Setup
+    public void setUp() {
+        StringBuilder f = new StringBuilder("{\"options\": [");
+        StringBuilder h = new StringBuilder("{\"options\": [");
+        for (int i = 0; i < 5; i++) {
+            String sep = i == 0 ? "" : ",";
+            f.append(sep).append("{\"carrier\": \"Carrier ").append(i).append("\", \"price\": \"").append(300 + i * 45)
+                    .append(" USD\", \"departureTime\": \"2025-06-0").append(i + 1).append("T08:15\", ")
+                    .append("\"arrivalTime\": \"2025-06-0").append(i + 1).append("T11:40\", \"duration\": \"3h 25m\", ")
+                    .append("\"stops\": \"").append(i % 2).append("\", \"pros\": [\"Direct\", \"Good times\"], ")
+                    .append("\"cons\": [\"No meal\"], \"bookingUrl\": \"https://example.com/f/").append(i).append("\"}");
+            h.append(sep).append("{\"name\": \"Hotel ").append(i).append("\", \"pricePerNight\": \"").append(90 + i * 30)
+                    .append(" USD\", \"totalPrice\": \"").append(450 + i * 150).append(" USD\", \"location\": \"Centre\", ")
+                    .append("\"rating\": \"4.").append(i).append("\", \"amenities\": [\"WiFi\", \"Breakfast\", \"Pool\"], ")
+                    .append("\"pros\": [\"Walkable\"], \"cons\": [\"Noisy street\", \"Small rooms\"], ")
+                    .append("\"bookingUrl\": \"https://example.com/h/").append(i).append("\"}");
+        }
+        flights = f.append("], \"summary\": \"Five flights from budget to direct\"}").toString();
+        hotels = h.append("], \"summary\": \"Five hotels across price ranges\"}").toString();
+        transport = """
+            {"carRental": [{"provider": "RentACar Pro", "pricePerDay": "45 USD", "totalPrice": "225 USD",
+              "carType": "Compact", "pros": ["Flexible"], "cons": ["Parking"], "bookingUrl": "https://example.com/c"}],
+             "trainOptions": [{"provider": "Rail Express", "price": "25 USD", "duration": "2h 15m",
+              "route": "City to Coast", "pros": ["Scenic"], "cons": ["Fixed schedule"], "bookingUrl": "https://example.com/t"}],
+             "busOptions": [{"provider": "Coach Co", "price": "12 USD", "duration": "3h", "route": "City to Coast",
+              "pros": ["Cheap"], "cons": ["Slow"], "bookingUrl": "https://example.com/b"}],
+             "summary": "Car, train and bus"}
+            """;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Booking mapperPerResponse() throws Exception {
+        Map<String, Object> f = new ObjectMapper().readValue(flights, Map.class);
+        Map<String, Object> t = new ObjectMapper().readValue(transport, Map.class);
+        Map<String, Object> h = new ObjectMapper().readValue(hotels, Map.class);
+        Booking b = new Booking();
+        b.flights = f;
+        b.transport = t;
+        b.hotels = h;
+        return b;
+    }
+
+    @Benchmark
+    public Booking sharedReader() throws Exception {
+        Booking b = new Booking();
+        b.flights = AgentJson.readMap(flights);
+        b.transport = AgentJson.readMap(transport);
+        b.hotels = AgentJson.readMap(hotels);
+        return b;
+    }
+
+    @Benchmark
+    public Booking sharedReaderWithRecords() throws Exception {
+        return LLMToModelMapper.mapToBooking(SectionResult.flights(AgentJson.readMap(flights)),
+                SectionResult.transport(AgentJson.readMap(transport)), SectionResult.hotels(AgentJson.readMap(hotels)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AgentResultBindingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
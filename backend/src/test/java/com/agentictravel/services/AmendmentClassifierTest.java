@@ -0,0 +1,59 @@
+package com.agentictravel.services;
+
+import com.agentictravel.services.AmendmentClassifier.Section;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AmendmentClassifierTest {
+
+    private final AmendmentClassifier classifier = new AmendmentClassifier();
+
+    @Test
+    public void pacingChangesOnlyNeedThePlanner() {
+        assertTrue(classifier.affectedSections("Make it more relaxing on day 3").isEmpty());
+        assertTrue(classifier.affectedSections("Swap the morning and afternoon on the last day").isEmpty());
+        assertTrue(classifier.affectedSections("").isEmpty());
+        assertTrue(classifier.affectedSections(null).isEmpty());
+    }
+
+    @Test
+    public void namedSectionsAreSearchedAgain() {
+        assertEquals(Set.of(Section.HOTELS), classifier.affectedSections("I'd like a cheaper hotel near the beach"));
+        assertEquals(Set.of(Section.FLIGHTS, Section.EVENTS),
+            classifier.affectedSections("Prefer a nonstop flight and add a museum visit"));
+        assertEquals(Set.of(Section.TRANSPORT), classifier.affectedSections("Use trains instead of a rental"));
+    }
+
+    @Test
+    public void tripChangesAffectEverything() {
+        assertEquals(EnumSet.allOf(Section.class), classifier.affectedSections("Make it 3 days"));
+        assertEquals(EnumSet.allOf(Section.class), classifier.affectedSections("Move the trip to October"));
+        assertEquals(EnumSet.allOf(Section.class), classifier.affectedSections("We are now 4 people"));
+        assertEquals(EnumSet.allOf(Section.class), classifier.affectedSections("Start on May 12 instead"));
+        assertEquals(EnumSet.allOf(Section.class), classifier.affectedSections("Let's go in may"));
+        assertEquals(EnumSet.allOf(Section.class), classifier.affectedSections("My partner is joining us"));
+        assertEquals(EnumSet.allOf(Section.class), classifier.affectedSections("Add two kids to the trip"));
+        assertEquals(EnumSet.allOf(Section.class), classifier.affectedSections("My father now uses a wheelchair"));
+    }
+
+    @Test
+    public void monthsAndPartyWordsOutsideATripChangeAreNotGlobal() {
+        assertTrue(classifier.affectedSections("Suggest family-friendly restaurants").isEmpty());
+        assertTrue(classifier.affectedSections("May we swap the last two evenings?").isEmpty());
+        assertTrue(classifier.affectedSections("Pick a dinner spot my partner would enjoy").isEmpty());
+        assertTrue(classifier.affectedSections("Somewhere my partner's parents can relax in the afternoon").isEmpty());
+        assertEquals(Set.of(Section.EVENTS), classifier.affectedSections("The museum may be closed, pick another one"));
+        assertEquals(Set.of(Section.EVENTS), classifier.affectedSections("Only wheelchair accessible attractions please"));
+        assertEquals(Set.of(Section.EVENTS), classifier.affectedSections("More kids activities in the afternoon"));
+    }
+
+    @Test
+    public void aBudgetChangeAloneAffectsEveryPricedSection() {
+        assertEquals(EnumSet.of(Section.FLIGHTS, Section.HOTELS, Section.TRANSPORT, Section.EVENTS),
+            classifier.affectedSections("Keep it on a tighter budget"));
+    }
+}
@@ -0,0 +1,129 @@
+package com.agentictravel.services;
+
+import com.agentictravel.llm.FakeLLMClient;
+import com.agentictravel.model.DayPlan;
+import com.agentictravel.model.TripRequest;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DayPlanDecoderTest {
+
+    private static final String PLAN = """
+        {
+          "dayPlans": [
+            {"dayNumber": 1, "title": "Arrival", "notes": {"ignored": [1, 2, {"x": "y"}]},
+             "activities": [
+               {"title": "Check in", "time": "15:00", "duration": "1h", "location": "Hotel",
+                "description": "Drop the bags", "category": "Logistics", "cost": 0, "bookingUrl": null},
+               {"title": "Dinner", "time": "19:30", "extra": {"title": "not this one"}}
+             ]},
+            {"dayNumber": "2", "title": "Old town ☕🏰", "activities": []}
+          ],
+          "summary": "Two days"
+        }
+        trailing commentary the model should not have written
+        """;
+
+    @Test
+    public void emitsEachDayAsSoonAsItCloses() throws IOException {
+        List<DayPlan> emitted = new ArrayList<>();
+        DayPlanDecoder decoder = new DayPlanDecoder(emitted::add);
+
+        int endOfDayOne = PLAN.indexOf("{\"dayNumber\": \"2\"");
+        for (int i = 0; i < endOfDayOne; i += 5) {
+            decoder.feed(PLAN.substring(i, Math.min(i + 5, endOfDayOne)));
+        }
+        assertEquals(1, emitted.size());
+        assertEquals("Arrival", emitted.get(0).title);
+
+        decoder.feed(PLAN.substring(endOfDayOne));
+        List<DayPlan> plans = decoder.finish();
+        assertEquals(2, emitted.size());
+        assertEquals(emitted, plans);
+
+        DayPlan first = plans.get(0);
+        assertEquals(1, first.dayNumber);
+        assertEquals(2, first.activities.size());
+        Map<String, Object> checkIn = first.activities.get(0);
+        assertEquals("Check in", checkIn.get("title"));
+        assertEquals("0", checkIn.get("cost"));
+        assertEquals("null", checkIn.get("bookingUrl"));
+        Map<String, Object> dinner = first.activities.get(1);
+        assertEquals("Dinner", dinner.get("title"));
+        assertEquals("", dinner.get("location"));
+        assertEquals(8, dinner.size());
+        assertEquals("19:30", first.activitiesTyped.get(1).time);
+        assertSame(dinner, first.activitiesTyped.get(1).details);
+
+        assertEquals(2, plans.get(1).dayNumber);
+        assertEquals("Old town ☕🏰", plans.get(1).title);
+        assertTrue(plans.get(1).activities.isEmpty());
+    }
+
+    @Test
+    public void decodesTheSameWhateverTheChunking() throws IOException {
+        List<DayPlan> whole = DayPlanDecoder.decode(PLAN);
+        for (int size = 1; size < 12; size++) {
+            DayPlanDecoder decoder = new DayPlanDecoder(plan -> {
+            });
+            for (int i = 0; i < PLAN.length(); i += size) {
+                decoder.feed(PLAN.substring(i, Math.min(i + size, PLAN.length())));
+            }
+            List<DayPlan> chunked = decoder.finish();
+            assertEquals(whole.size(), chunked.size());
+            for (int d = 0; d < whole.size(); d++) {
+                assertEquals(whole.get(d).title, chunked.get(d).title, "chunk size " + size);
+                assertEquals(whole.get(d).activities, chunked.get(d).activities, "chunk size " + size);
+            }
+        }
+    }
+
+    @Test
+    public void oddShapesDecodeLikeTheTreeWalkDid() throws IOException {
+        assertTrue(DayPlanDecoder.decode("").isEmpty());
+        assertTrue(DayPlanDecoder.decode("[1, 2]").isEmpty());
+        assertTrue(DayPlanDecoder.decode("{\"summary\": \"no days\"}").isEmpty());
+
+        List<DayPlan> plans = DayPlanDecoder.decode("{\"dayPlans\": [42, {\"title\": {\"a\": 1}, \"activities\": [\"x\"]}]}");
+        assertEquals(2, plans.size());
+        assertEquals(0, plans.get(0).dayNumber);
+        assertEquals("", plans.get(0).title);
+        assertEquals("", plans.get(1).title);
+        assertEquals("", plans.get(1).activities.get(0).get("title"));
+    }
+
+    @Test
+    public void malformedOrTruncatedAnswersFail() {
+        assertThrows(IOException.class, () -> DayPlanDecoder.decode("Here is your itinerary!"));
+        assertThrows(IOException.class, () -> DayPlanDecoder.decode(PLAN.substring(0, PLAN.indexOf("\"summary\""))));
+    }
+
+    @Test
+    public void plannerStreamsDaysAndFallsBackWhenTheAnswerIsNotJson() throws Exception {
+        TripRequest req = new TripRequest();
+        req.tripTitle = "Streaming";
+        req.days = 2;
+        req.region = "Lisbon";
+        req.people = 1;
+
+        List<Integer> days = new ArrayList<>();
+        ItineraryPlannerAgent planner = new ItineraryPlannerAgent(new FakeLLMClient(PLAN, 16));
+        List<DayPlan> plans = planner.createDayPlans(req, List.of(), List.of(), Map.of(), List.of(), null,
+                plan -> days.add(plan.dayNumber)).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(1, 2), days);
+        assertEquals("Old town ☕🏰", plans.get(1).title);
+
+        ItineraryPlannerAgent confused = new ItineraryPlannerAgent(new FakeLLMClient("Sorry, I cannot help", 4));
+        List<DayPlan> mock = confused.createDayPlans(req, List.of(), List.of(), Map.of(), List.of(), null)
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(2, mock.size());
+        assertEquals("Day 1 Activities", mock.get(0).title);
+    }
+}
@@ -0,0 +1,192 @@
+package com.agentictravel.services;
+
+import com.agentictravel.llm.FakeLLMClient;
+import com.agentictravel.model.Itinerary;
+import com.agentictravel.model.ItineraryJob;
+import com.agentictravel.model.TripRequest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItineraryJobServiceTest {
+
+    private static class MutableClock extends Clock {
+        volatile Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    /**
+     * Coordinator whose generations stay open until the test completes them.
+     */
+    private static class PendingCoordinator extends AgentCoordinator {
+        final List<CompletableFuture<Itinerary>> generations = new CopyOnWriteArrayList<>();
+
+        PendingCoordinator() {
+            super(new FakeLLMClient("ok"));
+        }
+
+        final List<String> threads = new CopyOnWriteArrayList<>();
+
+        @Override
+        public CompletableFuture<Itinerary> generateItinerary(TripRequest request, ItineraryListener listener) {
+            threads.add(Thread.currentThread().getName());
+            listener.onSection("flights", java.util.Map.of());
+            CompletableFuture<Itinerary> generation = new CompletableFuture<>();
+            generations.add(generation);
+            return generation;
+        }
+    }
+
+    private static TripRequest trip(String title) {
+        TripRequest req = new TripRequest();
+        req.tripTitle = title;
+        req.days = 2;
+        req.region = "Nowhere";
+        req.people = 1;
+        return req;
+    }
+
+    private static Itinerary itinerary(String summary) {
+        Itinerary it = new Itinerary();
+        it.summary = summary;
+        return it;
+    }
+
+    private static void awaitGenerations(PendingCoordinator coordinator, int expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coordinator.generations.size() < expected && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(expected, coordinator.generations.size());
+    }
+
+    @Test
+    public void queuesBehindRunningJobsAndRefusesWhenFull() {
+        PendingCoordinator coordinator = new PendingCoordinator();
+        ItineraryJobService service = new ItineraryJobService(coordinator, 1, 1,
+            Duration.ofMinutes(10), Duration.ofSeconds(30), new MutableClock());
+
+        ItineraryJob first = service.submit(trip("first"));
+        ItineraryJob second = service.submit(trip("second"));
+        assertEquals(ItineraryJob.Status.RUNNING, first.status);
+        assertEquals(ItineraryJob.Status.QUEUED, second.status);
+        assertThrows(JobQueueFullException.class, () -> service.submit(trip("third")));
+        assertEquals(1, coordinator.generations.size());
+
+        coordinator.generations.get(0).complete(itinerary("first done"));
+        awaitGenerations(coordinator, 2);
+        ItineraryJob finished = service.get(first.id).orElseThrow();
+        assertEquals(ItineraryJob.Status.SUCCEEDED, finished.status);
+        assertEquals("first done", finished.itinerary.summary);
+        assertEquals(List.of("flights"), finished.completedSections);
+
+        // The freed slot went to the queued job, and there is room to queue again
+        assertEquals(ItineraryJob.Status.RUNNING, service.get(second.id).orElseThrow().status);
+        assertEquals(2, coordinator.generations.size());
+        assertEquals(ItineraryJob.Status.QUEUED, service.submit(trip("third")).status);
+    }
+
+    @Test
+    public void longPollReturnsOnCompletionOrWhenTheWaitRunsOut() throws Exception {
+        PendingCoordinator coordinator = new PendingCoordinator();
+        ItineraryJobService service = new ItineraryJobService(coordinator, 2, 0,
+            Duration.ofMinutes(10), Duration.ofSeconds(30), new MutableClock());
+        ItineraryJob job = service.submit(trip("poll"));
+
+        long start = System.nanoTime();
+        Optional<ItineraryJob> stillRunning = service.await(job.id, Duration.ofMillis(200)).get(5, TimeUnit.SECONDS);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+        assertEquals(ItineraryJob.Status.RUNNING, stillRunning.orElseThrow().status);
+
+        CompletableFuture<Optional<ItineraryJob>> poll = service.await(job.id, Duration.ofSeconds(20));
+        assertFalse(poll.isDone());
+        coordinator.generations.get(0).completeExceptionally(new IllegalStateException("boom"));
+        ItineraryJob failed = poll.get(1, TimeUnit.SECONDS).orElseThrow();
+        assertEquals(ItineraryJob.Status.FAILED, failed.status);
+        assertNotNull(failed.error);
+
+        assertTrue(service.await("no-such-job", Duration.ofSeconds(1)).get().isEmpty());
+    }
+
+    @Test
+    public void finishedJobsAreEvictedAfterTheirTtl() {
+        PendingCoordinator coordinator = new PendingCoordinator();
+        MutableClock clock = new MutableClock();
+        ItineraryJobService service = new ItineraryJobService(coordinator, 2, 0,
+            Duration.ofMinutes(10), Duration.ofSeconds(30), clock);
+        ItineraryJob done = service.submit(trip("done"));
+        ItineraryJob running = service.submit(trip("running"));
+        coordinator.generations.get(0).complete(itinerary("done"));
+
+        clock.now = clock.now.plus(Duration.ofMinutes(9));
+        assertTrue(service.get(done.id).isPresent());
+
+        clock.now = clock.now.plus(Duration.ofMinutes(2));
+        assertTrue(service.get(done.id).isEmpty());
+        // Unfinished jobs are never evicted
+        assertTrue(service.get(running.id).isPresent());
+    }
+
+    @Test
+    public void aQueuedJobStartsOnTheServiceThreadNotOnTheOneThatFinishedTheLastJob() throws Exception {
+        PendingCoordinator coordinator = new PendingCoordinator();
+        ItineraryJobService service = new ItineraryJobService(coordinator, 1, 1,
+            Duration.ofMinutes(10), Duration.ofSeconds(30), new MutableClock());
+        service.submit(trip("first"));
+        ItineraryJob second = service.submit(trip("second"));
+
+        Thread agent = new Thread(() -> coordinator.generations.get(0).complete(itinerary("first done")), "agent-thread");
+        agent.start();
+        agent.join();
+        awaitGenerations(coordinator, 2);
+
+        assertEquals("itinerary-jobs", coordinator.threads.get(1));
+        assertEquals(ItineraryJob.Status.RUNNING, service.get(second.id).orElseThrow().status);
+        service.shutdown();
+    }
+
+    @Test
+    public void finishedJobsAreSweptWithoutWaitingForTheNextRequest() throws Exception {
+        PendingCoordinator coordinator = new PendingCoordinator();
+        MutableClock clock = new MutableClock();
+        ItineraryJobService service = new ItineraryJobService(coordinator, 2, 0,
+            Duration.ofSeconds(1), Duration.ofSeconds(30), clock);
+        service.submit(trip("done"));
+        service.submit(trip("running"));
+        coordinator.generations.get(0).complete(itinerary("done"));
+        clock.now = clock.now.plus(Duration.ofSeconds(2));
+
+        // Nothing calls the service; the sweep alone drops the expired job
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.size() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, service.size());
+        service.shutdown();
+    }
+}
@@ -0,0 +1,117 @@
+package com.agentictravel.services;
+
+import com.agentictravel.llm.FakeLLMClient;
+import com.agentictravel.model.DayPlan;
+import com.agentictravel.model.Itinerary;
+import com.agentictravel.model.TripRequest;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonRepairTest {
+
+    @Test
+    public void wellFormedAnswersAreLeftAlone() throws IOException {
+        Map<String, Object> map = JsonRepair.readMap("{\"a\": [1, 2]} trailing words Jackson ignores anyway");
+        assertFalse(map instanceof JsonRepair.Repaired);
+        assertNull(JsonRepair.repair("{\"a\": 1}"));
+        assertNull(JsonRepair.repair("I cannot help with that"));
+        assertThrows(IOException.class, () -> JsonRepair.readMap("I cannot help with that"));
+        // Nothing this repair knows about: the original error is reported
+        assertThrows(IOException.class, () -> JsonRepair.readMap("{'single': 'quotes'}"));
+    }
+
+    @Test
+    public void fencesProseAndTrailingCommasAreRemoved() throws IOException {
+        Map<String, Object> map = JsonRepair.readMap("""
+            Here are your flights:
+            ```json
+            {"options": [{"carrier": "A", "pros": ["cheap", ],}, ], "summary": "one, two,}"}
+            ```
+            Let me know if you need anything else!""");
+        JsonRepair.Repaired repaired = assertInstanceOf(JsonRepair.Repaired.class, map);
+        assertEquals(List.of("removed code fence", "removed trailing comma"), repaired.repairs());
+        assertEquals("one, two,}", map.get("summary"));
+        assertEquals(List.of(Map.of("carrier", "A", "pros", List.of("cheap"))), map.get("options"));
+
+        assertEquals(List.of("skipped text before the JSON", "ignored text after the JSON"),
+                JsonRepair.repair("Sure! {\"a\": 1} Enjoy").fixes());
+    }
+
+    @Test
+    public void truncatedAnswersKeepTheirLongestValidPrefix() throws IOException {
+        assertRepairs("{\"a\": [1, 2", "{\"a\": [1, 2]}");
+        assertRepairs("{\"a\": {\"b\": \"half a sent", "{\"a\": {\"b\": \"half a sent\"}}");
+        assertRepairs("{\"a\": 1, \"b\": tr", "{\"a\": 1}");
+        assertRepairs("{\"a\": 1, \"b\": 2.", "{\"a\": 1}");
+        assertRepairs("{\"a\": 1, \"bee", "{\"a\": 1}");
+        assertRepairs("{\"a\": 1, \"b\":", "{\"a\": 1}");
+        assertRepairs("{\"a\": [{\"x\": 1}, {\"y\"", "{\"a\": [{\"x\": 1}, {}]}");
+        assertRepairs("{\"a\": \"caf\\u00", "{\"a\": \"caf\"}");
+        assertRepairs("{\"a\": \"quote \\", "{\"a\": \"quote \"}");
+        assertRepairs("{\"a\": \"x\", \"n\": -12", "{\"a\": \"x\", \"n\": -12}");
+
+        JsonRepair.Result result = JsonRepair.repair("{\"a\": [1, {\"b\": nul");
+        assertEquals("{\"a\": [1, {}]}", result.json());
+        assertEquals(List.of("closed 3 unterminated structures of a truncated answer, dropping its incomplete last value"),
+                result.fixes());
+    }
+
+    @Test
+    public void plannerRecoversTheDaysOfATruncatedAnswer() throws Exception {
+        String truncated = "```json\n{\"dayPlans\": [{\"dayNumber\": 1, \"title\": \"Arrival\", \"activities\": []},"
+                + " {\"dayNumber\": 2, \"title\": \"Old town\", \"activities\": [{\"title\": \"Walk\", \"time\": \"10:";
+        List<Integer> emitted = new ArrayList<>();
+        ItineraryPlannerAgent planner = new ItineraryPlannerAgent(new FakeLLMClient(truncated, 7));
+        List<DayPlan> plans = planner.createDayPlans(request(), List.of(), List.of(), Map.of(), List.of(), null,
+                plan -> emitted.add(plan.dayNumber)).get(5, TimeUnit.SECONDS);
+
+        assertInstanceOf(JsonRepair.Repaired.class, plans);
+        assertEquals(List.of(1, 2), emitted);
+        assertEquals("Old town", plans.get(1).title);
+        assertEquals("10:", plans.get(1).activities.get(0).get("time"));
+    }
+
+    @Test
+    public void repairsAreReportedInNotesParsingErrors() throws Exception {
+        String answer = "```json\n{\"options\": [{\"carrier\": \"Fixed Air\", \"name\": \"Fixed Inn\",},],"
+                + " \"forecastSummary\": \"Sunny\"}\n```";
+        Itinerary itinerary = new AgentCoordinator(new FakeLLMClient(answer)).generateItinerary(request())
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals("Fixed Air", itinerary.bookings.flightsTyped.carrier);
+        assertEquals("Fixed Air", itinerary.bookings.flightOptions.get(0).carrier());
+        assertEquals("Sunny", itinerary.weather.get("forecastSummary"));
+        assertEquals("Sunny", itinerary.weatherTyped.forecastSummary());
+        assertTrue(itinerary.notesParsingErrors.contains(
+                AgentCoordinator.REPAIRED_SECTION + "flights (removed code fence; removed trailing comma)"),
+                itinerary.notesParsingErrors.toString());
+        assertTrue(itinerary.notesParsingErrors.contains(
+                AgentCoordinator.REPAIRED_SECTION + "weather (removed code fence; removed trailing comma)"));
+        // No events in the answer and no days to plan: nothing repaired there
+        assertTrue(itinerary.notesParsingErrors.stream().noneMatch(note -> note.contains("events")
+                || note.contains("dayPlans")));
+    }
+
+    private static void assertRepairs(String truncated, String expected) throws IOException {
+        JsonRepair.Result result = JsonRepair.repair(truncated);
+        assertNotNull(result, truncated);
+        assertEquals(expected, result.json());
+        assertEquals(AgentJson.readMap(expected), JsonRepair.readMap(truncated));
+    }
+
+    private static TripRequest request() {
+        TripRequest req = new TripRequest();
+        req.tripTitle = "Repair";
+        req.days = 2;
+        req.region = "Lisbon";
+        req.people = 1;
+        return req;
+    }
+}
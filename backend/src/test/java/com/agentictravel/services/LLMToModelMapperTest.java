@@ -1,7 +1,12 @@
 package com.agentictravel.services;
 
+import com.agentictravel.model.FlightOption;
+import com.agentictravel.model.HotelOption;
+import com.agentictravel.model.TransportOption;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -12,21 +17,118 @@ public class LLMToModelMapperTest {
         Map<String,Object> flights = Map.of();
         Map<String,Object> transport = Map.of();
         Map<String,Object> hotels = Map.of();
-        var b = LLMToModelMapper.mapToBooking(flights, transport, hotels);
+        var b = LLMToModelMapper.mapToBooking(SectionResult.flights(flights), SectionResult.transport(transport),
+                SectionResult.hotels(hotels));
         assertNotNull(b);
         assertNull(b.flightsTyped);
         assertNull(b.transportTyped);
         assertNull(b.hotelsTyped);
+
+        var none = LLMToModelMapper.mapToBooking(null, null, null);
+        assertEquals(Map.of(), none.flights);
+        assertEquals(List.of(), none.flightOptions);
+        assertEquals(Map.of(), none.transportOptions);
     }
 
     @Test
     public void unparsableNotesHandledGracefully(){
         Map<String,Object> flights = Map.of("recommended", Map.of("carrier","X","price","100","notes","{ not valid json"));
-        var b = LLMToModelMapper.mapToBooking(flights, Map.of(), Map.of());
-        // notes_parsed won't exist; typed flight may still be present but notes null
-        if(b.flightsTyped!=null){
-            assertNull(b.flightsTyped.notes);
-        }
+        var b = LLMToModelMapper.mapToBooking(SectionResult.flights(flights), null, null);
+        assertEquals("X", b.flightsTyped.carrier);
+        assertNull(b.flightsTyped.notes);
+    }
+
+    @Test
+    public void optionsBindToTypedRecords() throws Exception {
+        Map<String,Object> flights = AgentJson.readMap("""
+            {"options": [{"carrier": "Lufthansa", "price": 412, "stops": 0, "pros": "Direct", "seat": "14A",
+                          "notes": "{\\"meal\\": \\"veg\\"}"},
+                         {"carrier": "Ryanair", "price": "120 USD", "cons": ["Bags extra"]}],
+             "summary": "Two flights"}
+            """);
+        Map<String,Object> hotels = Map.of("recommended", Map.of("name", "Luxury Resort", "pricePerNight", "250 USD",
+                        "notes", Map.of("view", "sea")),
+                "alternatives", List.of(Map.of("name", "Budget Inn", "pricePerNight", "80 USD")));
+        Map<String,Object> transport = Map.of("trainOptions", List.of(Map.of("provider", "Rail Express", "price", "25 USD")),
+                "carRental", List.of(Map.of("provider", "RentACar", "pricePerDay", "45 USD", "carType", "Compact")));
+
+        SectionResult<List<FlightOption>> boundFlights = SectionResult.flights(flights);
+        SectionResult<List<HotelOption>> boundHotels = SectionResult.hotels(hotels);
+        SectionResult<Map<String, List<TransportOption>>> boundTransport = SectionResult.transport(transport);
+
+        List<FlightOption> flightOptions = boundFlights.records();
+        assertEquals(2, flightOptions.size());
+        assertEquals("412", flightOptions.get(0).price());
+        assertEquals("0", flightOptions.get(0).stops());
+        assertEquals(List.of("Direct"), flightOptions.get(0).pros());
+        assertEquals(List.of("Bags extra"), flightOptions.get(1).cons());
+
+        List<HotelOption> hotelOptions = boundHotels.records();
+        assertEquals(List.of("Luxury Resort", "Budget Inn"), hotelOptions.stream().map(HotelOption::name).toList());
+
+        // Car rentals come first, whatever order the agent wrote them in
+        Map<String, List<TransportOption>> transportOptions = boundTransport.records();
+        assertEquals(List.of("carRental", "trainOptions"), List.copyOf(transportOptions.keySet()));
+        assertEquals("Compact", transportOptions.get("carRental").get(0).carType());
+        assertEquals("25 USD", transportOptions.get("trainOptions").get(0).price());
+
+        // The booking carries the records bound above rather than binding its own
+        var b = LLMToModelMapper.mapToBooking(boundFlights, boundTransport, boundHotels);
+        assertSame(flightOptions, b.flightOptions);
+        assertSame(hotelOptions, b.hotelOptions);
+        assertSame(transportOptions, b.transportOptions);
+        assertSame(flights, b.flights);
+        assertEquals("Lufthansa", b.flightsTyped.carrier);
+        assertEquals("412", b.flightsTyped.price);
+        assertEquals(Map.of("meal", "veg"), b.flightsTyped.notes);
+        assertEquals("250 USD", b.hotelsTyped.price);
+        assertEquals(Map.of("view", "sea"), b.hotelsTyped.notes);
+        assertEquals("RentACar", b.transportTyped.provider);
+        assertEquals("45 USD", b.transportTyped.price);
+    }
+
+    @Test
+    public void eventsAndWeatherBindWhereTheyCan(){
+        var events = LLMToModelMapper.mapToEventOptions(List.of(
+                Map.of("name", "Museum", "date", "2025-01-15", "price", 15),
+                Map.of("name", Map.of("nested", "nonsense"))));
+        assertEquals(1, events.size());
+        assertEquals("15", events.get(0).price());
+
+        var weather = LLMToModelMapper.mapToWeatherForecast(Map.of("forecastSummary", "Mild",
+                "dailyForecast", List.of(Map.of("date", "2025-01-15", "high", "22°C", "recommendations", List.of("Hat"))),
+                "packingSuggestions", List.of("Umbrella")));
+        assertEquals("Mild", weather.forecastSummary());
+        assertEquals("22°C", weather.dailyForecast().get(0).high());
+        assertEquals(List.of("Umbrella"), weather.packingSuggestions());
+        assertNull(LLMToModelMapper.mapToWeatherForecast(Map.of()));
+    }
+
+    @Test
+    public void notesAreParsedOnlyWhenSerialized() throws Exception {
+        Map<String,Object> flights = AgentJson.readMap("""
+            {"options": [{"carrier": "A", "notes": " {\\"seat\\": \\"aisle\\"}"},
+                         {"carrier": "B", "notes": "[1, 2", "extras": [[{"notes": "{\\"deep\\": true}"}]]},
+                         {"carrier": "C", "notes": "plain text"}]}
+            """);
+        var b = LLMToModelMapper.mapToBooking(SectionResult.flights(flights), null, null);
+
+        @SuppressWarnings("unchecked")
+        List<Map<String,Object>> options = (List<Map<String,Object>>) b.flights.get("options");
+        LazyJson valid = (LazyJson) options.get(0).get("notes_parsed");
+        assertFalse(options.get(1).containsKey("notes_parsed"));
+        assertFalse(options.get(2).containsKey("notes_parsed"));
+
+        String json = new ObjectMapper().writeValueAsString(b.flights);
+        Map<String,Object> roundTrip = AgentJson.readMap(json);
+        @SuppressWarnings("unchecked")
+        List<Map<String,Object>> written = (List<Map<String,Object>>) roundTrip.get("options");
+        assertEquals(Map.of("seat", "aisle"), written.get(0).get("notes_parsed"));
+        assertFalse(written.get(1).containsKey("notes_parsed"));
+        assertEquals(" {\"seat\": \"aisle\"}", written.get(0).get("notes"));
+        assertSame(valid.value(), valid.value());
+        assertTrue(json.contains("{\"deep\":true}"));
+        assertEquals(Map.of(), LLMToModelMapper.mapToWeather(null));
     }
 
     @Test
@@ -0,0 +1,154 @@
+package com.agentictravel.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The notes pass over one itinerary's agent results (flights and hotels with five options
+ * each, all carrying JSON notes, plus transport and weather): the recursive eager version the
+ * mapper used to run against the single-pass lazy one, with and without serializing the
+ * result afterwards. Every operation parses the answers first, since both passes modify the
+ * maps; {@code parseOnly} measures that share. Run as AgentResultBindingBenchmark describes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotesMappingBenchmark {
+
+    private final ObjectMapper writer = new ObjectMapper();
+    private List<String> answers;
+
+    @Setup
+    public void setUp() {
+        StringBuilder f = new StringBuilder("{\"options\": [");
+        StringBuilder h = new StringBuilder("{\"options\": [");
+        for (int i = 0; i < 5; i++) {
+            String sep = i == 0 ? "" : ",";
+            f.append(sep).append("{\"carrier\": \"Carrier ").append(i).append("\", \"price\": \"").append(300 + i * 45)
+                    .append(" USD\", \"duration\": \"3h 25m\", \"stops\": \"").append(i % 2).append("\", ")
+                    .append("\"pros\": [\"Direct\", \"Good times\"], \"cons\": [\"No meal\"], ")
+                    .append("\"notes\": \"{\\\"baggage\\\": \\\"23kg\\\", \\\"seat\\\": \\\"aisle\\\", \\\"fareClass\\\": \\\"")
+                    .append((char) ('K' + i)).append("\\\", \\\"refundable\\\": ").append(i % 2 == 0).append("}\", ")
+                    .append("\"bookingUrl\": \"https://example.com/f/").append(i).append("\"}");
+            h.append(sep).append("{\"name\": \"Hotel ").append(i).append("\", \"pricePerNight\": \"").append(90 + i * 30)
+                    .append(" USD\", \"location\": \"Centre\", \"rating\": \"4.").append(i).append("\", ")
+                    .append("\"amenities\": [\"WiFi\", \"Breakfast\", \"Pool\"], \"pros\": [\"Walkable\"], ")
+                    .append("\"notes\": \"[\\\"Late check-in until 23:00\\\", \\\"City tax 3 EUR per night\\\"]\", ")
+                    .append("\"bookingUrl\": \"https://example.com/h/").append(i).append("\"}");
+        }
+        String transport = """
+            {"carRental": [{"provider": "RentACar Pro", "pricePerDay": "45 USD", "carType": "Compact",
+              "notes": "Unlimited mileage", "pros": ["Flexible"], "cons": ["Parking"]}],
+             "trainOptions": [{"provider": "Rail Express", "price": "25 USD", "duration": "2h 15m",
+              "notes": "{\\"class\\": \\"second\\", \\"reservation\\": false}"}],
+             "summary": "Car and train"}
+            """;
+        String weather = """
+            {"forecastSummary": "Mild", "dailyForecast": [
+              {"date": "2025-06-01", "high": "22", "low": "12", "recommendations": ["Hat", "Sunscreen"]},
+              {"date": "2025-06-02", "high": "24", "low": "13", "recommendations": ["Light jacket"]}],
+             "packingSuggestions": ["Umbrella", "Walking shoes"]}
+            """;
+        answers = List.of(f.append("]}").toString(), h.append("]}").toString(), transport, weather);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> parseOnly() throws Exception {
+        return parse();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> eagerRecursive() throws Exception {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Map<String, Object> section : parse()) {
+            out.add(legacySafeCopyMap(section));
+        }
+        return out;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> lazySinglePass() throws Exception {
+        List<Map<String, Object>> sections = parse();
+        for (Map<String, Object> section : sections) {
+            LLMToModelMapper.attachParsedNotes(section);
+        }
+        return sections;
+    }
+
+    @Benchmark
+    public String eagerRecursiveThenSerialize() throws Exception {
+        return writer.writeValueAsString(eagerRecursive());
+    }
+
+    @Benchmark
+    public String lazySinglePassThenSerialize() throws Exception {
+        return writer.writeValueAsString(lazySinglePass());
+    }
+
+    private List<Map<String, Object>> parse() throws Exception {
+        List<Map<String, Object>> sections = new ArrayList<>(answers.size());
+        for (String answer : answers) {
+            sections.add(AgentJson.readMap(answer));
+        }
+        return sections;
+    }
+
+    // The mapper's notes handling before the single-pass rewrite, kept as the baseline
+
+    private static Map<String, Object> legacySafeCopyMap(Map<String, Object> m) {
+        Map<String, Object> out = new HashMap<>(m);
+        legacyProcessNestedForNotes(out);
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void legacyProcessNestedForNotes(Map<String, Object> map) {
+        ObjectMapper om = new ObjectMapper();
+        for (Map.Entry<String, Object> e : new ArrayList<>(map.entrySet())) {
+            Object val = e.getValue();
+            if (val instanceof Map) {
+                legacyProcessNestedForNotes((Map<String, Object>) val);
+            } else if (val instanceof List) {
+                for (Object item : (List<?>) val) {
+                    if (item instanceof Map) {
+                        legacyProcessNestedForNotes((Map<String, Object>) item);
+                    }
+                }
+            } else if ("notes".equalsIgnoreCase(e.getKey()) && val instanceof String) {
+                String s = ((String) val).trim();
+                if (s.startsWith("{") || s.startsWith("[")) {
+                    try {
+                        map.put("notes_parsed", om.readValue(s, Object.class));
+                    } catch (Exception ex) {
+                        // left unparsed
+                    }
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(NotesMappingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,92 @@
+package com.agentictravel.services;
+
+import com.agentictravel.llm.TokenCounter;
+import com.agentictravel.model.HotelOption;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlannerContextTest {
+
+    private final PlannerContext context = new PlannerContext(2, 3);
+
+    @Test
+    public void writesOneLinePerOptionWithThePlanningFieldsOnly() throws IOException {
+        Map<String, Object> flights = AgentJson.readMap("""
+            {"options": [
+              {"carrier": "Lufthansa", "price": "412 USD", "departureTime": "08:15", "arrivalTime": "11:40",
+               "duration": "3h 25m", "stops": 0, "pros": ["Direct"], "cons": ["No meal"], "bookingUrl": "https://x"},
+              {"carrier": "Ryanair", "price": "120 USD", "departureTime": "06:00"},
+              {"carrier": "Third", "price": "999 USD"}],
+             "summary": "Three flights"}
+            """);
+        assertEquals("\n  Lufthansa | 412 USD | 08:15 to 11:40 | 3h 25m | 0 stops\n  Ryanair | 120 USD | 06:00",
+                context.flights(SectionResult.flights(flights).records()));
+
+        Map<String, Object> transport = Map.of(
+                "trainOptions", List.of(Map.of("provider", "Rail Express", "price", "25 USD", "route", "A to B")),
+                "carRental", List.of(Map.of("provider", "RentACar", "pricePerDay", "45 USD", "carType", "Compact")));
+        assertEquals("\n  car RentACar | Compact | 45 USD/day\n  train Rail Express | 25 USD | A to B",
+                context.transport(SectionResult.transport(transport).records()));
+
+        assertEquals("\n  Luxury Resort | 250 USD/night", context.hotels(SectionResult.hotels(Map.of(
+                "recommended", Map.of("name", "Luxury Resort", "pricePerNight", "250 USD", "notes", "Fallback"))).records()));
+
+        Map<String, Object> weather = Map.of("forecastSummary", "Mild", "packingSuggestions", List.of("Umbrella"),
+                "dailyForecast", List.of(
+                        Map.of("date", "2025-01-15", "high", "22°C", "low", "12°C", "condition", "Cloudy",
+                                "precipitation", "10%", "recommendations", List.of("Hat")),
+                        Map.of("date", "2025-01-16", "high", "20°C")));
+        assertEquals("\n  Mild\n  2025-01-15 | 22°C/12°C | Cloudy | rain 10%", context.weather(SectionResult.weather(weather).records(), 1));
+    }
+
+    @Test
+    public void emptyOrUnrecognisedSectionsReadNone() {
+        assertEquals("None", context.flights(null));
+        assertEquals("None", context.flights(SectionResult.flights(Map.of("summary", "nothing found")).records()));
+        assertEquals("None", context.events(null));
+        assertEquals("None", context.weather(SectionResult.weather(Map.of()).records(), 3));
+        assertEquals("None", context.section("events", SectionResult.bind("events", Map.of("not", "a list")).records(), 3));
+        assertEquals("None", context.section("weather", List.of(), 3));
+        List<HotelOption> hotels = SectionResult.hotels(Map.of("options", List.of(Map.of("name", "H")))).records();
+        assertEquals("\n  H", context.hotels(hotels));
+        assertEquals(context.hotels(hotels), context.section("hotels", hotels, 3));
+    }
+
+    @Test
+    public void promptContextIsAFractionOfTheRawMaps() {
+        List<Map<String, Object>> flightOptions = new ArrayList<>();
+        List<Map<String, Object>> hotelOptions = new ArrayList<>();
+        List<Map<String, Object>> events = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            flightOptions.add(Map.of("carrier", "Carrier " + i, "price", (300 + i) + " USD", "departureTime", "08:1" + i,
+                    "arrivalTime", "11:4" + i, "duration", "3h 25m", "stops", "1",
+                    "pros", List.of("Good schedule", "Extra legroom"), "cons", List.of("Long layover in a busy hub"),
+                    "bookingUrl", "https://example.com/flights/book?option=" + i + "&session=abcdef0123456789"));
+            hotelOptions.add(Map.of("name", "Hotel " + i, "pricePerNight", (90 + i) + " USD", "totalPrice", "450 USD",
+                    "location", "Old town", "rating", "4." + i, "amenities", List.of("WiFi", "Breakfast", "Pool", "Gym"),
+                    "pros", List.of("Central"), "cons", List.of("Street noise at night"),
+                    "bookingUrl", "https://example.com/hotels/book?option=" + i + "&session=abcdef0123456789"));
+        }
+        for (int i = 0; i < 10; i++) {
+            events.add(Map.of("name", "Event " + i, "date", "2025-01-1" + i, "time", "10:00", "location", "Centre",
+                    "description", "A guided visit with plenty of local history and a tasting at the end",
+                    "category", "Culture", "price", "15 USD", "duration", "2h", "bookingUrl", "https://example.com/e/" + i));
+        }
+        Map<String, Object> flights = Map.of("options", flightOptions, "summary", "Five flights from budget to direct");
+        Map<String, Object> hotels = Map.of("options", hotelOptions, "summary", "Five hotels across price ranges");
+
+        PlannerContext defaults = new PlannerContext(PlannerContext.DEFAULT_OPTIONS, PlannerContext.DEFAULT_EVENTS);
+        int raw = TokenCounter.count(flights.toString()) + TokenCounter.count(hotels.toString())
+                + TokenCounter.count(events.toString());
+        int compact = TokenCounter.count(defaults.flights(SectionResult.flights(flights).records()))
+                + TokenCounter.count(defaults.hotels(SectionResult.hotels(hotels).records()))
+                + TokenCounter.count(defaults.events(SectionResult.events(events).records()));
+        assertTrue(compact * 4 < raw, "compact " + compact + " vs raw " + raw + " tokens");
+    }
+}
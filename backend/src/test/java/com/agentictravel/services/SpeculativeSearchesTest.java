@@ -0,0 +1,114 @@
+package com.agentictravel.services;
+
+import com.agentictravel.config.AgentConfig;
+import com.agentictravel.llm.FakeLLMClient;
+import com.agentictravel.llm.LLMClient;
+import com.agentictravel.model.TripRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpeculativeSearchesTest {
+
+    @Test
+    public void attachesOnlyToASearchWithTheSameFingerprint() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SpeculativeSearches speculation = new SpeculativeSearches(Duration.ofMinutes(5), 10, registry);
+        CompletableFuture<String> speculative = new CompletableFuture<>();
+        AtomicInteger fresh = new AtomicInteger();
+
+        speculation.start("weather", "region=Lisbon", () -> speculative);
+        speculation.start("weather", "region=Lisbon", () -> fail("already running"));
+
+        CompletableFuture<String> other = speculation.attach("weather", "region=Porto", () -> {
+            fresh.incrementAndGet();
+            return CompletableFuture.completedFuture("porto");
+        });
+        assertEquals("porto", other.join());
+
+        CompletableFuture<String> attached = speculation.attach("weather", "region=Lisbon", () -> {
+            fresh.incrementAndGet();
+            return CompletableFuture.completedFuture("fresh");
+        });
+        assertFalse(attached.isDone());
+        speculative.complete("sunny");
+        assertEquals("sunny", attached.join());
+        assertEquals(1, fresh.get());
+        assertEquals(0, speculation.size());
+        assertEquals(1.0, registry.get("agent.speculative.searches").tag("outcome", "hit").counter().count());
+        assertEquals(1.0, registry.get("agent.speculative.searches").tag("outcome", "miss").counter().count());
+    }
+
+    @Test
+    public void aFailedSpeculativeSearchIsRunAgain() {
+        SpeculativeSearches speculation = new SpeculativeSearches(Duration.ofMinutes(5), 10, null);
+        CompletableFuture<String> speculative = new CompletableFuture<>();
+        speculation.start("events", "f", () -> speculative);
+
+        CompletableFuture<String> attached = speculation.attach("events", "f",
+            () -> CompletableFuture.completedFuture("retried"));
+        speculative.completeExceptionally(new IllegalStateException("upstream 503"));
+        assertEquals("retried", attached.join());
+    }
+
+    @Test
+    public void unusedSearchesExpireAndAreCancelled() {
+        AtomicLong clock = new AtomicLong();
+        SpeculativeSearches speculation = new SpeculativeSearches(Duration.ofMinutes(5), 1, null, clock::get);
+        CompletableFuture<String> speculative = new CompletableFuture<>();
+        speculation.start("flights", "f", () -> speculative);
+        // At capacity: no further speculation
+        speculation.start("hotels", "f", () -> fail("over capacity"));
+
+        clock.addAndGet(Duration.ofMinutes(6).toNanos());
+        assertEquals("fresh", speculation.attach("flights", "f",
+            () -> CompletableFuture.completedFuture("fresh")).join());
+        assertTrue(speculative.isCancelled());
+    }
+
+    @Test
+    public void itineraryReusesSearchesStartedDuringQuestions() throws Exception {
+        FakeLLMClient fake = new FakeLLMClient("OK");
+        List<String> prompts = new CopyOnWriteArrayList<>();
+        LLMClient counting = new LLMClient() {
+            @Override
+            public String getName() {
+                return "counting";
+            }
+
+            @Override
+            public CompletableFuture<String> prompt(String prompt, String modelName) {
+                prompts.add(prompt);
+                return fake.prompt(prompt, modelName);
+            }
+        };
+        AgentConfig config = new AgentConfig();
+        config.getSpeculativeSearch().setEnabled(true);
+        AgentCoordinator coordinator = new AgentCoordinator(counting, config);
+
+        TripRequest req = new TripRequest();
+        req.tripTitle = "Speculate";
+        req.days = 3;
+        req.region = "Lisbon";
+        req.people = 2;
+
+        coordinator.generateQuestions(req).get(5, TimeUnit.SECONDS);
+        // Answers that change nothing the searches depend on
+        req.notes = "We like food markets";
+        coordinator.generateItinerary(req).get(5, TimeUnit.SECONDS);
+
+        // questions, four speculative searches, transport and the planner: nothing searched twice
+        assertEquals(7, prompts.size());
+        assertEquals(1, prompts.stream().filter(p -> p.contains("flight search assistant")).count());
+        assertEquals(1, prompts.stream().filter(p -> p.contains("weather assistant")).count());
+    }
+}